@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.benchmark.concurrent;
+
+import io.servicetalk.concurrent.api.Executor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import static io.servicetalk.concurrent.api.Executors.newCachedThreadExecutor;
+import static io.servicetalk.concurrent.api.Executors.newVirtualThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Measures how long it takes to run {@link #concurrency} tasks which block for {@link #BLOCK_MILLIS} concurrently, as
+ * a blocking service handler offloaded for each request does when it sleeps or waits for I/O. Ideally the score stays
+ * close to {@link #BLOCK_MILLIS} as concurrency grows.
+ * <p>
+ * {@code cached} uses {@link io.servicetalk.concurrent.api.Executors#newCachedThreadExecutor()} which creates a
+ * platform thread per concurrent task, {@code virtual} uses
+ * {@link io.servicetalk.concurrent.api.Executors#newVirtualThreadExecutor()}, which needs a JDK with virtual threads
+ * to differ from {@code cached}.
+ */
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+public class BlockingTaskConcurrencyBenchmark {
+
+    private static final int BLOCK_MILLIS = 10;
+
+    @Param({"cached", "virtual"})
+    public String executorType;
+
+    @Param({"100", "1000", "10000"})
+    public int concurrency;
+
+    private Executor executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = "virtual".equals(executorType) ? newVirtualThreadExecutor() : newCachedThreadExecutor();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws ExecutionException, InterruptedException {
+        executor.closeAsync().toFuture().get();
+    }
+
+    @Benchmark
+    public void blockingTasks() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(BLOCK_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+}
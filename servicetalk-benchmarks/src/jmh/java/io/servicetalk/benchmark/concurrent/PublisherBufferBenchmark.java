@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.benchmark.concurrent;
+
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Publisher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+
+import static io.servicetalk.concurrent.api.Executors.newCachedThreadExecutor;
+import static io.servicetalk.concurrent.api.Publisher.from;
+
+/**
+ * Measures the per item overhead of {@link Publisher#buffer(int, Duration, Executor)} compared to consuming the same
+ * items without batching. Each invocation emits {@link #ITEMS} items synchronously, so the score is per item.
+ * <p>
+ * The duration is long enough to never elapse, so the cost includes scheduling and cancelling one timer per batch.
+ */
+@Fork(value = 1)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.Throughput)
+public class PublisherBufferBenchmark {
+
+    private static final int ITEMS = 1024;
+
+    @Param({"1", "16", "256"})
+    public int maxItems;
+
+    private Executor timerExecutor;
+    private Publisher<Integer> source;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        timerExecutor = newCachedThreadExecutor();
+        final Integer[] items = new Integer[ITEMS];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = i;
+        }
+        source = from(items);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws ExecutionException, InterruptedException {
+        timerExecutor.closeAsync().toFuture().get();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void baseline() throws ExecutionException, InterruptedException {
+        source.ignoreElements().toFuture().get();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void buffer() throws ExecutionException, InterruptedException {
+        source.buffer(maxItems, Duration.ofMinutes(1), timerExecutor).ignoreElements().toFuture().get();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.benchmark.concurrent;
+
+import io.servicetalk.concurrent.api.Publisher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutionException;
+
+import static io.servicetalk.concurrent.api.Publisher.from;
+
+/**
+ * Measures items per second through chains of {@link Publisher#map(java.util.function.Function)},
+ * {@link Publisher#filter(java.util.function.Predicate)} and
+ * {@link Publisher#beforeOnNext(java.util.function.Consumer)} of varying length, which are fused into a single
+ * operator. Each invocation emits {@link #ITEMS} items synchronously, so the score is per item.
+ */
+@Fork(value = 1)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.Throughput)
+public class PublisherOperatorChainBenchmark {
+
+    private static final int ITEMS = 1024;
+
+    @Param({"1", "4", "8", "16"})
+    public int chainLength;
+
+    private Publisher<Integer> mapChain;
+    private Publisher<Integer> mixedChain;
+    private long observed;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final Integer[] items = new Integer[ITEMS];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = i;
+        }
+        mapChain = from(items);
+        mixedChain = from(items);
+        for (int i = 0; i < chainLength; i++) {
+            mapChain = mapChain.map(v -> v + 1);
+            switch (i % 3) {
+                case 0:
+                    mixedChain = mixedChain.map(v -> v + 1);
+                    break;
+                case 1:
+                    mixedChain = mixedChain.filter(v -> v >= 0);
+                    break;
+                default:
+                    mixedChain = mixedChain.beforeOnNext(v -> observed += v);
+                    break;
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void map() throws ExecutionException, InterruptedException {
+        mapChain.ignoreElements().toFuture().get();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void mixed() throws ExecutionException, InterruptedException {
+        mixedChain.ignoreElements().toFuture().get();
+    }
+}
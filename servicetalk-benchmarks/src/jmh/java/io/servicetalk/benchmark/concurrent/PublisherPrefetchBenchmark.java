@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.benchmark.concurrent;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.PublisherSource.Subscriber;
+import io.servicetalk.concurrent.PublisherSource.Subscription;
+import io.servicetalk.concurrent.api.Publisher;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.Nullable;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.PREFER_HEAP_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+
+/**
+ * Measures {@link Publisher#prefetch(int)} with a {@link Subscriber} which requests one {@link Buffer} at a time,
+ * as the transport may do when writing a payload body. Each invocation emits {@link #ITEMS} items, so the score is
+ * per item.
+ * <p>
+ * The {@code requestN} and {@code bytes} counters count the {@link Subscription#request(long)} calls which reach the
+ * source and the bytes consumed, dividing them gives the demand signals per byte transferred.
+ */
+@Fork(value = 1)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.Throughput)
+public class PublisherPrefetchBenchmark {
+
+    private static final int ITEMS = 1024;
+
+    @Param({"256", "8192"})
+    public int chunkSize;
+
+    @Param({"4", "16", "64"})
+    public int prefetch;
+
+    private Buffer[] chunks;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        chunks = new Buffer[ITEMS];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = PREFER_HEAP_ALLOCATOR.wrap(new byte[chunkSize]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void baseline(SignalCounter counter) {
+        consume(source(counter), counter);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void prefetch(SignalCounter counter) {
+        consume(source(counter).prefetch(prefetch), counter);
+    }
+
+    private Publisher<Buffer> source(SignalCounter counter) {
+        return from(chunks).beforeRequest(__ -> counter.requestN++);
+    }
+
+    private static void consume(Publisher<Buffer> publisher, SignalCounter counter) {
+        toSource(publisher).subscribe(new OneAtATimeSubscriber(counter));
+    }
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class SignalCounter {
+        public long requestN;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            requestN = 0;
+            bytes = 0;
+        }
+    }
+
+    private static final class OneAtATimeSubscriber implements Subscriber<Buffer> {
+        private final SignalCounter counter;
+        @Nullable
+        private Subscription subscription;
+
+        OneAtATimeSubscriber(SignalCounter counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+            s.request(1);
+        }
+
+        @Override
+        public void onNext(Buffer buffer) {
+            counter.bytes += buffer.readableBytes();
+            assert subscription != null;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            throw new IllegalStateException(t);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.benchmark.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.RequestOutcomeListener;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.loadbalancer.RoundRobinLoadBalancer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Completable.completed;
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+
+/**
+ * Measures {@link LoadBalancer#selectConnection(Predicate)} for a single host with a varying number of connections,
+ * all of them busy except one.
+ * <p>
+ * Connections accept a single request at a time, like non-pipelined HTTP/1.x connections, and report the end of each
+ * request to the load balancer. This is the worst case for a search over the connections, the selection cost should
+ * stay flat as the number of connections grows.
+ */
+@Fork(value = 1)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.Throughput)
+public class ConnectionSelectionBenchmark {
+
+    private static final Predicate<SimulatedConnection> SELECTOR = SimulatedConnection::tryAcquire;
+
+    @Param({"1", "64", "1024"})
+    public int connections;
+
+    private LoadBalancer<SimulatedConnection> lb;
+
+    @Setup(Level.Trial)
+    public void setup() throws ExecutionException, InterruptedException {
+        final Publisher<ServiceDiscovererEvent<String>> sdEvents =
+                from((ServiceDiscovererEvent<String>) new DefaultServiceDiscovererEvent<>("host", true))
+                        .concat(Publisher.never());
+        // Connections are opened eagerly, one at a time.
+        lb = new RoundRobinLoadBalancer<>(sdEvents, new SimulatedConnectionFactory(), String::compareTo, connections,
+                1);
+        for (int i = 1; i < connections; i++) {
+            // Keep every connection busy except one.
+            lb.selectConnection(SELECTOR).toFuture().get();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws ExecutionException, InterruptedException {
+        lb.closeAsync().toFuture().get();
+    }
+
+    @Benchmark
+    public SimulatedConnection selectConnection() throws ExecutionException, InterruptedException {
+        final SimulatedConnection connection = lb.selectConnection(SELECTOR).toFuture().get();
+        connection.release();
+        return connection;
+    }
+
+    private static final class SimulatedConnectionFactory implements ConnectionFactory<String, SimulatedConnection> {
+        @Override
+        public Single<SimulatedConnection> newConnection(final String address) {
+            return succeeded(new SimulatedConnection());
+        }
+
+        @Override
+        public Completable onClose() {
+            return completed();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return completed();
+        }
+    }
+
+    /**
+     * A connection that accepts a single request at a time.
+     */
+    public static final class SimulatedConnection implements LoadBalancedConnection {
+        private final AtomicBoolean busy = new AtomicBoolean();
+        @Nullable
+        private RequestOutcomeListener listener;
+
+        boolean tryAcquire() {
+            return busy.compareAndSet(false, true);
+        }
+
+        void release() {
+            busy.set(false);
+            if (listener != null) {
+                listener.onRequestSuccess();
+            }
+        }
+
+        @Override
+        public void requestOutcomeListener(final RequestOutcomeListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public float score() {
+            return 1;
+        }
+
+        @Override
+        public Completable onClose() {
+            return Completable.never();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return completed();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.benchmark.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.loadbalancer.P2CLoadBalancer;
+import io.servicetalk.loadbalancer.RoundRobinLoadBalancer;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+
+import static io.servicetalk.concurrent.api.Completable.completed;
+import static io.servicetalk.concurrent.api.Publisher.fromIterable;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+
+/**
+ * Compares {@link RoundRobinLoadBalancer} and {@link P2CLoadBalancer} when one of the backends is much slower than the
+ * others.
+ * <p>
+ * Request completion is simulated with a virtual clock that advances by one tick per selected connection. Each host
+ * completes requests after a fixed number of ticks and the slow host is {@link #slowHostFactor} times slower than the
+ * rest. Connection scores follow the same shape as the ones of the HTTP client: they decrease with both the number of
+ * outstanding requests and the latency of the host. The {@code slowHostSelections} and {@code pendingRequests}
+ * counters show how much traffic ends up queued on the slow host.
+ */
+@Fork(value = 1)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.Throughput)
+public class SkewedLatencyLoadBalancerBenchmark {
+
+    private static final Predicate<SimulatedConnection> SELECTOR = __ -> true;
+
+    @Param({"roundRobin", "p2c"})
+    public String loadBalancer;
+
+    @Param({"4", "16"})
+    public int hosts;
+
+    @Param({"10"})
+    public int slowHostFactor;
+
+    private final VirtualClock clock = new VirtualClock();
+    private LoadBalancer<SimulatedConnection> lb;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final List<ServiceDiscovererEvent<Integer>> events = new ArrayList<>(hosts);
+        for (int i = 0; i < hosts; i++) {
+            events.add(new DefaultServiceDiscovererEvent<>(i, true));
+        }
+        final Publisher<ServiceDiscovererEvent<Integer>> sdEvents = fromIterable(events).concat(Publisher.never());
+        final ConnectionFactory<Integer, SimulatedConnection> cf = new SimulatedConnectionFactory(clock,
+                slowHostFactor);
+        lb = "p2c".equals(loadBalancer) ? new P2CLoadBalancer<>(sdEvents, cf, Integer::compare) :
+                new RoundRobinLoadBalancer<>(sdEvents, cf, Integer::compare);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws ExecutionException, InterruptedException {
+        lb.closeAsync().toFuture().get();
+    }
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class SelectionCounter {
+        public long slowHostSelections;
+        public long pendingRequests;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            slowHostSelections = 0;
+            pendingRequests = 0;
+        }
+    }
+
+    @Benchmark
+    public void selectConnection(SelectionCounter counter) throws ExecutionException, InterruptedException {
+        final SimulatedConnection connection = lb.selectConnection(SELECTOR).toFuture().get();
+        clock.tick();
+        connection.startRequest();
+        counter.pendingRequests += connection.pendingRequests();
+        if (connection.isSlow()) {
+            ++counter.slowHostSelections;
+        }
+    }
+
+    private static final class VirtualClock {
+        private long now;
+
+        long now() {
+            return now;
+        }
+
+        void tick() {
+            ++now;
+        }
+    }
+
+    private static final class SimulatedConnectionFactory implements ConnectionFactory<Integer, SimulatedConnection> {
+        private final VirtualClock clock;
+        private final int slowHostFactor;
+
+        SimulatedConnectionFactory(final VirtualClock clock, final int slowHostFactor) {
+            this.clock = clock;
+            this.slowHostFactor = slowHostFactor;
+        }
+
+        @Override
+        public Single<SimulatedConnection> newConnection(final Integer address) {
+            // Host 0 is the slow one.
+            return succeeded(new SimulatedConnection(clock, address == 0 ? slowHostFactor : 1));
+        }
+
+        @Override
+        public Completable onClose() {
+            return completed();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return completed();
+        }
+    }
+
+    private static final class SimulatedConnection implements LoadBalancedConnection {
+        private final ArrayDeque<Long> completionTimes = new ArrayDeque<>();
+        private final VirtualClock clock;
+        private final int latency;
+
+        SimulatedConnection(final VirtualClock clock, final int latency) {
+            this.clock = clock;
+            this.latency = latency;
+        }
+
+        boolean isSlow() {
+            return latency > 1;
+        }
+
+        void startRequest() {
+            completionTimes.addLast(clock.now() + latency);
+        }
+
+        int pendingRequests() {
+            // Latency is constant per connection, so completion times are ordered.
+            final long now = clock.now();
+            Long next;
+            while ((next = completionTimes.peekFirst()) != null && next <= now) {
+                completionTimes.pollFirst();
+            }
+            return completionTimes.size();
+        }
+
+        @Override
+        public float score() {
+            return 1f / ((pendingRequests() + 1) * latency);
+        }
+
+        @Override
+        public Completable onClose() {
+            return Completable.never();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return completed();
+        }
+    }
+}
@@ -33,16 +33,26 @@ import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Warmup;
 
 import java.util.ArrayDeque;
+import java.util.function.UnaryOperator;
 
 import static io.servicetalk.buffer.api.ReadOnlyBufferAllocators.DEFAULT_RO_ALLOCATOR;
 import static io.servicetalk.http.api.CharSequences.newAsciiString;
 import static io.servicetalk.http.api.DefaultHttpHeadersFactory.INSTANCE;
+import static io.servicetalk.http.api.HttpHeaderNames.CACHE_CONTROL;
+import static io.servicetalk.http.api.HttpHeaderNames.CONNECTION;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_ENCODING;
 import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
 import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
+import static io.servicetalk.http.api.HttpHeaderNames.SERVER;
+import static io.servicetalk.http.api.HttpHeaderValues.APPLICATION_JSON;
+import static io.servicetalk.http.api.HttpHeaderValues.IDENTITY;
+import static io.servicetalk.http.api.HttpHeaderValues.KEEP_ALIVE;
+import static io.servicetalk.http.api.HttpHeaderValues.NO_CACHE;
 import static io.servicetalk.http.api.HttpHeaderValues.TEXT_PLAIN;
 import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
 import static io.servicetalk.http.api.HttpResponseMetaDataFactory.newResponseMetaData;
 import static io.servicetalk.http.api.HttpResponseStatus.INTERNAL_SERVER_ERROR;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
 
 /*
  * This benchmark measures encoding of full HTTP request with headers and payload body. Everything is allocated using
@@ -50,6 +60,10 @@ import static io.servicetalk.http.api.HttpResponseStatus.INTERNAL_SERVER_ERROR;
  *
  * Benchmark                                               Mode  Cnt       Score      Error  Units
  * HttpResponseEncoderBenchmarkFullResponse.fullResponse  thrpt    5  669406.100 ± 6113.671  ops/s
+ *
+ * commonHeaders and commonHeadersCopies encode the same typical set of response headers. The first one uses the
+ * HttpHeaderNames/HttpHeaderValues constants, which are written from pre-encoded header lines, the second one uses
+ * equal copies of the constants, which are encoded one CharSequence at a time.
  */
 @Fork(value = 1)
 @State(Scope.Benchmark)
@@ -59,6 +73,8 @@ import static io.servicetalk.http.api.HttpResponseStatus.INTERNAL_SERVER_ERROR;
 public class HttpResponseEncoderFullResponseBenchmark {
 
     private HttpResponseMetaData metaData;
+    private HttpResponseMetaData commonHeadersMetaData;
+    private HttpResponseMetaData commonHeadersCopiesMetaData;
     private Buffer payloadBody;
 
     private EmbeddedChannel channel;
@@ -71,11 +87,40 @@ public class HttpResponseEncoderFullResponseBenchmark {
                 .addHeader(CONTENT_TYPE, TEXT_PLAIN)
                 .addHeader(newAsciiString("X-Custom-Header-Name"), newAsciiString("X-Custom-Header-Value"));
 
+        commonHeadersMetaData = newResponseMetaData(HTTP_1_1, OK, INSTANCE.newHeaders());
+        addCommonHeaders(commonHeadersMetaData, name -> name);
+        commonHeadersCopiesMetaData = newResponseMetaData(HTTP_1_1, OK, INSTANCE.newHeaders());
+        addCommonHeaders(commonHeadersCopiesMetaData, name -> newAsciiString(name.toString()));
+
         channel = new EmbeddedChannel(new HttpResponseEncoder(new ArrayDeque<>(), 256, 256));
     }
 
+    private void addCommonHeaders(final HttpResponseMetaData metaData,
+                                  final UnaryOperator<CharSequence> copier) {
+        metaData.addHeader(copier.apply(CONTENT_LENGTH), newAsciiString(Integer.toString(payloadBody.readableBytes())))
+                .addHeader(copier.apply(CONTENT_TYPE), copier.apply(APPLICATION_JSON))
+                .addHeader(copier.apply(CONNECTION), copier.apply(KEEP_ALIVE))
+                .addHeader(copier.apply(CACHE_CONTROL), copier.apply(NO_CACHE))
+                .addHeader(copier.apply(CONTENT_ENCODING), copier.apply(IDENTITY))
+                .addHeader(copier.apply(SERVER), newAsciiString("servicetalk"));
+    }
+
     @Benchmark
     public int fullResponse() {
+        return writeFullResponse(metaData);
+    }
+
+    @Benchmark
+    public int commonHeaders() {
+        return writeFullResponse(commonHeadersMetaData);
+    }
+
+    @Benchmark
+    public int commonHeadersCopies() {
+        return writeFullResponse(commonHeadersCopiesMetaData);
+    }
+
+    private int writeFullResponse(final HttpResponseMetaData metaData) {
         channel.writeOutbound(metaData);
         channel.writeOutbound(payloadBody.duplicate());
         channel.writeOutbound(EmptyHttpHeaders.INSTANCE);
@@ -18,6 +18,10 @@ package io.servicetalk.buffer.netty;
 import io.servicetalk.buffer.api.Buffer;
 import io.servicetalk.buffer.api.BufferAllocator;
 
+import io.netty.buffer.ByteBuf;
+
+import static io.servicetalk.buffer.netty.BufferUtil.toByteBufNoThrow;
+
 /**
  * Available {@link BufferAllocator}s.
  */
@@ -39,7 +43,54 @@ public final class BufferAllocators {
      */
     public static final BufferAllocator PREFER_HEAP_ALLOCATOR = BufferUtil.PREFER_HEAP_ALLOCATOR;
 
+    /**
+     * {@link BufferAllocator} whose {@link Buffer}s are backed by pooled Netty buffers and prefers direct memory
+     * allocation when otherwise not specified.
+     * <p>
+     * Using this allocator avoids allocating new memory for each payload, but every {@link Buffer} it allocates must be
+     * released exactly once:
+     * <ul>
+     *     <li>A {@link Buffer} written to a transport as payload is released once it has been written. A client with
+     *     filters, which may write a request more than once (e.g. retries), instead releases it once the request has
+     *     completed. It must not be used or written again afterwards, unless it is first
+     *     {@link #retain(Buffer) retained}. Slices and duplicates share the reference count of the {@link Buffer} they
+     *     are derived from.</li>
+     *     <li>A {@link Buffer} backing the value of a header is never released by a transport.</li>
+     *     <li>Any other {@link Buffer} must be {@link #release(Buffer) released} when it is no longer used.</li>
+     * </ul>
+     * {@link Buffer}s created from existing data (e.g. {@link BufferAllocator#wrap(byte[])}, {@link Buffer#copy()}) and
+     * {@link Buffer}s read from a transport are not pooled and do not need to be released.
+     */
+    public static final BufferAllocator POOLED_ALLOCATOR = BufferUtil.PREFER_DIRECT_POOLED_ALLOCATOR;
+
     private BufferAllocators() {
         // no instances
     }
+
+    /**
+     * Releases a {@link Buffer} allocated by {@link #POOLED_ALLOCATOR}, returning its memory to the pool once it is no
+     * longer retained. This is a noop for {@link Buffer}s which are not pooled.
+     *
+     * @param buffer the {@link Buffer} to release.
+     * @return {@code true} if the memory of {@code buffer} has been returned to the pool.
+     */
+    public static boolean release(Buffer buffer) {
+        final ByteBuf byteBuf = toByteBufNoThrow(buffer);
+        return byteBuf != null && byteBuf.release();
+    }
+
+    /**
+     * Retains a {@link Buffer} allocated by {@link #POOLED_ALLOCATOR}, so that it needs to be released one more time
+     * before its memory is returned to the pool. This is a noop for {@link Buffer}s which are not pooled.
+     *
+     * @param buffer the {@link Buffer} to retain.
+     * @return {@code buffer}.
+     */
+    public static Buffer retain(Buffer buffer) {
+        final ByteBuf byteBuf = toByteBufNoThrow(buffer);
+        if (byteBuf != null) {
+            byteBuf.retain();
+        }
+        return buffer;
+    }
 }
@@ -37,6 +37,7 @@ public final class BufferUtil {
     static final BufferAllocator PREFER_HEAP_ALLOCATOR = new ServiceTalkBufferAllocator(false, false);
     static final BufferAllocator PREFER_DIRECT_ALLOCATOR = new ServiceTalkBufferAllocator(true, false);
     static final BufferAllocator PREFER_DIRECT_ALLOCATOR_WITHOUT_ZEROING = new ServiceTalkBufferAllocator(true, true);
+    static final BufferAllocator PREFER_DIRECT_POOLED_ALLOCATOR = new ServiceTalkBufferAllocator(true, true, true);
 
     private BufferUtil() {
         // no instances
@@ -99,14 +100,38 @@ public final class BufferUtil {
         return null;
     }
 
+    /**
+     * Determine if the passed {@link ByteBuf} is backed by pooled memory, e.g. because it has been allocated by
+     * {@link BufferAllocators#POOLED_ALLOCATOR}, and therefore must be released once it is no longer used.
+     *
+     * @param byteBuf the {@link ByteBuf} to check.
+     * @return {@code true} if {@code byteBuf} is backed by pooled memory.
+     */
+    public static boolean isPooled(ByteBuf byteBuf) {
+        if (byteBuf.alloc().isDirectBufferPooled()) {
+            return true;
+        }
+        // Composites of a pooled allocator use an unpooled allocator for consolidation, and so do views of them.
+        for (ByteBuf buf = byteBuf; buf != null; buf = buf.unwrap()) {
+            if (buf instanceof ServiceTalkBufferAllocator.PooledCompositeByteBuf) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns the {@link ByteBufAllocator} taking the {@link BufferAllocator} into account.
+     * <p>
+     * A pooled {@link BufferAllocator} is never returned, as memory allocated by a channel may be handed over to the
+     * user who is not expected to release it.
      *
      * @param allocator the {@link BufferAllocator} that is used.
      * @return the {@link ByteBufAllocator} to use.
      */
     public static ByteBufAllocator getByteBufAllocator(BufferAllocator allocator) {
-        return (ByteBufAllocator) (allocator instanceof ByteBufAllocator ? allocator :
+        return (ByteBufAllocator) (allocator instanceof ByteBufAllocator &&
+                !((ByteBufAllocator) allocator).isDirectBufferPooled() ? allocator :
                 directBufferPreferred() ? PREFER_DIRECT_ALLOCATOR : PREFER_HEAP_ALLOCATOR);
     }
 
@@ -19,6 +19,7 @@ import io.servicetalk.buffer.api.Buffer;
 import io.servicetalk.buffer.api.ByteProcessor;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufUtil;
 
 import java.io.IOException;
@@ -505,7 +506,12 @@ class NettyBuffer<T extends ByteBuf> implements Buffer {
 
     @Override
     public Buffer readBytes(int length) {
-        return new NettyBuffer<>(buffer.readBytes(length));
+        if (!buffer.alloc().isDirectBufferPooled()) {
+            return new NettyBuffer<>(buffer.readBytes(length));
+        }
+        final ByteBuf copy = unpooledAllocator(buffer).buffer(length);
+        buffer.readBytes(copy, length);
+        return new NettyBuffer<>(copy);
     }
 
     @Override
@@ -732,12 +738,18 @@ class NettyBuffer<T extends ByteBuf> implements Buffer {
 
     @Override
     public Buffer copy() {
-        return new NettyBuffer<>(buffer.copy());
+        return buffer.alloc().isDirectBufferPooled() ? copy(buffer.readerIndex(), buffer.readableBytes()) :
+                new NettyBuffer<>(buffer.copy());
     }
 
     @Override
     public Buffer copy(int index, int length) {
-        return new NettyBuffer<>(buffer.copy(index, length));
+        if (!buffer.alloc().isDirectBufferPooled()) {
+            return new NettyBuffer<>(buffer.copy(index, length));
+        }
+        final ByteBuf copy = unpooledAllocator(buffer).buffer(length);
+        copy.writeBytes(buffer, index, length);
+        return new NettyBuffer<>(copy);
     }
 
     @Override
@@ -861,4 +873,13 @@ class NettyBuffer<T extends ByteBuf> implements Buffer {
     public String toString(int index, int length, Charset charset) {
         return buffer.toString(index, length, charset);
     }
+
+    /**
+     * Copies of pooled buffers are allocated from an unpooled allocator, because the caller of methods which create a
+     * copy does not expect to release it.
+     */
+    private static ByteBufAllocator unpooledAllocator(ByteBuf buffer) {
+        return (ByteBufAllocator) (buffer.isDirect() ? BufferUtil.PREFER_DIRECT_ALLOCATOR :
+                BufferUtil.PREFER_HEAP_ALLOCATOR);
+    }
 }
@@ -24,6 +24,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
@@ -37,20 +38,38 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 /**
  * Our own {@link AbstractByteBufAllocator} implementation which will not use leak-detection and depends on the GC
  * to handle the de-allocation of direct memory. All the returned {@link ByteBuf} are also unreleasable.
+ * <p>
+ * If {@code pooled}, newly allocated {@link ByteBuf}s are instead taken from {@link PooledByteBufAllocator#DEFAULT}
+ * and must be released. Composite and wrapped {@link ByteBuf}s never use pooled memory of their own.
  */
 final class ServiceTalkBufferAllocator extends AbstractByteBufAllocator implements BufferAllocator {
+    private static final ByteBufAllocator POOL = PooledByteBufAllocator.DEFAULT;
+
     private final ByteBufAllocator forceHeapAllocator = new ForceTypeByteBufAllocator(this, false);
     private final ByteBufAllocator forceDirectAllocator = new ForceTypeByteBufAllocator(this, true);
 
     private final boolean noZeroing;
+    private final boolean pooled;
+    private final ByteBufAllocator compositeAllocator;
 
     ServiceTalkBufferAllocator(boolean preferDirect, boolean tryNoZeroing) {
+        this(preferDirect, tryNoZeroing, false);
+    }
+
+    ServiceTalkBufferAllocator(boolean preferDirect, boolean tryNoZeroing, boolean pooled) {
         super(preferDirect);
         this.noZeroing = tryNoZeroing && useDirectBufferWithoutZeroing();
+        this.pooled = pooled;
+        // Composites may allocate when consolidating components, which must not use pooled memory as only the
+        // components are released.
+        this.compositeAllocator = pooled ? new ServiceTalkBufferAllocator(preferDirect, tryNoZeroing) : this;
     }
 
     @Override
     protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+        if (pooled) {
+            return POOL.heapBuffer(initialCapacity, maxCapacity);
+        }
         return io.netty.util.internal.PlatformDependent.hasUnsafe() ?
                 new UnreleasableNoZeroingHeapByteBuf(this, initialCapacity, maxCapacity) :
                 new UnreleasableHeapByteBuf(this, initialCapacity, maxCapacity);
@@ -58,6 +77,9 @@ final class ServiceTalkBufferAllocator extends AbstractByteBufAllocator implemen
 
     @Override
     protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+        if (pooled) {
+            return POOL.directBuffer(initialCapacity, maxCapacity);
+        }
         if (noZeroing) {
             return new UnreleasableUnsafeNoZeroingDirectByteBuf(this, initialCapacity, maxCapacity);
         }
@@ -68,17 +90,19 @@ final class ServiceTalkBufferAllocator extends AbstractByteBufAllocator implemen
 
     @Override
     public CompositeByteBuf compositeHeapBuffer(int maxNumComponents) {
-        return new UnreleasableCompositeByteBuf(this, false, maxNumComponents);
+        return pooled ? new PooledCompositeByteBuf(compositeAllocator, false, maxNumComponents) :
+                new UnreleasableCompositeByteBuf(this, false, maxNumComponents);
     }
 
     @Override
     public CompositeByteBuf compositeDirectBuffer(int maxNumComponents) {
-        return new UnreleasableCompositeByteBuf(this, true, maxNumComponents);
+        return pooled ? new PooledCompositeByteBuf(compositeAllocator, true, maxNumComponents) :
+                new UnreleasableCompositeByteBuf(this, true, maxNumComponents);
     }
 
     @Override
     public boolean isDirectBufferPooled() {
-        return false;
+        return pooled;
     }
 
     @Override
@@ -277,4 +301,13 @@ final class ServiceTalkBufferAllocator extends AbstractByteBufAllocator implemen
             return allocator.calculateNewCapacity(minNewCapacity, maxCapacity);
         }
     }
+
+    /**
+     * A {@link CompositeByteBuf} created by a pooled allocator, which releases its pooled components.
+     */
+    static final class PooledCompositeByteBuf extends CompositeByteBuf {
+        PooledCompositeByteBuf(ByteBufAllocator alloc, boolean direct, int maxNumComponents) {
+            super(alloc, direct, maxNumComponents);
+        }
+    }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.buffer.netty;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.CompositeBuffer;
+
+import io.netty.buffer.ByteBufAllocator;
+import org.junit.Test;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.POOLED_ALLOCATOR;
+import static io.servicetalk.buffer.netty.BufferAllocators.release;
+import static io.servicetalk.buffer.netty.BufferAllocators.retain;
+import static io.servicetalk.buffer.netty.BufferUtil.getByteBufAllocator;
+import static io.servicetalk.buffer.netty.BufferUtil.isPooled;
+import static io.servicetalk.buffer.netty.BufferUtil.toByteBuf;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PooledBufferAllocatorTest {
+
+    @Test
+    public void newBufferIsReleasable() {
+        final Buffer buffer = POOLED_ALLOCATOR.newBuffer(16);
+        assertEquals(1, toByteBuf(buffer).refCnt());
+        assertTrue(release(buffer));
+        assertEquals(0, toByteBuf(buffer).refCnt());
+    }
+
+    @Test
+    public void retainedBufferNeedsAnotherRelease() {
+        final Buffer buffer = POOLED_ALLOCATOR.fromAscii("test");
+        retain(buffer);
+        assertFalse(release(buffer));
+        assertTrue(release(buffer));
+    }
+
+    @Test
+    public void copyIsNotPooled() {
+        final Buffer buffer = POOLED_ALLOCATOR.fromUtf8("test");
+        final Buffer copy = buffer.copy();
+        final Buffer readCopy = buffer.readBytes(2);
+        assertTrue(release(buffer));
+        assertEquals("test", copy.toString(UTF_8));
+        assertEquals("te", readCopy.toString(UTF_8));
+        assertFalse(release(copy));
+        assertFalse(release(readCopy));
+    }
+
+    @Test
+    public void wrappedBufferIsNotPooled() {
+        assertFalse(release(POOLED_ALLOCATOR.wrap(new byte[]{1, 2, 3})));
+    }
+
+    @Test
+    public void compositeReleasesComponents() {
+        final Buffer component = POOLED_ALLOCATOR.fromAscii("test");
+        final CompositeBuffer composite = POOLED_ALLOCATOR.newCompositeBuffer().addBuffer(component);
+        assertTrue(release(composite));
+        assertEquals(0, toByteBuf(component).refCnt());
+    }
+
+    @Test
+    public void releaseUnpooledIsNoop() {
+        final Buffer buffer = BufferAllocators.DEFAULT_ALLOCATOR.newBuffer(16);
+        assertFalse(release(buffer));
+        assertEquals(1, toByteBuf(buffer).refCnt());
+    }
+
+    @Test
+    public void channelAllocatorIsNotPooled() {
+        final ByteBufAllocator allocator = getByteBufAllocator(POOLED_ALLOCATOR);
+        assertFalse(allocator.isDirectBufferPooled());
+    }
+
+    @Test
+    public void pooledBuffersAreDetected() {
+        final Buffer buffer = POOLED_ALLOCATOR.fromAscii("test");
+        final CompositeBuffer composite = POOLED_ALLOCATOR.newCompositeBuffer().addBuffer(buffer);
+        assertTrue(isPooled(toByteBuf(buffer)));
+        assertTrue(isPooled(toByteBuf(buffer.slice())));
+        assertTrue(isPooled(toByteBuf(composite)));
+        assertTrue(isPooled(toByteBuf(composite.slice(0, 2))));
+        assertFalse(isPooled(toByteBuf(buffer.copy())));
+        assertFalse(isPooled(toByteBuf(POOLED_ALLOCATOR.wrap(new byte[]{1, 2, 3}))));
+        assertFalse(isPooled(toByteBuf(BufferAllocators.DEFAULT_ALLOCATOR.fromAscii("test"))));
+        assertTrue(release(composite));
+    }
+}
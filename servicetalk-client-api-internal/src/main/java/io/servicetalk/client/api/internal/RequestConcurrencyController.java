@@ -53,4 +53,13 @@ public interface RequestConcurrencyController {
      * Generally called from a {@link Publisher#beforeFinally(Runnable)} after a {@link #tryRequest()}.
      */
     void requestFinished();
+
+    /**
+     * Returns the number of requests that can be started right now without being rejected, as a snapshot of the
+     * current state. For multiplexed protocols this reflects the latest concurrency limit advertised by the peer (e.g.
+     * HTTP/2 {@code SETTINGS_MAX_CONCURRENT_STREAMS}) minus the requests in flight.
+     *
+     * @return the number of requests that can be started right now, or {@code 0} if no more requests are accepted.
+     */
+    int availableRequests();
 }
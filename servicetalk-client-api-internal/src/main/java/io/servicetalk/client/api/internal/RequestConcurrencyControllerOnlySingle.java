@@ -40,4 +40,9 @@ final class RequestConcurrencyControllerOnlySingle extends AbstractRequestConcur
         }
         return RejectedPermanently;
     }
+
+    @Override
+    public int availableRequests() {
+        return lastSeenMaxValue(1) > 0 && pendingRequests() == 0 ? 1 : 0;
+    }
 }
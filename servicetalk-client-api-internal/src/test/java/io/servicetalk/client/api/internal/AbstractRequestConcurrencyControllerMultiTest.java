@@ -109,4 +109,25 @@ public abstract class AbstractRequestConcurrencyControllerMultiTest {
             controller.requestFinished();
         }
     }
+
+    @Test
+    public void availableRequestsTracksPendingAndLimit() {
+        RequestConcurrencyController controller = newController(limitPublisher, never(), 10);
+        assertThat(controller.availableRequests(), is(10));
+        assertThat(controller.tryRequest(), is(Accepted));
+        assertThat(controller.availableRequests(), is(9));
+        limitPublisher.onNext(3);
+        assertThat(controller.availableRequests(), is(2));
+        limitPublisher.onNext(0);
+        assertThat(controller.availableRequests(), is(0));
+        controller.requestFinished();
+        limitPublisher.onNext(3);
+        assertThat(controller.availableRequests(), is(3));
+    }
+
+    @Test
+    public void noAvailableRequestsAfterClose() {
+        RequestConcurrencyController controller = newController(from(1), completed(), 10);
+        assertThat(controller.availableRequests(), is(0));
+    }
 }
@@ -87,4 +87,16 @@ public abstract class AbstractRequestConcurrencyControllerOnlySingleTest {
         RequestConcurrencyController controller = newController(from(1), completed());
         assertThat(controller.tryRequest(), is(RejectedTemporary));
     }
+
+    @Test
+    public void availableRequestsIsAtMostOne() {
+        RequestConcurrencyController controller = newController(limitPublisher, never());
+        limitPublisher.onNext(10);
+        assertThat(controller.availableRequests(), is(1));
+        assertThat(controller.tryRequest(), is(Accepted));
+        assertThat(controller.availableRequests(), is(0));
+        controller.requestFinished();
+        limitPublisher.onNext(0);
+        assertThat(controller.availableRequests(), is(0));
+    }
 }
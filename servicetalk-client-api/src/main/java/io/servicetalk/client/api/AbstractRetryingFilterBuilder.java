@@ -50,6 +50,8 @@ public abstract class AbstractRetryingFilterBuilder<Builder
     private int maxRetries;
     @Nullable
     private BiPredicate<Meta, Throwable> retryForPredicate;
+    private double retryBudgetRatio;
+    private int retryBudgetReserve;
 
     @SuppressWarnings("unchecked")
     private Builder castThis() {
@@ -82,13 +84,46 @@ public abstract class AbstractRetryingFilterBuilder<Builder
         return castThis();
     }
 
+    /**
+     * Limits the retries of each client to a ratio of its requests, see {@link RetryBudget}. This prevents retries
+     * from multiplying the load on a service which is already degraded. Up to {@code 10} retries can be accumulated.
+     *
+     * @param retryRatio the maximum ratio of retries to requests, e.g. {@code 0.1} allows one retry for every ten
+     * requests
+     * @return {@code this}
+     */
+    public final Builder retryBudget(final double retryRatio) {
+        return retryBudget(retryRatio, 10);
+    }
+
+    /**
+     * Limits the retries of each client to a ratio of its requests, see {@link RetryBudget}. This prevents retries
+     * from multiplying the load on a service which is already degraded.
+     *
+     * @param retryRatio the maximum ratio of retries to requests, e.g. {@code 0.1} allows one retry for every ten
+     * requests
+     * @param maxReserve the maximum number of retries which can be accumulated, it bounds the burst of retries
+     * @return {@code this}
+     */
+    public final Builder retryBudget(final double retryRatio, final int maxReserve) {
+        if (!(retryRatio > 0)) {
+            throw new IllegalArgumentException("retryRatio: " + retryRatio + " (expected: >0)");
+        }
+        if (maxReserve <= 0) {
+            throw new IllegalArgumentException("maxReserve: " + maxReserve + " (expected: >0)");
+        }
+        this.retryBudgetRatio = retryRatio;
+        this.retryBudgetReserve = maxReserve;
+        return castThis();
+    }
+
     /**
      * Creates a new retrying {@link Filter} which retries without delay.
      *
      * @return a new retrying {@link Filter} which retries without delay
      */
     public final Filter buildWithImmediateRetries() {
-        return build(readOnlySettings(null, null, false, false));
+        return build(readOnlySettings(null, null, null, false, false));
     }
 
     /**
@@ -98,7 +133,7 @@ public abstract class AbstractRetryingFilterBuilder<Builder
      * @return A new retrying {@link Filter} which adds a constant delay between retries
      */
     public final Filter buildWithConstantBackoff(final Duration delay) {
-        return build(readOnlySettings(delay, null, false, false));
+        return build(readOnlySettings(delay, null, null, false, false));
     }
 
     /**
@@ -110,7 +145,7 @@ public abstract class AbstractRetryingFilterBuilder<Builder
      * @return A new retrying {@link Filter} which adds a constant delay between retries
      */
     public final Filter buildWithConstantBackoff(final Duration delay, final Executor timerExecutor) {
-        return build(readOnlySettings(delay, timerExecutor, false, false));
+        return build(readOnlySettings(delay, null, timerExecutor, false, false));
     }
 
     /**
@@ -121,7 +156,7 @@ public abstract class AbstractRetryingFilterBuilder<Builder
      * @return A new retrying {@link Filter} which adds a randomized delay between retries
      */
     public final Filter buildWithConstantBackoffAndJitter(final Duration delay) {
-        return build(readOnlySettings(delay, null, false, true));
+        return build(readOnlySettings(delay, null, null, false, true));
     }
 
     /**
@@ -134,7 +169,7 @@ public abstract class AbstractRetryingFilterBuilder<Builder
      * @return A new retrying {@link Filter} which adds a randomized delay between retries
      */
     public final Filter buildWithConstantBackoffAndJitter(final Duration delay, final Executor timerExecutor) {
-        return build(readOnlySettings(delay, timerExecutor, false, true));
+        return build(readOnlySettings(delay, null, timerExecutor, false, true));
     }
 
     /**
@@ -148,7 +183,7 @@ public abstract class AbstractRetryingFilterBuilder<Builder
      * @return A new retrying {@link Filter} which adds an exponentially increasing delay between retries
      */
     public final Filter buildWithExponentialBackoff(final Duration initialDelay) {
-        return build(readOnlySettings(initialDelay, null, true, false));
+        return build(readOnlySettings(initialDelay, null, null, true, false));
     }
 
     /**
@@ -164,7 +199,7 @@ public abstract class AbstractRetryingFilterBuilder<Builder
      * @return A new retrying {@link Filter} which adds an exponentially increasing delay between retries
      */
     public final Filter buildWithExponentialBackoff(final Duration initialDelay, final Executor timerExecutor) {
-        return build(readOnlySettings(initialDelay, timerExecutor, true, false));
+        return build(readOnlySettings(initialDelay, null, timerExecutor, true, false));
     }
 
     /**
@@ -180,7 +215,7 @@ public abstract class AbstractRetryingFilterBuilder<Builder
      * @return A new retrying {@link Filter} which adds an exponentially increasing delay between retries with jitter
      */
     public final Filter buildWithExponentialBackoffAndJitter(final Duration initialDelay) {
-        return build(readOnlySettings(initialDelay, null, true, true));
+        return build(readOnlySettings(initialDelay, null, null, true, true));
     }
 
     /**
@@ -199,7 +234,38 @@ public abstract class AbstractRetryingFilterBuilder<Builder
      */
     public final Filter buildWithExponentialBackoffAndJitter(final Duration initialDelay,
                                                              final Executor timerExecutor) {
-        return build(readOnlySettings(initialDelay, timerExecutor, true, true));
+        return build(readOnlySettings(initialDelay, null, timerExecutor, true, true));
+    }
+
+    /**
+     * Creates a new retrying {@link Filter} which adds a delay between retries. For first retry, the delay is
+     * {@code initialDelay} which is increased exponentially for subsequent retries, up to {@code maxDelay}. This
+     * additionally adds a "Full Jitter" for the backoff as described
+     * <a href="https://aws.amazon.com/blogs/architecture/exponential-backoff-and-jitter/">here</a>.
+     *
+     * @param initialDelay Delay {@link Duration} for the first retry and increased exponentially with each retry
+     * @param maxDelay Maximum {@link Duration} of delay between retries
+     * @return A new retrying {@link Filter} which adds an exponentially increasing delay between retries with jitter
+     */
+    public final Filter buildWithExponentialBackoffAndJitter(final Duration initialDelay, final Duration maxDelay) {
+        return build(readOnlySettings(initialDelay, requireNonNull(maxDelay), null, true, true));
+    }
+
+    /**
+     * Creates a new retrying {@link Filter} which adds a delay between retries. For first retry, the delay is
+     * {@code initialDelay} which is increased exponentially for subsequent retries, up to {@code maxDelay}. This
+     * additionally adds a "Full Jitter" for the backoff as described
+     * <a href="https://aws.amazon.com/blogs/architecture/exponential-backoff-and-jitter/">here</a>.
+     *
+     * @param initialDelay Delay {@link Duration} for the first retry and increased exponentially with each retry
+     * @param maxDelay Maximum {@link Duration} of delay between retries
+     * @param timerExecutor {@link Executor} to be used to schedule timers for backoff. It takes precedence over an
+     * alternative timer {@link Executor} from {@link ReadOnlyRetryableSettings#newStrategy(Executor)} argument
+     * @return A new retrying {@link Filter} which adds an exponentially increasing delay between retries with jitter
+     */
+    public final Filter buildWithExponentialBackoffAndJitter(final Duration initialDelay, final Duration maxDelay,
+                                                             final Executor timerExecutor) {
+        return build(readOnlySettings(initialDelay, requireNonNull(maxDelay), timerExecutor, true, true));
     }
 
     /**
@@ -221,12 +287,13 @@ public abstract class AbstractRetryingFilterBuilder<Builder
     }
 
     private ReadOnlyRetryableSettings<Meta> readOnlySettings(@Nullable final Duration initialDelay,
+                                                             @Nullable final Duration maxDelay,
                                                              @Nullable final Executor timerExecutor,
                                                              final boolean exponential,
                                                              final boolean jitter) {
         return new ReadOnlyRetryableSettings<>(maxRetries > 0 ? maxRetries : (exponential ? 2 : 1),
                 retryForPredicate != null ? retryForPredicate : defaultRetryForPredicate(),
-                initialDelay, timerExecutor, exponential, jitter);
+                initialDelay, maxDelay, timerExecutor, exponential, jitter, retryBudgetRatio, retryBudgetReserve);
     }
 
     /**
@@ -241,22 +308,51 @@ public abstract class AbstractRetryingFilterBuilder<Builder
         @Nullable
         private final Duration initialDelay;
         @Nullable
+        private final Duration maxDelay;
+        @Nullable
         private final Executor timerExecutor;
         private final boolean exponential;
         private final boolean jitter;
+        private final double retryBudgetRatio;
+        private final int retryBudgetReserve;
 
         private ReadOnlyRetryableSettings(final int maxRetries,
                                           final BiPredicate<Meta, Throwable> retryForPredicate,
                                           @Nullable final Duration initialDelay,
+                                          @Nullable final Duration maxDelay,
                                           @Nullable final Executor timerExecutor,
                                           final boolean exponential,
-                                          final boolean jitter) {
+                                          final boolean jitter,
+                                          final double retryBudgetRatio,
+                                          final int retryBudgetReserve) {
             this.maxRetries = maxRetries;
             this.retryForPredicate = retryForPredicate;
             this.initialDelay = initialDelay;
+            this.maxDelay = maxDelay;
             this.timerExecutor = timerExecutor;
             this.exponential = exponential;
             this.jitter = jitter;
+            this.retryBudgetRatio = retryBudgetRatio;
+            this.retryBudgetReserve = retryBudgetReserve;
+        }
+
+        /**
+         * Returns the maximum number of allowed retries before giving up.
+         *
+         * @return the maximum number of allowed retries before giving up
+         */
+        public int maxRetries() {
+            return maxRetries;
+        }
+
+        /**
+         * Creates a new {@link RetryBudget} to share between the requests of a client, if a budget was configured.
+         *
+         * @return a new {@link RetryBudget}, or {@code null} if retries are not limited by a budget
+         */
+        @Nullable
+        public RetryBudget newRetryBudget() {
+            return retryBudgetRatio > 0 ? new RetryBudget(retryBudgetRatio, retryBudgetReserve) : null;
         }
 
         /**
@@ -287,8 +383,11 @@ public abstract class AbstractRetryingFilterBuilder<Builder
                         requireNonNull(alternativeTimerExecutor) : timerExecutor;
                 if (exponential) {
                     if (jitter) {
-                        return retryWithExponentialBackoffAndJitter(
-                                maxRetries, t -> true, initialDelay, effectiveExecutor);
+                        return maxDelay == null ?
+                                retryWithExponentialBackoffAndJitter(
+                                        maxRetries, t -> true, initialDelay, effectiveExecutor) :
+                                retryWithExponentialBackoffAndJitter(
+                                        maxRetries, t -> true, initialDelay, maxDelay, effectiveExecutor);
                     } else {
                         return retryWithExponentialBackoff(maxRetries, t -> true, initialDelay, effectiveExecutor);
                     }
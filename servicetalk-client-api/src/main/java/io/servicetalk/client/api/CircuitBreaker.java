@@ -0,0 +1,459 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.client.api;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+
+/**
+ * A circuit breaker which stops sending requests to a dependency that is failing or too slow, so that callers fail
+ * fast instead of waiting for their timeouts and holding on to connections.
+ * <ul>
+ *     <li>{@link State#CLOSED}: calls are permitted and their outcomes are recorded in a sliding time window. When the
+ *     window holds at least {@link Builder#minimumCalls(int) minimumCalls} and the failure rate or the slow call rate
+ *     reaches its threshold, the circuit opens.</li>
+ *     <li>{@link State#OPEN}: calls are rejected until {@link Builder#openDuration(Duration) openDuration} elapsed.
+ *     </li>
+ *     <li>{@link State#HALF_OPEN}: a limited number of probe calls are permitted. The circuit closes if all of them
+ *     succeed, and opens again as soon as one fails or is slow. If some probes did not report their outcome after
+ *     {@link Builder#openDuration(Duration) openDuration}, a new round of probes is permitted.</li>
+ * </ul>
+ * The sliding window is made of time buckets updated with atomic operations, so recording outcomes does not contend on
+ * a lock. Outcomes which race with the rotation of a bucket may be lost, which is acceptable for rates.
+ */
+public final class CircuitBreaker {
+
+    /**
+     * State of a {@link CircuitBreaker}.
+     */
+    public enum State {
+        /**
+         * Calls are permitted.
+         */
+        CLOSED,
+        /**
+         * Calls are rejected.
+         */
+        OPEN,
+        /**
+         * A limited number of probe calls are permitted.
+         */
+        HALF_OPEN
+    }
+
+    private static final AtomicIntegerFieldUpdater<CircuitBreaker> stateUpdater =
+            newUpdater(CircuitBreaker.class, "state");
+    private static final AtomicIntegerFieldUpdater<CircuitBreaker> probesLeftUpdater =
+            newUpdater(CircuitBreaker.class, "probesLeft");
+    private static final AtomicIntegerFieldUpdater<CircuitBreaker> probeSuccessesUpdater =
+            newUpdater(CircuitBreaker.class, "probeSuccesses");
+    private static final AtomicIntegerFieldUpdater<CircuitBreaker> probeRoundUpdater =
+            newUpdater(CircuitBreaker.class, "probeRound");
+
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
+    // Owned by the thread which changes the state, calls are rejected until the new state is published.
+    private static final int SWITCHING = 3;
+
+    // Each bucket is stored as 4 consecutive longs: epoch, calls, failures, slow calls.
+    private static final int EPOCH = 0;
+    private static final int CALLS = 1;
+    private static final int FAILURES = 2;
+    private static final int SLOW_CALLS = 3;
+    private static final int BUCKET_FIELDS = 4;
+
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallDurationNanos;
+    private final long bucketNanos;
+    private final int buckets;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+    private final AtomicLongArray window;
+
+    private volatile int state;
+    private volatile long openedAtNanos;
+    private volatile long halfOpenedAtNanos;
+    @SuppressWarnings("unused")
+    private volatile int probesLeft;
+    @SuppressWarnings("unused")
+    private volatile int probeSuccesses;
+    private volatile int probeRound;
+
+    CircuitBreaker(final Builder builder, final LongSupplier nanoClock) {
+        failureRateThreshold = builder.failureRateThreshold;
+        slowCallRateThreshold = builder.slowCallRateThreshold;
+        slowCallDurationNanos = builder.slowCallDuration.toNanos();
+        buckets = builder.buckets;
+        bucketNanos = Math.max(1, builder.window.toNanos() / buckets);
+        minimumCalls = builder.minimumCalls;
+        openDurationNanos = builder.openDuration.toNanos();
+        halfOpenProbes = builder.halfOpenProbes;
+        this.nanoClock = nanoClock;
+        startNanos = nanoClock.getAsLong();
+        window = new AtomicLongArray(buckets * BUCKET_FIELDS);
+        resetWindow();
+    }
+
+    /**
+     * Returns the current {@link State}.
+     *
+     * @return the current {@link State}.
+     */
+    public State state() {
+        switch (state) {
+            case OPEN:
+            case SWITCHING:
+                return State.OPEN;
+            case HALF_OPEN:
+                return State.HALF_OPEN;
+            default:
+                return State.CLOSED;
+        }
+    }
+
+    /**
+     * Asks for permission to make a call.
+     *
+     * @return a {@link Permit} which must be notified of the outcome of the call, or {@code null} if the call is
+     * rejected.
+     */
+    @Nullable
+    public Permit tryAcquire() {
+        final long now = nanoClock.getAsLong();
+        for (;;) {
+            final int currentState = state;
+            if (currentState == CLOSED) {
+                return new Permit(this, now, false, 0);
+            }
+            if (currentState == OPEN) {
+                if (now - openedAtNanos < openDurationNanos) {
+                    return null;
+                }
+                if (stateUpdater.compareAndSet(this, OPEN, SWITCHING)) {
+                    startProbes(now);
+                }
+                continue;
+            }
+            if (currentState != HALF_OPEN) {
+                return null;
+            }
+            final int round = probeRound;
+            final int left = probesLeft;
+            if (left > 0) {
+                if (probesLeftUpdater.compareAndSet(this, left, left - 1)) {
+                    return new Permit(this, now, true, round);
+                }
+                continue;
+            }
+            if (now - halfOpenedAtNanos < openDurationNanos) {
+                return null;
+            }
+            // Probes whose outcome is never reported, e.g. because their response is never consumed, must not keep
+            // the circuit half open forever.
+            if (stateUpdater.compareAndSet(this, HALF_OPEN, SWITCHING)) {
+                startProbes(now);
+            }
+        }
+    }
+
+    private void startProbes(final long now) {
+        // Outcomes of probes from a previous round are ignored from now on.
+        probeRoundUpdater.incrementAndGet(this);
+        probeSuccesses = 0;
+        probesLeft = halfOpenProbes;
+        halfOpenedAtNanos = now;
+        state = HALF_OPEN;
+    }
+
+    private void onOutcome(final boolean probe, final int round, final boolean failure, final long durationNanos,
+                           final long now) {
+        final boolean slow = durationNanos >= slowCallDurationNanos;
+        if (probe) {
+            if (state != HALF_OPEN || round != probeRound) {
+                return;
+            }
+            if (failure || slow) {
+                trip(HALF_OPEN, now);
+            } else if (probeSuccessesUpdater.incrementAndGet(this) >= halfOpenProbes &&
+                    stateUpdater.compareAndSet(this, HALF_OPEN, SWITCHING)) {
+                resetWindow();
+                state = CLOSED;
+            }
+        } else if (state == CLOSED) {
+            record(failure, slow, now);
+        }
+    }
+
+    private void onProbeCancelled(final int round) {
+        if (state == HALF_OPEN && round == probeRound) {
+            probesLeftUpdater.incrementAndGet(this);
+        }
+    }
+
+    private void record(final boolean failure, final boolean slow, final long now) {
+        final long slot = (now - startNanos) / bucketNanos;
+        final int index = (int) (slot % buckets) * BUCKET_FIELDS;
+        final long epoch = window.get(index + EPOCH);
+        if (epoch < slot && window.compareAndSet(index + EPOCH, epoch, slot)) {
+            window.set(index + CALLS, 0);
+            window.set(index + FAILURES, 0);
+            window.set(index + SLOW_CALLS, 0);
+        }
+        window.incrementAndGet(index + CALLS);
+        if (failure) {
+            window.incrementAndGet(index + FAILURES);
+        }
+        if (slow) {
+            window.incrementAndGet(index + SLOW_CALLS);
+        }
+
+        long calls = 0;
+        long failures = 0;
+        long slowCalls = 0;
+        for (int i = 0; i < buckets * BUCKET_FIELDS; i += BUCKET_FIELDS) {
+            final long bucketEpoch = window.get(i + EPOCH);
+            if (bucketEpoch >= 0 && slot - bucketEpoch < buckets) {
+                calls += window.get(i + CALLS);
+                failures += window.get(i + FAILURES);
+                slowCalls += window.get(i + SLOW_CALLS);
+            }
+        }
+        if (calls >= minimumCalls && (failures * 100 >= failureRateThreshold * calls ||
+                slowCalls * 100 >= slowCallRateThreshold * calls)) {
+            trip(CLOSED, now);
+        }
+    }
+
+    private void trip(final int expectedState, final long now) {
+        if (stateUpdater.compareAndSet(this, expectedState, SWITCHING)) {
+            openedAtNanos = now;
+            state = OPEN;
+        }
+    }
+
+    private void resetWindow() {
+        for (int i = 0; i < buckets * BUCKET_FIELDS; i += BUCKET_FIELDS) {
+            window.set(i + EPOCH, -1);
+        }
+    }
+
+    /**
+     * A permission to make a call, which must be notified of the outcome of the call exactly once. Notifications after
+     * the first one are ignored. A probe permit which is never notified is replaced by a new probe once
+     * {@link Builder#openDuration(Duration) openDuration} elapsed.
+     */
+    public static final class Permit {
+        private static final AtomicIntegerFieldUpdater<Permit> doneUpdater = newUpdater(Permit.class, "done");
+
+        private final CircuitBreaker breaker;
+        private final long startNanos;
+        private final boolean probe;
+        private final int round;
+        private volatile long durationNanos = -1;
+        @SuppressWarnings("unused")
+        private volatile int done;
+
+        Permit(final CircuitBreaker breaker, final long startNanos, final boolean probe, final int round) {
+            this.breaker = breaker;
+            this.startNanos = startNanos;
+            this.probe = probe;
+            this.round = round;
+        }
+
+        /**
+         * Notifies that the response of the call started, so that whether the call is slow is decided by the time it
+         * took to respond rather than by the time until its outcome. This is useful for streaming calls, whose outcome
+         * is only known once the entire response has been consumed.
+         */
+        public void onResponseStarted() {
+            if (durationNanos < 0) {
+                durationNanos = breaker.nanoClock.getAsLong() - startNanos;
+            }
+        }
+
+        /**
+         * Notifies that the call succeeded.
+         */
+        public void onSuccess() {
+            onOutcome(false);
+        }
+
+        /**
+         * Notifies that the call failed.
+         */
+        public void onFailure() {
+            onOutcome(true);
+        }
+
+        /**
+         * Notifies that the call was cancelled before its outcome was known, it is not counted.
+         */
+        public void onCancel() {
+            if (doneUpdater.compareAndSet(this, 0, 1) && probe) {
+                breaker.onProbeCancelled(round);
+            }
+        }
+
+        private void onOutcome(final boolean failure) {
+            if (doneUpdater.compareAndSet(this, 0, 1)) {
+                final long now = breaker.nanoClock.getAsLong();
+                final long duration = durationNanos;
+                breaker.onOutcome(probe, round, failure, duration < 0 ? now - startNanos : duration, now);
+            }
+        }
+    }
+
+    /**
+     * A builder of {@link CircuitBreaker}s.
+     */
+    public static final class Builder {
+        private int failureRateThreshold = 50;
+        private int slowCallRateThreshold = 100;
+        private Duration slowCallDuration = Duration.ofSeconds(60);
+        private Duration window = Duration.ofSeconds(10);
+        private int buckets = 10;
+        private int minimumCalls = 20;
+        private Duration openDuration = Duration.ofSeconds(5);
+        private int halfOpenProbes = 5;
+
+        /**
+         * Sets the percentage of failed calls in the sliding window at which the circuit opens. Defaults to
+         * {@code 50}.
+         *
+         * @param failureRateThreshold the percentage of failed calls at which the circuit opens, in {@code [1, 100]}.
+         * @return {@code this}.
+         */
+        public Builder failureRateThreshold(final int failureRateThreshold) {
+            this.failureRateThreshold = checkPercentage("failureRateThreshold", failureRateThreshold);
+            return this;
+        }
+
+        /**
+         * Sets the percentage of slow calls in the sliding window at which the circuit opens. Defaults to {@code 100}.
+         *
+         * @param slowCallRateThreshold the percentage of slow calls at which the circuit opens, in {@code [1, 100]}.
+         * @return {@code this}.
+         * @see #slowCallDuration(Duration)
+         */
+        public Builder slowCallRateThreshold(final int slowCallRateThreshold) {
+            this.slowCallRateThreshold = checkPercentage("slowCallRateThreshold", slowCallRateThreshold);
+            return this;
+        }
+
+        /**
+         * Sets the duration after which a call is considered slow. Defaults to {@code 60s}.
+         *
+         * @param slowCallDuration the duration after which a call is considered slow.
+         * @return {@code this}.
+         */
+        public Builder slowCallDuration(final Duration slowCallDuration) {
+            this.slowCallDuration = checkPositive("slowCallDuration", slowCallDuration);
+            return this;
+        }
+
+        /**
+         * Sets the duration of the sliding window used to compute the failure and slow call rates, and the number of
+         * buckets it is divided into. Defaults to {@code 10s} divided into {@code 10} buckets.
+         *
+         * @param window the duration of the sliding window.
+         * @param buckets the number of buckets of the sliding window, a higher number expires old outcomes more
+         * smoothly.
+         * @return {@code this}.
+         */
+        public Builder slidingWindow(final Duration window, final int buckets) {
+            if (buckets <= 0) {
+                throw new IllegalArgumentException("buckets: " + buckets + " (expected >0)");
+            }
+            this.window = checkPositive("window", window);
+            this.buckets = buckets;
+            return this;
+        }
+
+        /**
+         * Sets the minimum number of calls in the sliding window before the rates are evaluated. Defaults to
+         * {@code 20}.
+         *
+         * @param minimumCalls the minimum number of calls in the sliding window before the rates are evaluated.
+         * @return {@code this}.
+         */
+        public Builder minimumCalls(final int minimumCalls) {
+            if (minimumCalls <= 0) {
+                throw new IllegalArgumentException("minimumCalls: " + minimumCalls + " (expected >0)");
+            }
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * Sets how long the circuit stays open before probe calls are permitted. Defaults to {@code 5s}.
+         *
+         * @param openDuration how long the circuit stays open before probe calls are permitted.
+         * @return {@code this}.
+         */
+        public Builder openDuration(final Duration openDuration) {
+            this.openDuration = checkPositive("openDuration", openDuration);
+            return this;
+        }
+
+        /**
+         * Sets the number of probe calls permitted while the circuit is half open, which all need to succeed to close
+         * the circuit. Defaults to {@code 5}.
+         *
+         * @param halfOpenProbes the number of probe calls permitted while the circuit is half open.
+         * @return {@code this}.
+         */
+        public Builder halfOpenProbes(final int halfOpenProbes) {
+            if (halfOpenProbes <= 0) {
+                throw new IllegalArgumentException("halfOpenProbes: " + halfOpenProbes + " (expected >0)");
+            }
+            this.halfOpenProbes = halfOpenProbes;
+            return this;
+        }
+
+        /**
+         * Creates a new {@link CircuitBreaker}.
+         *
+         * @return a new {@link CircuitBreaker}.
+         */
+        public CircuitBreaker build() {
+            return new CircuitBreaker(this, System::nanoTime);
+        }
+
+        private static int checkPercentage(final String name, final int percentage) {
+            if (percentage < 1 || percentage > 100) {
+                throw new IllegalArgumentException(name + ": " + percentage + " (expected [1, 100])");
+            }
+            return percentage;
+        }
+
+        private static Duration checkPositive(final String name, final Duration duration) {
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException(name + ": " + duration + " (expected >0)");
+            }
+            return duration;
+        }
+    }
+}
@@ -15,6 +15,8 @@
  */
 package io.servicetalk.client.api;
 
+import javax.annotation.Nullable;
+
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -24,6 +26,9 @@ import static java.util.Objects.requireNonNull;
 public final class DefaultServiceDiscovererEvent<T> implements ServiceDiscovererEvent<T> {
     private final T address;
     private final boolean available;
+    @Nullable
+    private final String locality;
+    private final int weight;
 
     /**
      * Create a new instance.
@@ -31,8 +36,34 @@ public final class DefaultServiceDiscovererEvent<T> implements ServiceDiscoverer
      * @param available Value returned by {@link #available}.
      */
     public DefaultServiceDiscovererEvent(T address, boolean available) {
+        this(address, available, null);
+    }
+
+    /**
+     * Create a new instance.
+     * @param address The address returned by {@link #address()}.
+     * @param available Value returned by {@link #available}.
+     * @param locality Value returned by {@link #locality()}.
+     */
+    public DefaultServiceDiscovererEvent(T address, boolean available, @Nullable String locality) {
+        this(address, available, locality, 1);
+    }
+
+    /**
+     * Create a new instance.
+     * @param address The address returned by {@link #address()}.
+     * @param available Value returned by {@link #available}.
+     * @param locality Value returned by {@link #locality()}.
+     * @param weight Value returned by {@link #weight()}, must be positive.
+     */
+    public DefaultServiceDiscovererEvent(T address, boolean available, @Nullable String locality, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight: " + weight + " (expected >0)");
+        }
         this.address = requireNonNull(address);
         this.available = available;
+        this.locality = locality;
+        this.weight = weight;
     }
 
     @Override
@@ -45,11 +76,24 @@ public final class DefaultServiceDiscovererEvent<T> implements ServiceDiscoverer
         return available;
     }
 
+    @Nullable
+    @Override
+    public String locality() {
+        return locality;
+    }
+
+    @Override
+    public int weight() {
+        return weight;
+    }
+
     @Override
     public String toString() {
         return "DefaultServiceDiscovererEvent{" +
                 "address=" + address +
                 ", available=" + available +
+                (locality == null ? "" : ", locality=" + locality) +
+                (weight == 1 ? "" : ", weight=" + weight) +
                 '}';
     }
 }
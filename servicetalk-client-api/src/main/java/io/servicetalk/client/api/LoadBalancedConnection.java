@@ -24,4 +24,16 @@ import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
  * highest. {@link LoadBalancer}s prefer connections with a higher score.
  */
 public interface LoadBalancedConnection extends ListenableAsyncCloseable, ScoreSupplier {
+
+    /**
+     * Sets the {@link RequestOutcomeListener} to notify about the outcome of requests processed by this connection.
+     * <p>
+     * {@link LoadBalancer}s call this method at most once, before the connection is used for any request. The default
+     * implementation ignores the listener, which means the {@link LoadBalancer} only learns about the health of the
+     * host from connection establishment.
+     *
+     * @param listener the {@link RequestOutcomeListener} to notify.
+     */
+    default void requestOutcomeListener(RequestOutcomeListener listener) {
+    }
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.client.api;
+
+/**
+ * Notified about the outcome of requests processed by a {@link LoadBalancedConnection}.
+ * <p>
+ * {@link LoadBalancer}s use this feedback to detect hosts which accept connections but fail requests. What is
+ * considered a failure is protocol specific, for example an HTTP client may treat server errors as failures.
+ * Implementations are expected to be cheap and non-blocking as they are invoked for every request.
+ * <p>
+ * Every callback is invoked after the connection has released the capacity used by the request, so
+ * {@link LoadBalancer}s can also use them as a hint that the connection can accept another request.
+ */
+public interface RequestOutcomeListener {
+
+    /**
+     * Invoked when a request completed successfully.
+     */
+    void onRequestSuccess();
+
+    /**
+     * Invoked when a request failed.
+     */
+    void onRequestFailure();
+
+    /**
+     * Invoked when a request was cancelled before it completed. A cancellation says nothing about the health of the
+     * host.
+     */
+    default void onRequestCancel() {
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.client.api;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import static java.util.concurrent.atomic.AtomicLongFieldUpdater.newUpdater;
+
+/**
+ * A token bucket which limits retries to a ratio of the requests. Each request deposits a fraction of a token and each
+ * retry withdraws a whole token, so when most requests fail the number of retries stays proportional to the number of
+ * requests instead of multiplying the load on an already degraded service.
+ * <p>
+ * The bucket starts full, which allows a few retries before any request was made, e.g. for a client which sends few
+ * requests.
+ */
+public final class RetryBudget {
+
+    private static final AtomicLongFieldUpdater<RetryBudget> balanceUpdater =
+            newUpdater(RetryBudget.class, "balance");
+    private static final long TOKEN = 1000;
+
+    private final long depositPerRequest;
+    private final long maxBalance;
+    @SuppressWarnings("unused")
+    private volatile long balance;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param retryRatio the maximum ratio of retries to requests, e.g. {@code 0.1} allows one retry for every ten
+     * requests.
+     * @param maxReserve the maximum number of retries which can be accumulated, it bounds the burst of retries.
+     */
+    public RetryBudget(final double retryRatio, final int maxReserve) {
+        if (!(retryRatio > 0)) {
+            throw new IllegalArgumentException("retryRatio: " + retryRatio + " (expected >0)");
+        }
+        if (maxReserve <= 0) {
+            throw new IllegalArgumentException("maxReserve: " + maxReserve + " (expected >0)");
+        }
+        depositPerRequest = Math.max(1, (long) (retryRatio * TOKEN));
+        maxBalance = maxReserve * TOKEN;
+        balance = maxBalance;
+    }
+
+    /**
+     * Records a request, which adds to the budget.
+     */
+    public void onRequest() {
+        for (;;) {
+            final long current = balance;
+            if (current >= maxBalance ||
+                    balanceUpdater.compareAndSet(this, current, Math.min(maxBalance, current + depositPerRequest))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Withdraws a retry from the budget.
+     *
+     * @return {@code true} if the budget allows a retry, {@code false} otherwise.
+     */
+    public boolean tryRetry() {
+        for (;;) {
+            final long current = balance;
+            if (current < TOKEN) {
+                return false;
+            }
+            if (balanceUpdater.compareAndSet(this, current, current - TOKEN)) {
+                return true;
+            }
+        }
+    }
+}
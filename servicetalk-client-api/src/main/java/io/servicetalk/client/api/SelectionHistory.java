@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.client.api;
+
+import io.servicetalk.concurrent.api.AsyncContextMap;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static io.servicetalk.concurrent.api.AsyncContextMap.Key.newKey;
+
+/**
+ * Addresses which a {@link LoadBalancer} already selected for a logical request. When an instance is present in the
+ * {@link io.servicetalk.concurrent.api.AsyncContext} under {@link #SELECTION_HISTORY_KEY}, {@link LoadBalancer}s which
+ * support it record the address of each selection and prefer other addresses for subsequent selections, for example
+ * when a request is hedged or retried.
+ * <p>
+ * Addresses which were already selected are only avoided if other addresses are available.
+ */
+public final class SelectionHistory {
+
+    /**
+     * {@link AsyncContextMap.Key} under which the {@link SelectionHistory} of the current request is stored.
+     */
+    public static final AsyncContextMap.Key<SelectionHistory> SELECTION_HISTORY_KEY = newKey("selectionHistory");
+
+    // Typically holds one or two entries, a list is cheaper than a set at this size.
+    private final List<Object> addresses = new CopyOnWriteArrayList<>();
+
+    /**
+     * Records that {@code address} was selected.
+     *
+     * @param address the selected address.
+     */
+    public void selected(final Object address) {
+        addresses.add(address);
+    }
+
+    /**
+     * Returns {@code true} if {@code address} was already selected.
+     *
+     * @param address the address to check.
+     * @return {@code true} if {@code address} was already selected.
+     */
+    public boolean wasSelected(final Object address) {
+        return addresses.contains(address);
+    }
+}
@@ -15,6 +15,8 @@
  */
 package io.servicetalk.client.api;
 
+import javax.annotation.Nullable;
+
 /**
  * Notification from the Service Discovery system that availability for an address has changed.
  * @param <ResolvedAddress> the type of address after resolution.
@@ -32,4 +34,24 @@ public interface ServiceDiscovererEvent<ResolvedAddress> {
      * unavailable.
      */
     boolean isAvailable();
+
+    /**
+     * Get the locality of {@link #address()}, for example the availability zone or the data center it runs in.
+     * {@link LoadBalancer}s may use it to prefer addresses close to the client.
+     * @return the locality of {@link #address()} or {@code null} if it is unknown.
+     */
+    @Nullable
+    default String locality() {
+        return null;
+    }
+
+    /**
+     * Get the weight of {@link #address()} relative to the other addresses. {@link LoadBalancer}s which support weights
+     * send traffic to addresses proportionally to their weight, for example to send less traffic to smaller instances
+     * or to canaries.
+     * @return the positive weight of {@link #address()}, {@code 1} by default.
+     */
+    default int weight() {
+        return 1;
+    }
 }
@@ -0,0 +1,196 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.client.api;
+
+import io.servicetalk.client.api.CircuitBreaker.Permit;
+import io.servicetalk.client.api.CircuitBreaker.State;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.time.Duration.ofSeconds;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(new CircuitBreaker.Builder()
+            .failureRateThreshold(50)
+            .slowCallDuration(ofSeconds(2))
+            .slowCallRateThreshold(50)
+            .slidingWindow(ofSeconds(10), 10)
+            .minimumCalls(4)
+            .openDuration(ofSeconds(5))
+            .halfOpenProbes(2), nanos::get);
+
+    @Test
+    public void staysClosedBelowMinimumCalls() {
+        for (int i = 0; i < 3; i++) {
+            acquire().onFailure();
+        }
+        assertThat(breaker.state(), is(State.CLOSED));
+    }
+
+    @Test
+    public void staysClosedBelowFailureRate() {
+        for (int i = 0; i < 10; i++) {
+            Permit permit = acquire();
+            if (i % 3 == 2) {
+                permit.onFailure();
+            } else {
+                permit.onSuccess();
+            }
+        }
+        assertThat(breaker.state(), is(State.CLOSED));
+    }
+
+    @Test
+    public void opensOnFailureRate() {
+        trip();
+        assertThat(breaker.state(), is(State.OPEN));
+        assertThat(breaker.tryAcquire(), is(nullValue()));
+    }
+
+    @Test
+    public void opensOnSlowCallRate() {
+        for (int i = 0; i < 4; i++) {
+            Permit permit = acquire();
+            advance(i % 2 == 0 ? 3 : 0);
+            permit.onSuccess();
+        }
+        assertThat(breaker.state(), is(State.OPEN));
+    }
+
+    @Test
+    public void slowCallIsMeasuredToResponseStart() {
+        for (int i = 0; i < 4; i++) {
+            Permit permit = acquire();
+            permit.onResponseStarted();
+            advance(3);
+            permit.onSuccess();
+        }
+        assertThat(breaker.state(), is(State.CLOSED));
+    }
+
+    @Test
+    public void oldFailuresLeaveTheWindow() {
+        for (int i = 0; i < 3; i++) {
+            acquire().onFailure();
+        }
+        advance(11);
+        acquire().onFailure();
+        assertThat(breaker.state(), is(State.CLOSED));
+    }
+
+    @Test
+    public void probesCloseTheCircuit() {
+        trip();
+        advance(5);
+        Permit first = acquire();
+        assertThat(breaker.state(), is(State.HALF_OPEN));
+        Permit second = acquire();
+        assertThat("Only the configured number of probes is allowed.", breaker.tryAcquire(), is(nullValue()));
+        first.onSuccess();
+        second.onSuccess();
+        assertThat(breaker.state(), is(State.CLOSED));
+
+        // The window is reset when the circuit closes.
+        for (int i = 0; i < 3; i++) {
+            acquire().onFailure();
+        }
+        assertThat(breaker.state(), is(State.CLOSED));
+    }
+
+    @Test
+    public void probeFailureReopensTheCircuit() {
+        trip();
+        advance(5);
+        acquire().onFailure();
+        assertThat(breaker.state(), is(State.OPEN));
+        assertThat(breaker.tryAcquire(), is(nullValue()));
+        advance(5);
+        assertThat(breaker.tryAcquire(), is(notNullValue()));
+    }
+
+    @Test
+    public void cancelledProbeIsReturned() {
+        trip();
+        advance(5);
+        Permit first = acquire();
+        acquire().onCancel();
+        Permit second = acquire();
+        first.onSuccess();
+        second.onSuccess();
+        assertThat(breaker.state(), is(State.CLOSED));
+    }
+
+    @Test
+    public void unreportedProbesAreReplacedAfterOpenDuration() {
+        trip();
+        advance(5);
+        Permit first = acquire();
+        Permit second = acquire();
+        advance(4);
+        assertThat(breaker.tryAcquire(), is(nullValue()));
+        advance(1);
+        Permit third = acquire();
+        assertThat(breaker.state(), is(State.HALF_OPEN));
+        Permit fourth = acquire();
+        assertThat(breaker.tryAcquire(), is(nullValue()));
+
+        // Outcomes of the probes which were replaced are ignored.
+        first.onSuccess();
+        second.onFailure();
+        assertThat(breaker.state(), is(State.HALF_OPEN));
+        third.onSuccess();
+        fourth.onSuccess();
+        assertThat(breaker.state(), is(State.CLOSED));
+    }
+
+    @Test
+    public void onlyTheFirstOutcomeCounts() {
+        Permit permit = acquire();
+        permit.onSuccess();
+        for (int i = 0; i < 4; i++) {
+            permit.onFailure();
+        }
+        for (int i = 0; i < 3; i++) {
+            acquire().onSuccess();
+        }
+        assertThat(breaker.state(), is(State.CLOSED));
+    }
+
+    private void trip() {
+        for (int i = 0; i < 4; i++) {
+            acquire().onFailure();
+        }
+    }
+
+    private Permit acquire() {
+        Permit permit = breaker.tryAcquire();
+        assertThat(permit, is(notNullValue()));
+        return permit;
+    }
+
+    private void advance(long seconds) {
+        nanos.addAndGet(SECONDS.toNanos(seconds));
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.client.api;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class RetryBudgetTest {
+
+    @Test
+    public void startsWithReserve() {
+        RetryBudget budget = new RetryBudget(0.1, 2);
+        assertThat(budget.tryRetry(), is(true));
+        assertThat(budget.tryRetry(), is(true));
+        assertThat(budget.tryRetry(), is(false));
+    }
+
+    @Test
+    public void retriesAreLimitedToRatio() {
+        RetryBudget budget = new RetryBudget(0.1, 1);
+        assertThat(budget.tryRetry(), is(true));
+        for (int i = 0; i < 9; i++) {
+            budget.onRequest();
+            assertThat(budget.tryRetry(), is(false));
+        }
+        budget.onRequest();
+        assertThat(budget.tryRetry(), is(true));
+        assertThat(budget.tryRetry(), is(false));
+    }
+
+    @Test
+    public void reserveIsBounded() {
+        RetryBudget budget = new RetryBudget(1, 2);
+        for (int i = 0; i < 100; i++) {
+            budget.onRequest();
+        }
+        assertThat(budget.tryRetry(), is(true));
+        assertThat(budget.tryRetry(), is(true));
+        assertThat(budget.tryRetry(), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRatio() {
+        new RetryBudget(0, 1);
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.internal.ConcurrentSubscription;
+import io.servicetalk.concurrent.internal.FlowControlUtil;
+import io.servicetalk.concurrent.internal.TerminalNotification;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.SubscriberApiUtils.NULL_TOKEN;
+import static io.servicetalk.concurrent.internal.ConcurrentUtils.executeExclusive;
+import static io.servicetalk.concurrent.internal.PlatformDependent.newUnboundedSpscQueue;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.checkDuplicateSubscription;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.isRequestNValid;
+import static io.servicetalk.concurrent.internal.TerminalNotification.complete;
+import static io.servicetalk.concurrent.internal.TerminalNotification.error;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * As returned by {@link Publisher#buffer(int, Duration)} and its variants.
+ *
+ * @param <T> Type of items emitted by source {@link Publisher}
+ */
+final class BufferPublisher<T> extends AbstractAsynchronousPublisherOperator<T, List<T>> {
+    private final int maxItems;
+    private final long maxDurationNs;
+    private final Executor timerExecutor;
+
+    BufferPublisher(final Publisher<T> original, final int maxItems, final Duration maxDuration,
+                    final Executor timerExecutor, final Executor executor) {
+        super(original, executor);
+        if (maxItems <= 0) {
+            throw new IllegalArgumentException("maxItems: " + maxItems + " (expected > 0)");
+        }
+        maxDurationNs = maxDuration.toNanos();
+        if (maxDurationNs <= 0) {
+            throw new IllegalArgumentException("maxDuration: " + maxDuration + " (expected > 0)");
+        }
+        this.maxItems = maxItems;
+        this.timerExecutor = requireNonNull(timerExecutor);
+    }
+
+    @Override
+    public Subscriber<? super T> apply(final Subscriber<? super List<T>> subscriber) {
+        return new BufferSubscriber<>(this, subscriber);
+    }
+
+    private static final class BufferSubscriber<T> implements Subscriber<T>, Subscription {
+        private static final AtomicIntegerFieldUpdater<BufferSubscriber> drainingUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(BufferSubscriber.class, "draining");
+        private static final AtomicLongFieldUpdater<BufferSubscriber> requestedUpdater =
+                AtomicLongFieldUpdater.newUpdater(BufferSubscriber.class, "requested");
+        private static final AtomicLongFieldUpdater<BufferSubscriber> expiredBatchUpdater =
+                AtomicLongFieldUpdater.newUpdater(BufferSubscriber.class, "expiredBatch");
+        private static final AtomicReferenceFieldUpdater<BufferSubscriber, TerminalNotification> terminalUpdater =
+                AtomicReferenceFieldUpdater.newUpdater(BufferSubscriber.class, TerminalNotification.class,
+                        "terminal");
+
+        private final BufferPublisher<T> source;
+        private final Subscriber<? super List<T>> target;
+        /**
+         * Items received from the source which are not yet added to {@link #batch}. Upstream demand is limited so that
+         * items in this queue, in {@link #batch} and outstanding from the source never exceed one batch.
+         */
+        private final Queue<Object> pending;
+        @Nullable
+        private volatile Subscription subscription;
+        @SuppressWarnings("unused")
+        private volatile int draining;
+        @SuppressWarnings("unused")
+        private volatile long requested;
+        /**
+         * The largest id of a batch whose timer has fired.
+         */
+        @SuppressWarnings("unused")
+        private volatile long expiredBatch;
+        @Nullable
+        private volatile TerminalNotification terminal;
+        private volatile boolean cancelled;
+
+        // The following fields are only accessed while draining, which provides visibility to other threads.
+        @Nullable
+        private List<T> batch;
+        @Nullable
+        private Cancellable timerCancellable;
+        private long batchId;
+        private long emitted;
+        private long sourceRequested;
+        private long sourceReceived;
+        private boolean targetTerminated;
+
+        BufferSubscriber(final BufferPublisher<T> source, final Subscriber<? super List<T>> target) {
+            this.source = source;
+            this.target = target;
+            pending = newUnboundedSpscQueue(min(16, source.maxItems));
+        }
+
+        @Override
+        public void onSubscribe(final Subscription s) {
+            if (!checkDuplicateSubscription(subscription, s)) {
+                return;
+            }
+            subscription = ConcurrentSubscription.wrap(s);
+            target.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(@Nullable final T t) {
+            pending.offer(t == null ? NULL_TOKEN : t);
+            drain();
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+            if (terminalUpdater.compareAndSet(this, null, error(t))) {
+                drain();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (terminalUpdater.compareAndSet(this, null, complete())) {
+                drain();
+            }
+        }
+
+        @Override
+        public void request(final long n) {
+            final Subscription subscription = this.subscription;
+            assert subscription != null;
+            if (!isRequestNValid(n)) {
+                subscription.request(n);
+                return;
+            }
+            requestedUpdater.accumulateAndGet(this, n, FlowControlUtil::addWithOverflowProtection);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            final Subscription subscription = this.subscription;
+            assert subscription != null;
+            cancelled = true;
+            try {
+                subscription.cancel();
+            } finally {
+                drain();
+            }
+        }
+
+        private void drain() {
+            executeExclusive(this::drain0, drainingUpdater, this);
+        }
+
+        private void drain0() {
+            final Subscription subscription = this.subscription;
+            assert subscription != null;
+            for (;;) {
+                if (targetTerminated || cancelled) {
+                    discardState();
+                    return;
+                }
+                Object next;
+                while (batchSize() < source.maxItems && (next = pending.poll()) != null) {
+                    ++sourceReceived;
+                    addToBatch(next);
+                }
+
+                final TerminalNotification terminal = this.terminal;
+                if (terminal != null && terminal.cause() != null) {
+                    // Errors are delivered without waiting for demand, so buffered items are discarded.
+                    discardState();
+                    terminal.terminate(target);
+                    return;
+                }
+                final List<T> batch = this.batch;
+                if (batch != null && emitted < requested && (batch.size() >= source.maxItems ||
+                        expiredBatch >= batchId || (terminal != null && pending.isEmpty()))) {
+                    this.batch = null;
+                    cancelTimer();
+                    ++emitted;
+                    target.onNext(batch);
+                    continue;
+                }
+                if (terminal != null) {
+                    if (batch == null && pending.isEmpty()) {
+                        discardState();
+                        terminal.terminate(target);
+                    }
+                    return;
+                }
+
+                // Only request enough to fill the current batch, so a batch emitted early by the timer never leaves
+                // more than one batch worth of items outstanding.
+                final long outstanding = sourceRequested - sourceReceived;
+                final int size = batchSize();
+                if (emitted < requested && outstanding + size < source.maxItems) {
+                    final long n = source.maxItems - size - outstanding;
+                    sourceRequested += n;
+                    subscription.request(n);
+                }
+                return;
+            }
+        }
+
+        private void addToBatch(final Object next) {
+            List<T> batch = this.batch;
+            if (batch == null) {
+                batch = new ArrayList<>(min(16, source.maxItems));
+                this.batch = batch;
+                startTimer();
+            }
+            @SuppressWarnings("unchecked")
+            final T t = next == NULL_TOKEN ? null : (T) next;
+            batch.add(t);
+        }
+
+        private int batchSize() {
+            final List<T> batch = this.batch;
+            return batch == null ? 0 : batch.size();
+        }
+
+        private void startTimer() {
+            final long id = ++batchId;
+            try {
+                timerCancellable = source.timerExecutor.schedule(() -> {
+                    expiredBatchUpdater.accumulateAndGet(this, id, Math::max);
+                    drain();
+                }, source.maxDurationNs, NANOSECONDS);
+            } catch (Throwable cause) {
+                if (terminalUpdater.compareAndSet(this, null, error(cause))) {
+                    final Subscription subscription = this.subscription;
+                    assert subscription != null;
+                    subscription.cancel();
+                }
+            }
+        }
+
+        private void cancelTimer() {
+            final Cancellable timerCancellable = this.timerCancellable;
+            if (timerCancellable != null) {
+                this.timerCancellable = null;
+                timerCancellable.cancel();
+            }
+        }
+
+        private void discardState() {
+            targetTerminated = true;
+            batch = null;
+            cancelTimer();
+            pending.clear();
+        }
+    }
+}
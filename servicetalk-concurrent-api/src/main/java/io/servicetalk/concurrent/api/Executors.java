@@ -15,10 +15,15 @@
  */
 package io.servicetalk.concurrent.api;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 import static io.servicetalk.concurrent.api.ImmediateExecutor.IMMEDIATE_EXECUTOR;
 
@@ -26,6 +31,7 @@ import static io.servicetalk.concurrent.api.ImmediateExecutor.IMMEDIATE_EXECUTOR
  * Utility methods to create various {@link Executor}s.
  */
 public final class Executors {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Executors.class);
     static final CopyOnWriteExecutorPluginSet EXECUTOR_PLUGINS = new CopyOnWriteExecutorPluginSet();
 
     static {
@@ -88,6 +94,30 @@ public final class Executors {
         return EXECUTOR_PLUGINS.wrapExecutor(new DefaultExecutor(1, Integer.MAX_VALUE, threadFactory));
     }
 
+    /**
+     * Creates a new {@link Executor} that runs each task on a new virtual thread, if the JDK supports virtual threads.
+     * Otherwise, this is the same as {@link #newCachedThreadExecutor()}.
+     * <p>
+     * Virtual threads are cheap to create and to block, so this {@link Executor} is suited to blocking tasks, e.g. of
+     * the blocking programming models, whose concurrency would otherwise be limited by the number of platform threads.
+     * Delayed task execution will be delegated to a global scheduler.
+     *
+     * @return A new {@link Executor}.
+     */
+    public static Executor newVirtualThreadExecutor() {
+        final ExecutorService virtualThreadExecutor = VirtualThreads.newThreadPerTaskExecutor();
+        return virtualThreadExecutor == null ? newCachedThreadExecutor() : from(virtualThreadExecutor);
+    }
+
+    /**
+     * Returns {@code true} if {@link #newVirtualThreadExecutor()} uses virtual threads.
+     *
+     * @return {@code true} if {@link #newVirtualThreadExecutor()} uses virtual threads.
+     */
+    public static boolean isVirtualThreadExecutorSupported() {
+        return VirtualThreads.SUPPORTED;
+    }
+
     /**
      * Creates a new {@link Executor} from the provided {@code jdkExecutor}. <p>
      * Delayed task execution will be delegated to a global scheduler, unless passed
@@ -242,4 +272,69 @@ public final class Executors {
         return EXECUTOR_PLUGINS.wrapExecutor(
                 new DefaultExecutor(jdkExecutor, scheduledExecutorService, mayInterruptOnCancel));
     }
+
+    /**
+     * Creates virtual thread based {@link ExecutorService}s via reflection, as they are not available on all JDKs
+     * supported by ServiceTalk.
+     */
+    private static final class VirtualThreads {
+        private static final String NAME_PREFIX = "servicetalk-virtual-executor-";
+        @Nullable
+        private static final Method OF_VIRTUAL;
+        @Nullable
+        private static final Method NAME;
+        @Nullable
+        private static final Method FACTORY;
+        @Nullable
+        private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+        static final boolean SUPPORTED;
+
+        static {
+            Method ofVirtual = null;
+            Method name = null;
+            Method factory = null;
+            Method newThreadPerTaskExecutor = null;
+            try {
+                final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+                name = builderClass.getMethod("name", String.class, long.class);
+                factory = builderClass.getMethod("factory");
+                newThreadPerTaskExecutor = java.util.concurrent.Executors.class
+                        .getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+                // Virtual threads may be a preview feature, which fails at runtime if not enabled.
+                newThreadPerTaskExecutor(ofVirtual, name, factory, newThreadPerTaskExecutor).shutdown();
+            } catch (Throwable cause) {
+                LOGGER.debug("Virtual threads are not supported, falling back to platform threads.", cause);
+                ofVirtual = null;
+            }
+            SUPPORTED = ofVirtual != null;
+            OF_VIRTUAL = SUPPORTED ? ofVirtual : null;
+            NAME = SUPPORTED ? name : null;
+            FACTORY = SUPPORTED ? factory : null;
+            NEW_THREAD_PER_TASK_EXECUTOR = SUPPORTED ? newThreadPerTaskExecutor : null;
+        }
+
+        private VirtualThreads() {
+            // no instances
+        }
+
+        @Nullable
+        static ExecutorService newThreadPerTaskExecutor() {
+            if (!SUPPORTED) {
+                return null;
+            }
+            assert OF_VIRTUAL != null && NAME != null && FACTORY != null && NEW_THREAD_PER_TASK_EXECUTOR != null;
+            try {
+                return newThreadPerTaskExecutor(OF_VIRTUAL, NAME, FACTORY, NEW_THREAD_PER_TASK_EXECUTOR);
+            } catch (Exception cause) {
+                throw new IllegalStateException("Failed to create a virtual thread executor.", cause);
+            }
+        }
+
+        private static ExecutorService newThreadPerTaskExecutor(Method ofVirtual, Method name, Method factory,
+                                                                Method newThreadPerTaskExecutor) throws Exception {
+            final Object builder = name.invoke(ofVirtual.invoke(null), NAME_PREFIX, 0L);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, factory.invoke(builder));
+        }
+    }
 }
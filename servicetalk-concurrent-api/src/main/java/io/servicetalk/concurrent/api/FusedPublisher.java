@@ -0,0 +1,168 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.internal.ConcurrentSubscription;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.internal.SubscriberUtils.checkDuplicateSubscription;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * As returned from {@link Publisher#map(Function)}, {@link Publisher#filter(Predicate)} and
+ * {@link Publisher#beforeOnNext(Consumer)}.
+ * <p>
+ * These operators only act on items and pass all other signals through as is. Instead of wrapping the
+ * {@link Subscriber} once per operator, adjacent operators are fused at assembly time into a single {@link Stage}
+ * which is applied by a single {@link Subscriber}.
+ *
+ * @param <T> Type of items emitted by source {@link Publisher}
+ * @param <R> Type of items emitted by this {@link Publisher}
+ */
+final class FusedPublisher<T, R> extends AbstractSynchronousPublisherOperator<T, R> {
+    /**
+     * Returned by a {@link Stage} for an item which has been filtered out.
+     */
+    private static final Object FILTERED = new Object();
+
+    private final Publisher<T> original;
+    private final Stage<T> stage;
+    private final boolean filters;
+
+    private FusedPublisher(Publisher<T> original, Stage<T> stage, boolean filters, Executor executor) {
+        super(original, executor);
+        this.original = original;
+        this.stage = stage;
+        this.filters = filters;
+    }
+
+    static <T, R> Publisher<R> map(Publisher<T> source, Function<? super T, ? extends R> mapper,
+                                   Executor executor) {
+        requireNonNull(mapper);
+        return fuse(source, mapper::apply, false, executor);
+    }
+
+    static <T> Publisher<T> filter(Publisher<T> source, Predicate<? super T> predicate, Executor executor) {
+        requireNonNull(predicate);
+        return fuse(source, t -> predicate.test(t) ? t : FILTERED, true, executor);
+    }
+
+    static <T> Publisher<T> beforeOnNext(Publisher<T> source, Consumer<? super T> onNext, Executor executor) {
+        requireNonNull(onNext);
+        return fuse(source, t -> {
+            onNext.accept(t);
+            return t;
+        }, false, executor);
+    }
+
+    private static <T, R> Publisher<R> fuse(Publisher<T> source, Stage<T> next, boolean filters,
+                                            Executor executor) {
+        if (source instanceof FusedPublisher) {
+            @SuppressWarnings("unchecked")
+            final FusedPublisher<?, T> fused = (FusedPublisher<?, T>) source;
+            return fused.andThen(next, filters, executor);
+        }
+        return new FusedPublisher<>(source, next, filters, executor);
+    }
+
+    private <R2> FusedPublisher<T, R2> andThen(Stage<R> next, boolean filters, Executor executor) {
+        final Stage<T> first = stage;
+        return new FusedPublisher<>(original, t -> {
+            final Object r = first.apply(t);
+            if (r == FILTERED) {
+                return FILTERED;
+            }
+            @SuppressWarnings("unchecked")
+            final R rItem = (R) r;
+            return next.apply(rItem);
+        }, this.filters || filters, executor);
+    }
+
+    @Override
+    public Subscriber<? super T> apply(Subscriber<? super R> subscriber) {
+        return new FusedSubscriber<>(subscriber, stage, filters);
+    }
+
+    /**
+     * Maps, filters or observes an item.
+     *
+     * @param <T> Type of items accepted by this {@link Stage}.
+     */
+    @FunctionalInterface
+    private interface Stage<T> {
+        /**
+         * Applies this {@link Stage} to an item.
+         *
+         * @param t the item.
+         * @return the resulting item, or {@link #FILTERED} if the item is filtered out.
+         */
+        @Nullable
+        Object apply(@Nullable T t);
+    }
+
+    private static final class FusedSubscriber<T, R> implements Subscriber<T> {
+        private final Subscriber<? super R> subscriber;
+        private final Stage<T> stage;
+        private final boolean filters;
+        @Nullable
+        private Subscription subscription;
+
+        FusedSubscriber(Subscriber<? super R> subscriber, Stage<T> stage, boolean filters) {
+            this.subscriber = requireNonNull(subscriber);
+            this.stage = stage;
+            this.filters = filters;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (!filters) {
+                subscriber.onSubscribe(s);
+            } else if (checkDuplicateSubscription(subscription, s)) {
+                subscription = ConcurrentSubscription.wrap(s);
+                subscriber.onSubscribe(subscription);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            // If the Stage throws we just propagate it to the caller which is responsible to terminate its subscriber
+            // and cancel the subscription.
+            final Object r = stage.apply(t);
+            if (r == FILTERED) {
+                assert subscription != null : "Subscription can not be null in onNext.";
+                subscription.request(1); // Since we filtered one item.
+            } else {
+                @SuppressWarnings("unchecked")
+                final R rItem = (R) r;
+                subscriber.onNext(rItem);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            subscriber.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            subscriber.onComplete();
+        }
+    }
+}
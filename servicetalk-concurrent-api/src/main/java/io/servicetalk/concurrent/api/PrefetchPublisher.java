@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.internal.ConcurrentSubscription;
+import io.servicetalk.concurrent.internal.FlowControlUtil;
+import io.servicetalk.concurrent.internal.QueueFullException;
+import io.servicetalk.concurrent.internal.TerminalNotification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.SubscriberApiUtils.NULL_TOKEN;
+import static io.servicetalk.concurrent.internal.ConcurrentUtils.executeExclusive;
+import static io.servicetalk.concurrent.internal.PlatformDependent.newSpscQueue;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.checkDuplicateSubscription;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.isRequestNValid;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.trySetTerminal;
+import static io.servicetalk.concurrent.internal.TerminalNotification.complete;
+import static java.lang.Math.min;
+import static java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater;
+
+/**
+ * As returned by {@link Publisher#prefetch(int)}.
+ * <p>
+ * Items are requested from the original {@link Publisher} in batches and queued until there is demand for them. The
+ * first downstream {@link Subscription#request(long)} requests {@code prefetch} items, after that
+ * {@code prefetch - prefetch / 4} items are requested every time as many items have been emitted. This bounds the
+ * queue to {@code prefetch} items regardless of how demand is signalled downstream.
+ *
+ * @param <T> Type of items emitted by this {@link Publisher}.
+ */
+final class PrefetchPublisher<T> extends AbstractSynchronousPublisherOperator<T, T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrefetchPublisher.class);
+
+    private final int prefetch;
+    /**
+     * Number of items emitted after which more items are requested from the original {@link Publisher}.
+     */
+    private final int replenishThreshold;
+
+    PrefetchPublisher(Publisher<T> original, int prefetch, Executor executor) {
+        super(original, executor);
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch: " + prefetch + " (expected > 0)");
+        }
+        this.prefetch = prefetch;
+        replenishThreshold = prefetch - (prefetch >>> 2);
+    }
+
+    @Override
+    public Subscriber<? super T> apply(Subscriber<? super T> subscriber) {
+        return new PrefetchSubscriber<>(this, subscriber);
+    }
+
+    private static final class PrefetchSubscriber<T> implements Subscriber<T>, Subscription {
+        private static final AtomicIntegerFieldUpdater<PrefetchSubscriber> drainingUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(PrefetchSubscriber.class, "draining");
+        private static final AtomicIntegerFieldUpdater<PrefetchSubscriber> prefetchedUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(PrefetchSubscriber.class, "prefetched");
+        private static final AtomicLongFieldUpdater<PrefetchSubscriber> requestedUpdater =
+                AtomicLongFieldUpdater.newUpdater(PrefetchSubscriber.class, "requested");
+        private static final AtomicReferenceFieldUpdater<PrefetchSubscriber, TerminalNotification>
+                terminalNotificationUpdater = newUpdater(PrefetchSubscriber.class, TerminalNotification.class,
+                "terminalNotification");
+
+        @SuppressWarnings("unused")
+        private volatile int draining;
+        @SuppressWarnings("unused")
+        private volatile int prefetched;
+        @SuppressWarnings("unused")
+        private volatile long requested;
+        @Nullable
+        private volatile Subscription subscription;
+        @Nullable
+        private volatile TerminalNotification terminalNotification;
+
+        // The following fields are only accessed while draining, which provides visibility to other threads.
+        private long emitted;
+        private int consumed;
+        private boolean targetTerminated;
+
+        private final Queue<Object> items;
+        private final PrefetchPublisher<T> source;
+        private final Subscriber<? super T> target;
+
+        PrefetchSubscriber(PrefetchPublisher<T> source, Subscriber<? super T> target) {
+            this.source = source;
+            this.target = target;
+            items = newSpscQueue(min(16, source.prefetch), source.prefetch);
+        }
+
+        @Override
+        public void request(long n) {
+            final Subscription s = subscription;
+            assert s != null;
+            if (!isRequestNValid(n)) {
+                s.request(n);
+                return;
+            }
+
+            requestedUpdater.accumulateAndGet(this, n, FlowControlUtil::addWithOverflowProtection);
+            if (prefetchedUpdater.compareAndSet(this, 0, 1)) {
+                s.request(source.prefetch);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            final Subscription s = subscription;
+            assert s != null;
+            s.cancel();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (!checkDuplicateSubscription(subscription, s)) {
+                return;
+            }
+            subscription = ConcurrentSubscription.wrap(s);
+            target.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(@Nullable T t) {
+            if (!items.offer(t == null ? NULL_TOKEN : t)) {
+                final QueueFullException cause = new QueueFullException("prefetch", source.prefetch);
+                if (trySetTerminal(TerminalNotification.error(cause), true, terminalNotificationUpdater, this)) {
+                    try {
+                        cancel();
+                    } finally {
+                        drain();
+                    }
+                }
+                return;
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (trySetTerminal(TerminalNotification.error(t), false, terminalNotificationUpdater, this)) {
+                drain();
+            } else {
+                LOGGER.debug("Already terminated/cancelled, ignoring error notification.", t);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (trySetTerminal(complete(), false, terminalNotificationUpdater, this)) {
+                drain();
+            }
+        }
+
+        private void drain() {
+            executeExclusive(this::drain0, drainingUpdater, this);
+        }
+
+        private void drain0() {
+            if (targetTerminated) {
+                return;
+            }
+            // Items are queued before the terminal notification is set, so it must be read before polling.
+            final TerminalNotification terminalNotification = this.terminalNotification;
+            while (emitted < requested) {
+                final Object item = items.poll();
+                if (item == null) {
+                    break;
+                }
+                ++emitted;
+                if (++consumed == source.replenishThreshold) {
+                    consumed = 0;
+                    final Subscription s = subscription;
+                    assert s != null;
+                    s.request(source.replenishThreshold);
+                }
+                if (item == NULL_TOKEN) {
+                    target.onNext(null);
+                } else {
+                    @SuppressWarnings("unchecked")
+                    final T tItem = (T) item;
+                    target.onNext(tItem);
+                }
+            }
+
+            // Errors are delivered once the current demand is exhausted, items which were not yet requested
+            // downstream are discarded.
+            if (terminalNotification != null && (terminalNotification.cause() != null || items.isEmpty())) {
+                targetTerminated = true;
+                terminalNotification.terminate(target);
+            }
+        }
+    }
+}
@@ -33,6 +33,7 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
@@ -61,6 +62,7 @@ import static io.servicetalk.concurrent.api.PublisherDoOnUtils.doOnSubscribeSupp
 import static io.servicetalk.concurrent.internal.EmptySubscription.EMPTY_SUBSCRIPTION;
 import static io.servicetalk.concurrent.internal.SignalOffloaders.newOffloaderFor;
 import static java.util.Objects.requireNonNull;
+import static java.util.function.Function.identity;
 
 /**
  * An asynchronous computation that produces 0, 1 or more elements and may or may not terminate successfully or with
@@ -136,7 +138,7 @@ public abstract class Publisher<T> {
      * @see <a href="http://reactivex.io/documentation/operators/map.html">ReactiveX map operator.</a>
      */
     public final <R> Publisher<R> map(Function<? super T, ? extends R> mapper) {
-        return new MapPublisher<>(this, mapper, executor);
+        return FusedPublisher.map(this, mapper, executor);
     }
 
     /**
@@ -159,7 +161,7 @@ public abstract class Publisher<T> {
      * @see <a href="http://reactivex.io/documentation/operators/filter.html">ReactiveX filter operator.</a>
      */
     public final Publisher<T> filter(Predicate<? super T> predicate) {
-        return new FilterPublisher<>(this, predicate, executor);
+        return FusedPublisher.filter(this, predicate, executor);
     }
 
     /**
@@ -364,6 +366,160 @@ public abstract class Publisher<T> {
         return new PublisherFlatMapSingle<>(this, mapper, maxConcurrency, true, executor);
     }
 
+    /**
+     * Turns every item emitted by this {@link Publisher} into a {@link Publisher} and emits the items emitted by each
+     * of those {@link Publisher}s, merged in the order they are emitted.
+     * <p>
+     * To control the amount of concurrent processing done by this operator see
+     * {@link #flatMapMerge(Function, int)}.
+     * <p>
+     * This method is similar to {@link #map(Function)} but the result is an asynchronous stream, and provides a data
+     * transformation in sequential programming similar to:
+     * <pre>{@code
+     *     ExecutorService e = ...;
+     *     List<Future<List<R>>> futures = ...; // assume this is thread safe
+     *     for (T t : resultOfThisPublisher()) {
+     *         // Note that flatMap process results in parallel.
+     *         futures.add(e.submit(() -> {
+     *             return mapper.apply(t); // Asynchronous result is flatten into a value by this operator.
+     *         }));
+     *     }
+     *     List<R> results = new ArrayList<>(futures.size());
+     *     // This is an approximation, this operator does not provide any ordering guarantees for the results.
+     *     for (Future<List<R>> future : futures) {
+     *         List<R> rList = future.get(); // Throws if the processing for this item failed.
+     *         results.addAll(rList);
+     *     }
+     *     return results;
+     * }</pre>
+     *
+     * @param mapper Function to convert each item emitted by this {@link Publisher} into a {@link Publisher}.
+     * @param <R> Type of items emitted by the returned {@link Publisher}.
+     * @return A new {@link Publisher} that emits all items emitted by each {@link Publisher} produced by
+     * {@code mapper}.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/flatmap.html">ReactiveX flatMap operator.</a>
+     * @see #flatMapMerge(Function, int)
+     */
+    public final <R> Publisher<R> flatMapMerge(Function<? super T, ? extends Publisher<? extends R>> mapper) {
+        return new PublisherFlatMapMerge<>(this, mapper, false, executor);
+    }
+
+    /**
+     * Turns every item emitted by this {@link Publisher} into a {@link Publisher} and emits the items emitted by each
+     * of those {@link Publisher}s, merged in the order they are emitted.
+     * <p>
+     * This method is similar to {@link #map(Function)} but the result is an asynchronous stream, and provides a data
+     * transformation in sequential programming similar to:
+     * <pre>{@code
+     *     ExecutorService e = ...;
+     *     List<Future<List<R>>> futures = ...; // assume this is thread safe
+     *     for (T t : resultOfThisPublisher()) {
+     *         // Note that flatMap process results in parallel.
+     *         futures.add(e.submit(() -> {
+     *             return mapper.apply(t); // Asynchronous result is flatten into a value by this operator.
+     *         }));
+     *     }
+     *     List<R> results = new ArrayList<>(futures.size());
+     *     // This is an approximation, this operator does not provide any ordering guarantees for the results.
+     *     for (Future<List<R>> future : futures) {
+     *         List<R> rList = future.get(); // Throws if the processing for this item failed.
+     *         results.addAll(rList);
+     *     }
+     *     return results;
+     * }</pre>
+     *
+     * @param mapper Function to convert each item emitted by this {@link Publisher} into a {@link Publisher}.
+     * @param maxConcurrency Maximum active {@link Publisher}s at any time.
+     * Even if the number of items requested by a {@link Subscriber} is more than this number, this will never request
+     * more than this number at any point.
+     * @param <R> Type of items emitted by the returned {@link Publisher}.
+     * @return A new {@link Publisher} that emits all items emitted by each {@link Publisher} produced by
+     * {@code mapper}.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/flatmap.html">ReactiveX flatMap operator.</a>
+     * @see #flatMapMerge(Function, int, int)
+     */
+    public final <R> Publisher<R> flatMapMerge(Function<? super T, ? extends Publisher<? extends R>> mapper,
+                                               int maxConcurrency) {
+        return new PublisherFlatMapMerge<>(this, mapper, maxConcurrency, false, executor);
+    }
+
+    /**
+     * Turns every item emitted by this {@link Publisher} into a {@link Publisher} and emits the items emitted by each
+     * of those {@link Publisher}s, merged in the order they are emitted.
+     * <p>
+     * Items are requested from each {@link Publisher} produced by {@code mapper} in batches, so that at most
+     * {@code prefetch} items from each of them are waiting for demand from the {@link Subscriber} of the returned
+     * {@link Publisher}. At most {@code maxConcurrency * prefetch} items are queued.
+     * <p>
+     * This method is similar to {@link #map(Function)} but the result is an asynchronous stream, see
+     * {@link #flatMapMerge(Function, int)}.
+     *
+     * @param mapper Function to convert each item emitted by this {@link Publisher} into a {@link Publisher}.
+     * @param maxConcurrency Maximum active {@link Publisher}s at any time.
+     * Even if the number of items requested by a {@link Subscriber} is more than this number, this will never request
+     * more than this number at any point.
+     * @param prefetch Maximum number of items requested from each {@link Publisher} produced by {@code mapper} and not
+     * yet emitted.
+     * @param <R> Type of items emitted by the returned {@link Publisher}.
+     * @return A new {@link Publisher} that emits all items emitted by each {@link Publisher} produced by
+     * {@code mapper}.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/flatmap.html">ReactiveX flatMap operator.</a>
+     */
+    public final <R> Publisher<R> flatMapMerge(Function<? super T, ? extends Publisher<? extends R>> mapper,
+                                               int maxConcurrency, int prefetch) {
+        return new PublisherFlatMapMerge<>(this, mapper, maxConcurrency, prefetch, false, executor);
+    }
+
+    /**
+     * Turns every item emitted by this {@link Publisher} into a {@link Publisher} and emits the items emitted by each
+     * of those {@link Publisher}s. This is the same as {@link #flatMapMerge(Function, int)} just that if any
+     * {@link Publisher} returned by {@code mapper}, terminates with an error, the returned {@link Publisher} will not
+     * immediately terminate. Instead, it will wait for this {@link Publisher} and all {@link Publisher}s to terminate
+     * and then terminate the returned {@link Publisher} with all errors emitted by the {@link Publisher}s produced by
+     * the {@code mapper}.
+     * <p>
+     * To control the amount of concurrent processing done by this operator see
+     * {@link #flatMapMergeDelayError(Function, int)}.
+     *
+     * @param mapper Function to convert each item emitted by this {@link Publisher} into a {@link Publisher}.
+     * @param <R> Type of items emitted by the returned {@link Publisher}.
+     * @return A new {@link Publisher} that emits all items emitted by each {@link Publisher} produced by
+     * {@code mapper}.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/merge.html">ReactiveX merge operator.</a>
+     * @see #flatMapMergeDelayError(Function, int)
+     */
+    public final <R> Publisher<R> flatMapMergeDelayError(
+            Function<? super T, ? extends Publisher<? extends R>> mapper) {
+        return new PublisherFlatMapMerge<>(this, mapper, true, executor);
+    }
+
+    /**
+     * Turns every item emitted by this {@link Publisher} into a {@link Publisher} and emits the items emitted by each
+     * of those {@link Publisher}s. This is the same as {@link #flatMapMerge(Function, int)} just that if any
+     * {@link Publisher} returned by {@code mapper}, terminates with an error, the returned {@link Publisher} will not
+     * immediately terminate. Instead, it will wait for this {@link Publisher} and all {@link Publisher}s to terminate
+     * and then terminate the returned {@link Publisher} with all errors emitted by the {@link Publisher}s produced by
+     * the {@code mapper}.
+     *
+     * @param mapper Function to convert each item emitted by this {@link Publisher} into a {@link Publisher}.
+     * @param maxConcurrency Maximum active {@link Publisher}s at any time.
+     * Even if the number of items requested by a {@link Subscriber} is more than this number,
+     * this will never request more than this number at any point.
+     * @param <R> Type of items emitted by the returned {@link Publisher}.
+     * @return A new {@link Publisher} that emits all items emitted by each {@link Publisher} produced by
+     * {@code mapper}.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/merge.html">ReactiveX merge operator.</a>
+     */
+    public final <R> Publisher<R> flatMapMergeDelayError(
+            Function<? super T, ? extends Publisher<? extends R>> mapper, int maxConcurrency) {
+        return new PublisherFlatMapMerge<>(this, mapper, maxConcurrency, true, executor);
+    }
+
     /**
      * Turns every item emitted by this {@link Publisher} into a {@link Completable} and terminate the returned
      * {@link Completable} when all the intermediate {@link Completable}s have terminated successfully or any one of
@@ -1111,6 +1267,94 @@ public abstract class Publisher<T> {
         return new TakeUntilPublisher<>(this, until, executor);
     }
 
+    /**
+     * Collects items emitted by this {@link Publisher} into {@link List}s of at most {@code maxItems} items. A
+     * {@link List} is emitted when it has {@code maxItems} items, or when {@code maxDuration} has elapsed since its
+     * first item was received, whichever comes first. The timer is run on the {@link Executor} of this
+     * {@link Publisher}.
+     * <p>
+     * This method provides a means to batch items and in sequential programming is similar to:
+     * <pre>{@code
+     *     List<List<T>> results = ...;
+     *     List<T> batch = new ArrayList<>();
+     *     for (T t : resultOfThisPublisher()) {
+     *         batch.add(t);
+     *         if (batch.size() == maxItems || maxDurationElapsedSinceFirstItem(batch)) {
+     *             results.add(batch);
+     *             batch = new ArrayList<>();
+     *         }
+     *     }
+     *     if (!batch.isEmpty()) {
+     *         results.add(batch);
+     *     }
+     *     return results;
+     * }</pre>
+     *
+     * <h2>Flow control</h2>
+     * {@link Subscription#request(long)} on the returned {@link Publisher} requests {@link List}s. Items are requested
+     * from this {@link Publisher} only while there is demand for a {@link List} and only enough to fill the current
+     * {@link List}, so at most {@code maxItems} items are buffered. If {@code maxDuration} elapses while there is no
+     * demand, the {@link List} is emitted as soon as there is demand.
+     * <p>
+     * If this {@link Publisher} terminates with an error, the error is delivered immediately and any buffered items
+     * are discarded. If this {@link Publisher} completes, the last {@link List} is emitted before completing.
+     *
+     * @param maxItems Maximum number of items in an emitted {@link List}.
+     * @param maxDuration Maximum duration an item is buffered before the {@link List} containing it is emitted.
+     * @return A {@link Publisher} that emits {@link List}s of items emitted by this {@link Publisher}.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/buffer.html">ReactiveX buffer operator.</a>
+     * @see #buffer(int, Duration, Executor)
+     */
+    public final Publisher<List<T>> buffer(int maxItems, Duration maxDuration) {
+        return new BufferPublisher<>(this, maxItems, maxDuration, executor, executor);
+    }
+
+    /**
+     * Collects items emitted by this {@link Publisher} into {@link List}s of at most {@code maxItems} items. A
+     * {@link List} is emitted when it has {@code maxItems} items, or when {@code maxDuration} has elapsed since its
+     * first item was received, whichever comes first.
+     * <p>
+     * See {@link #buffer(int, Duration)} for the flow control and termination semantics.
+     *
+     * @param maxItems Maximum number of items in an emitted {@link List}.
+     * @param maxDuration Maximum duration an item is buffered before the {@link List} containing it is emitted.
+     * @param timerExecutor {@link Executor} used to schedule the {@code maxDuration} timer.
+     * @return A {@link Publisher} that emits {@link List}s of items emitted by this {@link Publisher}.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/buffer.html">ReactiveX buffer operator.</a>
+     */
+    public final Publisher<List<T>> buffer(int maxItems, Duration maxDuration, Executor timerExecutor) {
+        return new BufferPublisher<>(this, maxItems, maxDuration, timerExecutor, executor);
+    }
+
+    /**
+     * Requests items from this {@link Publisher} in batches of at most {@code prefetch} items and queues them until
+     * they are requested from the returned {@link Publisher}.
+     * <p>
+     * The first {@link Subscription#request(long)} on the returned {@link Publisher} requests {@code prefetch} items
+     * from this {@link Publisher}. After that, {@code prefetch - prefetch / 4} more items are requested each time as
+     * many items have been emitted. Demand signalled in small increments, e.g. one item at a time, is then satisfied
+     * from the queue and does not result in a {@link Subscription#request(long)} on this {@link Publisher}. This is
+     * useful if signals to this {@link Publisher} are expensive, for example when they are offloaded via
+     * {@link #subscribeOn(Executor)}.
+     *
+     * <h2>Flow control</h2>
+     * At most {@code prefetch} items are queued. If this {@link Publisher} emits more items than requested, the
+     * returned {@link Publisher} terminates with an error.
+     * <p>
+     * If this {@link Publisher} terminates with an error, the error is delivered after queued items have been emitted
+     * for the outstanding demand, any remaining queued items are discarded. If this {@link Publisher} completes,
+     * completion is delivered after all queued items have been emitted.
+     *
+     * @param prefetch Maximum number of items to request ahead of demand from this {@link Publisher}.
+     * @return A {@link Publisher} that emits all items emitted by this {@link Publisher} while requesting them in
+     * batches.
+     */
+    public final Publisher<T> prefetch(int prefetch) {
+        return new PrefetchPublisher<>(this, prefetch, executor);
+    }
+
     /**
      * Splits items from this {@link Publisher} into dynamically generated {@link GroupedPublisher}s.
      * Item to group association is done by {@code keySelector} {@link Function}. If the selector selects a key which is
@@ -1391,7 +1635,7 @@ public abstract class Publisher<T> {
      * @see <a href="http://reactivex.io/documentation/operators/do.html">ReactiveX do operator.</a>
      */
     public final Publisher<T> beforeOnNext(Consumer<? super T> onNext) {
-        return beforeSubscriber(doOnNextSupplier(onNext));
+        return FusedPublisher.beforeOnNext(this, onNext, executor);
     }
 
     /**
@@ -2410,6 +2654,81 @@ public abstract class Publisher<T> {
         return new PublisherDefer<>(publisherSupplier);
     }
 
+    /**
+     * Merges all the items emitted by the passed {@link Publisher}s.
+     * <p>
+     * This will actively subscribe to a default number of {@link Publisher}s concurrently, in order to alter the
+     * defaults, {@link #mergeAll(Iterable, int)} should be used.
+     * <p>
+     * If any of the {@link Publisher}s terminate with an error, returned {@link Publisher} will immediately terminate
+     * with that error. In such a case, any in-progress {@link Publisher}s will be cancelled.
+     *
+     * @param publishers {@link Iterable} of {@link Publisher}s, items of which are to be merged.
+     * @param <T> Type of items emitted by the returned {@link Publisher}.
+     * @return A new {@link Publisher} that emits all items emitted by the passed {@link Publisher}s.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/merge.html">ReactiveX merge operator.</a>
+     */
+    public static <T> Publisher<T> mergeAll(Iterable<? extends Publisher<? extends T>> publishers) {
+        return fromIterable(publishers).flatMapMerge(identity());
+    }
+
+    /**
+     * Merges all the items emitted by the passed {@link Publisher}s.
+     * <p>
+     * This will actively subscribe to a default number of {@link Publisher}s concurrently, in order to alter the
+     * defaults, {@link #mergeAll(int, Publisher[])} should be used.
+     * <p>
+     * If any of the {@link Publisher}s terminate with an error, returned {@link Publisher} will immediately terminate
+     * with that error. In such a case, any in-progress {@link Publisher}s will be cancelled.
+     *
+     * @param publishers {@link Publisher}s, items of which are to be merged.
+     * @param <T> Type of items emitted by the returned {@link Publisher}.
+     * @return A new {@link Publisher} that emits all items emitted by the passed {@link Publisher}s.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/merge.html">ReactiveX merge operator.</a>
+     */
+    @SafeVarargs
+    public static <T> Publisher<T> mergeAll(Publisher<? extends T>... publishers) {
+        return from(publishers).flatMapMerge(identity());
+    }
+
+    /**
+     * Merges all the items emitted by the passed {@link Publisher}s.
+     * <p>
+     * If any of the {@link Publisher}s terminate with an error, returned {@link Publisher} will immediately terminate
+     * with that error. In such a case, any in-progress {@link Publisher}s will be cancelled.
+     *
+     * @param publishers {@link Iterable} of {@link Publisher}s, items of which are to be merged.
+     * @param maxConcurrency Maximum number of {@link Publisher}s that will be active at any point in time.
+     * @param <T> Type of items emitted by the returned {@link Publisher}.
+     * @return A new {@link Publisher} that emits all items emitted by the passed {@link Publisher}s.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/merge.html">ReactiveX merge operator.</a>
+     */
+    public static <T> Publisher<T> mergeAll(Iterable<? extends Publisher<? extends T>> publishers,
+                                            int maxConcurrency) {
+        return fromIterable(publishers).flatMapMerge(identity(), maxConcurrency);
+    }
+
+    /**
+     * Merges all the items emitted by the passed {@link Publisher}s.
+     * <p>
+     * If any of the {@link Publisher}s terminate with an error, returned {@link Publisher} will immediately terminate
+     * with that error. In such a case, any in-progress {@link Publisher}s will be cancelled.
+     *
+     * @param maxConcurrency Maximum number of {@link Publisher}s that will be active at any point in time.
+     * @param publishers {@link Publisher}s, items of which are to be merged.
+     * @param <T> Type of items emitted by the returned {@link Publisher}.
+     * @return A new {@link Publisher} that emits all items emitted by the passed {@link Publisher}s.
+     *
+     * @see <a href="http://reactivex.io/documentation/operators/merge.html">ReactiveX merge operator.</a>
+     */
+    @SafeVarargs
+    public static <T> Publisher<T> mergeAll(int maxConcurrency, Publisher<? extends T>... publishers) {
+        return from(publishers).flatMapMerge(identity(), maxConcurrency);
+    }
+
     //
     // Static Utility Methods End
     //
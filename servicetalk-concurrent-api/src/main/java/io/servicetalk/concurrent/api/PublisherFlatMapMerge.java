@@ -0,0 +1,399 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.internal.ConcurrentSubscription;
+import io.servicetalk.concurrent.internal.FlowControlUtil;
+import io.servicetalk.concurrent.internal.QueueFullException;
+import io.servicetalk.concurrent.internal.TerminalNotification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.SubscriberApiUtils.NULL_TOKEN;
+import static io.servicetalk.concurrent.internal.ConcurrentUtils.executeExclusive;
+import static io.servicetalk.concurrent.internal.PlatformDependent.newSpscQueue;
+import static io.servicetalk.concurrent.internal.PlatformDependent.newUnboundedMpscQueue;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.checkDuplicateSubscription;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.isRequestNValid;
+import static io.servicetalk.concurrent.internal.SubscriberUtils.trySetTerminal;
+import static io.servicetalk.concurrent.internal.TerminalNotification.complete;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater;
+
+/**
+ * As returned by {@link Publisher#flatMapMerge(Function, int)} and its variants.
+ * <p>
+ * Each mapped {@link Publisher} has its own bounded queue which holds at most {@code prefetch} items. Mapped
+ * {@link Publisher}s with queued items are put on a shared queue, which is drained by a single thread at a time while
+ * there is demand. This bounds the memory used to {@code maxConcurrency * prefetch} items without any locks.
+ *
+ * @param <R> Type of items emitted by this {@link Publisher}
+ * @param <T> Type of items emitted by source {@link Publisher}
+ */
+final class PublisherFlatMapMerge<T, R> extends AbstractAsynchronousPublisherOperator<T, R> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PublisherFlatMapMerge.class);
+    static final int DEFAULT_MAX_CONCURRENCY = 16;
+    static final int DEFAULT_PREFETCH = 16;
+
+    private final Function<? super T, ? extends Publisher<? extends R>> mapper;
+    private final int maxConcurrency;
+    private final int prefetch;
+    /**
+     * Number of items consumed from a mapped {@link Publisher} after which more items are requested from it.
+     */
+    private final int replenishThreshold;
+    private final boolean delayError;
+
+    PublisherFlatMapMerge(Publisher<T> original, Function<? super T, ? extends Publisher<? extends R>> mapper,
+                          boolean delayError, Executor executor) {
+        this(original, mapper, DEFAULT_MAX_CONCURRENCY, delayError, executor);
+    }
+
+    PublisherFlatMapMerge(Publisher<T> original, Function<? super T, ? extends Publisher<? extends R>> mapper,
+                          int maxConcurrency, boolean delayError, Executor executor) {
+        this(original, mapper, maxConcurrency, DEFAULT_PREFETCH, delayError, executor);
+    }
+
+    PublisherFlatMapMerge(Publisher<T> original, Function<? super T, ? extends Publisher<? extends R>> mapper,
+                          int maxConcurrency, int prefetch, boolean delayError, Executor executor) {
+        super(original, executor);
+        this.mapper = requireNonNull(mapper);
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency: " + maxConcurrency + " (expected > 0)");
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch: " + prefetch + " (expected > 0)");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.prefetch = prefetch;
+        replenishThreshold = prefetch - (prefetch >>> 2);
+        this.delayError = delayError;
+    }
+
+    @Override
+    public Subscriber<? super T> apply(Subscriber<? super R> subscriber) {
+        return new FlatMapSubscriber<>(this, subscriber);
+    }
+
+    private static final class FlatMapSubscriber<T, R> implements Subscriber<T>, Subscription {
+        private static final AtomicReferenceFieldUpdater<FlatMapSubscriber, CompositeException> delayedErrorUpdater =
+                newUpdater(FlatMapSubscriber.class, CompositeException.class, "delayedError");
+        private static final AtomicIntegerFieldUpdater<FlatMapSubscriber> drainingUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(FlatMapSubscriber.class, "draining");
+        private static final AtomicIntegerFieldUpdater<FlatMapSubscriber> sourceRequestedUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(FlatMapSubscriber.class, "sourceRequested");
+        private static final AtomicLongFieldUpdater<FlatMapSubscriber> requestedUpdater =
+                AtomicLongFieldUpdater.newUpdater(FlatMapSubscriber.class, "requested");
+        private static final AtomicIntegerFieldUpdater<FlatMapSubscriber> activeUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(FlatMapSubscriber.class, "active");
+        private static final AtomicReferenceFieldUpdater<FlatMapSubscriber, TerminalNotification>
+                terminalNotificationUpdater = newUpdater(FlatMapSubscriber.class, TerminalNotification.class,
+                "terminalNotification");
+
+        @SuppressWarnings("unused")
+        @Nullable
+        private volatile CompositeException delayedError;
+        @SuppressWarnings("unused")
+        private volatile int draining;
+        @SuppressWarnings("unused")
+        private volatile int sourceRequested;
+        @SuppressWarnings("unused")
+        private volatile long requested;
+        @SuppressWarnings("unused")
+        private volatile int active; // Number of currently active mapped Publishers.
+        @Nullable
+        private volatile Subscription subscription;
+        @Nullable
+        private volatile TerminalNotification terminalNotification;
+
+        // The following fields are only accessed while draining, which provides visibility to other threads.
+        /**
+         * The mapped {@link Publisher} whose queue is being drained. It has been removed from {@link #ready} but is
+         * still scheduled.
+         */
+        @Nullable
+        private InnerSubscriber<R> current;
+        private long emitted;
+        private boolean targetTerminated;
+
+        /**
+         * Mapped {@link Publisher}s which have queued items, each one is added at most once.
+         */
+        private final Queue<InnerSubscriber<R>> ready;
+        private final DynamicCompositeCancellable cancellable = new MapDynamicCompositeCancellable();
+        private final PublisherFlatMapMerge<T, R> source;
+        private final Subscriber<? super R> target;
+
+        FlatMapSubscriber(PublisherFlatMapMerge<T, R> source, Subscriber<? super R> target) {
+            this.source = source;
+            this.target = target;
+            // Start with a small capacity as maxConcurrency can be large.
+            ready = newUnboundedMpscQueue(min(2, source.maxConcurrency));
+        }
+
+        @Override
+        public void request(long n) {
+            final Subscription s = subscription;
+            assert s != null;
+            if (!isRequestNValid(n)) {
+                s.request(n);
+                return;
+            }
+
+            requestedUpdater.accumulateAndGet(this, n, FlowControlUtil::addWithOverflowProtection);
+            // Mapped Publishers are subscribed on the first request, after that each one which terminates is replaced.
+            if (sourceRequestedUpdater.compareAndSet(this, 0, 1)) {
+                s.request(source.maxConcurrency);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            doCancel(true);
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (!checkDuplicateSubscription(subscription, s)) {
+                return;
+            }
+            subscription = ConcurrentSubscription.wrap(s);
+            target.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T t) {
+            final Publisher<? extends R> next = requireNonNull(source.mapper.apply(t));
+            activeUpdater.incrementAndGet(this);
+            next.subscribeInternal(new InnerSubscriber<>(this));
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (!onError0(t, false, false)) {
+                LOGGER.debug("Already terminated/cancelled, ignoring error notification.", t);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (trySetTerminal(complete(), false, terminalNotificationUpdater, this)) {
+                drain();
+            }
+        }
+
+        private boolean onError0(Throwable throwable, boolean overrideComplete, boolean cancelSubscriberIfNecessary) {
+            if (trySetTerminal(TerminalNotification.error(throwable), overrideComplete, terminalNotificationUpdater,
+                    this)) {
+                try {
+                    doCancel(cancelSubscriberIfNecessary);
+                } finally {
+                    drain();
+                }
+                return true;
+            }
+            return false;
+        }
+
+        private void onInnerError(Throwable t, InnerSubscriber<R> inner) {
+            if (!source.delayError) {
+                onError0(t, true, true);
+                return;
+            }
+            CompositeException de = delayedError;
+            if (de == null) {
+                de = new CompositeException(t);
+                if (!delayedErrorUpdater.compareAndSet(this, null, de)) {
+                    de = delayedError;
+                    assert de != null;
+                    de.add(t);
+                }
+            } else {
+                de.add(t);
+            }
+            onInnerTerminated(inner);
+        }
+
+        private void onInnerTerminated(InnerSubscriber<R> inner) {
+            final Subscription innerSubscription = inner.subscription;
+            if (innerSubscription != null) {
+                cancellable.remove(innerSubscription);
+            }
+            // Items from this mapped Publisher are queued before it is no longer active, so draining will see them
+            // before it sees that all mapped Publishers have terminated.
+            activeUpdater.decrementAndGet(this);
+            final Subscription s = subscription;
+            assert s != null;
+            s.request(1);
+            drain();
+        }
+
+        private void doCancel(boolean cancelSubscription) {
+            cancellable.cancel();
+            if (cancelSubscription) {
+                final Subscription subscription = this.subscription;
+                assert subscription != null;
+                subscription.cancel();
+            }
+        }
+
+        private void drain() {
+            executeExclusive(this::drain0, drainingUpdater, this);
+        }
+
+        private void drain0() {
+            if (targetTerminated) {
+                return;
+            }
+            final TerminalNotification terminalNotification = this.terminalNotification;
+            if (terminalNotification != null && terminalNotification.cause() != null) {
+                // Errors from the source, or from a mapped Publisher without delayError, are delivered without
+                // waiting for demand and queued items are discarded.
+                targetTerminated = true;
+                current = null;
+                terminalNotification.terminate(target);
+                return;
+            }
+
+            while (emitted < requested) {
+                InnerSubscriber<R> inner = current;
+                if (inner == null) {
+                    inner = ready.poll();
+                    if (inner == null) {
+                        break;
+                    }
+                    current = inner;
+                }
+                final Object item = inner.items.poll();
+                if (item == null) {
+                    current = null;
+                    inner.unschedule();
+                    continue;
+                }
+                ++emitted;
+                inner.onConsumed();
+                if (item == NULL_TOKEN) {
+                    target.onNext(null);
+                } else {
+                    @SuppressWarnings("unchecked")
+                    final R rItem = (R) item;
+                    target.onNext(rItem);
+                }
+            }
+
+            // active must be checked before the queues, see onInnerTerminated.
+            if (terminalNotification != null && active == 0 && ready.isEmpty() &&
+                    (current == null || current.items.isEmpty())) {
+                targetTerminated = true;
+                current = null;
+                final CompositeException de = delayedError;
+                if (de != null) {
+                    de.addAllPendingSuppressed();
+                    terminalNotification.terminate(target, de);
+                } else {
+                    terminalNotification.terminate(target);
+                }
+            }
+        }
+
+        private static final class InnerSubscriber<R> implements Subscriber<R> {
+            private static final AtomicIntegerFieldUpdater<InnerSubscriber> scheduledUpdater =
+                    AtomicIntegerFieldUpdater.newUpdater(InnerSubscriber.class, "scheduled");
+
+            private final FlatMapSubscriber<?, R> parent;
+            private final Queue<Object> items;
+            @Nullable
+            private volatile Subscription subscription;
+            /**
+             * {@code 1} while this is in {@link FlatMapSubscriber#ready} or is {@link FlatMapSubscriber#current}.
+             */
+            @SuppressWarnings("unused")
+            private volatile int scheduled;
+            // Only accessed while draining.
+            private int consumed;
+
+            InnerSubscriber(FlatMapSubscriber<?, R> parent) {
+                this.parent = parent;
+                items = newSpscQueue(min(16, parent.source.prefetch), parent.source.prefetch);
+            }
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                if (!checkDuplicateSubscription(subscription, s)) {
+                    return;
+                }
+                final Subscription subscription = ConcurrentSubscription.wrap(s);
+                this.subscription = subscription;
+                // If the parent is already cancelled, this cancels the subscription.
+                parent.cancellable.add(subscription);
+                subscription.request(parent.source.prefetch);
+            }
+
+            @Override
+            public void onNext(@Nullable R r) {
+                if (!items.offer(r == null ? NULL_TOKEN : r)) {
+                    parent.onError0(new QueueFullException("flatMapMerge", parent.source.prefetch), true, true);
+                    return;
+                }
+                schedule();
+                parent.drain();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                parent.onInnerError(t, this);
+            }
+
+            @Override
+            public void onComplete() {
+                parent.onInnerTerminated(this);
+            }
+
+            private void schedule() {
+                if (scheduledUpdater.compareAndSet(this, 0, 1)) {
+                    parent.ready.offer(this);
+                }
+            }
+
+            void unschedule() {
+                scheduled = 0;
+                // An item may have been queued after the queue was found empty but before scheduled was cleared.
+                if (!items.isEmpty()) {
+                    schedule();
+                }
+            }
+
+            void onConsumed() {
+                if (++consumed == parent.source.replenishThreshold) {
+                    consumed = 0;
+                    final Subscription subscription = this.subscription;
+                    assert subscription != null;
+                    subscription.request(parent.source.replenishThreshold);
+                }
+            }
+        }
+    }
+}
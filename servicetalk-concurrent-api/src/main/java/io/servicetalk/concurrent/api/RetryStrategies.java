@@ -164,6 +164,54 @@ public final class RetryStrategies {
         };
     }
 
+    /**
+     * Creates a new retry function that adds a delay between retries. For first retry, the delay is
+     * {@code initialDelay} which is increased exponentially for subsequent retries, up to {@code maxDelay}.
+     * This additionally adds a "Full Jitter" for the backoff as described
+     * <a href="https://aws.amazon.com/blogs/architecture/exponential-backoff-and-jitter/">here</a>.
+     * <p>
+     * Unlike {@link #retryWithExponentialBackoffAndJitter(int, Predicate, Duration, Executor)} the delay does not
+     * overflow for high retry counts.
+     *
+     * @param maxRetries Maximum number of allowed retries, after which the returned {@link BiIntFunction} will return
+     * a failed {@link Completable} with the passed {@link Throwable} as the cause
+     * @param causeFilter A {@link Predicate} that selects whether a {@link Throwable} cause should be retried
+     * @param initialDelay Delay {@link Duration} for the first retry and increased exponentially with each retry
+     * @param maxDelay Maximum {@link Duration} of delay between retries
+     * @param timerExecutor {@link Executor} to be used to schedule timers for backoff
+     * @return A {@link BiIntFunction} to be used for retries which given a retry count and a {@link Throwable} returns
+     * a {@link Completable} that terminates successfully when the source has to be retried or terminates with error
+     * if the source should not be retried for the passed {@link Throwable}
+     */
+    public static BiIntFunction<Throwable, Completable> retryWithExponentialBackoffAndJitter(
+            final int maxRetries,
+            final Predicate<Throwable> causeFilter,
+            final Duration initialDelay,
+            final Duration maxDelay,
+            final Executor timerExecutor) {
+
+        checkMaxRetries(maxRetries);
+        requireNonNull(timerExecutor);
+        requireNonNull(causeFilter);
+        final long initialDelayNanos = initialDelay.toNanos();
+        final long maxDelayNanos = maxDelay.toNanos();
+        if (initialDelayNanos <= 0 || maxDelayNanos < initialDelayNanos) {
+            throw new IllegalArgumentException("initialDelay: " + initialDelay + ", maxDelay: " + maxDelay +
+                    " (expected 0 < initialDelay <= maxDelay)");
+        }
+        // Number of doublings of initialDelayNanos before it would exceed maxDelayNanos, also prevents overflow.
+        final int maxShift = Long.numberOfLeadingZeros(initialDelayNanos) - Long.numberOfLeadingZeros(maxDelayNanos);
+        return (retryCount, cause) -> {
+            if (retryCount > maxRetries || !causeFilter.test(cause)) {
+                return failed(cause);
+            }
+            final int shift = retryCount - 1;
+            final long delayNanos = shift >= maxShift ? maxDelayNanos :
+                    Math.min(maxDelayNanos, initialDelayNanos << shift);
+            return timerExecutor.timer(ThreadLocalRandom.current().nextLong(0, delayNanos + 1), NANOSECONDS);
+        };
+    }
+
     private static void checkMaxRetries(final int maxRetries) {
         if (maxRetries <= 0) {
             throw new IllegalArgumentException("maxRetries: " + maxRetries + " (expected: >0)");
@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.concurrent.internal.TerminalNotification.complete;
+import static java.time.Duration.ofSeconds;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class BufferPublisherTest {
+
+    private final TestPublisher<String> publisher = new TestPublisher<>();
+    private final TestPublisherSubscriber<List<String>> subscriber = new TestPublisherSubscriber<>();
+    private final TestSubscription subscription = new TestSubscription();
+    private final TestExecutor executor = new TestExecutor();
+
+    @Test
+    public void emitsFullBatch() {
+        subscribe();
+        subscriber.request(1);
+        assertThat(subscription.requested(), is(3L));
+        publisher.onNext("Hello1", "Hello2", "Hello3");
+        assertThat(subscriber.takeItems(), contains(asList("Hello1", "Hello2", "Hello3")));
+        assertThat(executor.scheduledTasksPending(), is(0));
+        assertThat("Unexpected request without demand.", subscription.requested(), is(3L));
+        subscriber.request(1);
+        assertThat(subscription.requested(), is(6L));
+    }
+
+    @Test
+    public void emitsPartialBatchOnTimeout() {
+        subscribe();
+        subscriber.request(2);
+        publisher.onNext("Hello1");
+        executor.advanceTimeBy(1, SECONDS);
+        assertThat(subscriber.takeItems(), contains(singletonList("Hello1")));
+        assertThat("Unexpected request beyond one batch.", subscription.requested(), is(4L));
+        publisher.onNext("Hello2", "Hello3", "Hello4");
+        assertThat(subscriber.takeItems(), contains(asList("Hello2", "Hello3", "Hello4")));
+        assertThat(subscription.requested(), is(4L));
+    }
+
+    @Test
+    public void timeoutWithoutDemandWaitsForRequest() {
+        subscribe();
+        subscriber.request(1);
+        publisher.onNext("Hello1");
+        executor.advanceTimeBy(1, SECONDS);
+        assertThat(subscriber.takeItems(), contains(singletonList("Hello1")));
+        publisher.onNext("Hello2");
+        executor.advanceTimeBy(1, SECONDS);
+        assertThat(subscriber.takeItems(), is(empty()));
+        subscriber.request(1);
+        assertThat(subscriber.takeItems(), contains(singletonList("Hello2")));
+    }
+
+    @Test
+    public void completeEmitsPartialBatch() {
+        subscribe();
+        subscriber.request(1);
+        publisher.onNext("Hello1");
+        publisher.onComplete();
+        assertThat(subscriber.takeItems(), contains(singletonList("Hello1")));
+        assertThat(subscriber.takeTerminal(), is(complete()));
+        assertThat(executor.scheduledTasksPending(), is(0));
+    }
+
+    @Test
+    public void completeWaitsForDemand() {
+        subscribe();
+        subscriber.request(1);
+        publisher.onNext("Hello1");
+        executor.advanceTimeBy(1, SECONDS);
+        publisher.onNext("Hello2");
+        publisher.onComplete();
+        assertThat(subscriber.takeItems(), contains(singletonList("Hello1")));
+        assertThat(subscriber.terminal(), is(nullValue()));
+        subscriber.request(1);
+        assertThat(subscriber.takeItems(), contains(singletonList("Hello2")));
+        assertThat(subscriber.takeTerminal(), is(complete()));
+    }
+
+    @Test
+    public void errorDiscardsBatch() {
+        subscribe();
+        subscriber.request(1);
+        publisher.onNext("Hello1");
+        publisher.onError(DELIBERATE_EXCEPTION);
+        assertThat(subscriber.takeItems(), is(empty()));
+        assertThat(subscriber.takeError(), sameInstance(DELIBERATE_EXCEPTION));
+        assertThat(executor.scheduledTasksPending(), is(0));
+    }
+
+    @Test
+    public void nullItems() {
+        subscribe();
+        subscriber.request(1);
+        publisher.onNext(null, "Hello1", null);
+        assertThat(subscriber.takeItems(), contains(asList(null, "Hello1", null)));
+    }
+
+    @Test
+    public void cancelStopsTimer() {
+        subscribe();
+        subscriber.request(1);
+        publisher.onNext("Hello1");
+        subscriber.cancel();
+        assertTrue(subscription.isCancelled());
+        assertThat(executor.scheduledTasksPending(), is(0));
+        executor.advanceTimeBy(1, SECONDS);
+        assertThat(subscriber.takeItems(), is(empty()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidMaxItems() {
+        publisher.buffer(0, ofSeconds(1), executor);
+    }
+
+    private void subscribe() {
+        toSource(publisher.buffer(3, ofSeconds(1), executor)).subscribe(subscriber);
+        publisher.onSubscribe(subscription);
+    }
+}
@@ -97,6 +97,8 @@ public final class DefaultExecutorTest {
         nameAndExecutorPairs.add(newParams(() -> newFixedSizeExecutor(2), "fixed-size-2", true, 2));
         nameAndExecutorPairs.add(newParams(io.servicetalk.concurrent.api.Executors::newCachedThreadExecutor, "cached",
                 true, UNBOUNDED));
+        nameAndExecutorPairs.add(newParams(io.servicetalk.concurrent.api.Executors::newVirtualThreadExecutor,
+                "virtual", true, UNBOUNDED));
         nameAndExecutorPairs.add(newParams(() -> {
             ExecutorService service = Executors.newCachedThreadPool();
             //noinspection Convert2MethodRef,FunctionalExpressionCanBeFolded
@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.internal.DeliberateException;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.concurrent.internal.TerminalNotification.complete;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class FusedPublisherTest {
+
+    private final TestPublisher<Integer> source = new TestPublisher.Builder<Integer>()
+            .disableAutoOnSubscribe().build();
+    private final TestPublisherSubscriber<String> subscriber = new TestPublisherSubscriber<>();
+    private final TestSubscription subscription = new TestSubscription();
+
+    @Test
+    public void adjacentOperatorsAreFused() {
+        final Publisher<Integer> first = source.map(i -> i + 1);
+        final Publisher<String> chain = first.filter(i -> i > 0).beforeOnNext(i -> { }).map(String::valueOf);
+        assertThat(first, instanceOf(FusedPublisher.class));
+        assertThat(chain, instanceOf(FusedPublisher.class));
+    }
+
+    @Test
+    public void stagesAreAppliedInOrder() {
+        final List<String> observed = new ArrayList<>();
+        subscribe(source.beforeOnNext(i -> observed.add("before " + i))
+                .map(i -> i * 10)
+                .beforeOnNext(i -> observed.add("mapped " + i))
+                .filter(i -> i != 20)
+                .map(String::valueOf)
+                .beforeOnNext(s -> observed.add("emitted " + s)));
+        subscriber.request(2);
+        source.onNext(1, 2);
+        assertThat(subscriber.takeItems(), contains("10"));
+        assertThat(observed, contains("before 1", "mapped 10", "emitted 10", "before 2", "mapped 20"));
+    }
+
+    @Test
+    public void filteredItemsAreRequestedOnce() {
+        subscribe(source.filter(i -> i % 2 == 0).filter(i -> i % 3 == 0).map(String::valueOf));
+        subscriber.request(1);
+        assertThat(subscription.requested(), is(1L));
+        source.onNext(1);
+        assertThat(subscription.requested(), is(2L));
+        source.onNext(2);
+        assertThat(subscription.requested(), is(3L));
+        source.onNext(6);
+        assertThat(subscription.requested(), is(3L));
+        assertThat(subscriber.takeItems(), contains("6"));
+    }
+
+    @Test
+    public void nullItems() {
+        subscribe(source.map(i -> (Integer) null).filter(i -> i == null).map(i -> (String) null));
+        subscriber.request(1);
+        source.onNext(1);
+        assertThat(subscriber.takeItems(), contains((String) null));
+    }
+
+    @Test
+    public void terminalSignalsPassThrough() {
+        subscribe(source.filter(i -> true).map(String::valueOf));
+        subscriber.request(1);
+        source.onComplete();
+        assertThat(subscriber.takeTerminal(), is(complete()));
+    }
+
+    @Test
+    public void errorPassesThrough() {
+        subscribe(source.beforeOnNext(i -> { }).map(String::valueOf));
+        source.onError(DELIBERATE_EXCEPTION);
+        assertThat(subscriber.takeError(), sameInstance(DELIBERATE_EXCEPTION));
+    }
+
+    @Test(expected = DeliberateException.class)
+    public void stageThrows() {
+        subscribe(source.map(i -> i).map(i -> {
+            throw DELIBERATE_EXCEPTION;
+        }));
+        subscriber.request(1);
+        source.onNext(1);
+    }
+
+    private void subscribe(Publisher<String> publisher) {
+        toSource(publisher).subscribe(subscriber);
+        source.onSubscribe(subscription);
+    }
+}
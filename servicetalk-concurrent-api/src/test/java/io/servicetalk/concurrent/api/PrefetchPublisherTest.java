@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.internal.QueueFullException;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.Collection;
+import java.util.List;
+
+import static io.servicetalk.concurrent.api.Executors.newCachedThreadExecutor;
+import static io.servicetalk.concurrent.api.Publisher.fromIterable;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.concurrent.internal.TerminalNotification.complete;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class PrefetchPublisherTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout(30, SECONDS);
+
+    private final TestPublisherSubscriber<Integer> subscriber = new TestPublisherSubscriber<>();
+    private final TestPublisher<Integer> source = new TestPublisher<>();
+    private final TestSubscription subscription = new TestSubscription();
+
+    @Test
+    public void requestsInBatches() {
+        subscribe();
+        subscriber.request(1);
+        assertThat(subscription.requested(), is(8L));
+        source.onNext(1, 2, 3, 4, 5, 6, 7, 8);
+        assertThat(subscriber.takeItems(), contains(1));
+        for (int i = 0; i < 4; i++) {
+            subscriber.request(1);
+        }
+        assertThat(subscriber.takeItems(), contains(2, 3, 4, 5));
+        assertThat("Requested before the replenish threshold.", subscription.requested(), is(8L));
+        subscriber.request(1);
+        assertThat(subscriber.takeItems(), contains(6));
+        assertThat(subscription.requested(), is(14L));
+    }
+
+    @Test
+    public void subsequentRequestsDoNotRequestMore() {
+        subscribe();
+        subscriber.request(1);
+        subscriber.request(1);
+        subscriber.request(3);
+        assertThat(subscription.requested(), is(8L));
+    }
+
+    @Test
+    public void completesAfterQueuedItemsAreEmitted() {
+        subscribe();
+        subscriber.request(1);
+        source.onNext(1, 2, 3);
+        source.onComplete();
+        assertThat(subscriber.takeItems(), contains(1));
+        assertThat(subscriber.terminal(), is(nullValue()));
+        subscriber.request(2);
+        assertThat(subscriber.takeItems(), contains(2, 3));
+        assertThat(subscriber.takeTerminal(), is(complete()));
+    }
+
+    @Test
+    public void errorDeliveredAfterDemandIsExhausted() {
+        subscribe();
+        subscriber.request(2);
+        source.onNext(1, 2, 3);
+        source.onError(DELIBERATE_EXCEPTION);
+        assertThat(subscriber.takeItems(), contains(1, 2));
+        assertThat(subscriber.takeError(), sameInstance(DELIBERATE_EXCEPTION));
+    }
+
+    @Test
+    public void nullItems() {
+        subscribe();
+        subscriber.request(2);
+        source.onNext(1, null);
+        assertThat(subscriber.takeItems(), contains(1, null));
+    }
+
+    @Test
+    public void queueOverflow() {
+        subscribe();
+        subscriber.request(1);
+        // The queue may round up its capacity, so emit well beyond what was requested.
+        for (int i = 0; i < 64 && !subscriber.isTerminated(); i++) {
+            source.onNext(i);
+        }
+        assertThat(subscriber.takeItems(), contains(0));
+        assertThat(subscriber.takeError(), instanceOf(QueueFullException.class));
+        assertTrue(subscription.isCancelled());
+    }
+
+    @Test
+    public void cancelPropagates() {
+        subscribe();
+        subscriber.request(1);
+        subscriber.cancel();
+        assertTrue(subscription.isCancelled());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPrefetch() {
+        source.prefetch(0);
+    }
+
+    @Test
+    public void concurrentProducer() throws Exception {
+        final Executor executor = newCachedThreadExecutor();
+        try {
+            final List<Integer> expected = range(0, 10_000).boxed().collect(toList());
+            final Collection<Integer> result = fromIterable(expected).subscribeOn(executor).prefetch(16)
+                    .toFuture().get();
+            assertThat(result, is(expected));
+        } finally {
+            executor.closeAsync().toFuture().get();
+        }
+    }
+
+    private void subscribe() {
+        toSource(source.prefetch(8)).subscribe(subscriber);
+        source.onSubscribe(subscription);
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.PublisherSource.Subscriber;
+import io.servicetalk.concurrent.internal.DeliberateException;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static io.servicetalk.concurrent.api.Executors.newCachedThreadExecutor;
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static io.servicetalk.concurrent.api.Publisher.fromIterable;
+import static io.servicetalk.concurrent.api.Publisher.mergeAll;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.concurrent.internal.TerminalNotification.complete;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class PublisherFlatMapMergeTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout(30, SECONDS);
+
+    private final TestPublisherSubscriber<String> subscriber = new TestPublisherSubscriber<>();
+    private final TestPublisher<Integer> source = new TestPublisher<>();
+    private final TestSubscription subscription = new TestSubscription();
+    private final List<TestPublisher<String>> inners = new ArrayList<>();
+    private final List<TestSubscription> innerSubscriptions = new ArrayList<>();
+
+    @Test
+    public void mergesItems() {
+        subscribe(false);
+        subscriber.request(10);
+        assertThat(subscription.requested(), is(2L));
+        source.onNext(0, 1);
+        assertThat(innerSubscriptions.get(0).requested(), is(4L));
+        assertThat(innerSubscriptions.get(1).requested(), is(4L));
+        inners.get(0).onNext("a");
+        inners.get(1).onNext("b");
+        inners.get(0).onNext("c");
+        assertThat(subscriber.takeItems(), contains("a", "b", "c"));
+        inners.get(0).onComplete();
+        assertThat("Terminated Publisher not replaced.", subscription.requested(), is(3L));
+        source.onComplete();
+        assertThat(subscriber.terminal(), is(nullValue()));
+        inners.get(1).onNext((String) null);
+        inners.get(1).onComplete();
+        assertThat(subscriber.takeItems(), contains((String) null));
+        assertThat(subscriber.takeTerminal(), is(complete()));
+    }
+
+    @Test
+    public void respectsDemand() {
+        subscribe(false);
+        subscriber.request(1);
+        source.onNext(0, 1);
+        inners.get(0).onNext("a", "b");
+        inners.get(1).onNext("c");
+        assertThat(subscriber.takeItems(), contains("a"));
+        subscriber.request(2);
+        assertThat(subscriber.takeItems(), contains("b", "c"));
+    }
+
+    @Test
+    public void replenishesAfterConsumption() {
+        subscribe(false);
+        subscriber.request(10);
+        source.onNext(0);
+        inners.get(0).onNext("a", "b");
+        assertThat(innerSubscriptions.get(0).requested(), is(4L));
+        inners.get(0).onNext("c");
+        assertThat(innerSubscriptions.get(0).requested(), is(7L));
+        assertThat(subscriber.takeItems(), contains("a", "b", "c"));
+    }
+
+    @Test
+    public void completionWaitsForQueuedItems() {
+        subscribe(false);
+        subscriber.request(1);
+        source.onNext(0);
+        inners.get(0).onNext("a", "b", "c");
+        inners.get(0).onComplete();
+        source.onComplete();
+        assertThat(subscriber.takeItems(), contains("a"));
+        assertThat(subscriber.terminal(), is(nullValue()));
+        subscriber.request(2);
+        assertThat(subscriber.takeItems(), contains("b", "c"));
+        assertThat(subscriber.takeTerminal(), is(complete()));
+    }
+
+    @Test
+    public void innerErrorCancelsAll() {
+        subscribe(false);
+        subscriber.request(1);
+        source.onNext(0, 1);
+        inners.get(1).onNext("a", "b");
+        inners.get(0).onError(DELIBERATE_EXCEPTION);
+        assertThat(subscriber.takeItems(), contains("a"));
+        assertThat(subscriber.takeError(), sameInstance(DELIBERATE_EXCEPTION));
+        assertTrue(subscription.isCancelled());
+        assertTrue(innerSubscriptions.get(1).isCancelled());
+    }
+
+    @Test
+    public void sourceErrorCancelsAll() {
+        subscribe(false);
+        subscriber.request(1);
+        source.onNext(0);
+        source.onError(DELIBERATE_EXCEPTION);
+        assertThat(subscriber.takeError(), sameInstance(DELIBERATE_EXCEPTION));
+        assertTrue(innerSubscriptions.get(0).isCancelled());
+    }
+
+    @Test
+    public void delayError() {
+        subscribe(true);
+        subscriber.request(10);
+        source.onNext(0, 1);
+        inners.get(0).onError(DELIBERATE_EXCEPTION);
+        inners.get(1).onNext("a");
+        source.onNext(2);
+        inners.get(2).onNext("b");
+        inners.get(1).onComplete();
+        inners.get(2).onComplete();
+        assertThat(subscriber.terminal(), is(nullValue()));
+        source.onComplete();
+        assertThat(subscriber.takeItems(), contains("a", "b"));
+        Throwable cause = subscriber.takeError();
+        assertThat(cause, instanceOf(CompositeException.class));
+        assertThat(cause.getCause(), instanceOf(DeliberateException.class));
+    }
+
+    @Test
+    public void cancelCancelsAll() {
+        subscribe(false);
+        subscriber.request(1);
+        source.onNext(0, 1);
+        subscriber.cancel();
+        assertTrue(subscription.isCancelled());
+        assertTrue(innerSubscriptions.get(0).isCancelled());
+        assertTrue(innerSubscriptions.get(1).isCancelled());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPrefetch() {
+        source.flatMapMerge(i -> from("a"), 2, 0);
+    }
+
+    @Test
+    public void mergeAllEmitsAllItems() throws Exception {
+        Collection<Integer> items = mergeAll(from(1, 2), from(3), Publisher.<Integer>empty(), from(4, 5, 6))
+                .toFuture().get();
+        assertThat(items, containsInAnyOrder(1, 2, 3, 4, 5, 6));
+    }
+
+    @Test
+    public void concurrentPublishers() throws Exception {
+        final Executor executor = newCachedThreadExecutor();
+        try {
+            final List<Integer> expected = range(0, 20_000).boxed().collect(toList());
+            final Collection<Integer> items = fromIterable(range(0, 200).boxed().collect(toList()))
+                    .flatMapMerge(i -> fromIterable(expected.subList(i * 100, (i + 1) * 100)).publishOn(executor),
+                            8, 4)
+                    .toFuture().get();
+            assertThat(items.size(), is(expected.size()));
+            assertThat(new ArrayList<>(items).stream().sorted().collect(toList()), is(expected));
+        } finally {
+            executor.closeAsync().toFuture().get();
+        }
+    }
+
+    @Test
+    public void emptySource() {
+        toSource(source.flatMapMerge(i -> from("a"))).subscribe(subscriber);
+        source.onSubscribe(subscription);
+        subscriber.request(1);
+        source.onComplete();
+        assertThat(subscriber.takeItems(), is(empty()));
+        assertThat(subscriber.takeTerminal(), is(complete()));
+    }
+
+    private void subscribe(boolean delayError) {
+        final Publisher<String> merged = delayError ?
+                source.flatMapMergeDelayError(this::newInner, 2) : source.flatMapMerge(this::newInner, 2, 4);
+        toSource(merged).subscribe(subscriber);
+        source.onSubscribe(subscription);
+    }
+
+    private Publisher<String> newInner(int i) {
+        final TestPublisher<String> inner = new TestPublisher<>();
+        final TestSubscription innerSubscription = new TestSubscription();
+        inners.add(inner);
+        innerSubscriptions.add(innerSubscription);
+        return new Publisher<String>() {
+            @Override
+            protected void handleSubscribe(final Subscriber<? super String> s) {
+                toSource(inner).subscribe(s);
+                inner.onSubscribe(innerSubscription);
+            }
+        };
+    }
+}
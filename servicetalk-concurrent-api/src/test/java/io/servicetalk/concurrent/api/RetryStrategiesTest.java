@@ -132,6 +132,33 @@ public class RetryStrategiesTest extends RedoStrategiesTest {
                 cause -> cause instanceof IllegalStateException, ofSeconds(1), timerExecutor));
     }
 
+    @Test
+    public void testExpBackoffWithJitterAndMaxDelay() throws Exception {
+        Duration initialDelay = ofSeconds(1);
+        Duration maxDelay = ofSeconds(3);
+        RetryStrategy strategy = new RetryStrategy(retryWithExponentialBackoffAndJitter(40, cause -> true,
+                initialDelay, maxDelay, timerExecutor));
+        for (int i = 1; i <= 40; i++) {
+            LegacyMockedCompletableListenerRule signalListener = strategy.invokeAndListen(DELIBERATE_EXCEPTION);
+            verifyDelayWithJitter(i == 1 ? initialDelay.toNanos() : maxDelay.toNanos(), i);
+            timers.take().verifyListenCalled().onComplete();
+            signalListener.verifyCompletion();
+        }
+        verifyNoMoreInteractions(timerExecutor);
+    }
+
+    @Test
+    public void testExpBackoffWithJitterAndMaxDelayMaxRetries() throws Exception {
+        Duration backoff = ofSeconds(1);
+        testMaxRetries(retryWithExponentialBackoffAndJitter(1, cause -> true, backoff, ofSeconds(2), timerExecutor),
+                () -> verifyDelayWithJitter(backoff.toNanos(), 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExpBackoffWithJitterMaxDelayLessThanInitialDelay() {
+        retryWithExponentialBackoffAndJitter(1, cause -> true, ofSeconds(2), ofSeconds(1), timerExecutor);
+    }
+
     private void testCauseFilter(BiIntFunction<Throwable, Completable> actualStrategy) {
         RetryStrategy strategy = new RetryStrategy(actualStrategy);
         LegacyMockedCompletableListenerRule signalListener = strategy.invokeAndListen(DELIBERATE_EXCEPTION);
@@ -28,21 +28,36 @@ import io.servicetalk.http.api.HttpRequestFactory;
 import io.servicetalk.http.api.HttpResponse;
 import io.servicetalk.http.api.StreamingHttpClient;
 import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
 
+import java.util.List;
 import javax.annotation.Nullable;
 
 import static io.servicetalk.concurrent.internal.BlockingIterables.singletonBlockingIterable;
-import static io.servicetalk.grpc.api.GrpcMessageEncoding.None;
+import static io.servicetalk.concurrent.internal.FutureUtils.awaitResult;
 import static io.servicetalk.grpc.api.GrpcUtils.initRequest;
+import static io.servicetalk.grpc.api.GrpcUtils.readGrpcMessageEncoding;
 import static io.servicetalk.grpc.api.GrpcUtils.uncheckedCast;
 import static io.servicetalk.grpc.api.GrpcUtils.validateResponseAndGetPayload;
+import static io.servicetalk.grpc.api.GrpcUtils.withDeadline;
 import static java.util.Objects.requireNonNull;
 
 final class DefaultGrpcClientCallFactory implements GrpcClientCallFactory {
     private final StreamingHttpClient streamingHttpClient;
+    private final List<GrpcMessageEncoding> supportedMessageEncodings;
+    private final GrpcMessageEncoding requestEncoding;
 
-    DefaultGrpcClientCallFactory(final StreamingHttpClient streamingHttpClient) {
+    DefaultGrpcClientCallFactory(final StreamingHttpClient streamingHttpClient,
+                                 final List<GrpcMessageEncoding> supportedMessageEncodings,
+                                 final GrpcMessageEncoding requestEncoding) {
         this.streamingHttpClient = requireNonNull(streamingHttpClient);
+        if (supportedMessageEncodings.isEmpty()) {
+            throw new IllegalArgumentException("supportedMessageEncodings must not be empty");
+        }
+        this.supportedMessageEncodings = supportedMessageEncodings;
+        // There is no way to learn what the server supports before the first response, so the encoding of requests
+        // is configured independently of the encodings accepted for responses.
+        this.requestEncoding = requireNonNull(requestEncoding);
     }
 
     @Override
@@ -58,9 +73,10 @@ final class DefaultGrpcClientCallFactory implements GrpcClientCallFactory {
                     serializationProvider, requestClass);
             @Nullable
             final GrpcExecutionStrategy strategy = metadata.strategy();
-            return (strategy == null ? client.request(httpRequest) : client.request(strategy, httpRequest))
+            return withDeadline(strategy == null ? client.request(httpRequest) : client.request(strategy, httpRequest))
                     .map(response -> validateResponseAndGetPayload(response,
-                            serializationProvider.deserializerFor(getMessageEncoding(metadata), responseClass)));
+                            serializationProvider.deserializerFor(
+                                    readGrpcMessageEncoding(response, supportedMessageEncodings), responseClass)));
         };
     }
 
@@ -73,15 +89,16 @@ final class DefaultGrpcClientCallFactory implements GrpcClientCallFactory {
         requireNonNull(responseClass);
         return (metadata, request) -> {
             final StreamingHttpRequest httpRequest = streamingHttpClient.post(metadata.path());
-            initRequest(httpRequest);
+            initRequest(httpRequest, supportedMessageEncodings);
             httpRequest.payloadBody(request.map(GrpcUtils::uncheckedCast),
-                    serializationProvider.serializerFor(metadata, requestClass));
+                    serializationProvider.serializerFor(metadata, requestEncoding, requestClass));
             @Nullable
             final GrpcExecutionStrategy strategy = metadata.strategy();
-            return (strategy == null ? streamingHttpClient.request(httpRequest) :
+            return withDeadline(strategy == null ? streamingHttpClient.request(httpRequest) :
                     streamingHttpClient.request(strategy, httpRequest))
                     .flatMapPublisher(response -> validateResponseAndGetPayload(response,
-                            serializationProvider.deserializerFor(getMessageEncoding(metadata), responseClass)));
+                            serializationProvider.deserializerFor(
+                                    readGrpcMessageEncoding(response, supportedMessageEncodings), responseClass)));
         };
     }
 
@@ -116,10 +133,13 @@ final class DefaultGrpcClientCallFactory implements GrpcClientCallFactory {
                     serializationProvider, requestClass);
             @Nullable
             final GrpcExecutionStrategy strategy = metadata.strategy();
-            final HttpResponse response = strategy == null ? client.request(httpRequest) :
-                    client.request(strategy, httpRequest);
+            // Use the asynchronous API so that the call is bounded by the deadline, as for asynchronous calls.
+            final HttpResponse response = awaitResult(withDeadline(streamingHttpClient.request(
+                    strategy == null ? client.executionContext().executionStrategy() : strategy,
+                    httpRequest.toStreamingRequest()).flatMap(StreamingHttpResponse::toResponse)).toFuture());
             return validateResponseAndGetPayload(response,
-                    serializationProvider.deserializerFor(getMessageEncoding(metadata), responseClass));
+                    serializationProvider.deserializerFor(
+                            readGrpcMessageEncoding(response, supportedMessageEncodings), responseClass));
         };
     }
 
@@ -133,14 +153,18 @@ final class DefaultGrpcClientCallFactory implements GrpcClientCallFactory {
         BlockingStreamingHttpClient client = streamingHttpClient.asBlockingStreamingClient();
         return (metadata, request) -> {
             final BlockingStreamingHttpRequest httpRequest = client.post(metadata.path());
-            initRequest(httpRequest);
-            httpRequest.payloadBody(request, serializationProvider.serializerFor(metadata, requestClass));
+            initRequest(httpRequest, supportedMessageEncodings);
+            httpRequest.payloadBody(request,
+                    serializationProvider.serializerFor(metadata, requestEncoding, requestClass));
             @Nullable
             final GrpcExecutionStrategy strategy = metadata.strategy();
-            final BlockingStreamingHttpResponse response = strategy == null ? client.request(httpRequest) :
-                    client.request(strategy, httpRequest);
+            // Use the asynchronous API so that the call is bounded by the deadline, as for asynchronous calls.
+            final BlockingStreamingHttpResponse response = awaitResult(withDeadline(streamingHttpClient.request(
+                    strategy == null ? client.executionContext().executionStrategy() : strategy,
+                    httpRequest.toStreamingRequest())).toFuture()).toBlockingStreamingResponse();
             return validateResponseAndGetPayload(response.toStreamingResponse(),
-                    serializationProvider.deserializerFor(getMessageEncoding(metadata), responseClass))
+                    serializationProvider.deserializerFor(
+                            readGrpcMessageEncoding(response, supportedMessageEncodings), responseClass))
                     .toIterable();
         };
     }
@@ -186,18 +210,13 @@ final class DefaultGrpcClientCallFactory implements GrpcClientCallFactory {
         return streamingHttpClient.onClose();
     }
 
-    private GrpcMessageEncoding getMessageEncoding(final GrpcClientMetadata metadata) {
-        // compression not yet supported.
-        return None;
-    }
-
     private <Req> HttpRequest newAggregatedRequest(final GrpcClientMetadata metadata, final Req rawReq,
                                                    final HttpRequestFactory requestFactory,
                                                    final GrpcSerializationProvider serializationProvider,
                                                    final Class<Req> requestClass) {
         final HttpRequest httpRequest = requestFactory.post(metadata.path());
-        initRequest(httpRequest);
+        initRequest(httpRequest, supportedMessageEncodings);
         return httpRequest.payloadBody(uncheckedCast(rawReq),
-                serializationProvider.serializerFor(metadata, requestClass));
+                serializationProvider.serializerFor(metadata, requestEncoding, requestClass));
     }
 }
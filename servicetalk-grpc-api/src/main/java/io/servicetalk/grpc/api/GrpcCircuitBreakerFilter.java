@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.grpc.api;
+
+import io.servicetalk.client.api.CircuitBreaker;
+import io.servicetalk.client.api.CircuitBreaker.Permit;
+import io.servicetalk.client.api.CircuitBreakerOpenException;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.FilterableStreamingHttpClient;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.StatelessTrailersTransformer;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.internal.ThrowableUtil.unknownStackTrace;
+import static io.servicetalk.grpc.api.GrpcStatusCode.DATA_LOSS;
+import static io.servicetalk.grpc.api.GrpcStatusCode.DEADLINE_EXCEEDED;
+import static io.servicetalk.grpc.api.GrpcStatusCode.INTERNAL;
+import static io.servicetalk.grpc.api.GrpcStatusCode.RESOURCE_EXHAUSTED;
+import static io.servicetalk.grpc.api.GrpcStatusCode.UNAVAILABLE;
+import static io.servicetalk.grpc.api.GrpcStatusCode.UNKNOWN;
+import static io.servicetalk.grpc.api.GrpcUtils.GRPC_STATUS_CODE_TRAILER;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A <a href="https://www.grpc.io">gRPC</a> client filter which fails calls with {@link GrpcStatusCode#UNAVAILABLE}
+ * while a {@link CircuitBreaker} is open. Append it with
+ * {@link GrpcClientBuilder#appendHttpClientFilter(StreamingHttpClientFilterFactory)}.
+ * <p>
+ * A call fails if it terminates with an error or with a {@link GrpcStatusCode} which matches a {@link Predicate}, by
+ * default a status which indicates a problem with the server rather than with the call: {@link GrpcStatusCode#UNKNOWN},
+ * {@link GrpcStatusCode#DEADLINE_EXCEEDED}, {@link GrpcStatusCode#RESOURCE_EXHAUSTED},
+ * {@link GrpcStatusCode#INTERNAL}, {@link GrpcStatusCode#UNAVAILABLE} and {@link GrpcStatusCode#DATA_LOSS}. The
+ * outcome of a call is known when its status is received, which for most calls is at the end of the response. A
+ * response without a status is treated as {@link GrpcStatusCode#UNKNOWN}. If the payload of a response is never
+ * consumed, the outcome of its call is never known and a half open circuit permits a new probe call after
+ * {@link CircuitBreaker.Builder#openDuration(java.time.Duration) openDuration}.
+ * A call is slow if its response meta-data takes longer than
+ * {@link CircuitBreaker.Builder#slowCallDuration(java.time.Duration) slowCallDuration}, so that long-lived streaming
+ * calls are not counted as slow.
+ * <p>
+ * Every client created with this filter has its own {@link CircuitBreaker}.
+ */
+public final class GrpcCircuitBreakerFilter implements StreamingHttpClientFilterFactory,
+                                                       HttpExecutionStrategyInfluencer {
+
+    private static final GrpcStatusException CIRCUIT_OPEN = unknownStackTrace(
+            new GrpcStatus(UNAVAILABLE, new CircuitBreakerOpenException("Circuit breaker is open"))
+                    .asException(), GrpcCircuitBreakerFilter.class, "request(...)");
+    private static final Set<GrpcStatusCode> SERVER_FAILURES =
+            EnumSet.of(UNKNOWN, DEADLINE_EXCEEDED, RESOURCE_EXHAUSTED, INTERNAL, UNAVAILABLE, DATA_LOSS);
+
+    private final CircuitBreaker.Builder circuitBreakerBuilder;
+    private final Predicate<GrpcStatusCode> failureFor;
+
+    /**
+     * Create a new instance which considers statuses that indicate a problem with the server as failures.
+     *
+     * @param circuitBreakerBuilder builds a {@link CircuitBreaker} for each client, it must not be modified after this
+     * filter is created.
+     */
+    public GrpcCircuitBreakerFilter(final CircuitBreaker.Builder circuitBreakerBuilder) {
+        this(circuitBreakerBuilder, SERVER_FAILURES::contains);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param circuitBreakerBuilder builds a {@link CircuitBreaker} for each client, it must not be modified after this
+     * filter is created.
+     * @param failureFor returns {@code true} for a {@link GrpcStatusCode} which indicates a failure.
+     */
+    public GrpcCircuitBreakerFilter(final CircuitBreaker.Builder circuitBreakerBuilder,
+                                    final Predicate<GrpcStatusCode> failureFor) {
+        this.circuitBreakerBuilder = requireNonNull(circuitBreakerBuilder);
+        this.failureFor = requireNonNull(failureFor);
+    }
+
+    @Override
+    public StreamingHttpClientFilter create(final FilterableStreamingHttpClient client) {
+        return new StreamingHttpClientFilter(client) {
+
+            private final CircuitBreaker circuitBreaker = circuitBreakerBuilder.build();
+
+            @Override
+            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                            final HttpExecutionStrategy strategy,
+                                                            final StreamingHttpRequest request) {
+                return defer(() -> {
+                    final Permit permit = circuitBreaker.tryAcquire();
+                    if (permit == null) {
+                        return failed(CIRCUIT_OPEN);
+                    }
+                    return delegate.request(strategy, request)
+                            .map(response -> {
+                                permit.onResponseStarted();
+                                if (response.headers().contains(GRPC_STATUS_CODE_TRAILER)) {
+                                    // Trailers-only response, the status is already known.
+                                    onStatus(permit, response.headers());
+                                    return response;
+                                }
+                                return response.transformRawPayloadBody(payload -> payload.beforeCancel(
+                                        permit::onCancel)).transformRaw(new StatusObserver(permit));
+                            })
+                            .beforeOnError(__ -> permit.onFailure())
+                            .beforeCancel(permit::onCancel);
+                });
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+
+    private void onStatus(final Permit permit, final HttpHeaders headers) {
+        final CharSequence status = headers.get(GRPC_STATUS_CODE_TRAILER);
+        // A response without a status is malformed, it is treated like an UNKNOWN status.
+        if (failureFor.test(status == null ? UNKNOWN : GrpcStatusCode.fromCodeValue(status))) {
+            permit.onFailure();
+        } else {
+            permit.onSuccess();
+        }
+    }
+
+    private final class StatusObserver extends StatelessTrailersTransformer<Object> {
+        private final Permit permit;
+
+        StatusObserver(final Permit permit) {
+            this.permit = permit;
+        }
+
+        @Override
+        protected HttpHeaders payloadComplete(final HttpHeaders trailers) {
+            onStatus(permit, trailers);
+            return trailers;
+        }
+
+        @Override
+        protected HttpHeaders payloadFailed(final Throwable cause, final HttpHeaders trailers) throws Throwable {
+            permit.onFailure();
+            throw cause;
+        }
+    }
+}
@@ -92,6 +92,12 @@ public abstract class GrpcClientBuilder<U, R>
             LoadBalancerFactory<R, FilterableStreamingHttpLoadBalancedConnection> loadBalancerFactory,
             Function<FilterableStreamingHttpConnection, FilterableStreamingHttpLoadBalancedConnection> protocolBinder);
 
+    @Override
+    public abstract GrpcClientBuilder<U, R> supportedMessageEncodings(GrpcMessageEncoding... encodings);
+
+    @Override
+    public abstract GrpcClientBuilder<U, R> requestMessageEncoding(GrpcMessageEncoding encoding);
+
     /**
      * Append the filter to the chain of filters used to decorate the client created by this builder.
      * <p>
@@ -21,6 +21,11 @@ import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.concurrent.api.Single;
 import io.servicetalk.http.api.StreamingHttpClient;
 
+import java.util.List;
+
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.None;
+import static java.util.Collections.singletonList;
+
 /**
  * A factory to create <a href="https://www.grpc.io">gRPC</a> client call objects for different
  * programming models.
@@ -146,7 +151,36 @@ public interface GrpcClientCallFactory extends ListenableAsyncCloseable {
      * @return A new {@link GrpcClientCallFactory}.
      */
     static GrpcClientCallFactory from(StreamingHttpClient httpClient) {
-        return new DefaultGrpcClientCallFactory(httpClient);
+        return from(httpClient, singletonList(None));
+    }
+
+    /**
+     * Creates a new {@link GrpcClientCallFactory} using the passed {@link StreamingHttpClient}.
+     *
+     * @param httpClient {@link StreamingHttpClient} to use. The returned {@link GrpcClientCallFactory} will own the
+     * lifecycle of this {@link StreamingHttpClient}.
+     * @param supportedMessageEncodings {@link GrpcMessageEncoding}s supported for responses, in order of preference.
+     * Requests are not compressed.
+     * @return A new {@link GrpcClientCallFactory}.
+     */
+    static GrpcClientCallFactory from(StreamingHttpClient httpClient,
+                                      List<GrpcMessageEncoding> supportedMessageEncodings) {
+        return from(httpClient, supportedMessageEncodings, None);
+    }
+
+    /**
+     * Creates a new {@link GrpcClientCallFactory} using the passed {@link StreamingHttpClient}.
+     *
+     * @param httpClient {@link StreamingHttpClient} to use. The returned {@link GrpcClientCallFactory} will own the
+     * lifecycle of this {@link StreamingHttpClient}.
+     * @param supportedMessageEncodings {@link GrpcMessageEncoding}s supported for responses, in order of preference.
+     * @param requestEncoding {@link GrpcMessageEncoding} used to compress requests, the server must support it.
+     * @return A new {@link GrpcClientCallFactory}.
+     */
+    static GrpcClientCallFactory from(StreamingHttpClient httpClient,
+                                      List<GrpcMessageEncoding> supportedMessageEncodings,
+                                      GrpcMessageEncoding requestEncoding) {
+        return new DefaultGrpcClientCallFactory(httpClient, supportedMessageEncodings, requestEncoding);
     }
 
     /**
@@ -50,6 +50,16 @@ public final class GrpcExecutionStrategies {
         return new DefaultGrpcExecutionStrategy(HttpExecutionStrategies.defaultStrategy(executor));
     }
 
+    /**
+     * A {@link GrpcExecutionStrategy} that offloads all paths onto a shared {@link Executor} which runs each task on a
+     * virtual thread, see {@link HttpExecutionStrategies#virtualThreadStrategy()}.
+     *
+     * @return {@link GrpcExecutionStrategy} that offloads onto virtual threads.
+     */
+    public static GrpcExecutionStrategy virtualThreadStrategy() {
+        return VirtualThreadStrategyHolder.STRATEGY;
+    }
+
     /**
      * A {@link GrpcExecutionStrategy} that disables all offloads.
      *
@@ -159,4 +169,13 @@ public final class GrpcExecutionStrategies {
             return new DefaultGrpcExecutionStrategy(httpBuilder.build());
         }
     }
+
+    private static final class VirtualThreadStrategyHolder {
+        static final GrpcExecutionStrategy STRATEGY =
+                new DefaultGrpcExecutionStrategy(HttpExecutionStrategies.virtualThreadStrategy());
+
+        private VirtualThreadStrategyHolder() {
+            // No instances
+        }
+    }
 }
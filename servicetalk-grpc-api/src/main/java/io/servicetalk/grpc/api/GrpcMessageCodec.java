@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.grpc.api;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
+
+/**
+ * Compresses and decompresses individual <a href="https://www.grpc.io">gRPC</a> messages for a
+ * {@link GrpcMessageEncoding}.
+ * <p>
+ * Implementations must be thread safe as the same instance is used concurrently for all messages of all calls.
+ */
+public interface GrpcMessageCodec {
+
+    /**
+     * Compresses a serialized message.
+     *
+     * @param src the serialized message to compress, its readable bytes are consumed.
+     * @param allocator the {@link BufferAllocator} to allocate the compressed message.
+     * @return the compressed message.
+     */
+    Buffer encode(Buffer src, BufferAllocator allocator);
+
+    /**
+     * Decompresses a message.
+     *
+     * @param src the compressed message, its readable bytes are consumed.
+     * @param allocator the {@link BufferAllocator} to allocate the decompressed message.
+     * @return the decompressed message.
+     */
+    Buffer decode(Buffer src, BufferAllocator allocator);
+}
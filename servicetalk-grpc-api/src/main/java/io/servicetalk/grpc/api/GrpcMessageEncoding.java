@@ -15,18 +15,89 @@
  */
 package io.servicetalk.grpc.api;
 
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
+
+import java.util.Locale;
+
+import static java.util.Objects.requireNonNull;
+
 /**
  * Supported <a href="https://github.com/grpc/grpc/blob/master/doc/PROTOCOL-HTTP2.md#message-encoding">
  *     gRPC message encoding schemes</a>.
+ * <p>
+ * Besides the built-in encodings, other schemes (e.g. snappy) can be supported by providing a
+ * {@link GrpcMessageCodec} to {@link #of(String, GrpcMessageCodec)}.
+ * <p>
+ * Since custom encodings can be created, this is a class rather than an {@code enum} as in previous versions. This is
+ * a source and binary incompatible change: the constant names are unchanged, but {@code values()},
+ * {@code valueOf(String)}, {@code ordinal()}, {@code switch} statements and {@link java.util.EnumSet}s are no longer
+ * available. Compare instances with {@link #equals(Object)}, which compares the {@link #encoding()} names.
  */
-public enum GrpcMessageEncoding {
+public final class GrpcMessageEncoding {
+
+    /**
+     * No compression, messages are sent as serialized.
+     */
+    public static final GrpcMessageEncoding None = new GrpcMessageEncoding("identity", IdentityCodec.INSTANCE);
 
-    None("identity");
+    /**
+     * <a href="https://tools.ietf.org/html/rfc1952">gzip</a> compression. Decompressed messages are limited to
+     * {@code 4MiB}, see {@link #gzip(int)}.
+     */
+    public static final GrpcMessageEncoding Gzip = new GrpcMessageEncoding("gzip", ZipGrpcMessageCodec.GZIP);
+
+    /**
+     * <a href="https://tools.ietf.org/html/rfc1950">deflate</a> compression, using the zlib format. Decompressed
+     * messages are limited to {@code 4MiB}, see {@link #deflate(int)}.
+     */
+    public static final GrpcMessageEncoding Deflate = new GrpcMessageEncoding("deflate", ZipGrpcMessageCodec.DEFLATE);
 
     private final String encoding;
+    private final GrpcMessageCodec codec;
 
-    GrpcMessageEncoding(final String encoding) {
+    private GrpcMessageEncoding(final String encoding, final GrpcMessageCodec codec) {
         this.encoding = encoding;
+        this.codec = codec;
+    }
+
+    /**
+     * Creates a new {@link GrpcMessageEncoding} for a custom encoding scheme.
+     *
+     * @param encoding the name of the encoding as used in {@code grpc-encoding} and {@code grpc-accept-encoding}
+     * headers.
+     * @param codec the {@link GrpcMessageCodec} which compresses and decompresses messages.
+     * @return a new {@link GrpcMessageEncoding}.
+     */
+    public static GrpcMessageEncoding of(final String encoding, final GrpcMessageCodec codec) {
+        if (encoding.isEmpty() || encoding.indexOf(',') >= 0) {
+            throw new IllegalArgumentException("Invalid encoding name: " + encoding);
+        }
+        return new GrpcMessageEncoding(encoding.toLowerCase(Locale.ROOT), requireNonNull(codec));
+    }
+
+    /**
+     * Creates a new <a href="https://tools.ietf.org/html/rfc1952">gzip</a> {@link GrpcMessageEncoding} with a custom
+     * limit for the size of decompressed messages.
+     *
+     * @param maxDecompressedBytes the maximum size of a decompressed message. Larger messages fail with
+     * {@link GrpcStatusCode#RESOURCE_EXHAUSTED}.
+     * @return a new {@link GrpcMessageEncoding} for {@code gzip}.
+     */
+    public static GrpcMessageEncoding gzip(final int maxDecompressedBytes) {
+        return new GrpcMessageEncoding(Gzip.encoding, new ZipGrpcMessageCodec(true, maxDecompressedBytes));
+    }
+
+    /**
+     * Creates a new <a href="https://tools.ietf.org/html/rfc1950">deflate</a> {@link GrpcMessageEncoding} with a
+     * custom limit for the size of decompressed messages.
+     *
+     * @param maxDecompressedBytes the maximum size of a decompressed message. Larger messages fail with
+     * {@link GrpcStatusCode#RESOURCE_EXHAUSTED}.
+     * @return a new {@link GrpcMessageEncoding} for {@code deflate}.
+     */
+    public static GrpcMessageEncoding deflate(final int maxDecompressedBytes) {
+        return new GrpcMessageEncoding(Deflate.encoding, new ZipGrpcMessageCodec(false, maxDecompressedBytes));
     }
 
     /**
@@ -37,4 +108,52 @@ public enum GrpcMessageEncoding {
     public String encoding() {
         return encoding;
     }
+
+    /**
+     * The {@link GrpcMessageCodec} which compresses and decompresses messages for this encoding.
+     *
+     * @return the {@link GrpcMessageCodec} for this encoding.
+     */
+    public GrpcMessageCodec codec() {
+        return codec;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GrpcMessageEncoding)) {
+            return false;
+        }
+        return encoding.equals(((GrpcMessageEncoding) o).encoding);
+    }
+
+    @Override
+    public int hashCode() {
+        return encoding.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return encoding;
+    }
+
+    private static final class IdentityCodec implements GrpcMessageCodec {
+        static final GrpcMessageCodec INSTANCE = new IdentityCodec();
+
+        private IdentityCodec() {
+            // singleton
+        }
+
+        @Override
+        public Buffer encode(final Buffer src, final BufferAllocator allocator) {
+            return src;
+        }
+
+        @Override
+        public Buffer decode(final Buffer src, final BufferAllocator allocator) {
+            return src;
+        }
+    }
 }
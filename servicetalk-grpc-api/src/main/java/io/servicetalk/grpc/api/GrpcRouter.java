@@ -40,27 +40,37 @@ import io.servicetalk.http.api.HttpPayloadWriter;
 import io.servicetalk.http.api.HttpRequestMethod;
 import io.servicetalk.http.api.HttpSerializer;
 import io.servicetalk.http.api.HttpService;
+import io.servicetalk.http.api.RequestDeadlines;
 import io.servicetalk.http.api.StreamingHttpResponse;
 import io.servicetalk.http.api.StreamingHttpService;
 import io.servicetalk.transport.api.ExecutionContext;
 import io.servicetalk.transport.api.ServerContext;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
 import java.util.function.Supplier;
 import javax.annotation.Nullable;
 
+import static io.servicetalk.concurrent.api.Single.failed;
 import static io.servicetalk.concurrent.api.Single.succeeded;
 import static io.servicetalk.grpc.api.GrpcRouteConversions.toAsyncCloseable;
 import static io.servicetalk.grpc.api.GrpcRouteConversions.toRequestStreamingRoute;
 import static io.servicetalk.grpc.api.GrpcRouteConversions.toResponseStreamingRoute;
 import static io.servicetalk.grpc.api.GrpcRouteConversions.toRoute;
 import static io.servicetalk.grpc.api.GrpcRouteConversions.toStreaming;
+import static io.servicetalk.grpc.api.GrpcStatusCode.DEADLINE_EXCEEDED;
+import static io.servicetalk.grpc.api.GrpcUtils.GRPC_TIMEOUT_HEADER;
 import static io.servicetalk.grpc.api.GrpcUtils.newErrorResponse;
+import static io.servicetalk.grpc.api.GrpcUtils.negotiateAcceptedEncoding;
 import static io.servicetalk.grpc.api.GrpcUtils.newResponse;
+import static io.servicetalk.grpc.api.GrpcUtils.parseTimeout;
 import static io.servicetalk.grpc.api.GrpcUtils.readGrpcMessageEncoding;
+import static io.servicetalk.grpc.api.GrpcUtils.setAcceptEncoding;
 import static io.servicetalk.grpc.api.GrpcUtils.setStatus;
 import static io.servicetalk.grpc.api.GrpcUtils.uncheckedCast;
 import static io.servicetalk.http.api.HttpApiConversions.toStreamingHttpService;
@@ -97,12 +107,13 @@ final class GrpcRouter {
         this.blockingStreamingRoutes = unmodifiableMap(blockingStreamingRoutes);
     }
 
-    Single<ServerContext> bind(final ServerBinder binder, final ExecutionContext executionContext) {
+    Single<ServerContext> bind(final ServerBinder binder, final ExecutionContext executionContext,
+                               final List<GrpcMessageEncoding> supportedMessageEncodings) {
         final Map<String, StreamingHttpService> allRoutes = new HashMap<>();
-        populateRoutes(executionContext, allRoutes, routes);
-        populateRoutes(executionContext, allRoutes, streamingRoutes);
-        populateRoutes(executionContext, allRoutes, blockingRoutes);
-        populateRoutes(executionContext, allRoutes, blockingStreamingRoutes);
+        populateRoutes(executionContext, supportedMessageEncodings, allRoutes, routes);
+        populateRoutes(executionContext, supportedMessageEncodings, allRoutes, streamingRoutes);
+        populateRoutes(executionContext, supportedMessageEncodings, allRoutes, blockingRoutes);
+        populateRoutes(executionContext, supportedMessageEncodings, allRoutes, blockingStreamingRoutes);
 
         // TODO: Optimize to bind a specific programming model service based on routes
         return binder.bindStreaming((ctx, request, responseFactory) -> {
@@ -110,16 +121,40 @@ final class GrpcRouter {
             if (request.method() != HttpRequestMethod.POST || (service = allRoutes.get(request.path())) == null) {
                 return notFound.handle(ctx, request, responseFactory);
             } else {
-                return service.handle(ctx, request, responseFactory);
+                final CharSequence timeoutValue = request.headers().get(GRPC_TIMEOUT_HEADER);
+                final Duration timeout = timeoutValue == null ? null : parseTimeout(timeoutValue);
+                Single<StreamingHttpResponse> response;
+                if (timeout == null) {
+                    response = service.handle(ctx, request, responseFactory);
+                } else if (timeout.isZero()) {
+                    response = succeeded(newErrorResponse(responseFactory,
+                            new GrpcStatus(DEADLINE_EXCEEDED).asException(),
+                            ctx.executionContext().bufferAllocator()));
+                } else {
+                    // Make the deadline visible to downstream calls made while handling this request.
+                    RequestDeadlines.deadline(timeout);
+                    response = service.handle(ctx, request, responseFactory)
+                            .idleTimeout(timeout, ctx.executionContext().executor())
+                            .recoverWith(cause -> cause instanceof TimeoutException ?
+                                    succeeded(newErrorResponse(responseFactory,
+                                            new GrpcStatus(DEADLINE_EXCEEDED, cause).asException(),
+                                            ctx.executionContext().bufferAllocator())) : failed(cause));
+                }
+                return response.map(resp -> {
+                    setAcceptEncoding(resp.headers(), supportedMessageEncodings);
+                    return resp;
+                });
             }
         });
     }
 
     private void populateRoutes(final ExecutionContext executionContext,
+                                final List<GrpcMessageEncoding> supportedMessageEncodings,
                                 final Map<String, StreamingHttpService> allRoutes,
                                 final Map<String, RouteProvider> routes) {
         for (Map.Entry<String, RouteProvider> entry : routes.entrySet()) {
-            final ServiceAdapterHolder adapterHolder = entry.getValue().buildRoute(executionContext);
+            final ServiceAdapterHolder adapterHolder = entry.getValue().buildRoute(executionContext,
+                    supportedMessageEncodings);
             allRoutes.put(entry.getKey(), adapterHolder.serviceInvocationStrategy()
                     .offloadService(executionContext.executor(), adapterHolder.adaptor()));
         }
@@ -183,20 +218,20 @@ final class GrpcRouter {
                 final String path, @Nullable final GrpcExecutionStrategy executionStrategy,
                 final Route<Req, Resp> route, final Class<Req> requestClass,
                 final Class<Resp> responseClass, final GrpcSerializationProvider serializationProvider) {
-            routes.put(path, new RouteProvider(executionContext -> toStreamingHttpService(
+            routes.put(path, new RouteProvider((executionContext, supportedEncodings) -> toStreamingHttpService(
                     (HttpService) (ctx, request, responseFactory) -> {
                         try {
                             final GrpcServiceContext serviceContext =
                                     new DefaultGrpcServiceContext(request.path(), ctx);
-                            final HttpDeserializer<Req> deserializer =
-                                    serializationProvider.deserializerFor(readGrpcMessageEncoding(request),
-                                            requestClass);
+                            final HttpDeserializer<Req> deserializer = serializationProvider.deserializerFor(
+                                    readGrpcMessageEncoding(request, supportedEncodings), requestClass);
+                            final HttpSerializer<Resp> serializer = serializationProvider.serializerFor(
+                                    serviceContext, negotiateAcceptedEncoding(request, supportedEncodings),
+                                    responseClass);
                             return route.handle(serviceContext, request.payloadBody(deserializer))
                                     .map(rawResp -> newResponse(responseFactory,
                                             ctx.executionContext().bufferAllocator())
-                                            .payloadBody(uncheckedCast(rawResp),
-                                                    serializationProvider.serializerFor(serviceContext,
-                                                            responseClass)))
+                                            .payloadBody(uncheckedCast(rawResp), serializer))
                                     .recoverWith(cause -> succeeded(newErrorResponse(responseFactory, cause,
                                             ctx.executionContext().bufferAllocator())));
                         } catch (Throwable t) {
@@ -213,16 +248,17 @@ final class GrpcRouter {
                 final String path, @Nullable final GrpcExecutionStrategy executionStrategy,
                 final StreamingRoute<Req, Resp> route, final Class<Req> requestClass,
                 final Class<Resp> responseClass, final GrpcSerializationProvider serializationProvider) {
-            streamingRoutes.put(path, new RouteProvider(executionContext -> {
+            streamingRoutes.put(path, new RouteProvider((executionContext, supportedEncodings) -> {
                 StreamingHttpService service = (ctx, request, responseFactory) -> {
                     try {
                         final GrpcServiceContext serviceContext = new DefaultGrpcServiceContext(request.path(), ctx);
-                        final HttpDeserializer<Req> deserializer =
-                                serializationProvider.deserializerFor(readGrpcMessageEncoding(request), requestClass);
+                        final HttpDeserializer<Req> deserializer = serializationProvider.deserializerFor(
+                                readGrpcMessageEncoding(request, supportedEncodings), requestClass);
+                        final HttpSerializer<Resp> serializer = serializationProvider.serializerFor(serviceContext,
+                                negotiateAcceptedEncoding(request, supportedEncodings), responseClass);
                         final Publisher<Resp> response = route.handle(serviceContext, request.payloadBody(deserializer))
                                 .map(GrpcUtils::uncheckedCast);
-                        return succeeded(newResponse(responseFactory, response,
-                                serializationProvider.serializerFor(serviceContext, responseClass),
+                        return succeeded(newResponse(responseFactory, response, serializer,
                                 ctx.executionContext().bufferAllocator()));
                     } catch (Throwable t) {
                         return succeeded(newErrorResponse(responseFactory, t,
@@ -291,18 +327,19 @@ final class GrpcRouter {
                 final String path, @Nullable final GrpcExecutionStrategy executionStrategy,
                 final BlockingRoute<Req, Resp> route, final Class<Req> requestClass,
                 final Class<Resp> responseClass, final GrpcSerializationProvider serializationProvider) {
-            blockingRoutes.put(path, new RouteProvider(executionContext ->
+            blockingRoutes.put(path, new RouteProvider((executionContext, supportedEncodings) ->
                     toStreamingHttpService((BlockingHttpService) (ctx, request, responseFactory) -> {
                         try {
                             final GrpcServiceContext serviceContext =
                                     new DefaultGrpcServiceContext(request.path(), ctx);
-                            final HttpDeserializer<Req> deserializer =
-                                    serializationProvider.deserializerFor(readGrpcMessageEncoding(request),
-                                            requestClass);
+                            final HttpDeserializer<Req> deserializer = serializationProvider.deserializerFor(
+                                    readGrpcMessageEncoding(request, supportedEncodings), requestClass);
+                            final HttpSerializer<Resp> serializer = serializationProvider.serializerFor(
+                                    serviceContext, negotiateAcceptedEncoding(request, supportedEncodings),
+                                    responseClass);
                             final Resp response = route.handle(serviceContext, request.payloadBody(deserializer));
                             return newResponse(responseFactory, ctx.executionContext().bufferAllocator())
-                                    .payloadBody(response,
-                                            serializationProvider.serializerFor(serviceContext, responseClass));
+                                    .payloadBody(response, serializer);
                         } catch (Throwable t) {
                             return newErrorResponse(responseFactory, t, ctx.executionContext().bufferAllocator());
                         }
@@ -328,13 +365,13 @@ final class GrpcRouter {
                 final String path, @Nullable final GrpcExecutionStrategy executionStrategy,
                 final BlockingStreamingRoute<Req, Resp> route, final Class<Req> requestClass,
                 final Class<Resp> responseClass, final GrpcSerializationProvider serializationProvider) {
-            blockingRoutes.put(path, new RouteProvider(executionContext ->
+            blockingRoutes.put(path, new RouteProvider((executionContext, supportedEncodings) ->
                     toStreamingHttpService((ctx, request, response) -> {
                         final GrpcServiceContext serviceContext = new DefaultGrpcServiceContext(request.path(), ctx);
-                        final HttpDeserializer<Req> deserializer =
-                                serializationProvider.deserializerFor(readGrpcMessageEncoding(request), requestClass);
-                        final HttpSerializer<Resp> serializer =
-                                serializationProvider.serializerFor(serviceContext, responseClass);
+                        final HttpDeserializer<Req> deserializer = serializationProvider.deserializerFor(
+                                readGrpcMessageEncoding(request, supportedEncodings), requestClass);
+                        final HttpSerializer<Resp> serializer = serializationProvider.serializerFor(serviceContext,
+                                negotiateAcceptedEncoding(request, supportedEncodings), responseClass);
                         final DefaultGrpcPayloadWriter<Resp> grpcPayloadWriter =
                                 new DefaultGrpcPayloadWriter<>(response.sendMetaData(serializer));
                         try {
@@ -467,14 +504,15 @@ final class GrpcRouter {
 
     static final class RouteProvider implements AsyncCloseable {
 
-        private final Function<ExecutionContext, ServiceAdapterHolder> routeProvider;
+        private final BiFunction<ExecutionContext, List<GrpcMessageEncoding>, ServiceAdapterHolder> routeProvider;
         private final Supplier<StreamingRoute<?, ?>> toStreamingConverter;
         private final Supplier<RequestStreamingRoute<?, ?>> toRequestStreamingRouteConverter;
         private final Supplier<ResponseStreamingRoute<?, ?>> toResponseStreamingRouteConverter;
         private final Supplier<Route<?, ?>> toRouteConverter;
         private final AsyncCloseable closeable;
 
-        RouteProvider(final Function<ExecutionContext, ServiceAdapterHolder> routeProvider,
+        RouteProvider(final BiFunction<ExecutionContext, List<GrpcMessageEncoding>,
+                              ServiceAdapterHolder> routeProvider,
                       final Supplier<StreamingRoute<?, ?>> toStreamingConverter,
                       final Supplier<RequestStreamingRoute<?, ?>> toRequestStreamingRouteConverter,
                       final Supplier<ResponseStreamingRoute<?, ?>> toResponseStreamingRouteConverter,
@@ -488,7 +526,8 @@ final class GrpcRouter {
             this.closeable = closeable;
         }
 
-        RouteProvider(final Function<ExecutionContext, ServiceAdapterHolder> routeProvider,
+        RouteProvider(final BiFunction<ExecutionContext, List<GrpcMessageEncoding>,
+                              ServiceAdapterHolder> routeProvider,
                       final Supplier<StreamingRoute<?, ?>> toStreamingConverter,
                       final Supplier<RequestStreamingRoute<?, ?>> toRequestStreamingRouteConverter,
                       final Supplier<ResponseStreamingRoute<?, ?>> toResponseStreamingRouteConverter,
@@ -498,8 +537,9 @@ final class GrpcRouter {
                     toResponseStreamingRouteConverter, toRouteConverter, toAsyncCloseable(closeable));
         }
 
-        ServiceAdapterHolder buildRoute(ExecutionContext executionContext) {
-            return routeProvider.apply(executionContext);
+        ServiceAdapterHolder buildRoute(final ExecutionContext executionContext,
+                                        final List<GrpcMessageEncoding> supportedMessageEncodings) {
+            return routeProvider.apply(executionContext, supportedMessageEncodings);
         }
 
         <Req, Resp> RequestStreamingRoute<Req, Resp> asRequestStreamingRoute() {
@@ -26,6 +26,8 @@ import io.servicetalk.grpc.api.GrpcServiceFactory.ServerBinder;
 import io.servicetalk.transport.api.ExecutionContext;
 import io.servicetalk.transport.api.ServerContext;
 
+import java.util.List;
+
 import static io.servicetalk.concurrent.api.Completable.completed;
 
 /**
@@ -54,11 +56,13 @@ public abstract class GrpcRoutes<Service extends GrpcService> {
      *
      * @param binder {@link ServerBinder} to bind <a href="https://www.grpc.io">gRPC</a> service to the server.
      * @param executionContext {@link ExecutionContext} to use for the service.
+     * @param supportedMessageEncodings {@link GrpcMessageEncoding}s supported by the service, in order of preference.
      * @return A {@link Single} that completes when the server is successfully started or terminates with an error if
      * the server could not be started.
      */
-    final Single<ServerContext> bind(final ServerBinder binder, final ExecutionContext executionContext) {
-        return routeBuilder.build().bind(binder, executionContext);
+    final Single<ServerContext> bind(final ServerBinder binder, final ExecutionContext executionContext,
+                                     final List<GrpcMessageEncoding> supportedMessageEncodings) {
+        return routeBuilder.build().bind(binder, executionContext, supportedMessageEncodings);
     }
 
     /**
@@ -33,6 +33,25 @@ public interface GrpcSerializationProvider {
      */
     <T> HttpSerializer<T> serializerFor(GrpcMetadata metadata, Class<T> type);
 
+    /**
+     * Get a {@link HttpSerializer} for a {@link Class} of type {@link T} which encodes messages with the passed
+     * {@link GrpcMessageEncoding}.
+     * <p>
+     * Providers which do not support compression may ignore {@code messageEncoding} and return a
+     * {@link HttpSerializer} which does not compress, as long as it sets the {@code grpc-encoding} header
+     * accordingly.
+     *
+     * @param metadata {@link GrpcMetadata} for the serializer.
+     * @param messageEncoding {@link GrpcMessageEncoding} to encode messages with.
+     * @param type The {@link Class} type that the returned {@link HttpSerializer} can serialize.
+     * @param <T> The type of object to serialize.
+     * @return a {@link HttpSerializer} for a {@link Class} of type {@link T}.
+     */
+    default <T> HttpSerializer<T> serializerFor(GrpcMetadata metadata, GrpcMessageEncoding messageEncoding,
+                                                Class<T> type) {
+        return serializerFor(metadata, type);
+    }
+
     /**
      * Get a {@link HttpDeserializer} for a {@link Class} of type {@link T}.
      *
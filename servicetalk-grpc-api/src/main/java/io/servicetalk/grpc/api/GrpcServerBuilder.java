@@ -32,6 +32,7 @@ import io.servicetalk.transport.api.IoExecutor;
 import io.servicetalk.transport.api.ServerContext;
 
 import java.net.SocketOption;
+import java.time.Duration;
 import java.util.function.Predicate;
 
 import static io.servicetalk.concurrent.api.Single.succeeded;
@@ -64,6 +65,26 @@ public abstract class GrpcServerBuilder {
      */
     public abstract GrpcServerBuilder backlog(int backlog);
 
+    /**
+     * Sets the maximum number of concurrently open connections. Connections accepted beyond this limit are closed
+     * immediately, before any TLS handshake is done.
+     *
+     * @param maxConnections the maximum number of concurrently open connections.
+     * @return {@code this}.
+     */
+    public abstract GrpcServerBuilder maxConnections(int maxConnections);
+
+    /**
+     * Sets the maximum number of connections accepted from the same remote IP address within {@code period}.
+     * Connections accepted beyond this rate are closed immediately, before any TLS handshake is done.
+     *
+     * @param maxAccepts the maximum number of connections accepted from the same remote IP address per
+     * {@code period}.
+     * @param period the period over which {@code maxAccepts} applies.
+     * @return {@code this}.
+     */
+    public abstract GrpcServerBuilder maxAcceptRatePerAddress(int maxAccepts, Duration period);
+
     /**
      * Initiate security configuration for this server. Calling any {@code commit} method on the returned
      * {@link GrpcServerSecurityConfigurator} will commit the configuration.
@@ -213,6 +234,18 @@ public abstract class GrpcServerBuilder {
      */
     public abstract GrpcServerBuilder executionStrategy(GrpcExecutionStrategy strategy);
 
+    /**
+     * Set the {@link GrpcMessageEncoding}s supported by this server, in order of preference.
+     * <p>
+     * Requests encoded with any of them are accepted and they are advertised to clients with the
+     * {@code grpc-accept-encoding} header. Responses are compressed with the first of them which the client accepts.
+     * {@link GrpcMessageEncoding#None} is always supported, by default it is the only supported encoding.
+     *
+     * @param encodings the supported {@link GrpcMessageEncoding}s, in order of preference.
+     * @return {@code this}.
+     */
+    public abstract GrpcServerBuilder supportedMessageEncodings(GrpcMessageEncoding... encodings);
+
     /**
      * Starts this server and returns the {@link ServerContext} after the server has been successfully started.
      * <p>
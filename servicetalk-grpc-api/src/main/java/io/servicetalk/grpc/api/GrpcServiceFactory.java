@@ -24,8 +24,11 @@ import io.servicetalk.http.api.StreamingHttpService;
 import io.servicetalk.transport.api.ExecutionContext;
 import io.servicetalk.transport.api.ServerContext;
 
+import java.util.List;
 import javax.annotation.Nullable;
 
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.None;
+import static java.util.Collections.singletonList;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -74,11 +77,26 @@ public abstract class GrpcServiceFactory<Filter extends Service, Service extends
      * the server could not be started.
      */
     public final Single<ServerContext> bind(final ServerBinder binder, final ExecutionContext executionContext) {
+        return bind(binder, executionContext, singletonList(None));
+    }
+
+    /**
+     * Use the passed {@link ServerBinder} to bind an appropriate
+     * <a href="https://www.grpc.io">gRPC</a> service for the server.
+     *
+     * @param binder {@link ServerBinder} to bind <a href="https://www.grpc.io">gRPC</a> service to the server.
+     * @param executionContext {@link ExecutionContext} to use for the service.
+     * @param supportedMessageEncodings {@link GrpcMessageEncoding}s supported by the service, in order of preference.
+     * @return A {@link Single} that completes when the server is successfully started or terminates with an error if
+     * the server could not be started.
+     */
+    public final Single<ServerContext> bind(final ServerBinder binder, final ExecutionContext executionContext,
+                                            final List<GrpcMessageEncoding> supportedMessageEncodings) {
         if (filterFactory == null) {
-            return routes.bind(binder, executionContext);
+            return routes.bind(binder, executionContext, supportedMessageEncodings);
         }
         applyFilterToRoutes(filterFactory);
-        return routes.bind(binder, executionContext);
+        return routes.bind(binder, executionContext, supportedMessageEncodings);
     }
 
     /**
@@ -18,6 +18,7 @@ package io.servicetalk.grpc.api;
 import io.servicetalk.buffer.api.Buffer;
 import io.servicetalk.buffer.api.BufferAllocator;
 import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
 import io.servicetalk.http.api.HttpDeserializer;
 import io.servicetalk.http.api.HttpHeaders;
 import io.servicetalk.http.api.HttpMetaData;
@@ -26,21 +27,28 @@ import io.servicetalk.http.api.HttpResponse;
 import io.servicetalk.http.api.HttpResponseFactory;
 import io.servicetalk.http.api.HttpResponseMetaData;
 import io.servicetalk.http.api.HttpSerializer;
+import io.servicetalk.http.api.RequestDeadlines;
 import io.servicetalk.http.api.StatelessTrailersTransformer;
 import io.servicetalk.http.api.StreamingHttpResponse;
 import io.servicetalk.http.api.StreamingHttpResponseFactory;
-import io.servicetalk.serialization.api.SerializationException;
 
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.rpc.Status;
 
+import java.time.Duration;
 import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 import javax.annotation.Nullable;
 
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.failed;
 import static io.servicetalk.grpc.api.GrpcMessageEncoding.None;
+import static io.servicetalk.grpc.api.GrpcStatusCode.DEADLINE_EXCEEDED;
 import static io.servicetalk.http.api.CharSequences.contentEqualsIgnoreCase;
 import static io.servicetalk.http.api.CharSequences.newAsciiString;
+import static io.servicetalk.http.api.CharSequences.regionMatches;
 import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
 import static io.servicetalk.http.api.HttpHeaderNames.SERVER;
 import static io.servicetalk.http.api.HttpHeaderNames.TE;
@@ -48,28 +56,172 @@ import static io.servicetalk.http.api.HttpHeaderNames.USER_AGENT;
 import static io.servicetalk.http.api.HttpHeaderValues.TRAILERS;
 import static io.servicetalk.http.api.HttpRequestMethod.POST;
 import static java.lang.String.valueOf;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 final class GrpcUtils {
     private static final CharSequence GRPC_CONTENT_TYPE = newAsciiString("application/grpc");
-    private static final CharSequence GRPC_STATUS_CODE_TRAILER = newAsciiString("grpc-status");
+    static final CharSequence GRPC_STATUS_CODE_TRAILER = newAsciiString("grpc-status");
     private static final CharSequence GRPC_STATUS_DETAILS_TRAILER = newAsciiString("grpc-status-details-bin");
     private static final CharSequence GRPC_STATUS_MESSAGE_TRAILER = newAsciiString("grpc-message");
     // TODO (nkant): add project version
     private static final CharSequence GRPC_USER_AGENT = newAsciiString("grpc-service-talk/");
     private static final CharSequence IDENTITY = newAsciiString(None.encoding());
     private static final CharSequence GRPC_MESSAGE_ENCODING_KEY = newAsciiString("grpc-encoding");
+    private static final CharSequence GRPC_MESSAGE_ACCEPT_ENCODING_KEY = newAsciiString("grpc-accept-encoding");
+    static final CharSequence GRPC_TIMEOUT_HEADER = newAsciiString("grpc-timeout");
+    /**
+     * A {@code TimeoutValue} is at most 8 digits, see
+     * <a href="https://github.com/grpc/grpc/blob/master/doc/PROTOCOL-HTTP2.md">gRPC over HTTP2</a>.
+     */
+    private static final long MAX_TIMEOUT_VALUE = 99_999_999;
     private static final GrpcStatus STATUS_OK = GrpcStatus.fromCodeValue(GrpcStatusCode.OK.value());
 
     private GrpcUtils() {
         // No instances.
     }
 
-    static void initRequest(final HttpRequestMetaData request) {
+    static void initRequest(final HttpRequestMetaData request,
+                            final List<GrpcMessageEncoding> supportedMessageEncodings) {
         assert request.method() == POST;
         final HttpHeaders headers = request.headers();
         headers.set(USER_AGENT, GRPC_USER_AGENT);
         headers.set(TE, TRAILERS);
         headers.set(CONTENT_TYPE, GRPC_CONTENT_TYPE);
+        setAcceptEncoding(headers, supportedMessageEncodings);
+        final Duration remaining = RequestDeadlines.remaining();
+        if (remaining != null) {
+            headers.set(GRPC_TIMEOUT_HEADER, encodeTimeout(remaining));
+        }
+    }
+
+    /**
+     * Bounds {@code response} by the deadline of the current request, if any.
+     *
+     * @param response the response of a call.
+     * @param <T> the type of response.
+     * @return {@code response} which fails with {@link GrpcStatusCode#DEADLINE_EXCEEDED} if it does not complete
+     * before the deadline of the current request.
+     */
+    static <T> Single<T> withDeadline(final Single<T> response) {
+        // Defer so the remaining time is re-evaluated if the call is resubscribed or retried.
+        return defer(() -> {
+            final Duration remaining = RequestDeadlines.remaining();
+            if (remaining == null) {
+                return response;
+            }
+            if (remaining.isZero()) {
+                return failed(new GrpcStatus(DEADLINE_EXCEEDED, null, "deadline exceeded before the call started")
+                        .asException());
+            }
+            return response.idleTimeout(remaining).recoverWith(cause -> failed(cause instanceof TimeoutException ?
+                    new GrpcStatus(DEADLINE_EXCEEDED, cause).asException() : cause));
+        });
+    }
+
+    /**
+     * Encodes {@code timeout} as a <a href="https://github.com/grpc/grpc/blob/master/doc/PROTOCOL-HTTP2.md">
+     * grpc-timeout</a> header value, using the most precise unit which fits. Values are rounded up so that a short
+     * timeout is never sent as already expired, and capped at {@code 99999999H}.
+     *
+     * @param timeout the timeout to encode.
+     * @return the {@code grpc-timeout} header value.
+     */
+    static String encodeTimeout(final Duration timeout) {
+        final long seconds = timeout.getSeconds();
+        if (seconds > MINUTES.toSeconds(MAX_TIMEOUT_VALUE)) {
+            // Too long to be represented in nanoseconds without overflow, only hours fit.
+            return Math.min(MAX_TIMEOUT_VALUE,
+                    ceilDiv(timeout.getNano() == 0 ? seconds : seconds + 1, HOURS.toSeconds(1))) + "H";
+        }
+        final long nanos = timeout.toNanos();
+        if (nanos <= MAX_TIMEOUT_VALUE) {
+            return nanos + "n";
+        }
+        if (nanos <= MICROSECONDS.toNanos(MAX_TIMEOUT_VALUE)) {
+            return ceilDiv(nanos, MICROSECONDS.toNanos(1)) + "u";
+        }
+        if (nanos <= MILLISECONDS.toNanos(MAX_TIMEOUT_VALUE)) {
+            return ceilDiv(nanos, MILLISECONDS.toNanos(1)) + "m";
+        }
+        if (nanos <= SECONDS.toNanos(MAX_TIMEOUT_VALUE)) {
+            return ceilDiv(nanos, SECONDS.toNanos(1)) + "S";
+        }
+        if (nanos <= MINUTES.toNanos(MAX_TIMEOUT_VALUE)) {
+            return ceilDiv(nanos, MINUTES.toNanos(1)) + "M";
+        }
+        return ceilDiv(nanos, HOURS.toNanos(1)) + "H";
+    }
+
+    private static long ceilDiv(final long dividend, final long divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+
+    /**
+     * Parses a <a href="https://github.com/grpc/grpc/blob/master/doc/PROTOCOL-HTTP2.md">grpc-timeout</a> header
+     * value.
+     *
+     * @param value the {@code grpc-timeout} header value.
+     * @return the timeout, or {@code null} if {@code value} is not a valid {@code grpc-timeout}.
+     */
+    @Nullable
+    static Duration parseTimeout(final CharSequence value) {
+        final int length = value.length();
+        if (length < 2 || length > 9) {
+            return null;
+        }
+        long amount = 0;
+        for (int i = 0; i < length - 1; ++i) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            amount = amount * 10 + (c - '0');
+        }
+        switch (value.charAt(length - 1)) {
+            case 'n':
+                return Duration.ofNanos(amount);
+            case 'u':
+                return Duration.ofNanos(MICROSECONDS.toNanos(amount));
+            case 'm':
+                return Duration.ofMillis(amount);
+            case 'S':
+                return Duration.ofSeconds(amount);
+            case 'M':
+                return Duration.ofMinutes(amount);
+            case 'H':
+                return Duration.ofHours(amount);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Advertises the supported {@link GrpcMessageEncoding}s, unless only {@link GrpcMessageEncoding#None} is
+     * supported.
+     *
+     * @param headers {@link HttpHeaders} to update.
+     * @param supportedMessageEncodings supported {@link GrpcMessageEncoding}s.
+     */
+    static void setAcceptEncoding(final HttpHeaders headers,
+                                  final List<GrpcMessageEncoding> supportedMessageEncodings) {
+        StringBuilder acceptEncoding = null;
+        for (GrpcMessageEncoding encoding : supportedMessageEncodings) {
+            if (encoding.equals(None)) {
+                continue;
+            }
+            if (acceptEncoding == null) {
+                acceptEncoding = new StringBuilder(encoding.encoding());
+            } else {
+                acceptEncoding.append(',').append(encoding.encoding());
+            }
+        }
+        if (acceptEncoding != null) {
+            headers.set(GRPC_MESSAGE_ACCEPT_ENCODING_KEY, acceptEncoding.toString());
+        }
     }
 
     static <T> StreamingHttpResponse newResponse(final StreamingHttpResponseFactory responseFactory,
@@ -177,15 +329,79 @@ final class GrpcUtils {
         return response.payloadBody(deserializer);
     }
 
-    static GrpcMessageEncoding readGrpcMessageEncoding(final HttpMetaData httpMetaData) {
+    /**
+     * Reads the {@link GrpcMessageEncoding} of the messages of a request or response.
+     *
+     * @param httpMetaData {@link HttpMetaData} of the request or response.
+     * @param supportedMessageEncodings supported {@link GrpcMessageEncoding}s, {@link GrpcMessageEncoding#None} is
+     * always supported.
+     * @return the {@link GrpcMessageEncoding} of the messages.
+     * @throws GrpcStatusException with {@link GrpcStatusCode#UNIMPLEMENTED} if the encoding is not supported.
+     */
+    static GrpcMessageEncoding readGrpcMessageEncoding(final HttpMetaData httpMetaData,
+                                                       final List<GrpcMessageEncoding> supportedMessageEncodings) {
         final CharSequence encoding = httpMetaData.headers().get(GRPC_MESSAGE_ENCODING_KEY);
         // identity is a special header for no compression
-        if (encoding != null && !contentEqualsIgnoreCase(encoding, IDENTITY)) {
-            final String lowercaseEncoding = encoding.toString().toLowerCase();
-            throw new SerializationException("Compression " + lowercaseEncoding + " not supported");
-        } else {
+        if (encoding == null || contentEqualsIgnoreCase(encoding, IDENTITY)) {
+            return None;
+        }
+        for (GrpcMessageEncoding supported : supportedMessageEncodings) {
+            if (contentEqualsIgnoreCase(encoding, supported.encoding())) {
+                return supported;
+            }
+        }
+        final String lowercaseEncoding = encoding.toString().toLowerCase();
+        throw new GrpcStatus(GrpcStatusCode.UNIMPLEMENTED, null,
+                "Compression " + lowercaseEncoding + " not supported").asException();
+    }
+
+    /**
+     * Selects the {@link GrpcMessageEncoding} to encode messages sent to a peer, based on the
+     * {@code grpc-accept-encoding} header of the peer.
+     *
+     * @param httpMetaData {@link HttpMetaData} received from the peer.
+     * @param supportedMessageEncodings supported {@link GrpcMessageEncoding}s in order of preference.
+     * @return the first of the {@code supportedMessageEncodings} which the peer accepts, or
+     * {@link GrpcMessageEncoding#None} if there is none.
+     */
+    static GrpcMessageEncoding negotiateAcceptedEncoding(final HttpMetaData httpMetaData,
+                                                         final List<GrpcMessageEncoding> supportedMessageEncodings) {
+        final CharSequence acceptEncoding = httpMetaData.headers().get(GRPC_MESSAGE_ACCEPT_ENCODING_KEY);
+        if (acceptEncoding == null) {
             return None;
         }
+        for (GrpcMessageEncoding supported : supportedMessageEncodings) {
+            if (supported.equals(None)) {
+                return None;
+            }
+            if (containsToken(acceptEncoding, supported.encoding())) {
+                return supported;
+            }
+        }
+        return None;
+    }
+
+    private static boolean containsToken(final CharSequence list, final String token) {
+        int start = 0;
+        final int length = list.length();
+        while (start < length) {
+            while (start < length && (list.charAt(start) == ' ' || list.charAt(start) == ',')) {
+                ++start;
+            }
+            int end = start;
+            while (end < length && list.charAt(end) != ',') {
+                ++end;
+            }
+            int tokenEnd = end;
+            while (tokenEnd > start && list.charAt(tokenEnd - 1) == ' ') {
+                --tokenEnd;
+            }
+            if (tokenEnd - start == token.length() && regionMatches(list, true, start, token, 0, token.length())) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
     }
 
     private static void initResponse(final HttpResponseMetaData response) {
@@ -118,4 +118,29 @@ interface SingleAddressGrpcClientBuilder<U, R,
     SingleAddressGrpcClientBuilder<U, R, SDE> loadBalancerFactory(
             LoadBalancerFactory<R, FilterableStreamingHttpLoadBalancedConnection> loadBalancerFactory,
             Function<FilterableStreamingHttpConnection, FilterableStreamingHttpLoadBalancedConnection> protocolBinder);
+
+    /**
+     * Set the {@link GrpcMessageEncoding}s supported by this client, in order of preference.
+     * <p>
+     * They are advertised to the server with the {@code grpc-accept-encoding} header, so that it can compress
+     * responses. They do not affect how requests are compressed, see
+     * {@link #requestMessageEncoding(GrpcMessageEncoding)}.
+     * {@link GrpcMessageEncoding#None} is always supported to decode responses, by default it is the only supported
+     * encoding.
+     *
+     * @param encodings the supported {@link GrpcMessageEncoding}s, in order of preference.
+     * @return {@code this}.
+     */
+    SingleAddressGrpcClientBuilder<U, R, SDE> supportedMessageEncodings(GrpcMessageEncoding... encodings);
+
+    /**
+     * Set the {@link GrpcMessageEncoding} used to compress requests.
+     * <p>
+     * The server must support this encoding, otherwise requests fail with {@link GrpcStatusCode#UNIMPLEMENTED}.
+     * Defaults to {@link GrpcMessageEncoding#None}, which every server supports.
+     *
+     * @param encoding the {@link GrpcMessageEncoding} used to compress requests.
+     * @return {@code this}.
+     */
+    SingleAddressGrpcClientBuilder<U, R, SDE> requestMessageEncoding(GrpcMessageEncoding encoding);
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.grpc.api;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.serialization.api.SerializationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static io.servicetalk.buffer.api.Buffer.asInputStream;
+import static io.servicetalk.buffer.api.Buffer.asOutputStream;
+import static io.servicetalk.grpc.api.GrpcStatusCode.RESOURCE_EXHAUSTED;
+import static java.lang.Math.min;
+
+/**
+ * {@link GrpcMessageCodec} for the {@code gzip} and {@code deflate} encodings.
+ * <p>
+ * The size of a decompressed message is bounded, a small compressed message may otherwise expand to an arbitrary
+ * amount of memory.
+ */
+final class ZipGrpcMessageCodec implements GrpcMessageCodec {
+    // Same as the default maximum inbound message size of grpc-java.
+    static final int DEFAULT_MAX_DECOMPRESSED_BYTES = 4 * 1024 * 1024;
+    static final GrpcMessageCodec GZIP = new ZipGrpcMessageCodec(true, DEFAULT_MAX_DECOMPRESSED_BYTES);
+    static final GrpcMessageCodec DEFLATE = new ZipGrpcMessageCodec(false, DEFAULT_MAX_DECOMPRESSED_BYTES);
+
+    private static final int SCRATCH_SIZE = 4096;
+
+    private final boolean gzip;
+    private final int maxDecompressedBytes;
+
+    ZipGrpcMessageCodec(final boolean gzip, final int maxDecompressedBytes) {
+        if (maxDecompressedBytes <= 0) {
+            throw new IllegalArgumentException("maxDecompressedBytes: " + maxDecompressedBytes + " (expected >0)");
+        }
+        this.gzip = gzip;
+        this.maxDecompressedBytes = maxDecompressedBytes;
+    }
+
+    @Override
+    public Buffer encode(final Buffer src, final BufferAllocator allocator) {
+        final int length = src.readableBytes();
+        final Buffer dst = allocator.newBuffer(length / 2 + 32);
+        try (OutputStream out = gzip ? new GZIPOutputStream(asOutputStream(dst)) :
+                new DeflaterOutputStream(asOutputStream(dst))) {
+            if (src.hasArray()) {
+                out.write(src.array(), src.arrayOffset() + src.readerIndex(), length);
+            } else {
+                final byte[] bytes = new byte[length];
+                src.getBytes(src.readerIndex(), bytes);
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Failed to " + (gzip ? "gzip" : "deflate") + " message", e);
+        }
+        src.skipBytes(length);
+        return dst;
+    }
+
+    @Override
+    public Buffer decode(final Buffer src, final BufferAllocator allocator) {
+        final Buffer dst = allocator.newBuffer(min(maxDecompressedBytes, src.readableBytes() * 2));
+        final byte[] scratch = new byte[SCRATCH_SIZE];
+        try (InputStream in = gzip ? new GZIPInputStream(asInputStream(src)) :
+                new InflaterInputStream(asInputStream(src))) {
+            int read;
+            while ((read = in.read(scratch)) > 0) {
+                if (read > maxDecompressedBytes - dst.readableBytes()) {
+                    throw new GrpcStatus(RESOURCE_EXHAUSTED, null,
+                            "Decompressed message exceeds " + maxDecompressedBytes + " bytes").asException();
+                }
+                dst.writeBytes(scratch, 0, read);
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Failed to decompress " + (gzip ? "gzip" : "deflate") + " message", e);
+        }
+        return dst;
+    }
+}
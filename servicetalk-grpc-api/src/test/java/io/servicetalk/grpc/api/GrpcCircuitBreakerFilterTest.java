@@ -0,0 +1,262 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.grpc.api;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.client.api.CircuitBreaker;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestPublisherSubscriber;
+import io.servicetalk.concurrent.api.TestSingle;
+import io.servicetalk.concurrent.api.TestSingleSubscriber;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.HttpExecutionContext;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.StatelessTrailersTransformer;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.grpc.api.GrpcStatusCode.INTERNAL;
+import static io.servicetalk.grpc.api.GrpcStatusCode.INVALID_ARGUMENT;
+import static io.servicetalk.grpc.api.GrpcStatusCode.OK;
+import static io.servicetalk.grpc.api.GrpcStatusCode.UNAVAILABLE;
+import static io.servicetalk.grpc.api.GrpcUtils.GRPC_STATUS_CODE_TRAILER;
+import static io.servicetalk.http.api.HttpExecutionStrategies.defaultStrategy;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.TestStreamingHttpClient.from;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.Mockito.mock;
+
+public class GrpcCircuitBreakerFilterTest {
+    private static final StreamingHttpRequestResponseFactory reqRespFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+    private static final long OPEN_MILLIS = 10;
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private Supplier<Single<StreamingHttpResponse>> response = () -> succeeded(trailersOnly(OK));
+    private int requests;
+
+    private static CircuitBreaker.Builder circuitBreaker(final Duration openDuration) {
+        return new CircuitBreaker.Builder()
+                .failureRateThreshold(50)
+                .minimumCalls(1)
+                .openDuration(openDuration)
+                .halfOpenProbes(1);
+    }
+
+    private static StreamingHttpResponse trailersOnly(final GrpcStatusCode status) {
+        final StreamingHttpResponse response = reqRespFactory.ok();
+        response.headers().set(GRPC_STATUS_CODE_TRAILER, String.valueOf(status.value()));
+        return response;
+    }
+
+    private static StreamingHttpResponse withTrailers(final GrpcStatusCode status) {
+        return reqRespFactory.ok().transform(new StatelessTrailersTransformer<Buffer>() {
+            @Override
+            protected HttpHeaders payloadComplete(final HttpHeaders trailers) {
+                return trailers.set(GRPC_STATUS_CODE_TRAILER, String.valueOf(status.value()));
+            }
+        });
+    }
+
+    private StreamingHttpClient newClient(final CircuitBreaker.Builder circuitBreakerBuilder) {
+        final StreamingHttpClientFilterFactory filter = new GrpcCircuitBreakerFilter(circuitBreakerBuilder);
+        return from(reqRespFactory, mock(HttpExecutionContext.class), filter.append(client ->
+                new StreamingHttpClientFilter(client) {
+                    @Override
+                    protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                                    final HttpExecutionStrategy strategy,
+                                                                    final StreamingHttpRequest request) {
+                        ++requests;
+                        return response.get();
+                    }
+                }));
+    }
+
+    private static TestSingleSubscriber<StreamingHttpResponse> request(final StreamingHttpClient client) {
+        final TestSingleSubscriber<StreamingHttpResponse> subscriber = new TestSingleSubscriber<>();
+        toSource(client.request(defaultStrategy(), client.post("/"))).subscribe(subscriber);
+        return subscriber;
+    }
+
+    private static void consume(final StreamingHttpResponse response) throws Exception {
+        response.toResponse().toFuture().get();
+    }
+
+    private static void assertRejected(final StreamingHttpClient client) {
+        final Throwable cause = request(client).takeError();
+        assertThat(cause, instanceOf(GrpcStatusException.class));
+        assertThat(((GrpcStatusException) cause).status().code(), is(UNAVAILABLE));
+    }
+
+    @Test
+    public void okStatusKeepsCircuitClosed() throws Exception {
+        final StreamingHttpClient client = newClient(circuitBreaker(ofSeconds(60)));
+        response = () -> succeeded(withTrailers(OK));
+        for (int i = 0; i < 3; i++) {
+            consume(request(client).takeResult());
+        }
+        assertThat(requests, is(3));
+    }
+
+    @Test
+    public void callerErrorStatusKeepsCircuitClosed() throws Exception {
+        final StreamingHttpClient client = newClient(circuitBreaker(ofSeconds(60)));
+        response = () -> succeeded(withTrailers(INVALID_ARGUMENT));
+        for (int i = 0; i < 3; i++) {
+            consume(request(client).takeResult());
+        }
+        assertThat(requests, is(3));
+    }
+
+    @Test
+    public void trailersOnlyFailureOpensCircuit() {
+        final StreamingHttpClient client = newClient(circuitBreaker(ofSeconds(60)));
+        response = () -> succeeded(trailersOnly(UNAVAILABLE));
+        assertThat(request(client).takeResult(), is(notNullValue()));
+
+        assertRejected(client);
+        assertThat(requests, is(1));
+    }
+
+    @Test
+    public void trailersFailureOpensCircuit() throws Exception {
+        final StreamingHttpClient client = newClient(circuitBreaker(ofSeconds(60)));
+        response = () -> succeeded(withTrailers(INTERNAL));
+        // The outcome is only known once the trailers are received.
+        consume(request(client).takeResult());
+
+        assertRejected(client);
+        assertThat(requests, is(1));
+    }
+
+    @Test
+    public void missingStatusOpensCircuit() throws Exception {
+        final StreamingHttpClient client = newClient(circuitBreaker(ofSeconds(60)));
+        response = () -> succeeded(reqRespFactory.ok());
+        consume(request(client).takeResult());
+
+        assertRejected(client);
+        assertThat(requests, is(1));
+    }
+
+    @Test
+    public void errorOpensCircuit() {
+        final StreamingHttpClient client = newClient(circuitBreaker(ofSeconds(60)));
+        response = () -> failed(DELIBERATE_EXCEPTION);
+        assertThat(request(client).takeError(), is(DELIBERATE_EXCEPTION));
+
+        assertRejected(client);
+        assertThat(requests, is(1));
+    }
+
+    @Test
+    public void cancelledProbeFreesItsSlot() throws Exception {
+        final StreamingHttpClient client = newClient(circuitBreaker(ofMillis(OPEN_MILLIS)));
+        response = () -> failed(DELIBERATE_EXCEPTION);
+        request(client).takeError();
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        response = TestSingle::new;
+        final TestSingleSubscriber<StreamingHttpResponse> probe = request(client);
+        assertRejected(client);
+        probe.cancel();
+
+        response = () -> succeeded(trailersOnly(OK));
+        assertThat(request(client).takeResult(), is(notNullValue()));
+        assertThat(requests, is(3));
+    }
+
+    @Test
+    public void cancelledProbeStreamFreesItsSlot() throws Exception {
+        final StreamingHttpClient client = newClient(circuitBreaker(ofMillis(OPEN_MILLIS)));
+        response = () -> failed(DELIBERATE_EXCEPTION);
+        request(client).takeError();
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        response = () -> succeeded(reqRespFactory.ok().payloadBody(Publisher.never()));
+        final StreamingHttpResponse probe = request(client).takeResult();
+        assertRejected(client);
+        // Cancel the response payload before its trailers are received.
+        final TestPublisherSubscriber<Buffer> payload = new TestPublisherSubscriber<>();
+        toSource(probe.payloadBody()).subscribe(payload);
+        payload.cancel();
+
+        response = () -> succeeded(trailersOnly(OK));
+        assertThat(request(client).takeResult(), is(notNullValue()));
+        assertThat(requests, is(3));
+    }
+
+    @Test
+    public void unconsumedProbeIsReplaced() throws Exception {
+        final StreamingHttpClient client = newClient(circuitBreaker(ofMillis(OPEN_MILLIS)));
+        response = () -> failed(DELIBERATE_EXCEPTION);
+        request(client).takeError();
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        // The payload of the probe is never subscribed, so its outcome is never known.
+        response = () -> succeeded(withTrailers(OK));
+        assertThat(request(client).takeResult(), is(notNullValue()));
+        assertRejected(client);
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        consume(request(client).takeResult());
+        consume(request(client).takeResult());
+        assertThat(requests, is(4));
+    }
+
+    @Test
+    public void longStreamIsNotSlow() throws Exception {
+        final StreamingHttpClient client = newClient(circuitBreaker(ofSeconds(60))
+                .slowCallDuration(ofMillis(100))
+                .slowCallRateThreshold(50));
+        response = () -> succeeded(withTrailers(OK));
+        final StreamingHttpResponse first = request(client).takeResult();
+        Thread.sleep(200);
+        consume(first);
+
+        consume(request(client).takeResult());
+        assertThat(requests, is(2));
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.grpc.api;
+
+import io.servicetalk.concurrent.api.AsyncContext;
+import io.servicetalk.concurrent.api.Single;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.never;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.grpc.api.GrpcStatusCode.DEADLINE_EXCEEDED;
+import static io.servicetalk.grpc.api.GrpcUtils.encodeTimeout;
+import static io.servicetalk.grpc.api.GrpcUtils.parseTimeout;
+import static io.servicetalk.grpc.api.GrpcUtils.withDeadline;
+import static io.servicetalk.http.api.RequestDeadlines.deadline;
+import static java.time.Duration.ofDays;
+import static java.time.Duration.ofHours;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofMinutes;
+import static java.time.Duration.ofNanos;
+import static java.time.Duration.ofSeconds;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+
+public class GrpcUtilsTest {
+
+    @Before
+    public void setUp() {
+        AsyncContext.clear();
+    }
+
+    @Test
+    public void encodeUnitBoundaries() {
+        assertThat(encodeTimeout(Duration.ZERO), is("0n"));
+        assertThat(encodeTimeout(ofNanos(99_999_999)), is("99999999n"));
+        assertThat(encodeTimeout(ofNanos(100_000_000)), is("100000u"));
+        assertThat(encodeTimeout(ofNanos(99_999_999_000L)), is("99999999u"));
+        assertThat(encodeTimeout(ofNanos(99_999_999_001L)), is("100000m"));
+        assertThat(encodeTimeout(ofMillis(99_999_999)), is("99999999m"));
+        assertThat(encodeTimeout(ofMillis(100_000_000)), is("100000S"));
+        assertThat(encodeTimeout(ofSeconds(99_999_999)), is("99999999S"));
+        assertThat(encodeTimeout(ofSeconds(100_000_000)), is("1666667M"));
+        assertThat(encodeTimeout(ofMinutes(99_999_999)), is("99999999M"));
+        assertThat(encodeTimeout(ofMinutes(100_000_000)), is("1666667H"));
+    }
+
+    @Test
+    public void encodeRoundsUp() {
+        assertThat(encodeTimeout(ofNanos(100_000_001)), is("100001u"));
+        assertThat(encodeTimeout(ofMinutes(99_999_999).plusNanos(1)), is("1666667H"));
+        assertThat(encodeTimeout(ofHours(2_000_000).plusNanos(1)), is("2000001H"));
+    }
+
+    @Test
+    public void encodeIsCappedAtEightDigits() {
+        assertThat(encodeTimeout(ofHours(99_999_999)), is("99999999H"));
+        assertThat(encodeTimeout(ofHours(100_000_000)), is("99999999H"));
+        assertThat(encodeTimeout(ofDays(365L * 100_000_000)), is("99999999H"));
+    }
+
+    @Test
+    public void parseUnits() {
+        assertThat(parseTimeout("0n"), is(Duration.ZERO));
+        assertThat(parseTimeout("5n"), is(ofNanos(5)));
+        assertThat(parseTimeout("5u"), is(ofNanos(5_000)));
+        assertThat(parseTimeout("5m"), is(ofMillis(5)));
+        assertThat(parseTimeout("5S"), is(ofSeconds(5)));
+        assertThat(parseTimeout("5M"), is(ofMinutes(5)));
+        assertThat(parseTimeout("5H"), is(ofHours(5)));
+        assertThat(parseTimeout("99999999H"), is(ofHours(99_999_999)));
+    }
+
+    @Test
+    public void parseInvalid() {
+        assertThat(parseTimeout(""), is(nullValue()));
+        assertThat(parseTimeout("m"), is(nullValue()));
+        assertThat(parseTimeout("10"), is(nullValue()));
+        assertThat(parseTimeout("10s"), is(nullValue()));
+        assertThat(parseTimeout("10x"), is(nullValue()));
+        assertThat(parseTimeout("-1m"), is(nullValue()));
+        assertThat(parseTimeout("1.5S"), is(nullValue()));
+        assertThat(parseTimeout("123456789m"), is(nullValue()));
+    }
+
+    @Test
+    public void roundTrip() {
+        for (Duration timeout : new Duration[] {ofNanos(1), ofNanos(99_999_999), ofNanos(100_000_001), ofMillis(1),
+                ofMillis(1500), ofSeconds(100_000), ofMinutes(100_000_000), ofHours(99_999_999)}) {
+            final Duration parsed = parseTimeout(encodeTimeout(timeout));
+            assertThat(parsed, is(greaterThanOrEqualTo(timeout)));
+            assertThat(encodeTimeout(parsed), is(encodeTimeout(timeout)));
+        }
+        assertThat(parseTimeout(encodeTimeout(ofMillis(1500))), is(ofMillis(1500)));
+    }
+
+    @Test
+    public void noDeadlinePassesThrough() throws Exception {
+        assertThat(withDeadline(succeeded("foo")).toFuture().get(), is("foo"));
+    }
+
+    @Test
+    public void deadlineExceeded() throws Exception {
+        deadline(ofMillis(50));
+        assertDeadlineExceeded(withDeadline(never()));
+    }
+
+    @Test
+    public void expiredDeadlineDoesNotSubscribe() throws Exception {
+        deadline(Duration.ZERO);
+        final AtomicBoolean subscribed = new AtomicBoolean();
+        assertDeadlineExceeded(withDeadline(defer(() -> {
+            subscribed.set(true);
+            return never();
+        })));
+        assertThat(subscribed.get(), is(false));
+    }
+
+    @Test
+    public void deadlineIsReadOnSubscribe() throws Exception {
+        final Single<String> response = withDeadline(never());
+        deadline(ofMillis(50));
+        assertDeadlineExceeded(response);
+    }
+
+    @Test
+    public void otherFailuresAreNotMapped() throws Exception {
+        deadline(ofSeconds(10));
+        final IllegalStateException cause = new IllegalStateException("deliberate");
+        try {
+            withDeadline(failed(cause)).toFuture().get();
+            fail("Expected failure");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(cause));
+        }
+    }
+
+    private static void assertDeadlineExceeded(final Single<?> response) throws Exception {
+        try {
+            response.toFuture().get();
+            fail("Expected deadline to be exceeded");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(GrpcStatusException.class));
+            assertThat(((GrpcStatusException) e.getCause()).status().code(), is(DEADLINE_EXCEEDED));
+        }
+    }
+}
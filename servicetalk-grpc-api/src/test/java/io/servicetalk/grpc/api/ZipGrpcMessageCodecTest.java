@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.grpc.api;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
+
+import org.junit.Test;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.Deflate;
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.Gzip;
+import static io.servicetalk.grpc.api.GrpcStatusCode.RESOURCE_EXHAUSTED;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+public class ZipGrpcMessageCodecTest {
+    private static final BufferAllocator allocator = DEFAULT_ALLOCATOR;
+
+    private static Buffer zeros(final int length) {
+        final Buffer buffer = allocator.newBuffer(length);
+        buffer.writeBytes(new byte[length]);
+        return buffer;
+    }
+
+    @Test
+    public void gzipRoundTrip() {
+        testRoundTrip(Gzip);
+    }
+
+    @Test
+    public void deflateRoundTrip() {
+        testRoundTrip(Deflate);
+    }
+
+    private static void testRoundTrip(final GrpcMessageEncoding encoding) {
+        final Buffer compressed = encoding.codec().encode(allocator.fromAscii("hello"), allocator);
+        assertThat(encoding.codec().decode(compressed, allocator).toString(US_ASCII), is("hello"));
+    }
+
+    @Test
+    public void gzipDecompressionIsBounded() {
+        testDecompressionIsBounded(GrpcMessageEncoding.gzip(1024));
+    }
+
+    @Test
+    public void deflateDecompressionIsBounded() {
+        testDecompressionIsBounded(GrpcMessageEncoding.deflate(1024));
+    }
+
+    private static void testDecompressionIsBounded(final GrpcMessageEncoding encoding) {
+        assertThat(encoding.codec().decode(encoding.codec().encode(zeros(1024), allocator), allocator)
+                .readableBytes(), is(1024));
+
+        final Buffer bomb = encoding.codec().encode(zeros(1024 * 1024), allocator);
+        try {
+            encoding.codec().decode(bomb, allocator);
+            fail("Expected decompression to fail");
+        } catch (GrpcStatusException e) {
+            assertThat(e.status().code(), is(RESOURCE_EXHAUSTED));
+        }
+    }
+
+    @Test
+    public void defaultDecompressionIsBounded() {
+        final Buffer bomb = Gzip.codec().encode(zeros(ZipGrpcMessageCodec.DEFAULT_MAX_DECOMPRESSED_BYTES + 1),
+                allocator);
+        try {
+            Gzip.codec().decode(bomb, allocator);
+            fail("Expected decompression to fail");
+        } catch (GrpcStatusException e) {
+            assertThat(e.status().code(), is(RESOURCE_EXHAUSTED));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidMaxDecompressedBytes() {
+        GrpcMessageEncoding.gzip(0);
+    }
+
+    @Test
+    public void customEncodingNameIsLowerCased() {
+        assertThat(GrpcMessageEncoding.of("SNAPPY", Gzip.codec()).encoding(), is("snappy"));
+    }
+}
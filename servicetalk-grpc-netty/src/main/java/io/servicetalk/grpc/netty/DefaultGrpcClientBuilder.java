@@ -24,6 +24,7 @@ import io.servicetalk.grpc.api.GrpcClientBuilder;
 import io.servicetalk.grpc.api.GrpcClientCallFactory;
 import io.servicetalk.grpc.api.GrpcClientSecurityConfigurator;
 import io.servicetalk.grpc.api.GrpcExecutionStrategy;
+import io.servicetalk.grpc.api.GrpcMessageEncoding;
 import io.servicetalk.http.api.FilterableStreamingHttpConnection;
 import io.servicetalk.http.api.FilterableStreamingHttpLoadBalancedConnection;
 import io.servicetalk.http.api.HttpProtocolConfig;
@@ -35,14 +36,22 @@ import io.servicetalk.http.api.StreamingHttpRequest;
 import io.servicetalk.transport.api.IoExecutor;
 
 import java.net.SocketOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.None;
 import static io.servicetalk.http.netty.HttpProtocolConfigs.h2Default;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Objects.requireNonNull;
 
 final class DefaultGrpcClientBuilder<U, R> extends GrpcClientBuilder<U, R> {
 
     private final SingleAddressHttpClientBuilder<U, R> httpClientBuilder;
+    private List<GrpcMessageEncoding> supportedMessageEncodings = singletonList(None);
+    private GrpcMessageEncoding requestMessageEncoding = None;
 
     DefaultGrpcClientBuilder(final SingleAddressHttpClientBuilder<U, R> httpClientBuilder) {
         this.httpClientBuilder = httpClientBuilder.protocols(h2Default());
@@ -127,9 +136,25 @@ final class DefaultGrpcClientBuilder<U, R> extends GrpcClientBuilder<U, R> {
         return this;
     }
 
+    @Override
+    public GrpcClientBuilder<U, R> supportedMessageEncodings(final GrpcMessageEncoding... encodings) {
+        if (encodings.length == 0) {
+            throw new IllegalArgumentException("At least one message encoding must be supported");
+        }
+        supportedMessageEncodings = new ArrayList<>(asList(encodings));
+        return this;
+    }
+
+    @Override
+    public GrpcClientBuilder<U, R> requestMessageEncoding(final GrpcMessageEncoding encoding) {
+        requestMessageEncoding = requireNonNull(encoding);
+        return this;
+    }
+
     @Override
     protected GrpcClientCallFactory newGrpcClientCallFactory() {
-        return GrpcClientCallFactory.from(httpClientBuilder.buildStreaming());
+        return GrpcClientCallFactory.from(httpClientBuilder.buildStreaming(), supportedMessageEncodings,
+                requestMessageEncoding);
     }
 
     @Override
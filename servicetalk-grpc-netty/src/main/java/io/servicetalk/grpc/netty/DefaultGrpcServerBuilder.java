@@ -18,6 +18,7 @@ package io.servicetalk.grpc.netty;
 import io.servicetalk.buffer.api.BufferAllocator;
 import io.servicetalk.concurrent.api.Single;
 import io.servicetalk.grpc.api.GrpcExecutionStrategy;
+import io.servicetalk.grpc.api.GrpcMessageEncoding;
 import io.servicetalk.grpc.api.GrpcServerBuilder;
 import io.servicetalk.grpc.api.GrpcServerSecurityConfigurator;
 import io.servicetalk.grpc.api.GrpcServiceFactory;
@@ -38,14 +39,21 @@ import io.servicetalk.transport.api.ServerContext;
 import io.servicetalk.transport.netty.internal.ExecutionContextBuilder;
 
 import java.net.SocketOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Predicate;
 
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.None;
 import static io.servicetalk.http.netty.HttpProtocolConfigs.h2Default;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 
 final class DefaultGrpcServerBuilder extends GrpcServerBuilder implements ServerBinder {
 
     private final HttpServerBuilder httpServerBuilder;
     private final ExecutionContextBuilder contextBuilder = new ExecutionContextBuilder();
+    private List<GrpcMessageEncoding> supportedMessageEncodings = singletonList(None);
 
     DefaultGrpcServerBuilder(final HttpServerBuilder httpServerBuilder) {
         this.httpServerBuilder = httpServerBuilder.protocols(h2Default());
@@ -63,6 +71,18 @@ final class DefaultGrpcServerBuilder extends GrpcServerBuilder implements Server
         return this;
     }
 
+    @Override
+    public GrpcServerBuilder maxConnections(final int maxConnections) {
+        httpServerBuilder.maxConnections(maxConnections);
+        return this;
+    }
+
+    @Override
+    public GrpcServerBuilder maxAcceptRatePerAddress(final int maxAccepts, final Duration period) {
+        httpServerBuilder.maxAcceptRatePerAddress(maxAccepts, period);
+        return this;
+    }
+
     @Override
     public GrpcServerSecurityConfigurator secure() {
         HttpServerSecurityConfigurator secure = httpServerBuilder.secure();
@@ -120,10 +140,16 @@ final class DefaultGrpcServerBuilder extends GrpcServerBuilder implements Server
         return this;
     }
 
+    @Override
+    public GrpcServerBuilder supportedMessageEncodings(final GrpcMessageEncoding... encodings) {
+        supportedMessageEncodings = new ArrayList<>(asList(encodings));
+        return this;
+    }
+
     @Override
     protected Single<ServerContext> doListen(final GrpcServiceFactory<?, ?, ?> serviceFactory) {
         ExecutionContext executionContext = contextBuilder.build();
-        return serviceFactory.bind(this, executionContext);
+        return serviceFactory.bind(this, executionContext, supportedMessageEncodings);
     }
 
     @Override
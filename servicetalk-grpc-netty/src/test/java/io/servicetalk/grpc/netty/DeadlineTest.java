@@ -0,0 +1,214 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.grpc.netty;
+
+import io.servicetalk.concurrent.api.AsyncContext;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.grpc.api.GrpcServiceContext;
+import io.servicetalk.grpc.api.GrpcStatusException;
+import io.servicetalk.grpc.netty.TesterProto.TestRequest;
+import io.servicetalk.grpc.netty.TesterProto.TestResponse;
+import io.servicetalk.grpc.netty.TesterProto.Tester.BlockingTesterClient;
+import io.servicetalk.grpc.netty.TesterProto.Tester.ClientFactory;
+import io.servicetalk.grpc.netty.TesterProto.Tester.ServiceFactory;
+import io.servicetalk.grpc.netty.TesterProto.Tester.TesterClient;
+import io.servicetalk.grpc.netty.TesterProto.Tester.TesterService;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.RequestDeadlines;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.transport.api.ServerContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.servicetalk.concurrent.api.AsyncCloseables.newCompositeCloseable;
+import static io.servicetalk.grpc.api.GrpcStatusCode.DEADLINE_EXCEEDED;
+import static io.servicetalk.transport.netty.internal.AddressUtils.localAddress;
+import static io.servicetalk.transport.netty.internal.AddressUtils.serverHostAndPort;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+
+public class DeadlineTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final AtomicInteger invocations = new AtomicInteger();
+    private final AtomicReference<Duration> remaining = new AtomicReference<>();
+    private final AtomicReference<CharSequence> grpcTimeout = new AtomicReference<>();
+    private ServerContext serverContext;
+    private TesterClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        AsyncContext.clear();
+        serverContext = GrpcServers.forAddress(localAddress(0)).listenAndAwait(new ServiceFactory(new TesterService() {
+            @Override
+            public Single<TestResponse> test(final GrpcServiceContext ctx, final TestRequest request) {
+                invocations.incrementAndGet();
+                remaining.set(RequestDeadlines.remaining());
+                return "never".equals(request.getName()) ? Single.never() :
+                        Single.succeeded(TestResponse.newBuilder().setMessage(request.getName()).build());
+            }
+
+            @Override
+            public Publisher<TestResponse> testBiDiStream(final GrpcServiceContext ctx,
+                                                          final Publisher<TestRequest> request) {
+                return Publisher.never();
+            }
+
+            @Override
+            public Publisher<TestResponse> testResponseStream(final GrpcServiceContext ctx, final TestRequest request) {
+                return Publisher.never();
+            }
+
+            @Override
+            public Single<TestResponse> testRequestStream(final GrpcServiceContext ctx,
+                                                          final Publisher<TestRequest> request) {
+                return Single.never();
+            }
+        }));
+        client = GrpcClients.forAddress(serverHostAndPort(serverContext))
+                .appendHttpClientFilter(c -> new StreamingHttpClientFilter(c) {
+                    @Override
+                    protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                                    final HttpExecutionStrategy strategy,
+                                                                    final StreamingHttpRequest request) {
+                        final CharSequence value = grpcTimeout.get();
+                        if (value != null) {
+                            request.headers().set("grpc-timeout", value);
+                        }
+                        return delegate.request(strategy, request);
+                    }
+                })
+                .build(new ClientFactory());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        newCompositeCloseable().appendAll(client, serverContext).close();
+    }
+
+    private static TestRequest request(final String name) {
+        return TestRequest.newBuilder().setName(name).build();
+    }
+
+    @Test
+    public void noTimeout() throws Exception {
+        assertThat(client.test(request("foo")).toFuture().get().getMessage(), is("foo"));
+        assertThat(invocations.get(), is(1));
+        assertThat(remaining.get(), is(nullValue()));
+    }
+
+    @Test
+    public void timeoutIsVisibleToService() throws Exception {
+        grpcTimeout.set("10S");
+        assertThat(client.test(request("foo")).toFuture().get().getMessage(), is("foo"));
+        assertThat(remaining.get(), is(notNullValue()));
+        assertThat(remaining.get(), is(lessThanOrEqualTo(ofSeconds(10))));
+        assertThat(remaining.get(), is(greaterThan(Duration.ZERO)));
+    }
+
+    @Test
+    public void serverTimesOutCall() throws Exception {
+        grpcTimeout.set("100m");
+        assertDeadlineExceeded(client.test(request("never")));
+        assertThat(invocations.get(), is(1));
+    }
+
+    @Test
+    public void expiredTimeoutIsNotPassedToService() throws Exception {
+        grpcTimeout.set("0n");
+        assertDeadlineExceeded(client.test(request("foo")));
+        assertThat(invocations.get(), is(0));
+    }
+
+    @Test
+    public void invalidTimeoutIsIgnored() throws Exception {
+        grpcTimeout.set("soon");
+        assertThat(client.test(request("foo")).toFuture().get().getMessage(), is("foo"));
+        assertThat(remaining.get(), is(nullValue()));
+    }
+
+    @Test
+    public void clientDeadlineIsPropagated() throws Exception {
+        RequestDeadlines.deadline(ofSeconds(10));
+        assertThat(client.test(request("foo")).toFuture().get().getMessage(), is("foo"));
+        assertThat(remaining.get(), is(notNullValue()));
+        assertThat(remaining.get(), is(lessThanOrEqualTo(ofSeconds(10))));
+    }
+
+    @Test
+    public void clientDeadlineExceeded() throws Exception {
+        RequestDeadlines.deadline(ofMillis(100));
+        assertDeadlineExceeded(client.test(request("never")));
+    }
+
+    @Test
+    public void blockingClientDeadlineExceeded() throws Exception {
+        RequestDeadlines.deadline(ofMillis(100));
+        final BlockingTesterClient blockingClient = client.asBlockingClient();
+        try {
+            blockingClient.test(request("never"));
+            fail("Expected deadline to be exceeded");
+        } catch (GrpcStatusException e) {
+            assertThat(e.status().code(), is(DEADLINE_EXCEEDED));
+        }
+    }
+
+    @Test
+    public void blockingClientExpiredDeadlineIsNotSent() throws Exception {
+        RequestDeadlines.deadline(Duration.ZERO);
+        final BlockingTesterClient blockingClient = client.asBlockingClient();
+        try {
+            blockingClient.test(request("foo"));
+            fail("Expected deadline to be exceeded");
+        } catch (GrpcStatusException e) {
+            assertThat(e.status().code(), is(DEADLINE_EXCEEDED));
+        }
+        assertThat(invocations.get(), is(0));
+    }
+
+    private static void assertDeadlineExceeded(final Single<TestResponse> response) throws Exception {
+        try {
+            response.toFuture().get();
+            fail("Expected deadline to be exceeded");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(GrpcStatusException.class));
+            assertThat(((GrpcStatusException) e.getCause()).status().code(), is(DEADLINE_EXCEEDED));
+        }
+    }
+}
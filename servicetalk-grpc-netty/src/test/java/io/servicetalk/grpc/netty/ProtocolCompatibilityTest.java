@@ -23,6 +23,7 @@ import io.servicetalk.concurrent.api.internal.SpScPublisherProcessor;
 import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
 import io.servicetalk.grpc.api.GrpcClientBuilder;
 import io.servicetalk.grpc.api.GrpcExecutionStrategy;
+import io.servicetalk.grpc.api.GrpcMessageEncoding;
 import io.servicetalk.grpc.api.GrpcServerBuilder;
 import io.servicetalk.grpc.api.GrpcServiceContext;
 import io.servicetalk.grpc.api.GrpcStatus;
@@ -59,7 +60,6 @@ import io.grpc.protobuf.StatusProto;
 import io.grpc.stub.StreamObserver;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
-import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.experimental.theories.DataPoints;
 import org.junit.experimental.theories.FromDataPoints;
@@ -86,6 +86,9 @@ import static io.servicetalk.concurrent.api.Single.succeeded;
 import static io.servicetalk.concurrent.internal.ServiceTalkTestTimeout.DEFAULT_TIMEOUT_SECONDS;
 import static io.servicetalk.grpc.api.GrpcExecutionStrategies.defaultStrategy;
 import static io.servicetalk.grpc.api.GrpcExecutionStrategies.noOffloadsStrategy;
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.Deflate;
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.Gzip;
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.None;
 import static io.servicetalk.test.resources.DefaultTestCerts.loadServerKey;
 import static io.servicetalk.test.resources.DefaultTestCerts.loadServerPem;
 import static io.servicetalk.transport.api.SecurityConfigurator.SslProvider.OPENSSL;
@@ -186,17 +189,43 @@ public class ProtocolCompatibilityTest {
         testBlockingRequestResponse(client, server, streaming);
     }
 
-    @Ignore("gRPC compression not supported by ServiceTalk yet")
     @Theory
     public void grpcJavaToServiceTalkCompressedGzip(@FromDataPoints("ssl") final boolean ssl,
                                                     @FromDataPoints("streaming") final boolean streaming)
             throws Exception {
-        final TestServerContext server = serviceTalkServer(ErrorMode.NONE, ssl);
+        final TestServerContext server = serviceTalkServer(ErrorMode.NONE, ssl, defaultStrategy(), Gzip, None);
         // Only gzip is supported by GRPC out of the box atm.
         final CompatClient client = grpcJavaClient(server.listenAddress(), "gzip", ssl);
         testBlockingRequestResponse(client, server, streaming);
     }
 
+    @Theory
+    public void serviceTalkToGrpcJavaCompressedGzip(@FromDataPoints("ssl") final boolean ssl,
+                                                    @FromDataPoints("streaming") final boolean streaming)
+            throws Exception {
+        final TestServerContext server = grpcJavaServer(ErrorMode.NONE, ssl);
+        final CompatClient client = serviceTalkClient(server.listenAddress(), ssl, Gzip, None);
+        testBlockingRequestResponse(client, server, streaming);
+    }
+
+    @Theory
+    public void serviceTalkToServiceTalkCompressedGzip(@FromDataPoints("ssl") final boolean ssl,
+                                                       @FromDataPoints("streaming") final boolean streaming)
+            throws Exception {
+        final TestServerContext server = serviceTalkServer(ErrorMode.NONE, ssl, defaultStrategy(), Gzip, None);
+        final CompatClient client = serviceTalkClient(server.listenAddress(), ssl, Gzip, None);
+        testBlockingRequestResponse(client, server, streaming);
+    }
+
+    @Theory
+    public void serviceTalkToServiceTalkCompressedDeflate(@FromDataPoints("ssl") final boolean ssl,
+                                                          @FromDataPoints("streaming") final boolean streaming)
+            throws Exception {
+        final TestServerContext server = serviceTalkServer(ErrorMode.NONE, ssl, defaultStrategy(), Deflate, None);
+        final CompatClient client = serviceTalkClient(server.listenAddress(), ssl, Deflate, None);
+        testBlockingRequestResponse(client, server, streaming);
+    }
+
     @Theory
     public void serviceTalkToServiceTalk(@FromDataPoints("ssl") final boolean ssl,
                                          @FromDataPoints("streaming") final boolean streaming) throws Exception {
@@ -611,8 +640,14 @@ public class ProtocolCompatibilityTest {
     }
 
     private static CompatClient serviceTalkClient(final SocketAddress serverAddress, final boolean ssl) {
+        return serviceTalkClient(serverAddress, ssl, None);
+    }
+
+    private static CompatClient serviceTalkClient(final SocketAddress serverAddress, final boolean ssl,
+                                                  final GrpcMessageEncoding... encodings) {
         final GrpcClientBuilder<InetSocketAddress, InetSocketAddress> builder =
-                GrpcClients.forResolvedAddress((InetSocketAddress) serverAddress);
+                GrpcClients.forResolvedAddress((InetSocketAddress) serverAddress).supportedMessageEncodings(encodings)
+                        .requestMessageEncoding(encodings[0]);
         if (ssl) {
             builder.secure().disableHostnameVerification().provider(OPENSSL)
                     .trustManager(DefaultTestCerts::loadServerPem).commit();
@@ -664,6 +699,12 @@ public class ProtocolCompatibilityTest {
 
     private static TestServerContext serviceTalkServer(final ErrorMode errorMode, final boolean ssl,
                                                        final GrpcExecutionStrategy executionStrategy) throws Exception {
+        return serviceTalkServer(errorMode, ssl, executionStrategy, None);
+    }
+
+    private static TestServerContext serviceTalkServer(final ErrorMode errorMode, final boolean ssl,
+                                                       final GrpcExecutionStrategy executionStrategy,
+                                                       final GrpcMessageEncoding... encodings) throws Exception {
         final Compat.ServiceFactory serviceFactory = new Compat.ServiceFactory(new Compat.CompatService() {
             @Override
             public Publisher<CompatResponse> bidirectionalStreamingCall(final GrpcServiceContext ctx,
@@ -747,6 +788,7 @@ public class ProtocolCompatibilityTest {
 
         final ServerContext serverContext = serviceTalkServerBuilder(errorMode, ssl)
                 .executionStrategy(executionStrategy)
+                .supportedMessageEncodings(encodings)
                 .listenAndAwait(serviceFactory);
         return TestServerContext.fromServiceTalkServerContext(serverContext);
     }
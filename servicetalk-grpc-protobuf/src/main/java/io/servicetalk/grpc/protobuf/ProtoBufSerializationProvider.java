@@ -35,6 +35,7 @@ import java.util.List;
 import javax.annotation.Nullable;
 
 import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.None;
 import static java.lang.Math.max;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
@@ -96,6 +97,7 @@ final class ProtoBufSerializationProvider<T extends MessageLite> implements Seri
 
     private static final class ProtoDeserializer<T> implements StreamingDeserializer<T> {
         private final Parser<T> parser;
+        private final GrpcMessageEncoding messageEncoding;
         private final CompositeBuffer accumulate;
 
         private boolean compressed;
@@ -108,9 +110,9 @@ final class ProtoBufSerializationProvider<T extends MessageLite> implements Seri
          */
         private boolean stateReadHeader = true;
 
-        ProtoDeserializer(final Parser<T> parser,
-                          @SuppressWarnings("unused") final GrpcMessageEncoding grpcMessageEncoding) {
+        ProtoDeserializer(final Parser<T> parser, final GrpcMessageEncoding messageEncoding) {
             this.parser = parser;
+            this.messageEncoding = messageEncoding;
             accumulate = DEFAULT_ALLOCATOR.newCompositeBuffer(Integer.MAX_VALUE);
         }
 
@@ -131,8 +133,9 @@ final class ProtoBufSerializationProvider<T extends MessageLite> implements Seri
                     }
 
                     compressed = isCompressed(toDeserialize);
-                    // TODO (nkant) : handle compression
-                    assert !compressed;
+                    if (compressed && messageEncoding.equals(None)) {
+                        throw new SerializationException("Compressed message received without a message encoding");
+                    }
 
                     // https://github.com/grpc/grpc/blob/master/doc/PROTOCOL-HTTP2.md specifies size as 4 bytes
                     // unsigned int However netty buffers only support up to Integer.MAX_VALUE, and even
@@ -153,7 +156,13 @@ final class ProtoBufSerializationProvider<T extends MessageLite> implements Seri
 
                     final T t;
                     try {
-                        t = parser.parseFrom(toDeserialize.toNioBuffer(toDeserialize.readerIndex(), lengthOfData));
+                        if (compressed) {
+                            final Buffer decoded = messageEncoding.codec().decode(
+                                    toDeserialize.slice(toDeserialize.readerIndex(), lengthOfData), DEFAULT_ALLOCATOR);
+                            t = parser.parseFrom(decoded.toNioBuffer());
+                        } else {
+                            t = parser.parseFrom(toDeserialize.toNioBuffer(toDeserialize.readerIndex(), lengthOfData));
+                        }
                     } catch (InvalidProtocolBufferException e) {
                         throw new SerializationException(e);
                     }
@@ -224,8 +233,10 @@ final class ProtoBufSerializationProvider<T extends MessageLite> implements Seri
     }
 
     private static final class ProtoSerializer implements StreamingSerializer {
+        private final GrpcMessageEncoding encoding;
 
-        ProtoSerializer(@SuppressWarnings("unused") final GrpcMessageEncoding encoding) {
+        ProtoSerializer(final GrpcMessageEncoding encoding) {
+            this.encoding = encoding;
         }
 
         @Override
@@ -236,9 +247,21 @@ final class ProtoBufSerializationProvider<T extends MessageLite> implements Seri
             }
             MessageLite msg = (MessageLite) toSerialize;
             int size = msg.getSerializedSize();
-            // TODO (nkant) : handle compression
-            destination.writeByte(0);
-            destination.writeInt(size);
+            if (encoding.equals(None)) {
+                destination.writeByte(0);
+                destination.writeInt(size);
+                writeTo(msg, destination);
+            } else {
+                final Buffer serialized = DEFAULT_ALLOCATOR.newBuffer(size);
+                writeTo(msg, serialized);
+                final Buffer encoded = encoding.codec().encode(serialized, DEFAULT_ALLOCATOR);
+                destination.writeByte(1);
+                destination.writeInt(encoded.readableBytes());
+                destination.writeBytes(encoded);
+            }
+        }
+
+        private static void writeTo(final MessageLite msg, final Buffer destination) {
             try (OutputStream out = Buffer.asOutputStream(destination)) {
                 msg.writeTo(out);
             } catch (IOException e) {
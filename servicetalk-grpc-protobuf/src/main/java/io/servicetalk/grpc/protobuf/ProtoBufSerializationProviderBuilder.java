@@ -34,9 +34,9 @@ import com.google.protobuf.MessageLite;
 import com.google.protobuf.Parser;
 
 import java.io.IOException;
-import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static io.servicetalk.grpc.api.GrpcMessageEncoding.None;
 import static io.servicetalk.http.api.CharSequences.newAsciiString;
@@ -53,8 +53,7 @@ public final class ProtoBufSerializationProviderBuilder {
     private static final CharSequence GRPC_MESSAGE_ENCODING_KEY = newAsciiString("grpc-encoding");
     private static final CharSequence APPLICATION_GRPC_PROTO = newAsciiString("application/grpc+proto");
 
-    private final Map<Class, EnumMap<GrpcMessageEncoding, HttpSerializer>> serializers = new HashMap<>();
-    private final Map<Class, EnumMap<GrpcMessageEncoding, HttpDeserializer>> deserializers = new HashMap<>();
+    private final Map<Class, TypeSerializers> serializers = new HashMap<>();
 
     /**
      * Register the passed {@code messageType} with the provided {@link Parser}.
@@ -66,34 +65,7 @@ public final class ProtoBufSerializationProviderBuilder {
      */
     public <T extends MessageLite> ProtoBufSerializationProviderBuilder
     registerMessageType(Class<T> messageType, Parser<T> parser) {
-        EnumMap<GrpcMessageEncoding, HttpSerializer> serializersForType = new EnumMap<>(GrpcMessageEncoding.class);
-        EnumMap<GrpcMessageEncoding, HttpDeserializer> deserializersForType = new EnumMap<>(GrpcMessageEncoding.class);
-        for (GrpcMessageEncoding grpcMessageEncoding : GrpcMessageEncoding.values()) {
-            DefaultSerializer serializer = new DefaultSerializer(
-                    new ProtoBufSerializationProvider<>(messageType, grpcMessageEncoding, parser));
-            HttpSerializer<T> httpSerializer = new ProtoHttpSerializer<>(serializer, grpcMessageEncoding, messageType);
-            serializersForType.put(grpcMessageEncoding, httpSerializer);
-            deserializersForType.put(grpcMessageEncoding, new HttpDeserializer<T>() {
-                @Override
-                public T deserialize(final HttpHeaders headers, final Buffer payload) {
-                    return serializer.deserializeAggregatedSingle(payload, messageType);
-                }
-
-                @Override
-                public BlockingIterable<T> deserialize(final HttpHeaders headers,
-                                                       final BlockingIterable<Buffer> payload) {
-                    return serializer.deserialize(payload, messageType);
-                }
-
-                @Override
-                public Publisher<T> deserialize(final HttpHeaders headers, final Publisher<Buffer> payload) {
-                    return serializer.deserialize(payload, messageType);
-                }
-            });
-        }
-
-        serializers.put(messageType, serializersForType);
-        deserializers.put(messageType, deserializersForType);
+        serializers.put(messageType, new TypeSerializers<>(messageType, parser));
         return this;
     }
 
@@ -104,39 +76,100 @@ public final class ProtoBufSerializationProviderBuilder {
      * registered to this builder.
      */
     public GrpcSerializationProvider build() {
-        return new ProtoSerializationProvider(serializers, deserializers);
+        return new ProtoSerializationProvider(serializers);
     }
 
     private static class ProtoSerializationProvider implements GrpcSerializationProvider {
-        private final Map<Class, EnumMap<GrpcMessageEncoding, HttpSerializer>> serializers;
-        private final Map<Class, EnumMap<GrpcMessageEncoding, HttpDeserializer>> deserializers;
+        private final Map<Class, TypeSerializers> serializers;
 
-        ProtoSerializationProvider(final Map<Class, EnumMap<GrpcMessageEncoding, HttpSerializer>> serializers,
-                                   final Map<Class, EnumMap<GrpcMessageEncoding, HttpDeserializer>> deserializers) {
-            this.serializers = unmodifiableMap(serializers);
-            this.deserializers = unmodifiableMap(deserializers);
+        ProtoSerializationProvider(final Map<Class, TypeSerializers> serializers) {
+            this.serializers = unmodifiableMap(new HashMap<>(serializers));
         }
 
         @Override
         public <T> HttpSerializer<T> serializerFor(final GrpcMetadata metadata, final Class<T> type) {
-            EnumMap<GrpcMessageEncoding, HttpSerializer> serializersForType = serializers.get(type);
+            return serializerFor(metadata, None, type);
+        }
+
+        @Override
+        public <T> HttpSerializer<T> serializerFor(final GrpcMetadata metadata,
+                                                   final GrpcMessageEncoding messageEncoding, final Class<T> type) {
+            TypeSerializers serializersForType = serializers.get(type);
             if (serializersForType == null) {
                 throw new SerializationException("Unknown class to serialize: " + type.getName());
             }
             @SuppressWarnings("unchecked")
-            HttpSerializer<T> httpSerializer = serializersForType.get(None); // compression not yet supported.
+            HttpSerializer<T> httpSerializer = serializersForType.serializer(messageEncoding);
             return httpSerializer;
         }
 
         @Override
         public <T> HttpDeserializer<T> deserializerFor(final GrpcMessageEncoding messageEncoding, final Class<T> type) {
-            EnumMap<GrpcMessageEncoding, HttpDeserializer> deserializersForType = deserializers.get(type);
-            if (deserializersForType == null) {
+            TypeSerializers serializersForType = serializers.get(type);
+            if (serializersForType == null) {
                 throw new SerializationException("Unknown class to deserialize: " + type.getName());
             }
             @SuppressWarnings("unchecked")
-            HttpDeserializer<T> httpSerializer = deserializersForType.get(messageEncoding);
-            return httpSerializer;
+            HttpDeserializer<T> httpDeserializer = serializersForType.deserializer(messageEncoding);
+            return httpDeserializer;
+        }
+    }
+
+    /**
+     * Serializers and deserializers of a message type, created lazily for each {@link GrpcMessageEncoding} as the
+     * encodings are not known upfront.
+     */
+    private static final class TypeSerializers<T extends MessageLite> {
+        private final Class<T> messageType;
+        private final Parser<T> parser;
+        private final HttpSerializer<T> identitySerializer;
+        private final HttpDeserializer<T> identityDeserializer;
+        private final Map<GrpcMessageEncoding, HttpSerializer<T>> serializers = new ConcurrentHashMap<>();
+        private final Map<GrpcMessageEncoding, HttpDeserializer<T>> deserializers = new ConcurrentHashMap<>();
+
+        TypeSerializers(final Class<T> messageType, final Parser<T> parser) {
+            this.messageType = messageType;
+            this.parser = parser;
+            identitySerializer = newSerializer(None);
+            identityDeserializer = newDeserializer(None);
+        }
+
+        HttpSerializer<T> serializer(final GrpcMessageEncoding messageEncoding) {
+            return messageEncoding.equals(None) ? identitySerializer :
+                    serializers.computeIfAbsent(messageEncoding, this::newSerializer);
+        }
+
+        HttpDeserializer<T> deserializer(final GrpcMessageEncoding messageEncoding) {
+            return messageEncoding.equals(None) ? identityDeserializer :
+                    deserializers.computeIfAbsent(messageEncoding, this::newDeserializer);
+        }
+
+        private HttpSerializer<T> newSerializer(final GrpcMessageEncoding messageEncoding) {
+            return new ProtoHttpSerializer<>(new DefaultSerializer(
+                    new ProtoBufSerializationProvider<>(messageType, messageEncoding, parser)), messageEncoding,
+                    messageType);
+        }
+
+        private HttpDeserializer<T> newDeserializer(final GrpcMessageEncoding messageEncoding) {
+            final DefaultSerializer serializer = new DefaultSerializer(
+                    new ProtoBufSerializationProvider<>(messageType, messageEncoding, parser));
+            return new HttpDeserializer<T>() {
+                @Override
+                public T deserialize(final HttpHeaders headers, final Buffer payload) {
+                    return serializer.deserializeAggregatedSingle(payload, messageType);
+                }
+
+                @Override
+                public BlockingIterable<T> deserialize(final HttpHeaders headers,
+                                                       final BlockingIterable<Buffer> payload) {
+                    return serializer.deserialize(payload, messageType);
+                }
+
+                @Override
+                public Publisher<T> deserialize(final HttpHeaders headers, final Publisher<Buffer> payload) {
+                    return serializer.deserialize(payload, messageType);
+                }
+            };
         }
     }
 
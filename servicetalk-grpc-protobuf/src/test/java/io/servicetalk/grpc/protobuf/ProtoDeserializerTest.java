@@ -16,7 +16,9 @@
 package io.servicetalk.grpc.protobuf;
 
 import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.serialization.api.SerializationException;
 import io.servicetalk.serialization.api.StreamingDeserializer;
+import io.servicetalk.serialization.api.StreamingSerializer;
 
 import com.google.protobuf.Parser;
 import org.junit.Test;
@@ -28,6 +30,7 @@ import java.util.List;
 import java.util.function.Function;
 
 import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.Gzip;
 import static io.servicetalk.grpc.api.GrpcMessageEncoding.None;
 import static io.servicetalk.grpc.protobuf.test.TestProtos.DummyMessage;
 import static java.util.Arrays.asList;
@@ -35,6 +38,7 @@ import static java.util.stream.Collectors.toList;
 import static java.util.stream.StreamSupport.stream;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
 
 public class ProtoDeserializerTest {
 
@@ -101,6 +105,28 @@ public class ProtoDeserializerTest {
         assertThat("Unexpected messages deserialized.", deserialized, contains("Hello"));
     }
 
+    @Test
+    public void compressedMessagesRoundTrip() {
+        final ProtoBufSerializationProvider<DummyMessage> gzipProvider =
+                new ProtoBufSerializationProvider<>(DummyMessage.class, Gzip, parser);
+        final Buffer buffer = DEFAULT_ALLOCATOR.newBuffer();
+        final StreamingSerializer serializer = gzipProvider.getSerializer(DummyMessage.class);
+        serializer.serialize(DummyMessage.newBuilder().setMessage("Hello1").build(), buffer);
+        serializer.serialize(DummyMessage.newBuilder().setMessage("Hello2").build(), buffer);
+        assertThat("Message not flagged as compressed.", buffer.getByte(buffer.readerIndex()), is((byte) 1));
+
+        List<String> deserialized = stream(gzipProvider.getDeserializer(DummyMessage.class).deserialize(buffer)
+                .spliterator(), false).map(DummyMessage::getMessage).collect(toList());
+        assertThat("Unexpected messages deserialized.", deserialized, contains("Hello1", "Hello2"));
+    }
+
+    @Test(expected = SerializationException.class)
+    public void compressedMessageWithoutEncoding() throws IOException {
+        final Buffer buffer = grpcBufferFor("Hello");
+        buffer.setByte(buffer.readerIndex(), 1);
+        deserialize(buffer);
+    }
+
     private List<String> deserialize(Buffer buffer) {
         return deserialize(deserializer -> deserializer.deserialize(buffer));
     }
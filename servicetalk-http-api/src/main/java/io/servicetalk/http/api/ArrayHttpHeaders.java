@@ -0,0 +1,793 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.api;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.http.api.CharSequences.caseInsensitiveHashCode;
+import static io.servicetalk.http.api.CharSequences.contentEquals;
+import static io.servicetalk.http.api.CharSequences.contentEqualsIgnoreCase;
+import static io.servicetalk.http.api.DefaultHttpSetCookie.parseSetCookie;
+import static io.servicetalk.http.api.HeaderUtils.DEFAULT_HEADER_FILTER;
+import static io.servicetalk.http.api.HeaderUtils.domainMatches;
+import static io.servicetalk.http.api.HeaderUtils.isSetCookieNameMatches;
+import static io.servicetalk.http.api.HeaderUtils.parseCookiePair;
+import static io.servicetalk.http.api.HeaderUtils.pathMatches;
+import static io.servicetalk.http.api.HeaderUtils.validateCookieTokenAndHeaderName;
+import static io.servicetalk.http.api.HttpHeaderNames.COOKIE;
+import static io.servicetalk.http.api.HttpHeaderNames.SET_COOKIE;
+import static java.lang.Math.max;
+import static java.util.Arrays.fill;
+import static java.util.Collections.emptyIterator;
+import static java.util.Collections.emptySet;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link HttpHeaders} backed by flat parallel arrays of names, values and name hashes.
+ * <p>
+ * Entries are appended in insertion order and looked up with a linear scan which compares the cached hash before the
+ * name. This avoids the per-entry and per-bucket allocations of {@link DefaultHttpHeaders} and is faster for the
+ * small number of headers typically seen on a request or response, at the cost of {@code O(n)} lookups. Removed
+ * entries leave a {@code null} name behind and are compacted away when the arrays need to grow.
+ */
+final class ArrayHttpHeaders implements HttpHeaders {
+    private static final int MIN_CAPACITY = 4;
+    private static final CharSequence[] EMPTY_SEQUENCES = new CharSequence[0];
+    private static final int[] EMPTY_HASHES = new int[0];
+    private static final int COOKIE_HASH = caseInsensitiveHashCode(COOKIE);
+    private static final int SET_COOKIE_HASH = caseInsensitiveHashCode(SET_COOKIE);
+
+    private final boolean validateNames;
+    private final boolean validateCookies;
+    private CharSequence[] names;
+    private CharSequence[] values;
+    private int[] hashes;
+    /**
+     * Index of the next slot to append to. Slots in {@code [0, end)} with a {@code null} name have been removed.
+     */
+    private int end;
+    private int size;
+    /**
+     * Incremented each time existing entries move to a different index, so that outstanding iterators can detect it.
+     */
+    private int compactions;
+
+    /**
+     * Create a new instance.
+     *
+     * @param arraySizeHint A hint as to how many entries the arrays should initially be able to hold.
+     * @param validateNames {@code true} to validate header names.
+     * @param validateCookies {@code true} to validate cookie contents when parsing.
+     */
+    ArrayHttpHeaders(final int arraySizeHint, final boolean validateNames, final boolean validateCookies) {
+        this.validateNames = validateNames;
+        this.validateCookies = validateCookies;
+        if (arraySizeHint <= 0) {
+            names = EMPTY_SEQUENCES;
+            values = EMPTY_SEQUENCES;
+            hashes = EMPTY_HASHES;
+        } else {
+            names = new CharSequence[arraySizeHint];
+            values = new CharSequence[arraySizeHint];
+            hashes = new int[arraySizeHint];
+        }
+    }
+
+    @Nullable
+    @Override
+    public CharSequence get(final CharSequence name) {
+        final int i = indexOf(caseInsensitiveHashCode(name), name, 0);
+        return i < 0 ? null : values[i];
+    }
+
+    @Nullable
+    @Override
+    public CharSequence getAndRemove(final CharSequence name) {
+        final int nameHash = caseInsensitiveHashCode(name);
+        int i = indexOf(nameHash, name, 0);
+        if (i < 0) {
+            return null;
+        }
+        final CharSequence value = values[i];
+        do {
+            removeAt(i);
+            i = indexOf(nameHash, name, i + 1);
+        } while (i >= 0);
+        return value;
+    }
+
+    @Override
+    public Iterator<? extends CharSequence> valuesIterator(final CharSequence name) {
+        final int nameHash = caseInsensitiveHashCode(name);
+        final int i = indexOf(nameHash, name, 0);
+        return i < 0 ? emptyIterator() : new ValuesIterator(nameHash, name, i);
+    }
+
+    @Override
+    public boolean contains(final CharSequence name, final CharSequence value) {
+        return contains(name, value, true);
+    }
+
+    @Override
+    public boolean containsIgnoreCase(final CharSequence name, final CharSequence value) {
+        return contains(name, value, false);
+    }
+
+    private boolean contains(final CharSequence name, final CharSequence value, final boolean caseSensitive) {
+        final int nameHash = caseInsensitiveHashCode(name);
+        for (int i = indexOf(nameHash, name, 0); i >= 0; i = indexOf(nameHash, name, i + 1)) {
+            if (caseSensitive ? contentEquals(value, values[i]) : contentEqualsIgnoreCase(value, values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Set<? extends CharSequence> names() {
+        if (isEmpty()) {
+            return emptySet();
+        }
+        // Overall iteration order does not need to be preserved.
+        final Set<CharSequence> result = new HashSet<>((int) (size / .75), .75f);
+        for (int i = 0; i < end; ++i) {
+            final CharSequence name = names[i];
+            // Only keep the first spelling of a name, the same name may have been added with a different case.
+            if (name != null && indexOf(hashes[i], name, 0) == i) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public HttpHeaders add(final CharSequence name, final CharSequence value) {
+        validateName(name);
+        append(name, value, caseInsensitiveHashCode(name));
+        return this;
+    }
+
+    @Override
+    public HttpHeaders add(final CharSequence name, final Iterable<? extends CharSequence> values) {
+        validateName(name);
+        final int nameHash = caseInsensitiveHashCode(name);
+        for (CharSequence value : values) {
+            append(name, value, nameHash);
+        }
+        return this;
+    }
+
+    @Override
+    public HttpHeaders add(final CharSequence name, final CharSequence... values) {
+        validateName(name);
+        final int nameHash = caseInsensitiveHashCode(name);
+        ensureCapacity(values.length);
+        for (CharSequence value : values) {
+            append(name, value, nameHash);
+        }
+        return this;
+    }
+
+    @Override
+    public HttpHeaders add(final HttpHeaders headers) {
+        if (headers == this) {
+            return this;
+        }
+        if (headers instanceof ArrayHttpHeaders) {
+            // Fast path, names have already been validated and hashed.
+            final ArrayHttpHeaders rhs = (ArrayHttpHeaders) headers;
+            ensureCapacity(rhs.size);
+            for (int i = 0; i < rhs.end; ++i) {
+                final CharSequence name = rhs.names[i];
+                if (name != null) {
+                    append(name, rhs.values[i], rhs.hashes[i]);
+                }
+            }
+        } else { // Slow copy
+            ensureCapacity(headers.size());
+            for (final Map.Entry<? extends CharSequence, ? extends CharSequence> header : headers) {
+                add(header.getKey(), header.getValue());
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(final CharSequence name, final CharSequence value) {
+        validateName(name);
+        final int nameHash = caseInsensitiveHashCode(name);
+        removeAll(nameHash, name);
+        append(name, value, nameHash);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(final CharSequence name, final Iterable<? extends CharSequence> values) {
+        validateName(name);
+        final int nameHash = caseInsensitiveHashCode(name);
+        removeAll(nameHash, name);
+        for (CharSequence value : values) {
+            append(name, value, nameHash);
+        }
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(final CharSequence name, final CharSequence... values) {
+        validateName(name);
+        final int nameHash = caseInsensitiveHashCode(name);
+        removeAll(nameHash, name);
+        ensureCapacity(values.length);
+        for (CharSequence value : values) {
+            append(name, value, nameHash);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean remove(final CharSequence name) {
+        return removeAll(caseInsensitiveHashCode(name), name);
+    }
+
+    @Override
+    public boolean remove(final CharSequence name, final CharSequence value) {
+        return remove(name, value, true);
+    }
+
+    @Override
+    public boolean removeIgnoreCase(final CharSequence name, final CharSequence value) {
+        return remove(name, value, false);
+    }
+
+    private boolean remove(final CharSequence name, final CharSequence value, final boolean caseSensitive) {
+        final int nameHash = caseInsensitiveHashCode(name);
+        final int sizeBefore = size;
+        for (int i = indexOf(nameHash, name, 0); i >= 0; i = indexOf(nameHash, name, i + 1)) {
+            if (caseSensitive ? contentEquals(value, values[i]) : contentEqualsIgnoreCase(value, values[i])) {
+                removeAt(i);
+            }
+        }
+        return sizeBefore != size;
+    }
+
+    @Override
+    public HttpHeaders clear() {
+        if (end != 0) {
+            fill(names, 0, end, null);
+            fill(values, 0, end, null);
+            end = 0;
+            size = 0;
+            ++compactions;
+        }
+        return this;
+    }
+
+    @Override
+    public Iterator<Map.Entry<CharSequence, CharSequence>> iterator() {
+        return size == 0 ? emptyIterator() : new EntryIterator();
+    }
+
+    @Nullable
+    @Override
+    public HttpCookiePair getCookie(final CharSequence name) {
+        for (int i = indexOf(COOKIE_HASH, COOKIE, 0); i >= 0; i = indexOf(COOKIE_HASH, COOKIE, i + 1)) {
+            final HttpCookiePair cookiePair = parseCookiePair(values[i], name);
+            if (cookiePair != null) {
+                return cookiePair;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public HttpSetCookie getSetCookie(final CharSequence name) {
+        for (int i = indexOf(SET_COOKIE_HASH, SET_COOKIE, 0); i >= 0;
+             i = indexOf(SET_COOKIE_HASH, SET_COOKIE, i + 1)) {
+            final HttpSetCookie setCookie = HeaderUtils.parseSetCookie(values[i], name, validateCookies);
+            if (setCookie != null) {
+                return setCookie;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Iterator<? extends HttpCookiePair> getCookiesIterator() {
+        final int i = indexOf(COOKIE_HASH, COOKIE, 0);
+        return i < 0 ? emptyIterator() : new CookiesIterator(i);
+    }
+
+    @Override
+    public Iterator<? extends HttpCookiePair> getCookiesIterator(final CharSequence name) {
+        final int i = indexOf(COOKIE_HASH, COOKIE, 0);
+        return i < 0 ? emptyIterator() : new CookiesByNameIterator(i, name);
+    }
+
+    @Override
+    public Iterator<? extends HttpSetCookie> getSetCookiesIterator() {
+        final SetCookiesIterator itr = new SetCookiesIterator(null, null, null);
+        return itr.hasNext() ? itr : emptyIterator();
+    }
+
+    @Override
+    public Iterator<? extends HttpSetCookie> getSetCookiesIterator(final CharSequence name) {
+        final SetCookiesIterator itr = new SetCookiesIterator(name, null, null);
+        return itr.hasNext() ? itr : emptyIterator();
+    }
+
+    @Override
+    public Iterator<? extends HttpSetCookie> getSetCookiesIterator(final CharSequence name, final CharSequence domain,
+                                                                   final CharSequence path) {
+        final SetCookiesIterator itr = new SetCookiesIterator(name, domain, path);
+        return itr.hasNext() ? itr : emptyIterator();
+    }
+
+    @Override
+    public HttpHeaders addCookie(final HttpCookiePair cookie) {
+        // HTTP/1.x requires that all cookies/crumbs are combined into a single Cookie header.
+        // https://tools.ietf.org/html/rfc6265#section-5.4
+        final CharSequence encoded = cookie.encoded();
+        final int i = indexOf(COOKIE_HASH, COOKIE, 0);
+        if (i >= 0) {
+            values[i] = values[i] + "; " + encoded;
+        } else {
+            append(COOKIE, encoded, COOKIE_HASH);
+        }
+        return this;
+    }
+
+    @Override
+    public HttpHeaders addSetCookie(final HttpSetCookie cookie) {
+        append(SET_COOKIE, cookie.encoded(), SET_COOKIE_HASH);
+        return this;
+    }
+
+    @Override
+    public boolean removeCookies(final CharSequence name) {
+        final int sizeBefore = size;
+        List<CharSequence> cookiesToAdd = null;
+        for (int i = indexOf(COOKIE_HASH, COOKIE, 0); i >= 0; i = indexOf(COOKIE_HASH, COOKIE, i + 1)) {
+            final CharSequence newHeaderValue = HeaderUtils.removeCookiePairs(values[i], name);
+            if (newHeaderValue != null) {
+                if (newHeaderValue.length() != 0) {
+                    if (cookiesToAdd == null) {
+                        cookiesToAdd = new ArrayList<>(4);
+                    }
+                    cookiesToAdd.add(newHeaderValue);
+                }
+                removeAt(i);
+            }
+        }
+
+        if (cookiesToAdd != null) {
+            for (CharSequence cookies : cookiesToAdd) {
+                append(COOKIE, cookies, COOKIE_HASH);
+            }
+            return true;
+        }
+        return sizeBefore != size;
+    }
+
+    @Override
+    public boolean removeSetCookies(final CharSequence name) {
+        final int sizeBefore = size;
+        for (int i = indexOf(SET_COOKIE_HASH, SET_COOKIE, 0); i >= 0;
+             i = indexOf(SET_COOKIE_HASH, SET_COOKIE, i + 1)) {
+            if (isSetCookieNameMatches(values[i], name)) {
+                removeAt(i);
+            }
+        }
+        return sizeBefore != size;
+    }
+
+    @Override
+    public boolean removeSetCookies(final CharSequence name, final CharSequence domain, final CharSequence path) {
+        final int sizeBefore = size;
+        for (int i = indexOf(SET_COOKIE_HASH, SET_COOKIE, 0); i >= 0;
+             i = indexOf(SET_COOKIE_HASH, SET_COOKIE, i + 1)) {
+            // In the future we could attempt to delay full parsing of the cookie until after the domain/path have
+            // been matched, but for simplicity just do the parsing ahead of time.
+            final HttpSetCookie setCookie = HeaderUtils.parseSetCookie(values[i], name, false);
+            if (setCookie != null && domainMatches(domain, setCookie.domain()) &&
+                    pathMatches(path, setCookie.path())) {
+                removeAt(i);
+            }
+        }
+        return sizeBefore != size;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof HttpHeaders && HeaderUtils.equals(this, (HttpHeaders) o);
+    }
+
+    @Override
+    public int hashCode() {
+        return HeaderUtils.hashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return toString(DEFAULT_HEADER_FILTER);
+    }
+
+    private void validateName(@Nullable final CharSequence name) {
+        if (name == null || name.length() == 0) {
+            throw new IllegalArgumentException("empty header names are not allowed");
+        }
+        if (validateNames) {
+            validateCookieTokenAndHeaderName(name);
+        }
+    }
+
+    /**
+     * Find the index of the next entry for {@code name}.
+     *
+     * @param nameHash The case insensitive hash code of {@code name}.
+     * @param name The header name to look for.
+     * @param fromIndex The index to start searching from (inclusive).
+     * @return the index of the next entry for {@code name}, or {@code -1} if there is none.
+     */
+    private int indexOf(final int nameHash, final CharSequence name, final int fromIndex) {
+        for (int i = fromIndex; i < end; ++i) {
+            final CharSequence n = names[i];
+            if (hashes[i] == nameHash && n != null && contentEqualsIgnoreCase(name, n)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void append(final CharSequence name, final CharSequence value, final int nameHash) {
+        requireNonNull(value);
+        ensureCapacity(1);
+        names[end] = name;
+        values[end] = value;
+        hashes[end] = nameHash;
+        ++end;
+        ++size;
+    }
+
+    private void removeAt(final int i) {
+        assert names[i] != null;
+        names[i] = null;
+        values[i] = null;
+        --size;
+    }
+
+    private boolean removeAll(final int nameHash, final CharSequence name) {
+        final int sizeBefore = size;
+        for (int i = indexOf(nameHash, name, 0); i >= 0; i = indexOf(nameHash, name, i + 1)) {
+            removeAt(i);
+        }
+        return sizeBefore != size;
+    }
+
+    /**
+     * Make sure {@code extra} more entries can be appended without resizing.
+     *
+     * @param extra The number of entries which are about to be appended.
+     */
+    private void ensureCapacity(final int extra) {
+        final int required = end + extra;
+        if (required <= names.length) {
+            return;
+        }
+        final int live = size + extra;
+        // Compact in place if that frees up enough room, otherwise grow (and compact while copying).
+        final int newCapacity = live + (live >>> 2) <= names.length ? names.length :
+                max(MIN_CAPACITY, max(live, names.length << 1));
+        if (size == end) {
+            // No removed entries, indexes are preserved and outstanding iterators remain valid.
+            names = copyOf(names, newCapacity, end);
+            values = copyOf(values, newCapacity, end);
+            final int[] newHashes = new int[newCapacity];
+            System.arraycopy(hashes, 0, newHashes, 0, end);
+            hashes = newHashes;
+            return;
+        }
+        final CharSequence[] newNames = newCapacity == names.length ? names : new CharSequence[newCapacity];
+        final CharSequence[] newValues = newCapacity == values.length ? values : new CharSequence[newCapacity];
+        final int[] newHashes = newCapacity == hashes.length ? hashes : new int[newCapacity];
+        int j = 0;
+        for (int i = 0; i < end; ++i) {
+            final CharSequence name = names[i];
+            if (name != null) {
+                newNames[j] = name;
+                newValues[j] = values[i];
+                newHashes[j] = hashes[i];
+                ++j;
+            }
+        }
+        assert j == size;
+        if (newNames == names) {
+            fill(names, j, end, null);
+            fill(values, j, end, null);
+        }
+        names = newNames;
+        values = newValues;
+        hashes = newHashes;
+        end = j;
+        ++compactions;
+    }
+
+    private static CharSequence[] copyOf(final CharSequence[] src, final int newCapacity, final int length) {
+        final CharSequence[] dst = new CharSequence[newCapacity];
+        System.arraycopy(src, 0, dst, 0, length);
+        return dst;
+    }
+
+    /**
+     * Base class for iterators which walk the arrays by index and support {@link Iterator#remove()}.
+     */
+    private abstract class IndexIterator {
+        private final int expectedCompactions = compactions;
+        int next;
+        int previous = -1;
+
+        IndexIterator(final int next) {
+            this.next = next;
+        }
+
+        final void checkCompactions() {
+            if (expectedCompactions != compactions) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        public final void remove() {
+            if (previous < 0) {
+                throw new IllegalStateException();
+            }
+            checkCompactions();
+            if (names[previous] == null) {
+                // The entry was already removed by other means.
+                throw new ConcurrentModificationException();
+            }
+            removeAt(previous);
+            previous = -1;
+        }
+    }
+
+    private final class ValuesIterator extends IndexIterator implements Iterator<CharSequence> {
+        private final int nameHash;
+        private final CharSequence name;
+        @Nullable
+        private CharSequence nextValue;
+
+        ValuesIterator(final int nameHash, final CharSequence name, final int first) {
+            super(first);
+            this.nameHash = nameHash;
+            this.name = name;
+            nextValue = values[first];
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextValue != null;
+        }
+
+        @Override
+        public CharSequence next() {
+            if (nextValue == null) {
+                throw new NoSuchElementException();
+            }
+            checkCompactions();
+            final CharSequence current = nextValue;
+            previous = next;
+            next = indexOf(nameHash, name, next + 1);
+            nextValue = next < 0 ? null : values[next];
+            return current;
+        }
+    }
+
+    private final class EntryIterator extends IndexIterator
+            implements Iterator<Map.Entry<CharSequence, CharSequence>> {
+        EntryIterator() {
+            super(nextEntry(0));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        @Override
+        public Map.Entry<CharSequence, CharSequence> next() {
+            if (next >= end) {
+                throw new NoSuchElementException();
+            }
+            checkCompactions();
+            previous = next;
+            next = nextEntry(next + 1);
+            return new ArrayEntry(previous);
+        }
+    }
+
+    private int nextEntry(int i) {
+        while (i < end && names[i] == null) {
+            ++i;
+        }
+        return i;
+    }
+
+    private final class ArrayEntry implements Map.Entry<CharSequence, CharSequence> {
+        private final CharSequence key;
+        private final int index;
+
+        ArrayEntry(final int index) {
+            this.index = index;
+            key = names[index];
+        }
+
+        @Override
+        public CharSequence getKey() {
+            return key;
+        }
+
+        @Override
+        public CharSequence getValue() {
+            return values[index];
+        }
+
+        @Override
+        public CharSequence setValue(final CharSequence value) {
+            requireNonNull(value);
+            final CharSequence oldValue = values[index];
+            values[index] = value;
+            return oldValue;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            final Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return key.equals(other.getKey()) && getValue().equals(other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ getValue().hashCode();
+        }
+    }
+
+    private final class CookiesIterator extends HeaderUtils.CookiesIterator {
+        private int current;
+
+        CookiesIterator(final int first) {
+            current = first;
+            initNext(values[first]);
+        }
+
+        @Nullable
+        @Override
+        protected CharSequence cookieHeaderValue() {
+            return current < 0 ? null : values[current];
+        }
+
+        @Override
+        protected void advanceCookieHeaderValue() {
+            assert current >= 0;
+            current = indexOf(COOKIE_HASH, COOKIE, current + 1);
+        }
+    }
+
+    private final class CookiesByNameIterator extends HeaderUtils.CookiesByNameIterator {
+        private int current;
+
+        CookiesByNameIterator(final int first, final CharSequence name) {
+            super(name);
+            current = first;
+            initNext(values[first]);
+        }
+
+        @Nullable
+        @Override
+        protected CharSequence cookieHeaderValue() {
+            return current < 0 ? null : values[current];
+        }
+
+        @Override
+        protected void advanceCookieHeaderValue() {
+            assert current >= 0;
+            current = indexOf(COOKIE_HASH, COOKIE, current + 1);
+        }
+    }
+
+    /**
+     * Iterates {@link HttpHeaderNames#SET_COOKIE} values, optionally filtered by cookie-name and domain/path.
+     */
+    private final class SetCookiesIterator extends IndexIterator implements Iterator<HttpSetCookie> {
+        @Nullable
+        private final CharSequence name;
+        @Nullable
+        private final CharSequence domain;
+        @Nullable
+        private final CharSequence path;
+        @Nullable
+        private HttpSetCookie nextCookie;
+
+        SetCookiesIterator(@Nullable final CharSequence name, @Nullable final CharSequence domain,
+                           @Nullable final CharSequence path) {
+            super(-1);
+            this.name = name;
+            this.domain = domain;
+            this.path = path;
+            findNext();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextCookie != null;
+        }
+
+        @Override
+        public HttpSetCookie next() {
+            if (nextCookie == null) {
+                throw new NoSuchElementException();
+            }
+            checkCompactions();
+            final HttpSetCookie current = nextCookie;
+            previous = next;
+            findNext();
+            return current;
+        }
+
+        private void findNext() {
+            nextCookie = null;
+            while ((next = indexOf(SET_COOKIE_HASH, SET_COOKIE, next + 1)) >= 0) {
+                if (name == null) {
+                    nextCookie = parseSetCookie(values[next], validateCookies);
+                    return;
+                }
+                // In the future we could attempt to delay full parsing of the cookie until after the domain/path
+                // have been matched, but for simplicity just do the parsing ahead of time.
+                final HttpSetCookie setCookie = HeaderUtils.parseSetCookie(values[next], name, validateCookies);
+                if (setCookie != null && (domain == null ||
+                        (domainMatches(domain, setCookie.domain()) && pathMatches(path, setCookie.path())))) {
+                    nextCookie = setCookie;
+                    return;
+                }
+            }
+        }
+    }
+}
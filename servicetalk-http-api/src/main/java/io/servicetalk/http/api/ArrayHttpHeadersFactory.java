@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.api;
+
+/**
+ * {@link HttpHeadersFactory} which creates {@link HttpHeaders} backed by flat arrays.
+ * <p>
+ * Entries are kept in insertion order and looked up with a linear scan, which avoids allocating per-entry objects and
+ * performs well for the small number of headers typically found on a request or response. Prefer
+ * {@link DefaultHttpHeadersFactory} if messages are expected to carry a large number of distinct headers.
+ */
+public final class ArrayHttpHeadersFactory implements HttpHeadersFactory {
+
+    public static final HttpHeadersFactory INSTANCE = new ArrayHttpHeadersFactory(true, true);
+
+    private final boolean validateNames;
+    private final boolean validateCookies;
+    private final int headersArraySizeHint;
+    private final int trailersArraySizeHint;
+
+    /**
+     * Create an instance of the factory with the default array size hint.
+     *
+     * @param validateNames {@code true} to validate header/trailer names.
+     * @param validateCookies {@code true} to validate cookie contents when parsing.
+     */
+    public ArrayHttpHeadersFactory(final boolean validateNames, final boolean validateCookies) {
+        this(validateNames, validateCookies, 16, 4);
+    }
+
+    /**
+     * Create an instance of the factory.
+     *
+     * @param validateNames {@code true} to validate header/trailer names.
+     * @param validateCookies {@code true} to validate cookie contents when parsing.
+     * @param headersArraySizeHint A hint as to how many entries the arrays should initially hold for the headers.
+     * @param trailersArraySizeHint A hint as to how many entries the arrays should initially hold for the trailers.
+     */
+    public ArrayHttpHeadersFactory(final boolean validateNames, final boolean validateCookies,
+                                   final int headersArraySizeHint, final int trailersArraySizeHint) {
+        this.validateNames = validateNames;
+        this.validateCookies = validateCookies;
+        this.headersArraySizeHint = headersArraySizeHint;
+        this.trailersArraySizeHint = trailersArraySizeHint;
+    }
+
+    @Override
+    public HttpHeaders newHeaders() {
+        return new ArrayHttpHeaders(headersArraySizeHint, validateNames, validateCookies);
+    }
+
+    @Override
+    public HttpHeaders newTrailers() {
+        return new ArrayHttpHeaders(trailersArraySizeHint, validateNames, validateCookies);
+    }
+
+    @Override
+    public HttpHeaders newEmptyTrailers() {
+        return new ArrayHttpHeaders(0, validateNames, validateCookies);
+    }
+
+    @Override
+    public boolean validateCookies() {
+        return validateCookies;
+    }
+}
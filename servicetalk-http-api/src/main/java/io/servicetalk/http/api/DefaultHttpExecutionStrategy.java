@@ -30,6 +30,7 @@ import static io.servicetalk.concurrent.api.Single.succeeded;
 import static io.servicetalk.concurrent.api.internal.OffloaderAwareExecutor.ensureThreadAffinity;
 import static io.servicetalk.http.api.HttpExecutionStrategies.Builder.MergeStrategy.Merge;
 import static io.servicetalk.http.api.HttpExecutionStrategies.Builder.MergeStrategy.ReturnOther;
+import static java.lang.Math.max;
 import static java.util.Objects.requireNonNull;
 import static java.util.function.Function.identity;
 
@@ -46,13 +47,20 @@ class DefaultHttpExecutionStrategy implements HttpExecutionStrategy {
     private final byte offloads;
     private final MergeStrategy mergeStrategy;
     private final boolean threadAffinity;
+    private final int sendPrefetch;
 
     DefaultHttpExecutionStrategy(@Nullable final Executor executor, final byte offloads, final boolean threadAffinity,
                                  final MergeStrategy mergeStrategy) {
+        this(executor, offloads, threadAffinity, mergeStrategy, 0);
+    }
+
+    DefaultHttpExecutionStrategy(@Nullable final Executor executor, final byte offloads, final boolean threadAffinity,
+                                 final MergeStrategy mergeStrategy, final int sendPrefetch) {
         this.mergeStrategy = mergeStrategy;
         this.executor = executor != null ? threadAffinity ? ensureThreadAffinity(executor) : executor : null;
         this.offloads = offloads;
         this.threadAffinity = threadAffinity;
+        this.sendPrefetch = sendPrefetch;
     }
 
     DefaultHttpExecutionStrategy(byte offloadOverride, HttpExecutionStrategy original) {
@@ -62,9 +70,11 @@ class DefaultHttpExecutionStrategy implements HttpExecutionStrategy {
             DefaultHttpExecutionStrategy originalAsDefault = (DefaultHttpExecutionStrategy) original;
             mergeStrategy = originalAsDefault.mergeStrategy;
             threadAffinity = originalAsDefault.threadAffinity;
+            sendPrefetch = originalAsDefault.sendPrefetch;
         } else {
             mergeStrategy = Merge;
             threadAffinity = false;
+            sendPrefetch = 0;
         }
     }
 
@@ -80,7 +90,7 @@ class DefaultHttpExecutionStrategy implements HttpExecutionStrategy {
             final ClientInvoker<FS> client) {
         final Executor e = executor(fallback);
         if (offloaded(OFFLOAD_SEND)) {
-            flattenedRequest = flattenedRequest.subscribeOn(e);
+            flattenedRequest = offloadSendStream(flattenedRequest, e);
         }
         Single<StreamingHttpResponse> resp = client.invokeClient(flattenedRequest, flushStrategy);
         if (offloaded(OFFLOAD_RECEIVE_META)) {
@@ -112,11 +122,15 @@ class DefaultHttpExecutionStrategy implements HttpExecutionStrategy {
             resp = service.apply(request);
         }
         if (offloaded(OFFLOAD_SEND)) {
-            resp = resp.subscribeOn(e);
+            resp = offloadSendStream(resp, e);
         }
         return resp;
     }
 
+    private Publisher<Object> offloadSendStream(final Publisher<Object> stream, final Executor e) {
+        return sendPrefetch > 0 ? stream.prefetch(sendPrefetch).subscribeOn(e) : stream.subscribeOn(e);
+    }
+
     @Override
     public StreamingHttpService offloadService(final Executor fallback, final StreamingHttpService service) {
         return new StreamingHttpService() {
@@ -192,7 +206,7 @@ class DefaultHttpExecutionStrategy implements HttpExecutionStrategy {
                 } else if (other instanceof DefaultHttpExecutionStrategy) {
                     DefaultHttpExecutionStrategy otherAsDefault = (DefaultHttpExecutionStrategy) other;
                     return new DefaultHttpExecutionStrategy(executor, otherAsDefault.offloads,
-                            otherAsDefault.threadAffinity, otherAsDefault.mergeStrategy);
+                            otherAsDefault.threadAffinity, otherAsDefault.mergeStrategy, otherAsDefault.sendPrefetch);
                 } else {
                     return new DefaultHttpExecutionStrategy(executor, generateOffloadsFlag(other),
                             extractThreadAffinity(other.executor()), Merge);
@@ -215,13 +229,15 @@ class DefaultHttpExecutionStrategy implements HttpExecutionStrategy {
                 // If other strategy just returns the mergeWith strategy, then no point in merging here.
                 // return this;
                 return this.executor == otherExecutor ? this :
-                        new DefaultHttpExecutionStrategy(executor, offloads, threadAffinity, mergeStrategy);
+                        new DefaultHttpExecutionStrategy(executor, offloads, threadAffinity, mergeStrategy,
+                                sendPrefetch);
             }
             // We checked above that the two strategies are not equal, so just merge and return.
             return new DefaultHttpExecutionStrategy(executor, (byte) (otherAsDefault.offloads | offloads),
                     threadAffinity || otherAsDefault.threadAffinity,
                     // Conservatively always merge if the two merge strategies are not equal
-                    otherAsDefault.mergeStrategy == mergeStrategy ? mergeStrategy : Merge);
+                    otherAsDefault.mergeStrategy == mergeStrategy ? mergeStrategy : Merge,
+                    max(sendPrefetch, otherAsDefault.sendPrefetch));
         }
 
         final byte otherOffloads;
@@ -234,7 +250,7 @@ class DefaultHttpExecutionStrategy implements HttpExecutionStrategy {
         return (otherOffloads == offloads && executor == otherExecutor && otherThreadAffinity == threadAffinity &&
                 otherMergeStrategy == mergeStrategy) ? this :
                 new DefaultHttpExecutionStrategy(executor, (byte) (otherOffloads | offloads),
-                        threadAffinity || otherThreadAffinity, otherMergeStrategy);
+                        threadAffinity || otherThreadAffinity, otherMergeStrategy, sendPrefetch);
     }
 
     private boolean extractThreadAffinity(@Nullable final Executor otherExecutor) {
@@ -289,6 +305,11 @@ class DefaultHttpExecutionStrategy implements HttpExecutionStrategy {
         return threadAffinity;
     }
 
+    // Visible for testing
+    int sendPrefetch() {
+        return sendPrefetch;
+    }
+
     // Visible for testing
     boolean offloaded(byte flag) {
         return (offloads & flag) == flag;
@@ -311,6 +332,9 @@ class DefaultHttpExecutionStrategy implements HttpExecutionStrategy {
         if (threadAffinity != that.threadAffinity) {
             return false;
         }
+        if (sendPrefetch != that.sendPrefetch) {
+            return false;
+        }
         if (executor != null ? !executor.equals(that.executor) : that.executor != null) {
             return false;
         }
@@ -323,6 +347,7 @@ class DefaultHttpExecutionStrategy implements HttpExecutionStrategy {
         result = 31 * result + (int) offloads;
         result = 31 * result + mergeStrategy.hashCode();
         result = 31 * result + (threadAffinity ? 1 : 0);
+        result = 31 * result + sendPrefetch;
         return result;
     }
 
@@ -333,6 +358,7 @@ class DefaultHttpExecutionStrategy implements HttpExecutionStrategy {
                 ", offloads=" + offloads +
                 ", mergeStrategy=" + mergeStrategy +
                 ", threadAffinity=" + threadAffinity +
+                ", sendPrefetch=" + sendPrefetch +
                 '}';
     }
 
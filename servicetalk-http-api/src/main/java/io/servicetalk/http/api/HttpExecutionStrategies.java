@@ -16,6 +16,7 @@
 package io.servicetalk.http.api;
 
 import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Executors;
 
 import javax.annotation.Nullable;
 
@@ -69,6 +70,19 @@ public final class HttpExecutionStrategies {
         return customStrategyBuilder().offloadAll().executor(executor).mergeStrategy(ReturnOther).build();
     }
 
+    /**
+     * A {@link HttpExecutionStrategy} that offloads all paths onto a shared {@link Executor} which runs each task on a
+     * virtual thread, see {@link Executors#newVirtualThreadExecutor()}. This is suited to the blocking programming
+     * models, as the number of concurrent blocking requests is not limited by the number of platform threads.
+     * <p>
+     * The shared {@link Executor} is created lazily and its lifecycle is not managed by the user.
+     *
+     * @return {@link HttpExecutionStrategy} that offloads onto virtual threads.
+     */
+    public static HttpExecutionStrategy virtualThreadStrategy() {
+        return VirtualThreadStrategyHolder.STRATEGY;
+    }
+
     /**
      * A {@link HttpExecutionStrategy} that disables all offloads.
      *
@@ -156,6 +170,7 @@ public final class HttpExecutionStrategies {
         private Executor executor;
         private byte offloads;
         private boolean threadAffinity;
+        private int sendPrefetch;
         @Nullable
         private MergeStrategy mergeStrategy;
 
@@ -230,6 +245,28 @@ public final class HttpExecutionStrategies {
             return this;
         }
 
+        /**
+         * Requests up to {@code sendPrefetch} items of an offloaded stream which is sent ahead of the demand of the
+         * transport. The transport requests items in small increments as it writes them, prefetching batches these
+         * into fewer demand signals for the producer of the stream. Demand signals of the transport are still
+         * offloaded one by one.
+         * <p>
+         * Prefetched items are held in memory regardless of the writability of the transport, so up to
+         * {@code sendPrefetch} items are buffered per stream. Only applies if sending is offloaded, disabled by
+         * default.
+         *
+         * @param sendPrefetch the maximum number of items to request ahead of the transport, or {@code 0} to disable
+         * prefetching.
+         * @return {@code this}.
+         */
+        public Builder sendPrefetch(int sendPrefetch) {
+            if (sendPrefetch < 0) {
+                throw new IllegalArgumentException("sendPrefetch: " + sendPrefetch + " (expected >=0)");
+            }
+            this.sendPrefetch = sendPrefetch;
+            return this;
+        }
+
         /**
          * Specify the {@link MergeStrategy} for the {@link HttpExecutionStrategy} built from this {@link Builder}.
          *
@@ -256,7 +293,8 @@ public final class HttpExecutionStrategies {
                     // the merged call site.
                     mergeStrategy = ReturnSelf;
                 }
-                return new DefaultHttpExecutionStrategy(executor, offloads, threadAffinity, mergeStrategy);
+                return new DefaultHttpExecutionStrategy(executor, offloads, threadAffinity, mergeStrategy,
+                        sendPrefetch);
             }
         }
 
@@ -278,4 +316,12 @@ public final class HttpExecutionStrategies {
             Merge
         }
     }
+
+    private static final class VirtualThreadStrategyHolder {
+        static final HttpExecutionStrategy STRATEGY = defaultStrategy(Executors.newVirtualThreadExecutor());
+
+        private VirtualThreadStrategyHolder() {
+            // No instances.
+        }
+    }
 }
@@ -26,6 +26,7 @@ import io.servicetalk.transport.api.ServerContext;
 import org.slf4j.event.Level;
 
 import java.net.SocketOption;
+import java.time.Duration;
 import java.util.function.Predicate;
 import javax.annotation.Nullable;
 
@@ -69,6 +70,27 @@ public abstract class HttpServerBuilder {
      */
     public abstract HttpServerBuilder backlog(int backlog);
 
+    /**
+     * Sets the maximum number of concurrently open connections. Connections accepted beyond this limit are closed
+     * immediately, before any TLS handshake or {@link ConnectionAcceptor} is run.
+     *
+     * @param maxConnections the maximum number of concurrently open connections.
+     * @return {@code this}.
+     */
+    public abstract HttpServerBuilder maxConnections(int maxConnections);
+
+    /**
+     * Sets the maximum number of connections accepted from the same remote IP address within {@code period}.
+     * Connections accepted beyond this rate are closed immediately, before any TLS handshake or
+     * {@link ConnectionAcceptor} is run. This protects the server from spending its resources on reconnect storms.
+     *
+     * @param maxAccepts the maximum number of connections accepted from the same remote IP address per
+     * {@code period}.
+     * @param period the period over which {@code maxAccepts} applies.
+     * @return {@code this}.
+     */
+    public abstract HttpServerBuilder maxAcceptRatePerAddress(int maxAccepts, Duration period);
+
     /**
      * Initiates security configuration for this server. Calling any {@code commit} method on the returned
      * {@link HttpServerSecurityConfigurator} will commit the configuration.
@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.api;
+
+import io.servicetalk.concurrent.api.AsyncContext;
+import io.servicetalk.concurrent.api.AsyncContextMap;
+
+import java.time.Duration;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.AsyncContextMap.Key.newKey;
+import static io.servicetalk.http.api.CharSequences.newAsciiString;
+import static java.lang.Math.max;
+import static java.lang.System.nanoTime;
+
+/**
+ * Utilities to track the deadline of the request currently being processed in {@link AsyncContext}.
+ * <p>
+ * A deadline is set by the component which first learns about it, e.g. a service filter decoding
+ * {@link #DEADLINE_HEADER} from an incoming request, or an application bounding the total time it is willing to wait
+ * for a result. Client filters then use the time remaining until the deadline to shorten their timeouts and to
+ * propagate the deadline to the next hop, so work is abandoned as soon as the original caller has given up.
+ */
+public final class RequestDeadlines {
+    /**
+     * Name of the header which carries the time remaining until the deadline of a request, in milliseconds.
+     * <p>
+     * A relative value is used, rather than an absolute point in time, so the deadline is not affected by clock skew
+     * between hosts.
+     */
+    public static final CharSequence DEADLINE_HEADER = newAsciiString("x-request-timeout-ms");
+
+    /**
+     * {@link AsyncContextMap.Key} which holds the deadline of the current request, in {@link System#nanoTime()} units.
+     */
+    public static final AsyncContextMap.Key<Long> DEADLINE_KEY = newKey("requestDeadline");
+
+    private RequestDeadlines() {
+        // no instances
+    }
+
+    /**
+     * Sets the deadline of the current request to be {@code timeout} from now, unless an earlier deadline is already
+     * set.
+     *
+     * @param timeout the maximum amount of time the current request is allowed to take from now.
+     */
+    public static void deadline(final Duration timeout) {
+        deadlineNanos(timeout.toNanos());
+    }
+
+    /**
+     * Sets the deadline of the current request to be {@code timeoutNanos} from now, unless an earlier deadline is
+     * already set.
+     *
+     * @param timeoutNanos the maximum amount of time in nanoseconds the current request is allowed to take from now.
+     */
+    public static void deadlineNanos(final long timeoutNanos) {
+        final long deadline = nanoTime() + timeoutNanos;
+        final Long current = AsyncContext.get(DEADLINE_KEY);
+        if (current == null || deadline - current < 0) {
+            AsyncContext.put(DEADLINE_KEY, deadline);
+        }
+    }
+
+    /**
+     * Get the time remaining until the deadline of the current request.
+     *
+     * @return the time remaining until the deadline of the current request, which is {@link Duration#ZERO} if the
+     * deadline has already passed, or {@code null} if no deadline is set.
+     */
+    @Nullable
+    public static Duration remaining() {
+        final Long deadline = AsyncContext.get(DEADLINE_KEY);
+        return deadline == null ? null : Duration.ofNanos(max(0, deadline - nanoTime()));
+    }
+
+    /**
+     * Parses the value of a {@link #DEADLINE_HEADER}.
+     *
+     * @param value the value of a {@link #DEADLINE_HEADER}.
+     * @return the time remaining until the deadline, or {@code null} if {@code value} is not a valid non-negative
+     * number of milliseconds.
+     */
+    @Nullable
+    public static Duration parseDeadlineHeader(final CharSequence value) {
+        final int length = value.length();
+        if (length == 0 || length > 15) {
+            return null;
+        }
+        long millis = 0;
+        for (int i = 0; i < length; ++i) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            millis = millis * 10 + (c - '0');
+        }
+        return Duration.ofMillis(millis);
+    }
+}
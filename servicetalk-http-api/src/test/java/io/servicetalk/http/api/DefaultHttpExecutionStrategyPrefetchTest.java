@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.api;
+
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.TestPublisherSubscriber;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.servicetalk.concurrent.api.Executors.from;
+import static io.servicetalk.concurrent.api.Publisher.fromIterable;
+import static io.servicetalk.concurrent.api.Single.never;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.http.api.HttpExecutionStrategies.Builder.MergeStrategy.Merge;
+import static io.servicetalk.http.api.HttpExecutionStrategies.customStrategyBuilder;
+import static io.servicetalk.http.api.HttpExecutionStrategies.defaultStrategy;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class DefaultHttpExecutionStrategyPrefetchTest {
+    private static final int ITEMS = 64;
+
+    private final AtomicInteger executorHops = new AtomicInteger();
+    private final Executor executor = from(task -> {
+        executorHops.incrementAndGet();
+        task.run();
+    });
+    private final List<Long> sourceRequests = new ArrayList<>();
+    private final TestPublisherSubscriber<Object> transport = new TestPublisherSubscriber<>();
+
+    @Test
+    public void defaultStrategyDoesNotPrefetch() {
+        assertThat(((DefaultHttpExecutionStrategy) defaultStrategy()).sendPrefetch(), is(0));
+    }
+
+    @Test
+    public void withoutPrefetchSourceSeesTransportDemand() {
+        sendOneByOne(customStrategyBuilder().offloadSend().executor(executor).build());
+
+        assertThat(sourceRequests.size(), is(greaterThanOrEqualTo(ITEMS)));
+        for (Long n : sourceRequests) {
+            assertThat("Items must only be requested as the transport requests them.", n, is(1L));
+        }
+        assertThat(executorHops.get(), is(greaterThanOrEqualTo(ITEMS)));
+    }
+
+    @Test
+    public void prefetchBatchesSourceDemand() {
+        sendOneByOne(customStrategyBuilder().offloadSend().executor(executor).sendPrefetch(16).build());
+
+        assertThat(sourceRequests.get(0), is(16L));
+        for (Long n : sourceRequests) {
+            assertThat(n, is(lessThanOrEqualTo(16L)));
+        }
+        assertThat(sourceRequests.size(), is(lessThan(ITEMS / 4)));
+    }
+
+    @Test
+    public void prefetchIsPreservedByMerge() {
+        final HttpExecutionStrategy prefetching =
+                customStrategyBuilder().offloadSend().executor(executor).sendPrefetch(16).build();
+        final HttpExecutionStrategy merged = defaultStrategy().merge(prefetching);
+        assertThat(((DefaultHttpExecutionStrategy) merged).sendPrefetch(), is(16));
+        final HttpExecutionStrategy merging = customStrategyBuilder().offloadAll().mergeStrategy(Merge).build();
+        assertThat(((DefaultHttpExecutionStrategy) merging.merge(prefetching)).sendPrefetch(), is(16));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativePrefetchIsRejected() {
+        customStrategyBuilder().sendPrefetch(-1);
+    }
+
+    private void sendOneByOne(final HttpExecutionStrategy strategy) {
+        final List<Object> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; ++i) {
+            items.add(i);
+        }
+        final Publisher<Object> request = fromIterable(items).beforeRequest(sourceRequests::add);
+        strategy.invokeClient(executor, request, null, (publisher, flushStrategy) -> {
+            toSource(publisher).subscribe(transport);
+            return never();
+        }).toFuture();
+        for (int i = 0; i < ITEMS && !transport.isTerminated(); ++i) {
+            transport.request(1);
+        }
+        transport.request(1);
+
+        assertThat(transport.takeItems(), is(items));
+        assertThat(transport.isCompleted(), is(true));
+    }
+}
@@ -23,6 +23,7 @@ import static io.servicetalk.http.api.HttpExecutionStrategies.customStrategyBuil
 import static io.servicetalk.http.api.HttpExecutionStrategies.defaultStrategy;
 import static io.servicetalk.http.api.HttpExecutionStrategies.difference;
 import static io.servicetalk.http.api.HttpExecutionStrategies.noOffloadsStrategy;
+import static io.servicetalk.http.api.HttpExecutionStrategies.virtualThreadStrategy;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
@@ -41,6 +42,16 @@ public class HttpExecutionStrategiesTest {
         assertThat("receive data not offloaded by default.", strategy.isDataReceiveOffloaded(), is(true));
     }
 
+    @Test
+    public void virtualThreadStrategyShouldOffloadAll() {
+        HttpExecutionStrategy strategy = virtualThreadStrategy();
+        assertThat("send not offloaded.", strategy.isSendOffloaded(), is(true));
+        assertThat("receive meta not offloaded.", strategy.isMetadataReceiveOffloaded(), is(true));
+        assertThat("receive data not offloaded.", strategy.isDataReceiveOffloaded(), is(true));
+        assertThat("Unexpected executor.", strategy.executor(), is(notNullValue()));
+        assertThat("Strategy not shared.", virtualThreadStrategy(), sameInstance(strategy));
+    }
+
     @Test
     public void noOffloadsWithExecutor() {
         Executor executor = mock(Executor.class);
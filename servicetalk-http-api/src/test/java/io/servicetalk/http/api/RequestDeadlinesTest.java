@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.api;
+
+import io.servicetalk.concurrent.api.AsyncContext;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static io.servicetalk.http.api.RequestDeadlines.DEADLINE_KEY;
+import static io.servicetalk.http.api.RequestDeadlines.deadline;
+import static io.servicetalk.http.api.RequestDeadlines.parseDeadlineHeader;
+import static io.servicetalk.http.api.RequestDeadlines.remaining;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class RequestDeadlinesTest {
+
+    @Before
+    public void setUp() {
+        AsyncContext.clear();
+    }
+
+    @Test
+    public void noDeadline() {
+        assertThat(remaining(), is(nullValue()));
+    }
+
+    @Test
+    public void remainingIsBoundedByDeadline() {
+        deadline(ofSeconds(10));
+        final Duration remaining = remaining();
+        assertThat(remaining, is(notNullValue()));
+        assertThat(remaining, is(lessThanOrEqualTo(ofSeconds(10))));
+        assertThat(remaining, is(greaterThan(Duration.ZERO)));
+    }
+
+    @Test
+    public void earlierDeadlineWins() {
+        deadline(ofMillis(100));
+        final Long first = AsyncContext.get(DEADLINE_KEY);
+        deadline(ofSeconds(10));
+        assertThat(AsyncContext.get(DEADLINE_KEY), is(first));
+        final Duration remaining = remaining();
+        assertThat(remaining, is(notNullValue()));
+        assertThat(remaining, is(lessThanOrEqualTo(ofMillis(100))));
+    }
+
+    @Test
+    public void expiredDeadline() {
+        deadline(Duration.ZERO);
+        assertThat(remaining(), is(Duration.ZERO));
+    }
+
+    @Test
+    public void parseHeader() {
+        assertThat(parseDeadlineHeader("0"), is(Duration.ZERO));
+        assertThat(parseDeadlineHeader("1500"), is(ofMillis(1500)));
+        assertThat(parseDeadlineHeader(""), is(nullValue()));
+        assertThat(parseDeadlineHeader("-1"), is(nullValue()));
+        assertThat(parseDeadlineHeader("1.5"), is(nullValue()));
+        assertThat(parseDeadlineHeader("1234567890123456"), is(nullValue()));
+    }
+}
@@ -33,6 +33,7 @@ import io.netty.handler.codec.http2.Http2ResetFrame;
 
 import static io.netty.buffer.Unpooled.EMPTY_BUFFER;
 import static io.netty.handler.codec.http2.Http2Error.REFUSED_STREAM;
+import static io.servicetalk.buffer.netty.BufferUtil.isPooled;
 import static io.servicetalk.buffer.netty.BufferUtil.newBufferFrom;
 import static io.servicetalk.buffer.netty.BufferUtil.toByteBufNoThrow;
 import static io.servicetalk.http.netty.H2ToStH1Utils.h1HeadersToH2Headers;
@@ -65,7 +66,9 @@ abstract class AbstractH2DuplexHandler extends ChannelDuplexHandler {
             promise.setFailure(new IllegalArgumentException("unsupported Buffer type:" + msg));
             ctx.close();
         } else {
-            ctx.write(new DefaultHttp2DataFrame(byteBuf.retain(), false), promise);
+            // Pooled buffers are owned by the transport once written, so the reference of the caller is handed over to
+            // the frame, which is released after the write. Other buffers may still be referenced by the caller.
+            ctx.write(new DefaultHttp2DataFrame(isPooled(byteBuf) ? byteBuf : byteBuf.retain(), false), promise);
         }
     }
 
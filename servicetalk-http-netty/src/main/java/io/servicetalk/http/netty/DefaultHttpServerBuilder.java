@@ -29,6 +29,7 @@ import io.servicetalk.transport.api.ServerContext;
 
 import java.net.SocketAddress;
 import java.net.SocketOption;
+import java.time.Duration;
 import javax.annotation.Nullable;
 
 final class DefaultHttpServerBuilder extends HttpServerBuilder {
@@ -53,6 +54,18 @@ final class DefaultHttpServerBuilder extends HttpServerBuilder {
         return this;
     }
 
+    @Override
+    public HttpServerBuilder maxConnections(final int maxConnections) {
+        config.tcpConfig().maxConnections(maxConnections);
+        return this;
+    }
+
+    @Override
+    public HttpServerBuilder maxAcceptRatePerAddress(final int maxAccepts, final Duration period) {
+        config.tcpConfig().maxAcceptRatePerAddress(maxAccepts, period);
+        return this;
+    }
+
     @Override
     public HttpServerSecurityConfigurator secure() {
         return new DefaultHttpServerSecurityConfigurator(securityConfig -> {
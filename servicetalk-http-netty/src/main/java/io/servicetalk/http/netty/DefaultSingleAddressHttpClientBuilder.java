@@ -292,8 +292,13 @@ final class DefaultSingleAddressHttpClientBuilder<U, R> extends SingleAddressHtt
             if (lbReadyFilterEnabled) {
                 lbClient = new LoadBalancerReadyStreamingHttpClientFilter(4, lb.eventStream(), lbClient);
             }
-            return new FilterableClientToClient(currClientFilterFactory != null ?
-                    currClientFilterFactory.create(lbClient) : lbClient,
+            FilterableStreamingHttpClient filteredClient = currClientFilterFactory != null ?
+                    currClientFilterFactory.create(lbClient) : lbClient;
+            if (clientFilterFactory != null) {
+                // User filters may write a request more than once, which needs to account for pooled payloads.
+                filteredClient = new PooledRequestPayloadClientFilter(filteredClient);
+            }
+            return new FilterableClientToClient(filteredClient,
                     ctx.executionContext.executionStrategy(),
                     influencerChainBuilder.buildForClient(ctx.executionContext.executionStrategy()));
         } catch (final Throwable t) {
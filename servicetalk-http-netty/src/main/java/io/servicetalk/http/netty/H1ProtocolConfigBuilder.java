@@ -15,6 +15,7 @@
  */
 package io.servicetalk.http.netty;
 
+import io.servicetalk.http.api.ArrayHttpHeadersFactory;
 import io.servicetalk.http.api.DefaultHttpHeadersFactory;
 import io.servicetalk.http.api.HttpClient;
 import io.servicetalk.http.api.HttpHeaders;
@@ -41,6 +42,8 @@ public final class H1ProtocolConfigBuilder {
 
     /**
      * Sets the {@link HttpHeadersFactory} to be used for creating {@link HttpHeaders} when decoding HTTP messages.
+     * <p>
+     * {@link ArrayHttpHeadersFactory} may be used to reduce allocations when messages carry a small number of headers.
      *
      * @param headersFactory {@link HttpHeadersFactory} to be used for creating {@link HttpHeaders} when decoding HTTP
      * messages
@@ -29,6 +29,9 @@ import java.util.function.BiPredicate;
 
 import static io.netty.handler.codec.http2.Http2FrameCodecBuilder.forClient;
 import static io.netty.handler.logging.LogLevel.TRACE;
+import static io.servicetalk.http.netty.H2KeepAliveHandler.newKeepAliveHandler;
+import static io.servicetalk.http.netty.H2WindowSizeHandler.initialSettings;
+import static io.servicetalk.http.netty.H2WindowSizeHandler.newWindowSizeHandler;
 
 final class H2ClientParentChannelInitializer implements ChannelInitializer {
     private final H2ProtocolConfig config;
@@ -56,10 +59,20 @@ final class H2ClientParentChannelInitializer implements ChannelInitializer {
             multiplexCodecBuilder.frameLogger(new Http2FrameLogger(TRACE, frameLoggerName));
         }
 
+        multiplexCodecBuilder.initialSettings(initialSettings(config));
+
         // TODO(scott): more configuration. header validation, settings stream, etc...
 
-        channel.pipeline().addLast(multiplexCodecBuilder.build(),
-                new Http2MultiplexHandler(H2PushStreamHandler.INSTANCE));
+        channel.pipeline().addLast(multiplexCodecBuilder.build());
+        final H2KeepAliveHandler keepAliveHandler = newKeepAliveHandler(config);
+        if (keepAliveHandler != null) {
+            channel.pipeline().addLast(keepAliveHandler);
+        }
+        final H2WindowSizeHandler windowSizeHandler = newWindowSizeHandler(config);
+        if (windowSizeHandler != null) {
+            channel.pipeline().addLast(windowSizeHandler);
+        }
+        channel.pipeline().addLast(new Http2MultiplexHandler(H2PushStreamHandler.INSTANCE));
     }
 
     @ChannelHandler.Sharable
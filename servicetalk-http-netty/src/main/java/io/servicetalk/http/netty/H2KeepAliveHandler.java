@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http2.DefaultHttp2PingFrame;
+import io.netty.handler.codec.http2.Http2PingFrame;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Nullable;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Sends a {@code PING} when no frame was received for {@link H2ProtocolConfig#keepAlivePingIntervalMs()} and closes
+ * the connection if still no frame is received within {@link H2ProtocolConfig#keepAlivePingTimeoutMs()}.
+ * <p>
+ * Any frame received proves the connection is alive, so busy connections never send keep-alive {@code PING}s.
+ */
+final class H2KeepAliveHandler extends ChannelInboundHandlerAdapter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(H2KeepAliveHandler.class);
+    private static final long KEEP_ALIVE_PING_CONTENT = ThreadLocalRandom.current().nextLong();
+
+    private final long intervalMs;
+    private final long timeoutMs;
+    @Nullable
+    private ScheduledFuture<?> intervalFuture;
+    @Nullable
+    private ScheduledFuture<?> timeoutFuture;
+    private boolean readSinceLastCheck;
+
+    private H2KeepAliveHandler(final long intervalMs, final long timeoutMs) {
+        this.intervalMs = intervalMs;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Creates a new {@link H2KeepAliveHandler} if the passed {@link H2ProtocolConfig} enables keep-alive
+     * {@code PING}s.
+     *
+     * @param config {@link H2ProtocolConfig} to create the handler for.
+     * @return a new {@link H2KeepAliveHandler} or {@code null} if keep-alive {@code PING}s are disabled.
+     */
+    @Nullable
+    static H2KeepAliveHandler newKeepAliveHandler(final H2ProtocolConfig config) {
+        return config.keepAlivePingIntervalMs() <= 0 ? null :
+                new H2KeepAliveHandler(config.keepAlivePingIntervalMs(), config.keepAlivePingTimeoutMs());
+    }
+
+    @Override
+    public void handlerAdded(final ChannelHandlerContext ctx) {
+        if (ctx.channel().isActive()) {
+            start(ctx);
+        }
+    }
+
+    @Override
+    public void channelActive(final ChannelHandlerContext ctx) {
+        start(ctx);
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    public void channelInactive(final ChannelHandlerContext ctx) {
+        stop();
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void handlerRemoved(final ChannelHandlerContext ctx) {
+        stop();
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+        readSinceLastCheck = true;
+        if (timeoutFuture != null) {
+            timeoutFuture.cancel(false);
+            timeoutFuture = null;
+        }
+        if (msg instanceof Http2PingFrame) {
+            final Http2PingFrame pingFrame = (Http2PingFrame) msg;
+            if (pingFrame.ack() && pingFrame.content() == KEEP_ALIVE_PING_CONTENT) {
+                return;
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    private void start(final ChannelHandlerContext ctx) {
+        if (intervalFuture == null) {
+            intervalFuture = ctx.executor().scheduleWithFixedDelay(() -> checkIdle(ctx), intervalMs, intervalMs,
+                    MILLISECONDS);
+        }
+    }
+
+    private void stop() {
+        if (intervalFuture != null) {
+            intervalFuture.cancel(false);
+            intervalFuture = null;
+        }
+        if (timeoutFuture != null) {
+            timeoutFuture.cancel(false);
+            timeoutFuture = null;
+        }
+    }
+
+    private void checkIdle(final ChannelHandlerContext ctx) {
+        if (readSinceLastCheck) {
+            readSinceLastCheck = false;
+            return;
+        }
+        if (timeoutFuture != null) {
+            return; // A PING is already in flight.
+        }
+        timeoutFuture = ctx.executor().schedule(() -> {
+            LOGGER.debug("channel={} no frame received {}ms after a keep-alive PING, closing connection",
+                    ctx.channel(), timeoutMs);
+            ctx.close();
+        }, timeoutMs, MILLISECONDS);
+        ctx.writeAndFlush(new DefaultHttp2PingFrame(KEEP_ALIVE_PING_CONTENT));
+    }
+}
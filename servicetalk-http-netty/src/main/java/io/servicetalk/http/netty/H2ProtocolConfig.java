@@ -53,4 +53,65 @@ public interface H2ProtocolConfig extends HttpProtocolConfig {
      */
     @Nullable
     String frameLoggerName();
+
+    /**
+     * Initial <a href="https://tools.ietf.org/html/rfc7540#section-6.9.2">flow-control window size</a> for streams,
+     * advertised with {@code SETTINGS_INITIAL_WINDOW_SIZE}.
+     *
+     * @return initial flow-control window size for streams in bytes
+     */
+    int initialStreamWindowSize();
+
+    /**
+     * <a href="https://tools.ietf.org/html/rfc7540#section-6.9.1">Flow-control window size</a> for the connection.
+     *
+     * @return flow-control window size for the connection in bytes
+     */
+    int connectionWindowSize();
+
+    /**
+     * Maximum number of concurrent streams the peer is allowed to open, advertised with
+     * {@code SETTINGS_MAX_CONCURRENT_STREAMS}.
+     *
+     * @return maximum number of concurrent streams the peer is allowed to open
+     */
+    long maxConcurrentStreams();
+
+    /**
+     * Largest frame payload the peer is allowed to send, advertised with {@code SETTINGS_MAX_FRAME_SIZE}.
+     *
+     * @return largest frame payload the peer is allowed to send in bytes
+     */
+    int maxFrameSize();
+
+    /**
+     * Size of the <a href="https://tools.ietf.org/html/rfc7541#section-4.2">HPACK dynamic table</a> used to decode
+     * headers, advertised with {@code SETTINGS_HEADER_TABLE_SIZE}.
+     *
+     * @return size of the HPACK dynamic table used to decode headers in bytes
+     */
+    long headerTableSize();
+
+    /**
+     * Maximum size the stream and connection flow-control windows are allowed to grow to when they are adjusted
+     * automatically from the estimated bandwidth-delay product of the connection.
+     *
+     * @return maximum size of automatically adjusted flow-control windows in bytes, or {@code 0} if the windows are not
+     * adjusted automatically
+     */
+    int maxAutoWindowSize();
+
+    /**
+     * Interval without any frame received after which a {@code PING} is sent to verify the connection is still alive.
+     *
+     * @return interval in milliseconds, or {@code 0} if keep-alive {@code PING}s are disabled
+     */
+    long keepAlivePingIntervalMs();
+
+    /**
+     * Duration to wait for any frame after a keep-alive {@code PING} was sent before the connection is closed.
+     *
+     * @return timeout in milliseconds
+     */
+    long keepAlivePingTimeoutMs();
 }
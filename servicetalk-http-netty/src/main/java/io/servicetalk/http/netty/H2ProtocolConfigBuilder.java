@@ -20,9 +20,15 @@ import io.servicetalk.http.api.HttpHeadersFactory;
 
 import org.slf4j.event.Level;
 
+import java.time.Duration;
 import java.util.function.BiPredicate;
 import javax.annotation.Nullable;
 
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_FRAME_SIZE_UPPER_BOUND;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_UNSIGNED_INT;
 import static io.servicetalk.http.netty.H2HeadersFactory.DEFAULT_SENSITIVITY_DETECTOR;
 import static java.util.Objects.requireNonNull;
 
@@ -37,6 +43,14 @@ public final class H2ProtocolConfigBuilder {
     private BiPredicate<CharSequence, CharSequence> headersSensitivityDetector = DEFAULT_SENSITIVITY_DETECTOR;
     @Nullable
     private String frameLoggerName;
+    private int initialStreamWindowSize = DEFAULT_WINDOW_SIZE;
+    private int connectionWindowSize = DEFAULT_WINDOW_SIZE;
+    private long maxConcurrentStreams = MAX_UNSIGNED_INT;
+    private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+    private long headerTableSize = DEFAULT_HEADER_TABLE_SIZE;
+    private int maxAutoWindowSize;
+    private long keepAlivePingIntervalMs;
+    private long keepAlivePingTimeoutMs;
 
     H2ProtocolConfigBuilder() {
     }
@@ -81,13 +95,140 @@ public final class H2ProtocolConfigBuilder {
         return this;
     }
 
+    /**
+     * Sets the initial <a href="https://tools.ietf.org/html/rfc7540#section-6.9.2">flow-control window size</a> for
+     * streams.
+     * <p>
+     * The default window size of {@code 65535} bytes limits the throughput of a single stream to one window per
+     * round-trip, larger windows allow high-bandwidth streams over high-latency links.
+     *
+     * @param initialStreamWindowSize initial flow-control window size for streams in bytes
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder initialStreamWindowSize(final int initialStreamWindowSize) {
+        if (initialStreamWindowSize < 0) {
+            throw new IllegalArgumentException("initialStreamWindowSize: " + initialStreamWindowSize +
+                    " (expected >= 0)");
+        }
+        this.initialStreamWindowSize = initialStreamWindowSize;
+        return this;
+    }
+
+    /**
+     * Sets the <a href="https://tools.ietf.org/html/rfc7540#section-6.9.1">flow-control window size</a> for the
+     * connection, which is shared by all the streams of the connection.
+     *
+     * @param connectionWindowSize flow-control window size for the connection in bytes
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder connectionWindowSize(final int connectionWindowSize) {
+        if (connectionWindowSize < DEFAULT_WINDOW_SIZE) {
+            throw new IllegalArgumentException("connectionWindowSize: " + connectionWindowSize +
+                    " (expected >= " + DEFAULT_WINDOW_SIZE + ")");
+        }
+        this.connectionWindowSize = connectionWindowSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of concurrent streams the peer is allowed to open.
+     *
+     * @param maxConcurrentStreams maximum number of concurrent streams the peer is allowed to open
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder maxConcurrentStreams(final long maxConcurrentStreams) {
+        if (maxConcurrentStreams < 0 || maxConcurrentStreams > MAX_UNSIGNED_INT) {
+            throw new IllegalArgumentException("maxConcurrentStreams: " + maxConcurrentStreams +
+                    " (expected: 0-" + MAX_UNSIGNED_INT + ")");
+        }
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        return this;
+    }
+
+    /**
+     * Sets the largest frame payload the peer is allowed to send.
+     *
+     * @param maxFrameSize largest frame payload the peer is allowed to send in bytes
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder maxFrameSize(final int maxFrameSize) {
+        if (maxFrameSize < DEFAULT_MAX_FRAME_SIZE || maxFrameSize > MAX_FRAME_SIZE_UPPER_BOUND) {
+            throw new IllegalArgumentException("maxFrameSize: " + maxFrameSize +
+                    " (expected: " + DEFAULT_MAX_FRAME_SIZE + "-" + MAX_FRAME_SIZE_UPPER_BOUND + ")");
+        }
+        this.maxFrameSize = maxFrameSize;
+        return this;
+    }
+
+    /**
+     * Sets the size of the <a href="https://tools.ietf.org/html/rfc7541#section-4.2">HPACK dynamic table</a> used to
+     * decode headers.
+     *
+     * @param headerTableSize size of the HPACK dynamic table used to decode headers in bytes
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder headerTableSize(final long headerTableSize) {
+        if (headerTableSize < 0 || headerTableSize > MAX_UNSIGNED_INT) {
+            throw new IllegalArgumentException("headerTableSize: " + headerTableSize +
+                    " (expected: 0-" + MAX_UNSIGNED_INT + ")");
+        }
+        this.headerTableSize = headerTableSize;
+        return this;
+    }
+
+    /**
+     * Enables automatic growth of the stream and connection flow-control windows.
+     * <p>
+     * The bandwidth-delay product of the connection is estimated by sending a {@code PING} when data is received and
+     * counting the bytes received until the {@code PING} is acknowledged. When the window size limits the bytes in
+     * flight, the windows are grown to twice the estimate, up to {@code maxAutoWindowSize}. Windows never shrink
+     * below the configured {@link #initialStreamWindowSize(int)} and {@link #connectionWindowSize(int)}.
+     *
+     * @param maxAutoWindowSize maximum size of automatically adjusted flow-control windows in bytes
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder enableAutoWindowSizing(final int maxAutoWindowSize) {
+        if (maxAutoWindowSize <= 0) {
+            throw new IllegalArgumentException("maxAutoWindowSize: " + maxAutoWindowSize + " (expected > 0)");
+        }
+        this.maxAutoWindowSize = maxAutoWindowSize;
+        return this;
+    }
+
+    /**
+     * Enables keep-alive {@code PING}s to detect connections which are not usable anymore but were not closed (e.g.
+     * because a peer or an intermediary went away silently).
+     * <p>
+     * If no frame is received for {@code interval} a {@code PING} is sent. If no frame is received within
+     * {@code timeout} after that, the connection is closed so that no more requests are routed to it.
+     *
+     * @param interval interval without any frame received after which a {@code PING} is sent
+     * @param timeout duration to wait for any frame after a {@code PING} was sent before the connection is closed
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder keepAlivePing(final Duration interval, final Duration timeout) {
+        final long intervalMs = interval.toMillis();
+        final long timeoutMs = timeout.toMillis();
+        if (intervalMs <= 0) {
+            throw new IllegalArgumentException("interval: " + interval + " (expected > 0ms)");
+        }
+        if (timeoutMs <= 0) {
+            throw new IllegalArgumentException("timeout: " + timeout + " (expected > 0ms)");
+        }
+        this.keepAlivePingIntervalMs = intervalMs;
+        this.keepAlivePingTimeoutMs = timeoutMs;
+        return this;
+    }
+
     /**
      * Builds {@link H2ProtocolConfig}.
      *
      * @return {@link H2ProtocolConfig}
      */
     public H2ProtocolConfig build() {
-        return new DefaultH2ProtocolConfig(headersFactory, headersSensitivityDetector, frameLoggerName);
+        return new DefaultH2ProtocolConfig(headersFactory, headersSensitivityDetector, frameLoggerName,
+                initialStreamWindowSize, connectionWindowSize, maxConcurrentStreams, maxFrameSize, headerTableSize,
+                maxAutoWindowSize, keepAlivePingIntervalMs, keepAlivePingTimeoutMs);
     }
 
     private static final class DefaultH2ProtocolConfig implements H2ProtocolConfig {
@@ -96,13 +237,32 @@ public final class H2ProtocolConfigBuilder {
         private final BiPredicate<CharSequence, CharSequence> headersSensitivityDetector;
         @Nullable
         private final String frameLoggerName;
+        private final int initialStreamWindowSize;
+        private final int connectionWindowSize;
+        private final long maxConcurrentStreams;
+        private final int maxFrameSize;
+        private final long headerTableSize;
+        private final int maxAutoWindowSize;
+        private final long keepAlivePingIntervalMs;
+        private final long keepAlivePingTimeoutMs;
 
         DefaultH2ProtocolConfig(final HttpHeadersFactory headersFactory,
                                 final BiPredicate<CharSequence, CharSequence> headersSensitivityDetector,
-                                @Nullable final String frameLogger) {
+                                @Nullable final String frameLogger, final int initialStreamWindowSize,
+                                final int connectionWindowSize, final long maxConcurrentStreams,
+                                final int maxFrameSize, final long headerTableSize, final int maxAutoWindowSize,
+                                final long keepAlivePingIntervalMs, final long keepAlivePingTimeoutMs) {
             this.headersFactory = headersFactory;
             this.headersSensitivityDetector = headersSensitivityDetector;
             this.frameLoggerName = frameLogger;
+            this.initialStreamWindowSize = initialStreamWindowSize;
+            this.connectionWindowSize = connectionWindowSize;
+            this.maxConcurrentStreams = maxConcurrentStreams;
+            this.maxFrameSize = maxFrameSize;
+            this.headerTableSize = headerTableSize;
+            this.maxAutoWindowSize = maxAutoWindowSize;
+            this.keepAlivePingIntervalMs = keepAlivePingIntervalMs;
+            this.keepAlivePingTimeoutMs = keepAlivePingTimeoutMs;
         }
 
         @Override
@@ -120,5 +280,45 @@ public final class H2ProtocolConfigBuilder {
         public String frameLoggerName() {
             return frameLoggerName;
         }
+
+        @Override
+        public int initialStreamWindowSize() {
+            return initialStreamWindowSize;
+        }
+
+        @Override
+        public int connectionWindowSize() {
+            return connectionWindowSize;
+        }
+
+        @Override
+        public long maxConcurrentStreams() {
+            return maxConcurrentStreams;
+        }
+
+        @Override
+        public int maxFrameSize() {
+            return maxFrameSize;
+        }
+
+        @Override
+        public long headerTableSize() {
+            return headerTableSize;
+        }
+
+        @Override
+        public int maxAutoWindowSize() {
+            return maxAutoWindowSize;
+        }
+
+        @Override
+        public long keepAlivePingIntervalMs() {
+            return keepAlivePingIntervalMs;
+        }
+
+        @Override
+        public long keepAlivePingTimeoutMs() {
+            return keepAlivePingTimeoutMs;
+        }
     }
 }
@@ -26,6 +26,9 @@ import java.util.function.BiPredicate;
 
 import static io.netty.handler.codec.http2.Http2FrameCodecBuilder.forServer;
 import static io.netty.handler.logging.LogLevel.TRACE;
+import static io.servicetalk.http.netty.H2KeepAliveHandler.newKeepAliveHandler;
+import static io.servicetalk.http.netty.H2WindowSizeHandler.initialSettings;
+import static io.servicetalk.http.netty.H2WindowSizeHandler.newWindowSizeHandler;
 
 final class H2ServerParentChannelInitializer implements ChannelInitializer {
     private final H2ProtocolConfig config;
@@ -53,8 +56,19 @@ final class H2ServerParentChannelInitializer implements ChannelInitializer {
             multiplexCodecBuilder.frameLogger(new Http2FrameLogger(TRACE, frameLoggerName));
         }
 
+        multiplexCodecBuilder.initialSettings(initialSettings(config));
+
         // TODO(scott): more configuration. header validation, settings stream, etc...
 
-        channel.pipeline().addLast(multiplexCodecBuilder.build(), new Http2MultiplexHandler(streamChannelInitializer));
+        channel.pipeline().addLast(multiplexCodecBuilder.build());
+        final H2KeepAliveHandler keepAliveHandler = newKeepAliveHandler(config);
+        if (keepAliveHandler != null) {
+            channel.pipeline().addLast(keepAliveHandler);
+        }
+        final H2WindowSizeHandler windowSizeHandler = newWindowSizeHandler(config);
+        if (windowSizeHandler != null) {
+            channel.pipeline().addLast(windowSizeHandler);
+        }
+        channel.pipeline().addLast(new Http2MultiplexHandler(streamChannelInitializer));
     }
 }
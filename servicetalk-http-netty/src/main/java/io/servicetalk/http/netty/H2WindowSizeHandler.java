@@ -0,0 +1,166 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http2.DefaultHttp2PingFrame;
+import io.netty.handler.codec.http2.DefaultHttp2SettingsFrame;
+import io.netty.handler.codec.http2.DefaultHttp2WindowUpdateFrame;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2PingFrame;
+import io.netty.handler.codec.http2.Http2Settings;
+
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Nullable;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_UNSIGNED_INT;
+import static java.lang.Math.min;
+
+/**
+ * Applies the connection flow-control window of {@link H2ProtocolConfig} and, if enabled, grows the stream and
+ * connection windows based on the bandwidth-delay product (BDP) of the connection.
+ * <p>
+ * The BDP is estimated by sending a {@code PING} when {@code DATA} is received and counting the bytes received until
+ * the {@code PING} is acknowledged. If the bytes received in one round-trip come close to the current window, the
+ * window is what limits the throughput and it is grown to twice the estimate.
+ */
+final class H2WindowSizeHandler extends ChannelInboundHandlerAdapter {
+    private static final long BDP_PING_CONTENT = ThreadLocalRandom.current().nextLong();
+
+    private final int connectionWindowSize;
+    private final int maxAutoWindowSize;
+    private int streamWindowSize;
+    private int connectionWindow;
+    private long bdpBytes;
+    private boolean bdpPingInFlight;
+    private boolean connectionWindowIncreased;
+
+    private H2WindowSizeHandler(final H2ProtocolConfig config) {
+        this.connectionWindowSize = config.connectionWindowSize();
+        this.maxAutoWindowSize = config.maxAutoWindowSize();
+        this.streamWindowSize = config.initialStreamWindowSize();
+        this.connectionWindow = connectionWindowSize;
+    }
+
+    /**
+     * Creates the initial {@link Http2Settings} to advertise for the passed {@link H2ProtocolConfig}.
+     *
+     * @param config {@link H2ProtocolConfig} to create the {@link Http2Settings} for.
+     * @return the initial {@link Http2Settings} to advertise.
+     */
+    static Http2Settings initialSettings(final H2ProtocolConfig config) {
+        final Http2Settings settings = Http2Settings.defaultSettings();
+        if (config.initialStreamWindowSize() != DEFAULT_WINDOW_SIZE) {
+            settings.initialWindowSize(config.initialStreamWindowSize());
+        }
+        if (config.maxConcurrentStreams() != MAX_UNSIGNED_INT) {
+            settings.maxConcurrentStreams(config.maxConcurrentStreams());
+        }
+        if (config.maxFrameSize() != DEFAULT_MAX_FRAME_SIZE) {
+            settings.maxFrameSize(config.maxFrameSize());
+        }
+        if (config.headerTableSize() != DEFAULT_HEADER_TABLE_SIZE) {
+            settings.headerTableSize(config.headerTableSize());
+        }
+        return settings;
+    }
+
+    /**
+     * Creates a new {@link H2WindowSizeHandler} if the passed {@link H2ProtocolConfig} requires one.
+     *
+     * @param config {@link H2ProtocolConfig} to create the handler for.
+     * @return a new {@link H2WindowSizeHandler} or {@code null} if the default connection window is used and windows
+     * are not adjusted automatically.
+     */
+    @Nullable
+    static H2WindowSizeHandler newWindowSizeHandler(final H2ProtocolConfig config) {
+        return config.connectionWindowSize() == DEFAULT_WINDOW_SIZE && config.maxAutoWindowSize() <= 0 ? null :
+                new H2WindowSizeHandler(config);
+    }
+
+    @Override
+    public void handlerAdded(final ChannelHandlerContext ctx) {
+        if (ctx.channel().isActive()) {
+            increaseConnectionWindow(ctx);
+        }
+    }
+
+    @Override
+    public void channelActive(final ChannelHandlerContext ctx) {
+        increaseConnectionWindow(ctx);
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+        if (maxAutoWindowSize > 0) {
+            if (msg instanceof Http2DataFrame) {
+                onData(ctx, ((Http2DataFrame) msg).initialFlowControlledBytes());
+            } else if (msg instanceof Http2PingFrame) {
+                final Http2PingFrame pingFrame = (Http2PingFrame) msg;
+                if (pingFrame.ack() && pingFrame.content() == BDP_PING_CONTENT && bdpPingInFlight) {
+                    onBdpPingAck(ctx);
+                    return;
+                }
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    private void increaseConnectionWindow(final ChannelHandlerContext ctx) {
+        // A channel which is already active when this handler is added also fires channelActive afterwards.
+        if (connectionWindowIncreased) {
+            return;
+        }
+        connectionWindowIncreased = true;
+        // The connection window always starts at the default size, it can only be grown via WINDOW_UPDATE.
+        if (connectionWindowSize > DEFAULT_WINDOW_SIZE) {
+            ctx.writeAndFlush(new DefaultHttp2WindowUpdateFrame(connectionWindowSize - DEFAULT_WINDOW_SIZE));
+        }
+    }
+
+    private void onData(final ChannelHandlerContext ctx, final int bytes) {
+        bdpBytes += bytes;
+        if (!bdpPingInFlight && streamWindowSize < maxAutoWindowSize) {
+            bdpPingInFlight = true;
+            bdpBytes = bytes;
+            ctx.writeAndFlush(new DefaultHttp2PingFrame(BDP_PING_CONTENT));
+        }
+    }
+
+    private void onBdpPingAck(final ChannelHandlerContext ctx) {
+        bdpPingInFlight = false;
+        // Only grow the window if it is what limits the bytes received within a round-trip.
+        if (bdpBytes * 3 < streamWindowSize * 2L) {
+            return;
+        }
+        final int newWindowSize = (int) min(maxAutoWindowSize, bdpBytes * 2);
+        if (newWindowSize <= streamWindowSize) {
+            return;
+        }
+        streamWindowSize = newWindowSize;
+        if (newWindowSize > connectionWindow) {
+            ctx.write(new DefaultHttp2WindowUpdateFrame(newWindowSize - connectionWindow));
+            connectionWindow = newWindowSize;
+        }
+        // Local settings are applied to all open streams once the peer acknowledges them.
+        ctx.writeAndFlush(new DefaultHttp2SettingsFrame(new Http2Settings().initialWindowSize(newWindowSize)));
+    }
+}
@@ -54,7 +54,7 @@ import io.netty.util.ByteProcessor;
 import javax.annotation.Nullable;
 
 import static io.netty.handler.codec.http.HttpConstants.CR;
-import static io.netty.util.ByteProcessor.FIND_LF;
+import static io.netty.handler.codec.http.HttpConstants.LF;
 import static io.netty.util.ByteProcessor.FIND_LINEAR_WHITESPACE;
 import static io.netty.util.ByteProcessor.FIND_NON_LINEAR_WHITESPACE;
 import static io.servicetalk.buffer.netty.BufferUtil.newBufferFrom;
@@ -83,14 +83,18 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
     private static final byte COLON_BYTE = (byte) ':';
     private static final byte SPACE_BYTE = (byte) ' ';
     private static final byte HTAB_BYTE = (byte) '\t';
-    private static final ByteProcessor FIND_COLON_OR_WHITE_SPACE =
-            value -> value != COLON_BYTE && value != SPACE_BYTE && value != HTAB_BYTE;
     private static final ByteProcessor FIND_COLON =
             value -> value != COLON_BYTE;
     private static final ByteProcessor SKIP_CONTROL_CHARS_PROCESSOR = value ->
         value == SPACE_BYTE || value == HTAB_BYTE || isISOControl((char) (value & 0xff));
     private static final int MAX_HEX_CHARS_FOR_LONG = 16; // 0x7FFFFFFFFFFFFFFF == Long.MAX_INT
     private static final int CHUNK_DELIMETER_SIZE = 2; // CRLF
+    // Patterns with the same byte repeated in each byte of a long, used to find a byte 8 bytes at a time.
+    private static final long LF_PATTERN = 0x0A0A0A0A0A0A0A0AL;
+    private static final long COLON_PATTERN = 0x3A3A3A3A3A3A3A3AL;
+    private static final long SPACE_PATTERN = 0x2020202020202020L;
+    private static final long HTAB_PATTERN = 0x0909090909090909L;
+    private static final long LOW_7_BITS = 0x7F7F7F7F7F7F7F7FL;
 
     private final int maxStartLineLength;
     private final int maxHeaderFieldLength;
@@ -550,15 +554,17 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
             throw new IllegalArgumentException("unable to find start of header name");
         }
 
-        int headerEnd = buffer.forEachByte(headerStart + 1, nonControlIndex - headerStart,
-                FIND_COLON_OR_WHITE_SPACE);
+        int headerEnd = findColonOrWhiteSpace(buffer, headerStart + 1, nonControlIndex + 1);
         if (headerEnd < 0) {
             throw new IllegalArgumentException("unable to find end of header name");
         }
 
         int valueStart = headerEnd + 1;
-        // We assume the allocator will not leak memory, and so we retain + slice to avoid copying data.
-        CharSequence name = newAsciiString(newBufferFrom(buffer.retainedSlice(headerStart, headerEnd - headerStart)));
+        CharSequence name = KnownHttpHeaderNames.find(buffer, headerStart, headerEnd - headerStart);
+        if (name == null) {
+            // We assume the allocator will not leak memory, and so we retain + slice to avoid copying data.
+            name = newAsciiString(newBufferFrom(buffer.retainedSlice(headerStart, headerEnd - headerStart)));
+        }
         if (buffer.getByte(headerEnd) != COLON_BYTE) {
             valueStart = buffer.forEachByte(headerEnd + 1, nonControlIndex - headerEnd, FIND_COLON);
             if (valueStart < 0) {
@@ -724,10 +730,55 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
     }
 
     private static int findLF(final ByteBuf buffer, final int fromIndex, final int toIndex) {
-        if (fromIndex >= toIndex) {
-            return -1;
+        int i = fromIndex;
+        for (; toIndex - i >= Long.BYTES; i += Long.BYTES) {
+            final long matches = zeroBytes(buffer.getLong(i) ^ LF_PATTERN);
+            if (matches != 0) {
+                return i + firstByteIndex(matches);
+            }
+        }
+        for (; i < toIndex; ++i) {
+            if (buffer.getByte(i) == LF) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int findColonOrWhiteSpace(final ByteBuf buffer, final int fromIndex, final int toIndex) {
+        int i = fromIndex;
+        for (; toIndex - i >= Long.BYTES; i += Long.BYTES) {
+            final long word = buffer.getLong(i);
+            final long matches = zeroBytes(word ^ COLON_PATTERN) | zeroBytes(word ^ SPACE_PATTERN) |
+                    zeroBytes(word ^ HTAB_PATTERN);
+            if (matches != 0) {
+                return i + firstByteIndex(matches);
+            }
+        }
+        for (; i < toIndex; ++i) {
+            final byte value = buffer.getByte(i);
+            if (value == COLON_BYTE || value == SPACE_BYTE || value == HTAB_BYTE) {
+                return i;
+            }
         }
-        return buffer.forEachByte(fromIndex, toIndex - fromIndex, FIND_LF);
+        return -1;
+    }
+
+    /**
+     * Computes a mask with the most significant bit set in each byte of {@code word} which is {@code 0}, and all
+     * other bits cleared. Unlike the common {@code (x - 0x01..) & ~x & 0x80..} approximation, this is exact for every
+     * byte, which allows multiple masks to be combined.
+     */
+    private static long zeroBytes(final long word) {
+        final long tmp = (word & LOW_7_BITS) + LOW_7_BITS;
+        return ~(tmp | word | LOW_7_BITS);
+    }
+
+    /**
+     * Index of the first matching byte in a mask computed by {@link #zeroBytes(long)} from a big-endian word.
+     */
+    private static int firstByteIndex(final long matches) {
+        return Long.numberOfLeadingZeros(matches) >>> 3;
     }
 
     static void splitInitialLineError() {
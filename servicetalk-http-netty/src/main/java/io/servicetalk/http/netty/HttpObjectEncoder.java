@@ -55,6 +55,7 @@ import static io.netty.handler.codec.http.HttpConstants.CR;
 import static io.netty.handler.codec.http.HttpConstants.LF;
 import static io.netty.handler.codec.http.HttpConstants.SP;
 import static io.netty.util.internal.StringUtil.simpleClassName;
+import static io.servicetalk.buffer.netty.BufferUtil.isPooled;
 import static io.servicetalk.buffer.netty.BufferUtil.newBufferFrom;
 import static io.servicetalk.buffer.netty.BufferUtil.toByteBufNoThrow;
 import static io.servicetalk.http.api.CharSequences.unwrapBuffer;
@@ -154,15 +155,17 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
                 // See https://github.com/netty/netty/issues/2983 for more information.
                 // We can directly write EMPTY_BUFFER here because there is no need to worry about the buffer being
                 // already released.
+                releaseIfPooled(stBuffer);
                 ctx.write(EMPTY_BUFFER, promise);
             } else {
                 switch (state) {
                     case ST_INIT:
+                        releaseIfPooled(stBuffer);
                         throw new IllegalStateException("unexpected message type: " + simpleClassName(msg));
                     case ST_CONTENT_NON_CHUNK:
                         final long contentLength = calculateContentLength(stBuffer);
                         if (contentLength > 0) {
-                            ctx.write(encodeAndRetain(stBuffer), promise);
+                            ctx.write(encode(stBuffer), promise);
                             break;
                         }
 
@@ -170,9 +173,11 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
                     case ST_CONTENT_ALWAYS_EMPTY:
                         // Need to produce some output otherwise an IllegalStateException will be thrown as we did
                         // not write anything Its ok to just write an EMPTY_BUFFER as if there are reference count
-                        // issues these will be propagated as the caller of the encodeAndRetain(...) method will
-                        // release the original buffer. Writing an empty buffer will not actually write anything on
-                        // the wire, so if there is a user error with msg it will not be visible externally
+                        // issues these will be propagated as the caller of the encode(...) method will release the
+                        // original buffer. Writing an empty buffer will not actually write anything on the wire, so
+                        // if there is a user error with msg it will not be visible externally. A pooled msg is owned
+                        // by the transport and is released as it is dropped.
+                        releaseIfPooled(stBuffer);
                         ctx.write(EMPTY_BUFFER, promise);
                         break;
                     case ST_CONTENT_CHUNK:
@@ -259,13 +264,13 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
             buf.writeCharSequence(lengthHex, US_ASCII);
             writeShortBE(buf, CRLF_SHORT);
             promiseCombiner.add(ctx.write(buf));
-            promiseCombiner.add(ctx.write(encodeAndRetain(msg)));
+            promiseCombiner.add(ctx.write(encode(msg)));
             promiseCombiner.add(ctx.write(CRLF_BUF.duplicate()));
         } else {
             assert contentLength == 0;
             // Need to produce some output otherwise an
             // IllegalStateException will be thrown
-            promiseCombiner.add(ctx.write(encodeAndRetain(msg)));
+            promiseCombiner.add(ctx.write(encode(msg)));
         }
     }
 
@@ -294,16 +299,31 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
     }
 
     private static void encodeHeader(CharSequence name, CharSequence value, ByteBuf byteBuf, Buffer buffer) {
+        final byte[] line = PreEncodedHeaders.line(name, value);
+        if (line != null) {
+            byteBuf.writeBytes(line);
+            return;
+        }
         final int nameLen = name.length();
         final int valueLen = value.length();
         final int entryLen = nameLen + valueLen + 4;
         byteBuf.ensureWritable(entryLen);
         int offset = byteBuf.writerIndex();
-        writeAscii(name, byteBuf, buffer, offset);
+        final byte[] nameBytes = PreEncodedHeaders.name(name);
+        if (nameBytes != null) {
+            byteBuf.setBytes(offset, nameBytes);
+        } else {
+            writeAscii(name, byteBuf, buffer, offset);
+        }
         offset += nameLen;
         ByteBufUtil.setShortBE(byteBuf, offset, COLON_AND_SPACE_SHORT);
         offset += 2;
-        writeAscii(value, byteBuf, buffer, offset);
+        final byte[] valueBytes = PreEncodedHeaders.value(value);
+        if (valueBytes != null) {
+            byteBuf.setBytes(offset, valueBytes);
+        } else {
+            writeAscii(value, byteBuf, buffer, offset);
+        }
         offset += valueLen;
         ByteBufUtil.setShortBE(byteBuf, offset, CRLF_SHORT);
         offset += 2;
@@ -333,11 +353,20 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
         }
     }
 
-    private static ByteBuf encodeAndRetain(Buffer msg) {
+    private static ByteBuf encode(Buffer msg) {
         // We still want to retain the objects we encode because otherwise folks may hold on to references of objects
-        // with a 0 reference count and get an IllegalReferenceCountException.
+        // with a 0 reference count and get an IllegalReferenceCountException. Pooled buffers are owned by the
+        // transport once written, so the reference of the caller is handed over and released after the write.
         // TODO(scott): add support for file region
-        return toByteBuf(msg).retain();
+        final ByteBuf byteBuf = toByteBuf(msg);
+        return isPooled(byteBuf) ? byteBuf : byteBuf.retain();
+    }
+
+    private static void releaseIfPooled(Buffer msg) {
+        final ByteBuf byteBuf = toByteBufNoThrow(msg);
+        if (byteBuf != null && isPooled(byteBuf)) {
+            byteBuf.release();
+        }
     }
 
     static ByteBuf toByteBuf(Buffer buffer) {
@@ -0,0 +1,173 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.http.api.CharSequences.newAsciiString;
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT;
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT_CHARSET;
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT_LANGUAGE;
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT_RANGES;
+import static io.servicetalk.http.api.HttpHeaderNames.AGE;
+import static io.servicetalk.http.api.HttpHeaderNames.AUTHORIZATION;
+import static io.servicetalk.http.api.HttpHeaderNames.CACHE_CONTROL;
+import static io.servicetalk.http.api.HttpHeaderNames.CONNECTION;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
+import static io.servicetalk.http.api.HttpHeaderNames.COOKIE;
+import static io.servicetalk.http.api.HttpHeaderNames.DATE;
+import static io.servicetalk.http.api.HttpHeaderNames.ETAG;
+import static io.servicetalk.http.api.HttpHeaderNames.EXPECT;
+import static io.servicetalk.http.api.HttpHeaderNames.EXPIRES;
+import static io.servicetalk.http.api.HttpHeaderNames.FORWARDED;
+import static io.servicetalk.http.api.HttpHeaderNames.HOST;
+import static io.servicetalk.http.api.HttpHeaderNames.IF_MODIFIED_SINCE;
+import static io.servicetalk.http.api.HttpHeaderNames.IF_NONE_MATCH;
+import static io.servicetalk.http.api.HttpHeaderNames.LAST_MODIFIED;
+import static io.servicetalk.http.api.HttpHeaderNames.LOCATION;
+import static io.servicetalk.http.api.HttpHeaderNames.ORIGIN;
+import static io.servicetalk.http.api.HttpHeaderNames.PRAGMA;
+import static io.servicetalk.http.api.HttpHeaderNames.RANGE;
+import static io.servicetalk.http.api.HttpHeaderNames.REFERER;
+import static io.servicetalk.http.api.HttpHeaderNames.SERVER;
+import static io.servicetalk.http.api.HttpHeaderNames.SET_COOKIE;
+import static io.servicetalk.http.api.HttpHeaderNames.TE;
+import static io.servicetalk.http.api.HttpHeaderNames.TRAILER;
+import static io.servicetalk.http.api.HttpHeaderNames.TRANSFER_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.UPGRADE;
+import static io.servicetalk.http.api.HttpHeaderNames.USER_AGENT;
+import static io.servicetalk.http.api.HttpHeaderNames.VARY;
+import static io.servicetalk.http.api.HttpHeaderNames.VIA;
+import static io.servicetalk.http.api.HttpHeaderNames.X_FORWARDED_FOR;
+import static io.servicetalk.http.api.HttpHeaderNames.X_FORWARDED_HOST;
+import static io.servicetalk.http.api.HttpHeaderNames.X_FORWARDED_PROTO;
+import static io.servicetalk.http.api.HttpHeaderNames.X_REQUESTED_WITH;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Immutable header names for the headers which are commonly sent by browsers, proxies and gRPC gateways.
+ * <p>
+ * The decoder uses these instances instead of slicing the name out of the inbound buffer, which avoids an allocation
+ * and a retained slice per header, and allows the case-insensitive hash code to be cached across messages. Only exact
+ * byte matches are returned, so the case of header names received on the wire is preserved.
+ */
+final class KnownHttpHeaderNames {
+    private static final int MAX_LENGTH = 32;
+    private static final Entry[][] BY_LENGTH = newTable(
+            // The lowercase names, as sent by HTTP/2 aware clients and most programmatic clients.
+            ACCEPT, ACCEPT_CHARSET, ACCEPT_ENCODING, ACCEPT_LANGUAGE, ACCEPT_RANGES, AGE, AUTHORIZATION,
+            CACHE_CONTROL, CONNECTION, CONTENT_ENCODING, CONTENT_LENGTH, CONTENT_TYPE, COOKIE, DATE, ETAG, EXPECT,
+            EXPIRES, FORWARDED, HOST, IF_MODIFIED_SINCE, IF_NONE_MATCH, LAST_MODIFIED, LOCATION, ORIGIN, PRAGMA, RANGE,
+            REFERER, SERVER, SET_COOKIE, TE, TRAILER, TRANSFER_ENCODING, UPGRADE, USER_AGENT, VARY, VIA,
+            X_FORWARDED_FOR, X_FORWARDED_HOST, X_FORWARDED_PROTO, X_REQUESTED_WITH,
+            newAsciiString("keep-alive"), newAsciiString("dnt"), newAsciiString("upgrade-insecure-requests"),
+            newAsciiString("sec-fetch-site"), newAsciiString("sec-fetch-mode"), newAsciiString("sec-fetch-dest"),
+            newAsciiString("sec-fetch-user"), newAsciiString("x-request-id"),
+            newAsciiString("grpc-timeout"), newAsciiString("grpc-encoding"),
+            newAsciiString("grpc-accept-encoding"), newAsciiString("grpc-status"), newAsciiString("grpc-message"),
+            // The canonical names, as sent by browsers and most HTTP/1.x servers.
+            newAsciiString("Accept"), newAsciiString("Accept-Charset"), newAsciiString("Accept-Encoding"),
+            newAsciiString("Accept-Language"), newAsciiString("Accept-Ranges"), newAsciiString("Age"),
+            newAsciiString("Authorization"), newAsciiString("Cache-Control"), newAsciiString("Connection"),
+            newAsciiString("Content-Encoding"), newAsciiString("Content-Length"), newAsciiString("Content-Type"),
+            newAsciiString("Cookie"), newAsciiString("Date"), newAsciiString("ETag"), newAsciiString("Expect"),
+            newAsciiString("Expires"), newAsciiString("Forwarded"), newAsciiString("Host"),
+            newAsciiString("If-Modified-Since"), newAsciiString("If-None-Match"), newAsciiString("Last-Modified"),
+            newAsciiString("Location"), newAsciiString("Origin"), newAsciiString("Pragma"), newAsciiString("Range"),
+            newAsciiString("Referer"), newAsciiString("Server"), newAsciiString("Set-Cookie"), newAsciiString("TE"),
+            newAsciiString("Trailer"), newAsciiString("Transfer-Encoding"), newAsciiString("Upgrade"),
+            newAsciiString("User-Agent"), newAsciiString("Vary"), newAsciiString("Via"),
+            newAsciiString("X-Forwarded-For"), newAsciiString("X-Forwarded-Host"),
+            newAsciiString("X-Forwarded-Proto"), newAsciiString("X-Requested-With"), newAsciiString("Keep-Alive"),
+            newAsciiString("DNT"), newAsciiString("Upgrade-Insecure-Requests"), newAsciiString("Sec-Fetch-Site"),
+            newAsciiString("Sec-Fetch-Mode"), newAsciiString("Sec-Fetch-Dest"), newAsciiString("Sec-Fetch-User"),
+            newAsciiString("X-Request-Id"), newAsciiString("X-Request-ID"));
+
+    private KnownHttpHeaderNames() {
+        // no instances
+    }
+
+    /**
+     * Find a known header name which has exactly the same bytes as the specified region of {@code buffer}.
+     *
+     * @param buffer the {@link ByteBuf} which contains the header name.
+     * @param start the index of the first byte of the header name.
+     * @param length the number of bytes of the header name.
+     * @return an immutable header name, or {@code null} if the name is not known.
+     */
+    @Nullable
+    static CharSequence find(final ByteBuf buffer, final int start, final int length) {
+        if (length >= MAX_LENGTH) {
+            return null;
+        }
+        final Entry[] candidates = BY_LENGTH[length];
+        if (candidates == null) {
+            return null;
+        }
+        final byte first = buffer.getByte(start);
+        final byte last = buffer.getByte(start + length - 1);
+        outer:
+        for (final Entry candidate : candidates) {
+            final byte[] bytes = candidate.bytes;
+            if (bytes[0] != first || bytes[length - 1] != last) {
+                continue;
+            }
+            for (int i = 1; i < length - 1; ++i) {
+                if (bytes[i] != buffer.getByte(start + i)) {
+                    continue outer;
+                }
+            }
+            return candidate.name;
+        }
+        return null;
+    }
+
+    private static Entry[][] newTable(final CharSequence... names) {
+        final List<List<Entry>> byLength = new ArrayList<>(MAX_LENGTH);
+        for (int i = 0; i < MAX_LENGTH; ++i) {
+            byLength.add(new ArrayList<>(2));
+        }
+        for (final CharSequence name : names) {
+            assert name.length() > 0 && name.length() < MAX_LENGTH;
+            byLength.get(name.length()).add(new Entry(name));
+        }
+        final Entry[][] table = new Entry[MAX_LENGTH][];
+        for (int i = 0; i < MAX_LENGTH; ++i) {
+            final List<Entry> entries = byLength.get(i);
+            if (!entries.isEmpty()) {
+                table[i] = entries.toArray(new Entry[0]);
+            }
+        }
+        return table;
+    }
+
+    private static final class Entry {
+        final byte[] bytes;
+        final CharSequence name;
+
+        Entry(final CharSequence name) {
+            this.bytes = name.toString().getBytes(US_ASCII);
+            this.name = name;
+        }
+    }
+}
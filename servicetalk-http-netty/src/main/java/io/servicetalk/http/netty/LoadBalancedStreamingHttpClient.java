@@ -28,6 +28,7 @@ import io.servicetalk.http.api.StreamingHttpRequest;
 import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
 import io.servicetalk.http.api.StreamingHttpResponse;
 import io.servicetalk.http.api.StreamingHttpResponseFactory;
+import io.servicetalk.http.netty.LoadBalancedStreamingHttpConnection.RequestTracker;
 import io.servicetalk.http.utils.BeforeFinallyOnHttpResponseOperator;
 
 import java.util.function.Predicate;
@@ -64,12 +65,16 @@ final class LoadBalancedStreamingHttpClient implements FilterableStreamingHttpCl
         // following the LoadBalancer API which this Client depends upon to ensure the concurrent request count state is
         // correct.
         return loadBalancer.selectConnection(SELECTOR_FOR_REQUEST)
-                .flatMap(c -> c.request(strategy, request)
-                        .liftSync(new BeforeFinallyOnHttpResponseOperator(c::requestFinished))
-                        // subscribeShareContext is used because otherwise the AsyncContext modified during response
-                        // meta data processing will not be visible during processing of the response payload for
-                        // ConnectionFilters (it already is visible on ClientFilters).
-                        .subscribeShareContext());
+                .flatMap(c -> {
+                    final RequestTracker tracker = c.newRequestTracker();
+                    return c.request(strategy, request)
+                            .map(tracker::onResponse)
+                            .liftSync(new BeforeFinallyOnHttpResponseOperator(tracker))
+                            // subscribeShareContext is used because otherwise the AsyncContext modified during
+                            // response meta data processing will not be visible during processing of the response
+                            // payload for ConnectionFilters (it already is visible on ClientFilters).
+                            .subscribeShareContext();
+                });
     }
 
     @Override
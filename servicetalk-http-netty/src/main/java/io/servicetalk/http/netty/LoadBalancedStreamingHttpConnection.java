@@ -16,10 +16,12 @@
 package io.servicetalk.http.netty;
 
 import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.RequestOutcomeListener;
 import io.servicetalk.client.api.internal.ReservableRequestConcurrencyController;
 import io.servicetalk.concurrent.api.Completable;
 import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TerminalSignalConsumer;
 import io.servicetalk.http.api.FilterableStreamingHttpLoadBalancedConnection;
 import io.servicetalk.http.api.HttpEventKey;
 import io.servicetalk.http.api.HttpExecutionContext;
@@ -36,13 +38,29 @@ import io.servicetalk.http.api.StreamingHttpResponse;
 import io.servicetalk.http.api.StreamingHttpResponseFactory;
 import io.servicetalk.transport.api.ConnectionContext;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.client.api.internal.RequestConcurrencyController.Result.Accepted;
 import static io.servicetalk.http.api.HttpApiConversions.toReservedBlockingConnection;
 import static io.servicetalk.http.api.HttpApiConversions.toReservedBlockingStreamingConnection;
 import static io.servicetalk.http.api.HttpApiConversions.toReservedConnection;
+import static io.servicetalk.http.api.HttpResponseStatus.StatusClass.SERVER_ERROR_5XX;
+import static java.lang.System.nanoTime;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
 
 /**
  * Makes the wrapped {@link StreamingHttpConnection} aware of the {@link LoadBalancer}.
+ * <p>
+ * The {@link #score()} of this connection decreases with the number of outstanding requests and with an exponentially
+ * weighted moving average of the observed request latency, so {@link LoadBalancer}s that take the score into account
+ * can prefer less loaded and faster connections. A connection which can not accept more requests (e.g. an HTTP/2
+ * connection which reached the {@code SETTINGS_MAX_CONCURRENT_STREAMS} of its peer) has a score of {@code 0}.
+ * <p>
+ * Requests which fail or complete with a {@code 5xx} status are reported as failures to the
+ * {@link RequestOutcomeListener} set by the {@link LoadBalancer}, if any.
  */
 final class LoadBalancedStreamingHttpConnection implements FilterableStreamingHttpLoadBalancedConnection,
                    ReservedStreamingHttpConnection, ReservableRequestConcurrencyController,
@@ -51,6 +69,25 @@ final class LoadBalancedStreamingHttpConnection implements FilterableStreamingHt
                    // Reserved connection given to the user will use the correct strategy and influencer chain since
                    // we wrap before returning to the user.
                    HttpExecutionStrategyInfluencer {
+    private static final AtomicIntegerFieldUpdater<LoadBalancedStreamingHttpConnection> pendingRequestsUpdater =
+            newUpdater(LoadBalancedStreamingHttpConnection.class, "pendingRequests");
+
+    /**
+     * Weight of a new latency sample in the moving average, expressed as a right shift: {@code 1/8}.
+     */
+    private static final int LATENCY_EWMA_SHIFT = 3;
+
+    /**
+     * Latency which halves the {@link #score()} of an otherwise idle connection.
+     */
+    private static final double LATENCY_SCALE_NANOS = MILLISECONDS.toNanos(1);
+
+    @SuppressWarnings("unused")
+    private volatile int pendingRequests;
+    private volatile long latencyEwmaNanos;
+    @Nullable
+    private volatile RequestOutcomeListener outcomeListener;
+
     private final ReservableRequestConcurrencyController limiter;
     private final FilterableStreamingHttpLoadBalancedConnection filteredConnection;
     private final HttpExecutionStrategy streamingStrategy;
@@ -73,14 +110,63 @@ final class LoadBalancedStreamingHttpConnection implements FilterableStreamingHt
 
     @Override
     public Result tryRequest() {
-        return limiter.tryRequest();
+        final Result result = limiter.tryRequest();
+        if (result == Accepted) {
+            pendingRequestsUpdater.incrementAndGet(this);
+        }
+        return result;
     }
 
     @Override
     public void requestFinished() {
+        pendingRequestsUpdater.decrementAndGet(this);
         limiter.requestFinished();
     }
 
+    @Override
+    public int availableRequests() {
+        return limiter.availableRequests();
+    }
+
+    @Override
+    public void requestOutcomeListener(final RequestOutcomeListener listener) {
+        outcomeListener = requireNonNull(listener);
+    }
+
+    /**
+     * Creates a tracker for a request started now, which has to be notified when the request terminates.
+     *
+     * @return a {@link RequestTracker} for a request started now.
+     */
+    RequestTracker newRequestTracker() {
+        return new RequestTracker(this, nanoTime());
+    }
+
+    private void requestFinished(final long startTimeNanos, final boolean success) {
+        final long latency = nanoTime() - startTimeNanos;
+        final long ewma = latencyEwmaNanos;
+        // Concurrent updates may drop a sample, which is acceptable for a smoothed estimate and avoids a CAS loop.
+        latencyEwmaNanos = ewma == 0 ? latency : ewma + ((latency - ewma) >> LATENCY_EWMA_SHIFT);
+        requestFinished();
+        // Notify after releasing the request so the listener can use this connection for another request.
+        final RequestOutcomeListener outcomeListener = this.outcomeListener;
+        if (outcomeListener != null) {
+            if (success) {
+                outcomeListener.onRequestSuccess();
+            } else {
+                outcomeListener.onRequestFailure();
+            }
+        }
+    }
+
+    private void requestCancelled() {
+        requestFinished();
+        final RequestOutcomeListener outcomeListener = this.outcomeListener;
+        if (outcomeListener != null) {
+            outcomeListener.onRequestCancel();
+        }
+    }
+
     @Override
     public Completable releaseAsync() {
         return limiter.releaseAsync();
@@ -159,6 +245,52 @@ final class LoadBalancedStreamingHttpConnection implements FilterableStreamingHt
 
     @Override
     public float score() {
-        return filteredConnection.score();
+        if (limiter.availableRequests() <= 0) {
+            return 0;
+        }
+        // Both factors are >= 1, so the result stays within the [0, 1] range of the wrapped connection's score.
+        final double cost = (pendingRequests + 1) * (1 + latencyEwmaNanos / LATENCY_SCALE_NANOS);
+        return (float) (filteredConnection.score() / cost);
+    }
+
+    /**
+     * Records the latency and the outcome of a single request once it terminates. Cancellations only release the
+     * request, they say nothing about the health of the remote peer.
+     */
+    static final class RequestTracker implements TerminalSignalConsumer {
+        private final LoadBalancedStreamingHttpConnection connection;
+        private final long startTimeNanos;
+        private boolean serverError;
+
+        RequestTracker(final LoadBalancedStreamingHttpConnection connection, final long startTimeNanos) {
+            this.connection = connection;
+            this.startTimeNanos = startTimeNanos;
+        }
+
+        /**
+         * Inspects the response meta-data, must be invoked before the response payload is consumed.
+         *
+         * @param response the received {@link StreamingHttpResponse}.
+         * @return {@code response}.
+         */
+        StreamingHttpResponse onResponse(final StreamingHttpResponse response) {
+            serverError = response.status().statusClass() == SERVER_ERROR_5XX;
+            return response;
+        }
+
+        @Override
+        public void onComplete() {
+            connection.requestFinished(startTimeNanos, !serverError);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            connection.requestFinished(startTimeNanos, false);
+        }
+
+        @Override
+        public void onCancel() {
+            connection.requestCancelled();
+        }
     }
 }
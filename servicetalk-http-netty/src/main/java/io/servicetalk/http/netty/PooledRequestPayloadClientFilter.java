@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.netty.BufferAllocators;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.FilterableStreamingHttpClient;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.buffer.netty.BufferUtil.isPooled;
+import static io.servicetalk.buffer.netty.BufferUtil.newBufferFrom;
+import static io.servicetalk.buffer.netty.BufferUtil.toByteBufNoThrow;
+
+/**
+ * Outermost filter of a client with user filters, which may write the same request more than once (e.g. retries or
+ * hedging). The transport releases a pooled {@link Buffer} once it has been written, so each write attempt is given its
+ * own retained duplicate. The reference of the caller is released once the response has terminated and no write
+ * attempt is in progress anymore.
+ *
+ * @see BufferAllocators#POOLED_ALLOCATOR
+ */
+final class PooledRequestPayloadClientFilter extends StreamingHttpClientFilter {
+
+    PooledRequestPayloadClientFilter(final FilterableStreamingHttpClient next) {
+        super(next);
+    }
+
+    @Override
+    protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                    final HttpExecutionStrategy strategy,
+                                                    final StreamingHttpRequest request) {
+        final PooledPayloadTracker tracker = new PooledPayloadTracker();
+        return delegate.request(strategy, request.transformRawPayloadBody(payload -> payload
+                .map(tracker::onWrite)
+                .beforeOnSubscribe(__ -> tracker.onWriteStarted())
+                .beforeFinally(tracker::onWriteTerminated)))
+                .beforeFinally(tracker::onResponseTerminated);
+    }
+
+    private static final class PooledPayloadTracker {
+        @Nullable
+        private Map<ByteBuf, Boolean> written;
+        private int pendingWrites;
+        private boolean responseTerminated;
+        private boolean released;
+
+        Object onWrite(final Object item) {
+            if (!(item instanceof Buffer)) {
+                return item;
+            }
+            final ByteBuf byteBuf = toByteBufNoThrow((Buffer) item);
+            if (byteBuf == null || !isPooled(byteBuf)) {
+                return item;
+            }
+            synchronized (this) {
+                if (released) {
+                    // Only a resubscribe of the response can get here, hand the reference of the caller over.
+                    return item;
+                }
+                if (written == null) {
+                    written = new IdentityHashMap<>(4);
+                }
+                written.put(byteBuf, Boolean.TRUE);
+            }
+            // A duplicate also keeps concurrent write attempts from sharing reader indexes.
+            return newBufferFrom(byteBuf.retainedDuplicate());
+        }
+
+        synchronized void onWriteStarted() {
+            ++pendingWrites;
+        }
+
+        void onWriteTerminated() {
+            final List<ByteBuf> toRelease;
+            synchronized (this) {
+                --pendingWrites;
+                toRelease = releasable();
+            }
+            release(toRelease);
+        }
+
+        void onResponseTerminated() {
+            final List<ByteBuf> toRelease;
+            synchronized (this) {
+                responseTerminated = true;
+                toRelease = releasable();
+            }
+            release(toRelease);
+        }
+
+        @Nullable
+        private List<ByteBuf> releasable() {
+            if (released || !responseTerminated || pendingWrites > 0) {
+                return null;
+            }
+            released = true;
+            return written == null ? null : new ArrayList<>(written.keySet());
+        }
+
+        private static void release(@Nullable final List<ByteBuf> toRelease) {
+            if (toRelease != null) {
+                for (ByteBuf byteBuf : toRelease) {
+                    byteBuf.release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.HttpHeaderNames;
+import io.servicetalk.http.api.HttpHeaderValues;
+
+import java.lang.reflect.Field;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+import static io.netty.handler.codec.http.HttpConstants.COLON;
+import static io.netty.handler.codec.http.HttpConstants.CR;
+import static io.netty.handler.codec.http.HttpConstants.LF;
+import static io.netty.handler.codec.http.HttpConstants.SP;
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CACHE_CONTROL;
+import static io.servicetalk.http.api.HttpHeaderNames.CONNECTION;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
+import static io.servicetalk.http.api.HttpHeaderNames.EXPECT;
+import static io.servicetalk.http.api.HttpHeaderNames.TE;
+import static io.servicetalk.http.api.HttpHeaderNames.TRANSFER_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.UPGRADE;
+import static io.servicetalk.http.api.HttpHeaderValues.APPLICATION_JSON;
+import static io.servicetalk.http.api.HttpHeaderValues.APPLICATION_X_WWW_FORM_URLENCODED;
+import static io.servicetalk.http.api.HttpHeaderValues.CHUNKED;
+import static io.servicetalk.http.api.HttpHeaderValues.CLOSE;
+import static io.servicetalk.http.api.HttpHeaderValues.CONTINUE;
+import static io.servicetalk.http.api.HttpHeaderValues.DEFLATE;
+import static io.servicetalk.http.api.HttpHeaderValues.GZIP;
+import static io.servicetalk.http.api.HttpHeaderValues.IDENTITY;
+import static io.servicetalk.http.api.HttpHeaderValues.KEEP_ALIVE;
+import static io.servicetalk.http.api.HttpHeaderValues.MULTIPART_FORM_DATA;
+import static io.servicetalk.http.api.HttpHeaderValues.NO_CACHE;
+import static io.servicetalk.http.api.HttpHeaderValues.NO_STORE;
+import static io.servicetalk.http.api.HttpHeaderValues.TEXT_PLAIN;
+import static io.servicetalk.http.api.HttpHeaderValues.TEXT_PLAIN_UTF_8;
+import static io.servicetalk.http.api.HttpHeaderValues.TRAILERS;
+import static io.servicetalk.http.api.HttpHeaderValues.WEBSOCKET;
+import static io.servicetalk.http.api.HttpHeaderValues.ZERO;
+import static java.lang.reflect.Modifier.isStatic;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Pre-encoded bytes for the {@link HttpHeaderNames} and {@link HttpHeaderValues} constants, and for complete header
+ * lines ({@code name: value\r\n}) of frequently used combinations of these constants.
+ * <p>
+ * Lookups are by identity, so only the shared constants benefit, and any other {@link CharSequence} is encoded as
+ * before. The tables are populated once and never modified, so they can be read concurrently without synchronization.
+ */
+final class PreEncodedHeaders {
+    private static final Map<CharSequence, Name> NAMES = new IdentityHashMap<>();
+    private static final Map<CharSequence, byte[]> VALUES = new IdentityHashMap<>();
+
+    static {
+        for (final CharSequence name : constants(HttpHeaderNames.class)) {
+            NAMES.put(name, new Name(name));
+        }
+        for (final CharSequence value : constants(HttpHeaderValues.class)) {
+            VALUES.put(value, encode(value));
+        }
+        addLines(CONTENT_TYPE, APPLICATION_JSON, APPLICATION_X_WWW_FORM_URLENCODED, MULTIPART_FORM_DATA, TEXT_PLAIN,
+                TEXT_PLAIN_UTF_8);
+        addLines(CONTENT_LENGTH, ZERO);
+        addLines(TRANSFER_ENCODING, CHUNKED);
+        addLines(CONNECTION, KEEP_ALIVE, CLOSE, HttpHeaderValues.UPGRADE);
+        addLines(CONTENT_ENCODING, GZIP, DEFLATE, IDENTITY);
+        addLines(ACCEPT_ENCODING, GZIP, DEFLATE, IDENTITY);
+        addLines(CACHE_CONTROL, NO_CACHE, NO_STORE);
+        addLines(EXPECT, CONTINUE);
+        addLines(TE, TRAILERS);
+        addLines(UPGRADE, WEBSOCKET);
+    }
+
+    private PreEncodedHeaders() {
+        // no instances
+    }
+
+    /**
+     * Get the pre-encoded bytes of a header name.
+     *
+     * @param name the header name.
+     * @return the ASCII bytes of {@code name}, or {@code null} if {@code name} is not a pre-encoded constant.
+     */
+    @Nullable
+    static byte[] name(final CharSequence name) {
+        final Name entry = NAMES.get(name);
+        return entry == null ? null : entry.bytes;
+    }
+
+    /**
+     * Get the pre-encoded bytes of a header value.
+     *
+     * @param value the header value.
+     * @return the ASCII bytes of {@code value}, or {@code null} if {@code value} is not a pre-encoded constant.
+     */
+    @Nullable
+    static byte[] value(final CharSequence value) {
+        return VALUES.get(value);
+    }
+
+    /**
+     * Get the pre-encoded bytes of a complete header line, including the trailing {@code CRLF}.
+     *
+     * @param name the header name.
+     * @param value the header value.
+     * @return the ASCII bytes of {@code name: value\r\n}, or {@code null} if the line is not pre-encoded.
+     */
+    @Nullable
+    static byte[] line(final CharSequence name, final CharSequence value) {
+        final Name entry = NAMES.get(name);
+        return entry == null || entry.lines == null ? null : entry.lines.get(value);
+    }
+
+    private static void addLines(final CharSequence name, final CharSequence... values) {
+        final Name entry = NAMES.get(name);
+        assert entry != null;
+        if (entry.lines == null) {
+            entry.lines = new IdentityHashMap<>(values.length);
+        }
+        for (final CharSequence value : values) {
+            final byte[] nameBytes = entry.bytes;
+            final byte[] valueBytes = VALUES.get(value);
+            assert valueBytes != null;
+            final byte[] line = new byte[nameBytes.length + valueBytes.length + 4];
+            System.arraycopy(nameBytes, 0, line, 0, nameBytes.length);
+            int offset = nameBytes.length;
+            line[offset++] = COLON;
+            line[offset++] = SP;
+            System.arraycopy(valueBytes, 0, line, offset, valueBytes.length);
+            offset += valueBytes.length;
+            line[offset++] = CR;
+            line[offset] = LF;
+            entry.lines.put(value, line);
+        }
+    }
+
+    private static Iterable<CharSequence> constants(final Class<?> clazz) {
+        final Map<CharSequence, Boolean> constants = new IdentityHashMap<>();
+        for (final Field field : clazz.getFields()) {
+            if (isStatic(field.getModifiers()) && field.getType() == CharSequence.class) {
+                try {
+                    constants.put((CharSequence) field.get(null), Boolean.TRUE);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Unable to read " + clazz.getSimpleName() + "." +
+                            field.getName(), e);
+                }
+            }
+        }
+        return constants.keySet();
+    }
+
+    private static byte[] encode(final CharSequence value) {
+        return value.toString().getBytes(US_ASCII);
+    }
+
+    private static final class Name {
+        final byte[] bytes;
+        @Nullable
+        Map<CharSequence, byte[]> lines;
+
+        Name(final CharSequence name) {
+            this.bytes = encode(name);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.DefaultHttp2PingFrame;
+import io.netty.handler.codec.http2.Http2PingFrame;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import static io.servicetalk.http.netty.H2KeepAliveHandler.newKeepAliveHandler;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h2;
+import static java.time.Duration.ofMillis;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class H2KeepAliveHandlerTest {
+    private static final long INTERVAL_MS = 50;
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final EmbeddedChannel channel = new EmbeddedChannel(newKeepAliveHandler(
+            h2().keepAlivePing(ofMillis(INTERVAL_MS), ofMillis(INTERVAL_MS)).build()));
+
+    @After
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void disabledByDefault() {
+        assertThat(newKeepAliveHandler(h2().build()), is(nullValue()));
+    }
+
+    @Test
+    public void pingSentWhenIdle() throws Exception {
+        Http2PingFrame ping = awaitPing();
+        assertFalse(ping.ack());
+
+        // The ACK is consumed by the handler and keeps the connection open.
+        assertFalse(channel.writeInbound(new DefaultHttp2PingFrame(ping.content(), true)));
+        Thread.sleep(INTERVAL_MS);
+        channel.runPendingTasks();
+        assertTrue(channel.isActive());
+    }
+
+    @Test
+    public void unrelatedPingAckIsForwarded() {
+        assertTrue(channel.writeInbound(new DefaultHttp2PingFrame(0, true)));
+        assertThat(channel.readInbound(), instanceOf(Http2PingFrame.class));
+    }
+
+    @Test
+    public void closedWhenPingNotAcknowledged() throws Exception {
+        awaitPing();
+        while (channel.isActive()) {
+            Thread.sleep(INTERVAL_MS / 5);
+            channel.runPendingTasks();
+        }
+    }
+
+    private Http2PingFrame awaitPing() throws InterruptedException {
+        Object msg;
+        while ((msg = channel.readOutbound()) == null) {
+            Thread.sleep(INTERVAL_MS / 5);
+            channel.runPendingTasks();
+        }
+        assertThat(msg, instanceOf(Http2PingFrame.class));
+        return (Http2PingFrame) msg;
+    }
+}
@@ -118,6 +118,7 @@ import static io.servicetalk.http.api.HttpSerializationProviders.textDeserialize
 import static io.servicetalk.http.api.HttpSerializationProviders.textSerializer;
 import static io.servicetalk.http.netty.HttpClients.forSingleAddress;
 import static io.servicetalk.http.netty.HttpProtocolConfigs.h1Default;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h2;
 import static io.servicetalk.http.netty.HttpProtocolConfigs.h2Default;
 import static io.servicetalk.http.netty.HttpTestExecutionStrategy.CACHED;
 import static io.servicetalk.http.netty.HttpTestExecutionStrategy.NO_OFFLOAD;
@@ -199,6 +200,19 @@ public class H2PriorKnowledgeFeatureParityTest {
         multipleRequests(true, 10);
     }
 
+    @Test
+    public void largePayloadWithFlowControlSettings() throws Exception {
+        InetSocketAddress serverAddress = bindHttpEchoServer();
+        String requestBody = new String(new char[1 << 20]).replace('\0', 'a');
+        try (BlockingHttpClient client = forSingleAddress(HostAndPort.of(serverAddress))
+                .protocols(h2PriorKnowledge ? h2().initialStreamWindowSize(1 << 18).connectionWindowSize(1 << 20)
+                        .maxFrameSize(1 << 15).enableAutoWindowSizing(1 << 22).build() : h1Default())
+                .executionStrategy(clientExecutionStrategy).buildBlocking()) {
+            HttpResponse response = client.request(client.post("/").payloadBody(requestBody, textSerializer()));
+            assertEquals(requestBody, response.payloadBody(textDeserializer()));
+        }
+    }
+
     private void multipleRequests(boolean get, int numberRequests) throws Exception {
         assert numberRequests > 0;
         InetSocketAddress serverAddress = bindHttpEchoServer();
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2PingFrame;
+import io.netty.handler.codec.http2.Http2PingFrame;
+import io.netty.handler.codec.http2.Http2SettingsFrame;
+import io.netty.handler.codec.http2.Http2WindowUpdateFrame;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import javax.annotation.Nullable;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static io.servicetalk.http.netty.H2WindowSizeHandler.newWindowSizeHandler;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h2;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class H2WindowSizeHandlerTest {
+    private static final int MAX_WINDOW_SIZE = 100_000;
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    @Nullable
+    private EmbeddedChannel channel;
+
+    @After
+    public void tearDown() {
+        if (channel != null) {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private EmbeddedChannel newChannel(final H2ProtocolConfigBuilder builder) {
+        final H2WindowSizeHandler handler = newWindowSizeHandler(builder.build());
+        assertThat(handler, is(notNullValue()));
+        channel = new EmbeddedChannel(handler);
+        return channel;
+    }
+
+    @Test
+    public void noHandlerForDefaultWindows() {
+        assertThat(newWindowSizeHandler(h2().build()), is(nullValue()));
+    }
+
+    @Test
+    public void largerConnectionWindowIsAdvertised() {
+        final EmbeddedChannel channel = newChannel(h2().connectionWindowSize(1 << 20));
+        assertWindowUpdate(channel.readOutbound(), (1 << 20) - DEFAULT_WINDOW_SIZE);
+        // The channel is active when the handler is added, the window must only be updated once.
+        assertThat(channel.readOutbound(), is(nullValue()));
+    }
+
+    @Test
+    public void windowGrowsToTwiceTheBdp() {
+        final EmbeddedChannel channel = newChannel(h2().enableAutoWindowSizing(1 << 20));
+        final long ping = sendDataAndReadPing(channel, 50_000);
+        // Bytes received after the PING was sent count towards the same round-trip.
+        data(channel, 10_000);
+        ackPing(channel, ping);
+
+        assertWindowUpdate(channel.readOutbound(), 120_000 - DEFAULT_WINDOW_SIZE);
+        assertSettings(channel.readOutbound(), 120_000);
+        assertThat(channel.readOutbound(), is(nullValue()));
+    }
+
+    @Test
+    public void windowDoesNotGrowBelowTwoThirds() {
+        final EmbeddedChannel channel = newChannel(h2().enableAutoWindowSizing(1 << 20));
+        // 2/3 of the default window is 43690 bytes.
+        ackPing(channel, sendDataAndReadPing(channel, 43_689));
+        assertThat(channel.readOutbound(), is(nullValue()));
+
+        ackPing(channel, sendDataAndReadPing(channel, 43_690));
+        assertWindowUpdate(channel.readOutbound(), 87_380 - DEFAULT_WINDOW_SIZE);
+        assertSettings(channel.readOutbound(), 87_380);
+    }
+
+    @Test
+    public void windowIsCappedAtMax() {
+        final EmbeddedChannel channel = newChannel(h2().enableAutoWindowSizing(MAX_WINDOW_SIZE));
+        ackPing(channel, sendDataAndReadPing(channel, 60_000));
+        assertWindowUpdate(channel.readOutbound(), MAX_WINDOW_SIZE - DEFAULT_WINDOW_SIZE);
+        assertSettings(channel.readOutbound(), MAX_WINDOW_SIZE);
+
+        // The window reached its maximum, no more BDP PINGs are sent.
+        data(channel, MAX_WINDOW_SIZE);
+        assertThat(channel.readOutbound(), is(nullValue()));
+    }
+
+    @Test
+    public void largerConnectionWindowIsNotUpdated() {
+        final EmbeddedChannel channel = newChannel(h2().connectionWindowSize(1 << 20)
+                .enableAutoWindowSizing(1 << 20));
+        assertWindowUpdate(channel.readOutbound(), (1 << 20) - DEFAULT_WINDOW_SIZE);
+        ackPing(channel, sendDataAndReadPing(channel, 60_000));
+        // The connection window is already larger than the new stream window.
+        assertSettings(channel.readOutbound(), 120_000);
+        assertThat(channel.readOutbound(), is(nullValue()));
+    }
+
+    @Test
+    public void unrelatedPingAckIsForwarded() {
+        final EmbeddedChannel channel = newChannel(h2().enableAutoWindowSizing(1 << 20));
+        final long ping = sendDataAndReadPing(channel, 60_000);
+        assertTrue(channel.writeInbound(new DefaultHttp2PingFrame(ping + 1, true)));
+        assertThat(channel.readOutbound(), is(nullValue()));
+    }
+
+    private static void data(final EmbeddedChannel channel, final int bytes) {
+        assertTrue(channel.writeInbound(new DefaultHttp2DataFrame(Unpooled.buffer(bytes).writeZero(bytes))));
+    }
+
+    private static long sendDataAndReadPing(final EmbeddedChannel channel, final int bytes) {
+        data(channel, bytes);
+        final Object msg = channel.readOutbound();
+        assertThat(msg, instanceOf(Http2PingFrame.class));
+        final Http2PingFrame ping = (Http2PingFrame) msg;
+        assertFalse(ping.ack());
+        return ping.content();
+    }
+
+    private static void ackPing(final EmbeddedChannel channel, final long content) {
+        // The ACK of a BDP PING is consumed by the handler.
+        assertFalse(channel.writeInbound(new DefaultHttp2PingFrame(content, true)));
+    }
+
+    private static void assertWindowUpdate(@Nullable final Object msg, final int increment) {
+        assertThat(msg, instanceOf(Http2WindowUpdateFrame.class));
+        assertThat(((Http2WindowUpdateFrame) msg).windowSizeIncrement(), is(increment));
+    }
+
+    private static void assertSettings(@Nullable final Object msg, final int initialWindowSize) {
+        assertThat(msg, instanceOf(Http2SettingsFrame.class));
+        assertThat(((Http2SettingsFrame) msg).settings().initialWindowSize(), is(initialWindowSize));
+    }
+}
@@ -31,8 +31,11 @@ import org.junit.rules.Timeout;
 import java.net.InetSocketAddress;
 
 import static io.servicetalk.http.netty.HttpProtocolConfigs.h1Default;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h2;
 import static io.servicetalk.http.netty.HttpProtocolConfigs.h2Default;
 import static io.servicetalk.transport.netty.internal.AddressUtils.localAddress;
+import static java.time.Duration.ZERO;
+import static java.time.Duration.ofSeconds;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.rules.ExpectedException.none;
 
@@ -170,4 +173,25 @@ public class HttpProtocolConfigTest {
         expectedException.expectMessage(startsWith("Duplicated configuration"));
         builder.protocols(h2Default(), h2Default());
     }
+
+    @Test
+    public void h2ConnectionWindowSmallerThanDefault() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(startsWith("connectionWindowSize"));
+        h2().connectionWindowSize(1024);
+    }
+
+    @Test
+    public void h2MaxFrameSizeOutOfRange() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(startsWith("maxFrameSize"));
+        h2().maxFrameSize(1 << 24);
+    }
+
+    @Test
+    public void h2KeepAlivePingWithZeroInterval() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(startsWith("interval"));
+        h2().keepAlivePing(ZERO, ofSeconds(1));
+    }
 }
@@ -31,18 +31,21 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 
 import static io.netty.buffer.Unpooled.wrappedBuffer;
 import static io.netty.util.AsciiString.contentEquals;
 import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
 import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
 import static io.servicetalk.http.api.HttpHeaderNames.USER_AGENT;
 import static io.servicetalk.http.api.HttpHeaderValues.KEEP_ALIVE;
 import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
 import static io.servicetalk.http.api.HttpRequestMethod.GET;
 import static java.lang.Integer.toHexString;
 import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Arrays.asList;
 import static org.hamcrest.core.IsInstanceOf.instanceOf;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -111,6 +114,38 @@ public class HttpRequestDecoderTest {
         assertFalse(channel.finishAndReleaseAll());
     }
 
+    @Test
+    public void headerNamesPreserveCaseAndLongLines() {
+        EmbeddedChannel channel = newEmbeddedChannel();
+        StringBuilder longValue = new StringBuilder();
+        for (int i = 0; i < 100; ++i) {
+            longValue.append(i % 10);
+        }
+        byte[] beforeContentBytes = ("GET /some/path?foo=bar&baz=yyy HTTP/1.1" + "\r\n" +
+                "Connection: keep-alive" + "\r\n" +
+                "User-Agent: unit-test" + "\r\n" +
+                "content-type: text/plain" + "\r\n" +
+                "X-Some-Unknown-Long-Header-Name:" + longValue + "\r\n" +
+                "X-Some-Unknown-Long-Header-Name-With-Space  :\t" + longValue + "\r\n" +
+                "Content-Length: 0" + "\r\n" + "\r\n").getBytes(US_ASCII);
+        assertTrue(channel.writeInbound(wrappedBuffer(beforeContentBytes)));
+
+        HttpRequestMetaData request = channel.readInbound();
+        assertStandardHeaders(request.headers());
+        assertSingleHeaderValue(request.headers(), CONTENT_TYPE, "text/plain");
+        assertSingleHeaderValue(request.headers(), "x-some-unknown-long-header-name", longValue);
+        assertSingleHeaderValue(request.headers(), "x-some-unknown-long-header-name-with-space", longValue);
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<CharSequence, CharSequence> header : request.headers()) {
+            names.add(header.getKey().toString());
+        }
+        assertTrue(names.toString(), names.containsAll(asList("Connection", "User-Agent", "content-type",
+                "X-Some-Unknown-Long-Header-Name", "X-Some-Unknown-Long-Header-Name-With-Space", "Content-Length")));
+        HttpHeaders trailers = channel.readInbound();
+        assertTrue(trailers.isEmpty());
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
     @Test
     public void chunkedNoTrailers() {
         EmbeddedChannel channel = newEmbeddedChannel();
@@ -26,17 +26,23 @@ import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.Test;
 
 import java.util.ArrayDeque;
+import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 
 import static io.servicetalk.buffer.api.EmptyBuffer.EMPTY_BUFFER;
 import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
 import static io.servicetalk.http.api.DefaultHttpHeadersFactory.INSTANCE;
 import static io.servicetalk.http.api.HttpHeaderNames.CONNECTION;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_ENCODING;
 import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
 import static io.servicetalk.http.api.HttpHeaderNames.SERVER;
 import static io.servicetalk.http.api.HttpHeaderNames.TRANSFER_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderValues.APPLICATION_JSON;
 import static io.servicetalk.http.api.HttpHeaderValues.CHUNKED;
+import static io.servicetalk.http.api.HttpHeaderValues.IDENTITY;
 import static io.servicetalk.http.api.HttpHeaderValues.KEEP_ALIVE;
+import static io.servicetalk.http.api.HttpHeaderValues.ZERO;
 import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
 import static io.servicetalk.http.api.HttpResponseMetaDataFactory.newResponseMetaData;
 import static io.servicetalk.http.api.HttpResponseStatus.OK;
@@ -72,6 +78,33 @@ public class HttpResponseEncoderTest {
         assertFalse(channel.finishAndReleaseAll());
     }
 
+    @Test
+    public void preEncodedHeadersMatchEncodedCopies() {
+        HttpResponseMetaData constants = newResponseMetaData(HTTP_1_1, OK, INSTANCE.newHeaders());
+        constants.headers()
+                .add(CONTENT_TYPE, APPLICATION_JSON)
+                .add(CONNECTION, KEEP_ALIVE)
+                .add(CONTENT_ENCODING, IDENTITY)
+                .add(SERVER, KEEP_ALIVE)
+                .add(CONTENT_LENGTH, ZERO);
+        HttpResponseMetaData copies = newResponseMetaData(HTTP_1_1, OK, INSTANCE.newHeaders());
+        for (Map.Entry<CharSequence, CharSequence> header : constants.headers()) {
+            copies.headers().add(header.getKey().toString(), header.getValue().toString());
+        }
+        assertEquals(encodeMetaData(copies), encodeMetaData(constants));
+    }
+
+    private static String encodeMetaData(HttpResponseMetaData response) {
+        EmbeddedChannel channel = newEmbeddedChannel();
+        channel.writeOutbound(response);
+        channel.writeOutbound(EmptyHttpHeaders.INSTANCE);
+        ByteBuf byteBuf = channel.readOutbound();
+        String encoded = byteBuf.toString(US_ASCII);
+        byteBuf.release();
+        channel.finishAndReleaseAll();
+        return encoded;
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void contentLengthNoTrailersHeaderWhiteSpaceThrowByDefault() {
         EmbeddedChannel channel = newEmbeddedChannel();
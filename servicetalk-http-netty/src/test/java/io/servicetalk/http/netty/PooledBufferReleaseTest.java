@@ -0,0 +1,209 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpProtocolConfig;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.utils.RetryingHttpRequesterFilter;
+import io.servicetalk.transport.api.ServerContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.POOLED_ALLOCATOR;
+import static io.servicetalk.buffer.netty.BufferAllocators.release;
+import static io.servicetalk.buffer.netty.BufferUtil.toByteBuf;
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.http.api.CharSequences.newAsciiString;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.http.api.HttpResponseStatus.SERVICE_UNAVAILABLE;
+import static io.servicetalk.http.netty.HttpClients.forResolvedAddress;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h1Default;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h2Default;
+import static io.servicetalk.transport.netty.internal.AddressUtils.localAddress;
+import static io.servicetalk.transport.netty.internal.AddressUtils.serverHostAndPort;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(Parameterized.class)
+public class PooledBufferReleaseTest {
+    private static final CharSequence X_POOLED = newAsciiString("x-pooled");
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final HttpProtocolConfig protocol;
+    private final Queue<Buffer> pooledPayloads = new ConcurrentLinkedQueue<>();
+    private final Queue<Buffer> pooledHeaderValues = new ConcurrentLinkedQueue<>();
+    private final Queue<String> receivedPayloads = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean unavailable = new AtomicBoolean();
+    private ServerContext serverContext;
+    private StreamingHttpClient client;
+
+    public PooledBufferReleaseTest(String name, HttpProtocolConfig protocol) {
+        this.protocol = protocol;
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> protocols() {
+        return asList(new Object[]{"h1", h1Default()}, new Object[]{"h2", h2Default()});
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        serverContext = HttpServers.forAddress(localAddress(0))
+                .protocols(protocol)
+                .listenStreamingAndAwait((ctx, request, factory) -> request.toRequest().map(req -> {
+                    receivedPayloads.add(req.payloadBody().toString(US_ASCII));
+                    final boolean withContentLength = req.headers().contains(CONTENT_LENGTH);
+                    final Buffer payload = pooledPayload("response");
+                    StreamingHttpResponse response = (unavailable.getAndSet(false) ?
+                            factory.newResponse(SERVICE_UNAVAILABLE) : factory.ok())
+                            .addHeader(X_POOLED, pooledHeaderValue())
+                            .payloadBody(from(pooledPayload(""), payload));
+                    if (withContentLength) {
+                        response.addHeader(CONTENT_LENGTH, String.valueOf(payload.readableBytes()));
+                    }
+                    return response;
+                }));
+        client = forResolvedAddress(serverHostAndPort(serverContext))
+                .protocols(protocol)
+                .buildStreaming();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try {
+            client.closeAsync().toFuture().get();
+        } finally {
+            serverContext.closeAsync().toFuture().get();
+        }
+    }
+
+    @Test
+    public void streamingPayloadIsReleased() throws Exception {
+        assertResponse(client.request(client.post("/")
+                .addHeader(X_POOLED, pooledHeaderValue())
+                .payloadBody(from(pooledPayload("hello"), pooledPayload(""), pooledPayload(" world"))))
+                .toFuture().get());
+        assertReleased(5, 2);
+    }
+
+    @Test
+    public void payloadWithContentLengthIsReleased() throws Exception {
+        final Buffer payload = pooledPayload("hello world");
+        assertResponse(client.request(client.post("/")
+                .addHeader(X_POOLED, pooledHeaderValue())
+                .addHeader(CONTENT_LENGTH, String.valueOf(payload.readableBytes()))
+                .payloadBody(from(payload))).toFuture().get());
+        assertReleased(3, 2);
+    }
+
+    @Test
+    public void retriedPayloadIsReleasedOnce() throws Exception {
+        client.closeAsync().toFuture().get();
+        client = forResolvedAddress(serverHostAndPort(serverContext))
+                .protocols(protocol)
+                .appendClientFilter(new RetryingHttpRequesterFilter.Builder()
+                        .maxRetries(1)
+                        .retryFor((metaData, cause) -> cause instanceof UnavailableException)
+                        .buildWithImmediateRetries())
+                .appendClientFilter(c -> new StreamingHttpClientFilter(c) {
+                    @Override
+                    protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                                    final HttpExecutionStrategy strategy,
+                                                                    final StreamingHttpRequest request) {
+                        return delegate.request(strategy, request).flatMap(response ->
+                                SERVICE_UNAVAILABLE.equals(response.status()) ?
+                                        response.payloadBody().ignoreElements()
+                                                .concat(failed(new UnavailableException())) :
+                                        succeeded(response));
+                    }
+                })
+                .buildStreaming();
+
+        unavailable.set(true);
+        assertResponse(client.request(client.post("/")
+                .payloadBody(from(pooledPayload("hello"), pooledPayload(" world")))).toFuture().get());
+        assertEquals(asList("hello world", "hello world"), new ArrayList<>(receivedPayloads));
+        assertReleased(6, 2);
+    }
+
+    private Buffer pooledPayload(String value) {
+        final Buffer buffer = value.isEmpty() ? POOLED_ALLOCATOR.newBuffer(0) : POOLED_ALLOCATOR.fromAscii(value);
+        pooledPayloads.add(buffer);
+        return buffer;
+    }
+
+    private CharSequence pooledHeaderValue() {
+        final Buffer buffer = POOLED_ALLOCATOR.fromAscii("value");
+        pooledHeaderValues.add(buffer);
+        return newAsciiString(buffer);
+    }
+
+    private static void assertResponse(StreamingHttpResponse response) throws Exception {
+        assertEquals(OK, response.status());
+        assertEquals("response", response.payloadBody()
+                .collect(StringBuilder::new, (sb, buffer) -> sb.append(buffer.toString(US_ASCII)))
+                .toFuture().get().toString());
+    }
+
+    private void assertReleased(int expectedPayloads, int expectedHeaderValues) throws Exception {
+        // Buffers are released after they have been written to the socket, which may happen after the peer read them.
+        // Closing both sides drains the event loops, and so the pending releases.
+        tearDown();
+        assertEquals(expectedPayloads, pooledPayloads.size());
+        for (Buffer buffer : pooledPayloads) {
+            assertEquals(0, toByteBuf(buffer).refCnt());
+        }
+        // Header values belong to the headers of the caller, and are not released by the transport.
+        final List<Buffer> headerValues = new ArrayList<>(pooledHeaderValues);
+        assertEquals(expectedHeaderValues, headerValues.size());
+        for (Buffer buffer : headerValues) {
+            assertEquals(1, toByteBuf(buffer).refCnt());
+            release(buffer);
+        }
+    }
+
+    private static final class UnavailableException extends IOException {
+        private static final long serialVersionUID = 5045442413093478582L;
+    }
+}
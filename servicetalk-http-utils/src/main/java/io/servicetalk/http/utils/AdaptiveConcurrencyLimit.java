@@ -0,0 +1,170 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+
+/**
+ * A concurrency limit that adapts to the observed round trip time (RTT) of requests.
+ * <p>
+ * Two moving averages of the RTT are maintained: a long term one which approximates the RTT without queueing, and a
+ * short term one which reflects the current RTT. Their ratio, the gradient, is {@code 1} when there is no queueing and
+ * drops below {@code 1} as queues build up. After every sample the limit is updated to
+ * {@code limit * gradient + sqrt(limit)}: it grows by a small headroom while latency is stable and shrinks
+ * proportionally to the latency increase otherwise. Dropped requests (errors, timeouts) decrease the limit
+ * multiplicatively.
+ * <p>
+ * Estimates are updated without synchronization, concurrent updates may lose a sample which is acceptable for smoothed
+ * estimates and keeps the request path free of locks and CAS loops, except for the in-flight counter.
+ */
+final class AdaptiveConcurrencyLimit {
+    private static final AtomicIntegerFieldUpdater<AdaptiveConcurrencyLimit> inFlightUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(AdaptiveConcurrencyLimit.class, "inFlight");
+
+    /**
+     * Weight of a new sample in the long term RTT average, it averages over roughly the last 600 samples.
+     */
+    private static final double LONG_RTT_ALPHA = 2d / 601;
+    /**
+     * Weight of a new sample in the short term RTT average, it averages over roughly the last 10 samples.
+     */
+    private static final double SHORT_RTT_ALPHA = 2d / 11;
+    /**
+     * Queueing tolerated before the limit decreases, as a ratio of the short term RTT over the long term RTT.
+     */
+    private static final double RTT_TOLERANCE = 1.5;
+    /**
+     * Lower bound of the gradient, bounds how fast the limit can decrease after a single sample.
+     */
+    private static final double MIN_GRADIENT = 0.5;
+    /**
+     * Weight of a newly computed limit in the limit.
+     */
+    private static final double SMOOTHING = 0.2;
+    /**
+     * Multiplicative decrease of the limit on a dropped request.
+     */
+    private static final double DROP_BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private volatile int inFlight;
+    private volatile double limit;
+    private volatile double longRttNanos;
+    private volatile double shortRttNanos;
+
+    AdaptiveConcurrencyLimit(final int initialLimit, final int minLimit, final int maxLimit) {
+        checkLimits(initialLimit, minLimit, maxLimit);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        limit = initialLimit;
+    }
+
+    static void checkLimits(final int initialLimit, final int minLimit, final int maxLimit) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("initialLimit: " + initialLimit + ", minLimit: " + minLimit +
+                    ", maxLimit: " + maxLimit + " (expected 0 < minLimit <= initialLimit <= maxLimit)");
+        }
+    }
+
+    /**
+     * Tries to start a new request.
+     *
+     * @return {@code true} if the request can proceed, in which case exactly one of {@link #onSample(long)},
+     * {@link #onDrop()} or {@link #onIgnore()} must be invoked when it terminates.
+     */
+    boolean tryAcquire() {
+        for (;;) {
+            final int current = inFlight;
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlightUpdater.compareAndSet(this, current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a request which completed and adapts the limit to its round trip time.
+     *
+     * @param rttNanos the round trip time of the request in nanoseconds.
+     */
+    void onSample(final long rttNanos) {
+        final int inFlight = inFlightUpdater.getAndDecrement(this);
+        double longRtt = longRttNanos;
+        double shortRtt = shortRttNanos;
+        if (longRtt == 0) {
+            longRtt = shortRtt = rttNanos;
+        } else {
+            longRtt += (rttNanos - longRtt) * LONG_RTT_ALPHA;
+            shortRtt += (rttNanos - shortRtt) * SHORT_RTT_ALPHA;
+        }
+        if (longRtt > shortRtt * 2) {
+            // Latency dropped a lot (e.g. the overload ended): let the long term average catch up quickly.
+            longRtt = shortRtt * 2;
+        }
+        longRttNanos = longRtt;
+        shortRttNanos = shortRtt;
+
+        final double limit = this.limit;
+        if (inFlight < limit / 2) {
+            // The limit is not what constrains the throughput, don't let it grow unboundedly while idle.
+            return;
+        }
+        final double gradient = max(MIN_GRADIENT, min(1, RTT_TOLERANCE * longRtt / shortRtt));
+        final double newLimit = limit * gradient + sqrt(limit);
+        this.limit = clamp(limit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+    }
+
+    /**
+     * Releases a request which failed, which is considered a sign of overload.
+     */
+    void onDrop() {
+        inFlightUpdater.decrementAndGet(this);
+        limit = clamp(limit * DROP_BACKOFF_RATIO);
+    }
+
+    /**
+     * Releases a request without adapting the limit, for example when it was cancelled.
+     */
+    void onIgnore() {
+        inFlightUpdater.decrementAndGet(this);
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    int inFlight() {
+        return inFlight;
+    }
+
+    private double clamp(final double limit) {
+        return min(maxLimit, max(minLimit, limit));
+    }
+
+    @Override
+    public String toString() {
+        return AdaptiveConcurrencyLimit.class.getSimpleName() + "{limit=" + limit + ", inFlight=" + inFlight +
+                ", longRttNanos=" + longRttNanos + ", shortRttNanos=" + shortRttNanos + '}';
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.client.api.MaxRequestLimitExceededException;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TerminalSignalConsumer;
+import io.servicetalk.http.api.FilterableStreamingHttpClient;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.HttpServiceContext;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpResponseFactory;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.http.api.StreamingHttpServiceFilter;
+import io.servicetalk.http.api.StreamingHttpServiceFilterFactory;
+
+import java.util.function.Function;
+
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.http.api.HttpResponseStatus.StatusClass.SERVER_ERROR_5XX;
+import static io.servicetalk.http.utils.AdaptiveConcurrencyLimit.checkLimits;
+import static java.lang.System.nanoTime;
+
+/**
+ * A filter which limits the number of concurrent requests to a limit that adapts to the observed latency.
+ * <p>
+ * The limit grows while the round trip time of requests stays stable and shrinks when it increases, which indicates
+ * that requests are queueing instead of being processed. Failed requests and responses with a
+ * {@link io.servicetalk.http.api.HttpResponseStatus.StatusClass#SERVER_ERROR_5XX 5xx} status are considered a sign of
+ * overload and shrink the limit. This allows to shed load early, before the queueing latency is visible to all
+ * requests, without having to configure a static limit that is tuned for a particular deployment.
+ * <p>
+ * A request counts against the limit until its response payload terminates. Requests which exceed the limit are
+ * rejected:
+ * <ul>
+ *     <li>on the client side with a {@link MaxRequestLimitExceededException},</li>
+ *     <li>on the server side with a {@link StreamingHttpResponseFactory#serviceUnavailable() 503} response.</li>
+ * </ul>
+ * Every {@link StreamingHttpClientFilter} or {@link StreamingHttpServiceFilter} created by this factory has its own
+ * limit.
+ */
+public final class AdaptiveConcurrencyLimitingFilter implements StreamingHttpClientFilterFactory,
+                                                                StreamingHttpServiceFilterFactory,
+                                                                HttpExecutionStrategyInfluencer {
+    private static final int DEFAULT_INITIAL_LIMIT = 20;
+    private static final int DEFAULT_MIN_LIMIT = 1;
+    private static final int DEFAULT_MAX_LIMIT = 1000;
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+
+    /**
+     * Creates a new instance with default limits.
+     */
+    public AdaptiveConcurrencyLimitingFilter() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param initialLimit the concurrency limit to start with.
+     * @param minLimit the minimum value of the concurrency limit, must be positive.
+     * @param maxLimit the maximum value of the concurrency limit.
+     * @throws IllegalArgumentException if {@code 0 < minLimit <= initialLimit <= maxLimit} does not hold.
+     */
+    public AdaptiveConcurrencyLimitingFilter(final int initialLimit, final int minLimit, final int maxLimit) {
+        checkLimits(initialLimit, minLimit, maxLimit);
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    @Override
+    public StreamingHttpClientFilter create(final FilterableStreamingHttpClient client) {
+        final AdaptiveConcurrencyLimit limit = newLimit();
+        return new StreamingHttpClientFilter(client) {
+            @Override
+            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                            final HttpExecutionStrategy strategy,
+                                                            final StreamingHttpRequest request) {
+                return defer(() -> {
+                    if (!limit.tryAcquire()) {
+                        return failed(new MaxRequestLimitExceededException(
+                                "Adaptive concurrency limit exceeded: " + limit));
+                    }
+                    return track(limit, tracker -> delegate.request(strategy, request).map(tracker::onResponse));
+                });
+            }
+        };
+    }
+
+    @Override
+    public StreamingHttpServiceFilter create(final StreamingHttpService service) {
+        final AdaptiveConcurrencyLimit limit = newLimit();
+        return new StreamingHttpServiceFilter(service) {
+            @Override
+            public Single<StreamingHttpResponse> handle(final HttpServiceContext ctx,
+                                                        final StreamingHttpRequest request,
+                                                        final StreamingHttpResponseFactory responseFactory) {
+                return defer(() -> {
+                    if (!limit.tryAcquire()) {
+                        return succeeded(responseFactory.serviceUnavailable());
+                    }
+                    return track(limit, tracker -> delegate().handle(ctx, request, responseFactory)
+                            .map(tracker::onResponse));
+                });
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+
+    private AdaptiveConcurrencyLimit newLimit() {
+        return new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit);
+    }
+
+    private static Single<StreamingHttpResponse> track(
+            final AdaptiveConcurrencyLimit limit,
+            final Function<RequestTracker, Single<StreamingHttpResponse>> responseFunction) {
+        final RequestTracker tracker = new RequestTracker(limit);
+        final Single<StreamingHttpResponse> response;
+        try {
+            response = responseFunction.apply(tracker);
+        } catch (Throwable cause) {
+            limit.onDrop();
+            return failed(cause);
+        }
+        return response.liftSync(new BeforeFinallyOnHttpResponseOperator(tracker));
+    }
+
+    private static final class RequestTracker implements TerminalSignalConsumer {
+        private final AdaptiveConcurrencyLimit limit;
+        private final long startNanos = nanoTime();
+        private long rttNanos = -1;
+        private boolean dropped;
+
+        RequestTracker(final AdaptiveConcurrencyLimit limit) {
+            this.limit = limit;
+        }
+
+        StreamingHttpResponse onResponse(final StreamingHttpResponse response) {
+            // The latency is sampled when the response meta-data is received, the payload is not necessarily bound by
+            // the capacity of the peer (e.g. streaming responses) but the request still counts against the limit.
+            rttNanos = nanoTime() - startNanos;
+            dropped = response.status().statusClass() == SERVER_ERROR_5XX;
+            return response;
+        }
+
+        @Override
+        public void onComplete() {
+            if (dropped || rttNanos < 0) {
+                limit.onDrop();
+            } else {
+                limit.onSample(rttNanos);
+            }
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            limit.onDrop();
+        }
+
+        @Override
+        public void onCancel() {
+            limit.onIgnore();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.client.api.CircuitBreaker;
+import io.servicetalk.client.api.CircuitBreaker.Permit;
+import io.servicetalk.client.api.CircuitBreakerOpenException;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.FilterableStreamingHttpClient;
+import io.servicetalk.http.api.FilterableStreamingHttpConnection;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.HttpResponseMetaData;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpConnectionFilter;
+import io.servicetalk.http.api.StreamingHttpConnectionFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import java.util.function.Predicate;
+
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.internal.ThrowableUtil.unknownStackTrace;
+import static io.servicetalk.http.api.HttpResponseStatus.StatusClass.SERVER_ERROR_5XX;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A filter which rejects requests with a {@link CircuitBreakerOpenException} while a {@link CircuitBreaker} is open.
+ * This keeps connections and event loops free when a dependency is down, instead of every request waiting for its
+ * timeout.
+ * <p>
+ * A request fails if it terminates with an error or if its response meta-data matches a {@link Predicate}, by default
+ * a {@link HttpResponseMetaData#status() status} of class
+ * {@link io.servicetalk.http.api.HttpResponseStatus.StatusClass#SERVER_ERROR_5XX 5xx}.
+ * A request is slow if its response meta-data takes longer than
+ * {@link CircuitBreaker.Builder#slowCallDuration(java.time.Duration) slowCallDuration}.
+ * <p>
+ * Every {@link StreamingHttpClientFilter} or {@link StreamingHttpConnectionFilter} created by this factory has its
+ * own {@link CircuitBreaker}.
+ */
+public final class CircuitBreakerHttpRequesterFilter implements StreamingHttpClientFilterFactory,
+                                                                StreamingHttpConnectionFilterFactory,
+                                                                HttpExecutionStrategyInfluencer {
+
+    private static final CircuitBreakerOpenException CIRCUIT_OPEN = unknownStackTrace(
+            new CircuitBreakerOpenException("Circuit breaker is open"), CircuitBreakerHttpRequesterFilter.class,
+            "request(...)");
+
+    private final CircuitBreaker.Builder circuitBreakerBuilder;
+    private final Predicate<HttpResponseMetaData> failureFor;
+
+    /**
+     * Create a new instance which considers responses with a
+     * {@link io.servicetalk.http.api.HttpResponseStatus.StatusClass#SERVER_ERROR_5XX 5xx} status as failures.
+     *
+     * @param circuitBreakerBuilder builds a {@link CircuitBreaker} for each client or connection, it must not be
+     * modified after this filter is created.
+     */
+    public CircuitBreakerHttpRequesterFilter(final CircuitBreaker.Builder circuitBreakerBuilder) {
+        this(circuitBreakerBuilder, response -> response.status().statusClass() == SERVER_ERROR_5XX);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param circuitBreakerBuilder builds a {@link CircuitBreaker} for each client or connection, it must not be
+     * modified after this filter is created.
+     * @param failureFor returns {@code true} for response meta-data which indicates a failure.
+     */
+    public CircuitBreakerHttpRequesterFilter(final CircuitBreaker.Builder circuitBreakerBuilder,
+                                             final Predicate<HttpResponseMetaData> failureFor) {
+        this.circuitBreakerBuilder = requireNonNull(circuitBreakerBuilder);
+        this.failureFor = requireNonNull(failureFor);
+    }
+
+    private Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                  final HttpExecutionStrategy strategy,
+                                                  final StreamingHttpRequest request,
+                                                  final CircuitBreaker circuitBreaker) {
+        return defer(() -> {
+            final Permit permit = circuitBreaker.tryAcquire();
+            if (permit == null) {
+                return failed(CIRCUIT_OPEN);
+            }
+            return delegate.request(strategy, request)
+                    .beforeOnSuccess(response -> {
+                        if (failureFor.test(response)) {
+                            permit.onFailure();
+                        } else {
+                            permit.onSuccess();
+                        }
+                    })
+                    .beforeOnError(__ -> permit.onFailure())
+                    .beforeCancel(permit::onCancel);
+        });
+    }
+
+    @Override
+    public StreamingHttpClientFilter create(final FilterableStreamingHttpClient client) {
+        return new StreamingHttpClientFilter(client) {
+
+            private final CircuitBreaker circuitBreaker = circuitBreakerBuilder.build();
+
+            @Override
+            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                            final HttpExecutionStrategy strategy,
+                                                            final StreamingHttpRequest request) {
+                return CircuitBreakerHttpRequesterFilter.this.request(delegate, strategy, request, circuitBreaker);
+            }
+        };
+    }
+
+    @Override
+    public StreamingHttpConnectionFilter create(final FilterableStreamingHttpConnection connection) {
+        return new StreamingHttpConnectionFilter(connection) {
+
+            private final CircuitBreaker circuitBreaker = circuitBreakerBuilder.build();
+
+            @Override
+            public Single<StreamingHttpResponse> request(final HttpExecutionStrategy strategy,
+                                                         final StreamingHttpRequest request) {
+                return CircuitBreakerHttpRequesterFilter.this.request(delegate(), strategy, request,
+                        circuitBreaker);
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+}
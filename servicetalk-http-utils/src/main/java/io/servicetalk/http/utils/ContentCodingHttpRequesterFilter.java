@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.FilterableStreamingHttpClient;
+import io.servicetalk.http.api.FilterableStreamingHttpConnection;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpConnectionFilter;
+import io.servicetalk.http.api.StreamingHttpConnectionFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import static io.servicetalk.http.api.CharSequences.newAsciiString;
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT_ENCODING;
+import static io.servicetalk.http.utils.ContentCodingUtils.DEFAULT_MAX_DECODED_SIZE;
+import static io.servicetalk.http.utils.ContentCodingUtils.DEFAULT_MIN_COMPRESSION_SIZE;
+import static io.servicetalk.http.utils.ContentCodingUtils.checkMaxDecodedSize;
+import static io.servicetalk.http.utils.ContentCodingUtils.contentCoding;
+import static io.servicetalk.http.utils.ContentCodingUtils.decode;
+import static io.servicetalk.http.utils.ContentCodingUtils.encode;
+import static io.servicetalk.http.utils.ContentCodingUtils.hasPayloadBody;
+import static io.servicetalk.http.utils.ContentCodingUtils.isCompressible;
+import static io.servicetalk.http.utils.ZipContentCoding.GZIP_CODING;
+
+/**
+ * A filter which supports the {@code gzip} and {@code deflate} content-codings on the client side.
+ * <p>
+ * Requests advertise the supported content-codings with an {@code Accept-Encoding} header, unless they already have
+ * one, and responses with a supported {@code Content-Encoding} are decoded transparently. Requests are optionally
+ * compressed with {@code gzip}, which requires prior knowledge that the server supports it. Payloads are encoded and
+ * decoded chunk by chunk as they are streamed, they are never aggregated.
+ * <p>
+ * A small encoded response may decode to an arbitrary amount of data, so the size of decoded responses is limited
+ * (16MiB by default). The payload of a response which exceeds the limit fails with an
+ * {@link InvalidContentEncodingException}.
+ */
+public final class ContentCodingHttpRequesterFilter implements StreamingHttpClientFilterFactory,
+                                                               StreamingHttpConnectionFilterFactory,
+                                                               HttpExecutionStrategyInfluencer {
+    private static final CharSequence SUPPORTED_ENCODINGS = newAsciiString("gzip, deflate");
+
+    private final boolean compressRequests;
+    private final long maxDecodedResponseSize;
+
+    /**
+     * Creates a new instance which limits decoded responses to 16MiB and does not compress requests.
+     */
+    public ContentCodingHttpRequesterFilter() {
+        this(false);
+    }
+
+    /**
+     * Creates a new instance which limits decoded responses to 16MiB.
+     *
+     * @param compressRequests {@code true} to compress requests with {@code gzip}, unless they have no payload body,
+     * are already encoded, have a media type which is compressed already or have a {@code Content-Length} smaller than
+     * 1KiB.
+     */
+    public ContentCodingHttpRequesterFilter(final boolean compressRequests) {
+        this(compressRequests, DEFAULT_MAX_DECODED_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param compressRequests {@code true} to compress requests with {@code gzip}, unless they have no payload body,
+     * are already encoded, have a media type which is compressed already or have a {@code Content-Length} smaller than
+     * 1KiB.
+     * @param maxDecodedResponseSize the maximum number of bytes an encoded response payload may decode to. The payload
+     * of a response which exceeds the limit fails with an {@link InvalidContentEncodingException}.
+     */
+    public ContentCodingHttpRequesterFilter(final boolean compressRequests, final long maxDecodedResponseSize) {
+        this.compressRequests = compressRequests;
+        this.maxDecodedResponseSize = checkMaxDecodedSize(maxDecodedResponseSize);
+    }
+
+    private Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                  final HttpExecutionStrategy strategy,
+                                                  StreamingHttpRequest request) {
+        final BufferAllocator allocator = delegate.executionContext().bufferAllocator();
+        if (!request.headers().contains(ACCEPT_ENCODING)) {
+            request.headers().set(ACCEPT_ENCODING, SUPPORTED_ENCODINGS);
+        }
+        if (compressRequests && hasPayloadBody(request) &&
+                isCompressible(request.headers(), DEFAULT_MIN_COMPRESSION_SIZE)) {
+            request = encode(request, GZIP_CODING, allocator);
+        }
+        return delegate.request(strategy, request).map(response -> {
+            final ZipContentCoding coding = contentCoding(response.headers());
+            return coding == null ? response : decode(response, coding, allocator, maxDecodedResponseSize);
+        });
+    }
+
+    @Override
+    public StreamingHttpClientFilter create(final FilterableStreamingHttpClient client) {
+        return new StreamingHttpClientFilter(client) {
+            @Override
+            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                            final HttpExecutionStrategy strategy,
+                                                            final StreamingHttpRequest request) {
+                return ContentCodingHttpRequesterFilter.this.request(delegate, strategy, request);
+            }
+        };
+    }
+
+    @Override
+    public StreamingHttpConnectionFilter create(final FilterableStreamingHttpConnection connection) {
+        return new StreamingHttpConnectionFilter(connection) {
+            @Override
+            public Single<StreamingHttpResponse> request(final HttpExecutionStrategy strategy,
+                                                         final StreamingHttpRequest request) {
+                return ContentCodingHttpRequesterFilter.this.request(delegate(), strategy, request);
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.HttpResponseStatus;
+import io.servicetalk.http.api.HttpServiceContext;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpResponseFactory;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.http.api.StreamingHttpServiceFilter;
+import io.servicetalk.http.api.StreamingHttpServiceFilterFactory;
+
+import javax.annotation.Nullable;
+
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.VARY;
+import static io.servicetalk.http.api.HttpRequestMethod.HEAD;
+import static io.servicetalk.http.api.HttpResponseStatus.NOT_MODIFIED;
+import static io.servicetalk.http.api.HttpResponseStatus.NO_CONTENT;
+import static io.servicetalk.http.api.HttpResponseStatus.StatusClass.INFORMATIONAL_1XX;
+import static io.servicetalk.http.utils.ContentCodingUtils.DEFAULT_MAX_DECODED_SIZE;
+import static io.servicetalk.http.utils.ContentCodingUtils.DEFAULT_MIN_COMPRESSION_SIZE;
+import static io.servicetalk.http.utils.ContentCodingUtils.checkMaxDecodedSize;
+import static io.servicetalk.http.utils.ContentCodingUtils.contentCoding;
+import static io.servicetalk.http.utils.ContentCodingUtils.decode;
+import static io.servicetalk.http.utils.ContentCodingUtils.encode;
+import static io.servicetalk.http.utils.ContentCodingUtils.isCompressible;
+import static io.servicetalk.http.utils.ContentCodingUtils.negotiate;
+
+/**
+ * A filter which supports the {@code gzip} and {@code deflate} content-codings on the server side.
+ * <p>
+ * Requests with a supported {@code Content-Encoding} are decoded before they reach the service. Responses are encoded
+ * with the content-coding preferred by the {@code Accept-Encoding} header of the request, unless they are already
+ * encoded, have a media type which is compressed already (e.g. images) or have a {@code Content-Length} smaller than
+ * the configured minimum. Payloads are encoded and decoded chunk by chunk as they are streamed, they are never
+ * aggregated.
+ * <p>
+ * A small encoded request may decode to an arbitrary amount of data, so the size of decoded requests is limited
+ * (16MiB by default). The payload of a request which exceeds the limit fails with an
+ * {@link InvalidContentEncodingException}.
+ */
+public final class ContentCodingHttpServiceFilter implements StreamingHttpServiceFilterFactory,
+                                                             HttpExecutionStrategyInfluencer {
+    private final int minCompressionSize;
+    private final long maxDecodedRequestSize;
+
+    /**
+     * Creates a new instance which does not compress responses with a {@code Content-Length} smaller than 1KiB and
+     * limits decoded requests to 16MiB.
+     */
+    public ContentCodingHttpServiceFilter() {
+        this(DEFAULT_MIN_COMPRESSION_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param minCompressionSize responses with a {@code Content-Length} smaller than this value are not compressed.
+     * Responses without a {@code Content-Length} are always considered for compression.
+     */
+    public ContentCodingHttpServiceFilter(final int minCompressionSize) {
+        this(minCompressionSize, DEFAULT_MAX_DECODED_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param minCompressionSize responses with a {@code Content-Length} smaller than this value are not compressed.
+     * Responses without a {@code Content-Length} are always considered for compression.
+     * @param maxDecodedRequestSize the maximum number of bytes an encoded request payload may decode to.
+     */
+    public ContentCodingHttpServiceFilter(final int minCompressionSize, final long maxDecodedRequestSize) {
+        if (minCompressionSize < 0) {
+            throw new IllegalArgumentException("minCompressionSize: " + minCompressionSize + " (expected >= 0)");
+        }
+        this.minCompressionSize = minCompressionSize;
+        this.maxDecodedRequestSize = checkMaxDecodedSize(maxDecodedRequestSize);
+    }
+
+    @Override
+    public StreamingHttpServiceFilter create(final StreamingHttpService service) {
+        return new StreamingHttpServiceFilter(service) {
+            @Override
+            public Single<StreamingHttpResponse> handle(final HttpServiceContext ctx,
+                                                        final StreamingHttpRequest request,
+                                                        final StreamingHttpResponseFactory responseFactory) {
+                final BufferAllocator allocator = ctx.executionContext().bufferAllocator();
+                final ZipContentCoding requestCoding = contentCoding(request.headers());
+                final ZipContentCoding responseCoding = HEAD.equals(request.method()) ? null :
+                        negotiate(request.headers());
+                return delegate().handle(ctx, requestCoding == null ? request :
+                        decode(request, requestCoding, allocator, maxDecodedRequestSize), responseFactory)
+                        .map(response -> encodeResponse(response, responseCoding, allocator));
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+
+    private StreamingHttpResponse encodeResponse(final StreamingHttpResponse response,
+                                                 @Nullable final ZipContentCoding coding,
+                                                 final BufferAllocator allocator) {
+        final HttpResponseStatus status = response.status();
+        if (status.statusClass() == INFORMATIONAL_1XX || status.code() == NO_CONTENT.code() ||
+                status.code() == NOT_MODIFIED.code()) {
+            return response;
+        }
+        final HttpHeaders headers = response.headers();
+        if (!isCompressible(headers, minCompressionSize)) {
+            return response;
+        }
+        // Caches must not serve the response to clients which negotiate a different content-coding.
+        if (!headers.containsIgnoreCase(VARY, ACCEPT_ENCODING)) {
+            headers.add(VARY, ACCEPT_ENCODING);
+        }
+        return coding == null ? response : encode(response, coding, allocator);
+    }
+}
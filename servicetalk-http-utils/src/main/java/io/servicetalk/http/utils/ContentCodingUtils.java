@@ -0,0 +1,246 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.HttpMetaData;
+import io.servicetalk.http.api.HttpRequestMetaData;
+import io.servicetalk.http.api.HttpRequestMethod;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import javax.annotation.Nullable;
+
+import static io.servicetalk.http.api.CharSequences.contentEqualsIgnoreCase;
+import static io.servicetalk.http.api.CharSequences.regionMatches;
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
+import static io.servicetalk.http.api.HttpHeaderNames.TRANSFER_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderValues.DEFLATE;
+import static io.servicetalk.http.api.HttpHeaderValues.GZIP;
+import static io.servicetalk.http.api.HttpHeaderValues.IDENTITY;
+import static io.servicetalk.http.api.HttpRequestMethod.CONNECT;
+import static io.servicetalk.http.api.HttpRequestMethod.DELETE;
+import static io.servicetalk.http.api.HttpRequestMethod.GET;
+import static io.servicetalk.http.api.HttpRequestMethod.HEAD;
+import static io.servicetalk.http.api.HttpRequestMethod.OPTIONS;
+import static io.servicetalk.http.api.HttpRequestMethod.TRACE;
+import static io.servicetalk.http.utils.ZipContentCoding.DEFLATE_CODING;
+import static io.servicetalk.http.utils.ZipContentCoding.GZIP_CODING;
+
+final class ContentCodingUtils {
+    static final int DEFAULT_MIN_COMPRESSION_SIZE = 1024;
+    static final long DEFAULT_MAX_DECODED_SIZE = 16 * 1024 * 1024;
+
+    private static final String X_GZIP = "x-gzip";
+    /**
+     * Media types which are compressed already, compressing them again wastes CPU for no size gain.
+     */
+    private static final String[] COMPRESSED_MEDIA_TYPE_PREFIXES = {
+            "image/", "video/", "audio/", "application/zip", "application/gzip", "application/x-gzip",
+            "application/x-bzip2", "application/x-7z-compressed", "application/x-rar-compressed", "application/zstd",
+            "font/woff"
+    };
+    private static final String SVG_MEDIA_TYPE = "image/svg+xml";
+
+    private ContentCodingUtils() {
+        // no instances
+    }
+
+    /**
+     * Selects the preferred supported content-coding from the {@code Accept-Encoding} headers.
+     *
+     * @param headers the {@link HttpHeaders} to inspect.
+     * @return the preferred supported content-coding, or {@code null} if the payload should not be encoded.
+     */
+    @Nullable
+    static ZipContentCoding negotiate(final HttpHeaders headers) {
+        float gzipQ = -1;
+        float deflateQ = -1;
+        float wildcardQ = -1;
+        for (CharSequence value : headers.values(ACCEPT_ENCODING)) {
+            final String header = value.toString();
+            int start = 0;
+            while (start < header.length()) {
+                int end = header.indexOf(',', start);
+                if (end < 0) {
+                    end = header.length();
+                }
+                final int paramsStart = header.indexOf(';', start);
+                final String coding = header.substring(start, paramsStart < 0 || paramsStart > end ? end : paramsStart)
+                        .trim();
+                final float q = paramsStart < 0 || paramsStart > end ? 1 : qValue(header, paramsStart, end);
+                if (GZIP.toString().equalsIgnoreCase(coding) || X_GZIP.equalsIgnoreCase(coding)) {
+                    gzipQ = Math.max(gzipQ, q);
+                } else if (DEFLATE.toString().equalsIgnoreCase(coding)) {
+                    deflateQ = Math.max(deflateQ, q);
+                } else if ("*".equals(coding)) {
+                    wildcardQ = q;
+                }
+                start = end + 1;
+            }
+        }
+        if (gzipQ < 0) {
+            gzipQ = wildcardQ;
+        }
+        if (deflateQ < 0) {
+            deflateQ = wildcardQ;
+        }
+        if (gzipQ <= 0 && deflateQ <= 0) {
+            return null;
+        }
+        return gzipQ >= deflateQ ? GZIP_CODING : DEFLATE_CODING;
+    }
+
+    /**
+     * Returns the supported content-coding of a payload.
+     *
+     * @param headers the {@link HttpHeaders} of the payload.
+     * @return the content-coding of the payload, or {@code null} if the payload is not encoded or encoded with an
+     * unsupported content-coding.
+     */
+    @Nullable
+    static ZipContentCoding contentCoding(final HttpHeaders headers) {
+        final CharSequence contentEncoding = headers.get(CONTENT_ENCODING);
+        if (contentEncoding == null) {
+            return null;
+        }
+        if (contentEqualsIgnoreCase(contentEncoding, GZIP) || contentEqualsIgnoreCase(contentEncoding, X_GZIP)) {
+            return GZIP_CODING;
+        }
+        if (contentEqualsIgnoreCase(contentEncoding, DEFLATE)) {
+            return DEFLATE_CODING;
+        }
+        return null;
+    }
+
+    /**
+     * Determines if compressing a payload is worth it.
+     *
+     * @param headers the {@link HttpHeaders} of the payload.
+     * @param minCompressionSize the minimum {@code Content-Length} to compress.
+     * @return {@code true} if the payload is not encoded yet, is not small and has a compressible media type.
+     */
+    static boolean isCompressible(final HttpHeaders headers, final int minCompressionSize) {
+        final CharSequence contentEncoding = headers.get(CONTENT_ENCODING);
+        if (contentEncoding != null && !contentEqualsIgnoreCase(contentEncoding, IDENTITY)) {
+            return false;
+        }
+        final CharSequence contentLength = headers.get(CONTENT_LENGTH);
+        if (contentLength != null) {
+            try {
+                if (Long.parseLong(contentLength.toString()) < minCompressionSize) {
+                    return false;
+                }
+            } catch (NumberFormatException ignored) {
+                return false;
+            }
+        }
+        final CharSequence contentType = headers.get(CONTENT_TYPE);
+        if (contentType != null) {
+            if (regionMatches(contentType, true, 0, SVG_MEDIA_TYPE, 0, SVG_MEDIA_TYPE.length())) {
+                return true;
+            }
+            for (String prefix : COMPRESSED_MEDIA_TYPE_PREFIXES) {
+                if (regionMatches(contentType, true, 0, prefix, 0, prefix.length())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines if a request has a payload body worth considering for compression. Without content headers, a request
+     * is assumed to have no payload body if its method does not define semantics for one.
+     *
+     * @param request the {@link HttpRequestMetaData} to inspect.
+     * @return {@code true} if the request has a payload body.
+     */
+    static boolean hasPayloadBody(final HttpRequestMetaData request) {
+        if (request.headers().contains(CONTENT_LENGTH) || request.headers().contains(TRANSFER_ENCODING)) {
+            return true;
+        }
+        final HttpRequestMethod method = request.method();
+        return !GET.equals(method) && !HEAD.equals(method) && !DELETE.equals(method) && !OPTIONS.equals(method) &&
+                !TRACE.equals(method) && !CONNECT.equals(method);
+    }
+
+    static StreamingHttpRequest encode(final StreamingHttpRequest request, final ZipContentCoding coding,
+                                       final BufferAllocator allocator) {
+        setEncodedHeaders(request, coding);
+        return request.transformPayloadBody(payload -> coding.encode(payload, allocator));
+    }
+
+    static StreamingHttpResponse encode(final StreamingHttpResponse response, final ZipContentCoding coding,
+                                        final BufferAllocator allocator) {
+        setEncodedHeaders(response, coding);
+        return response.transformPayloadBody(payload -> coding.encode(payload, allocator));
+    }
+
+    static StreamingHttpRequest decode(final StreamingHttpRequest request, final ZipContentCoding coding,
+                                       final BufferAllocator allocator, final long maxDecodedSize) {
+        setDecodedHeaders(request);
+        return request.transformPayloadBody(payload -> coding.decode(payload, allocator, maxDecodedSize));
+    }
+
+    static StreamingHttpResponse decode(final StreamingHttpResponse response, final ZipContentCoding coding,
+                                        final BufferAllocator allocator, final long maxDecodedSize) {
+        setDecodedHeaders(response);
+        return response.transformPayloadBody(payload -> coding.decode(payload, allocator, maxDecodedSize));
+    }
+
+    static long checkMaxDecodedSize(final long maxDecodedSize) {
+        if (maxDecodedSize <= 0) {
+            throw new IllegalArgumentException("maxDecodedSize: " + maxDecodedSize + " (expected >0)");
+        }
+        return maxDecodedSize;
+    }
+
+    private static void setEncodedHeaders(final HttpMetaData metaData, final ZipContentCoding coding) {
+        // The length of the encoded payload is unknown upfront.
+        metaData.headers().remove(CONTENT_LENGTH);
+        metaData.headers().set(CONTENT_ENCODING, coding.name());
+    }
+
+    private static void setDecodedHeaders(final HttpMetaData metaData) {
+        metaData.headers().remove(CONTENT_LENGTH);
+        metaData.headers().remove(CONTENT_ENCODING);
+    }
+
+    private static float qValue(final String header, final int paramsStart, final int end) {
+        int index = paramsStart + 1;
+        while (index < end) {
+            int paramEnd = header.indexOf(';', index);
+            if (paramEnd < 0 || paramEnd > end) {
+                paramEnd = end;
+            }
+            final String param = header.substring(index, paramEnd).trim();
+            if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                try {
+                    return Float.parseFloat(param.substring(2));
+                } catch (NumberFormatException ignored) {
+                    return 0;
+                }
+            }
+            index = paramEnd + 1;
+        }
+        return 1;
+    }
+}
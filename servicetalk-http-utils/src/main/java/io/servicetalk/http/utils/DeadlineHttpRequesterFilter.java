@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.FilterableStreamingHttpClient;
+import io.servicetalk.http.api.FilterableStreamingHttpConnection;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.RequestDeadlines;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpConnectionFilter;
+import io.servicetalk.http.api.StreamingHttpConnectionFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.http.api.RequestDeadlines.DEADLINE_HEADER;
+import static java.lang.Math.max;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A filter which propagates the deadline of the current request to the next hop.
+ * <p>
+ * If a deadline is set via {@link RequestDeadlines}, the time remaining until the deadline is sent in the
+ * {@link RequestDeadlines#DEADLINE_HEADER} header and the response is expected within that time. Requests are not
+ * sent at all once the deadline has passed. Requests without a deadline pass through unchanged.
+ *
+ * @see DeadlineHttpServiceFilter
+ */
+public final class DeadlineHttpRequesterFilter implements StreamingHttpClientFilterFactory,
+                                                          StreamingHttpConnectionFilterFactory,
+                                                          HttpExecutionStrategyInfluencer {
+    @Nullable
+    private final Executor timeoutExecutor;
+
+    /**
+     * Creates a new instance.
+     */
+    public DeadlineHttpRequesterFilter() {
+        this.timeoutExecutor = null;
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param timeoutExecutor the {@link Executor} to use for managing the timer notifications
+     */
+    public DeadlineHttpRequesterFilter(final Executor timeoutExecutor) {
+        this.timeoutExecutor = requireNonNull(timeoutExecutor);
+    }
+
+    private Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                  final HttpExecutionStrategy strategy,
+                                                  final StreamingHttpRequest request) {
+        // Defer so the remaining time is re-evaluated if the request is retried.
+        return defer(() -> {
+            final Duration remaining = RequestDeadlines.remaining();
+            if (remaining == null) {
+                return delegate.request(strategy, request);
+            }
+            if (remaining.isZero()) {
+                return failed(new TimeoutException("deadline exceeded before the request was sent"));
+            }
+            // Round up so that a small remaining time is not sent as an already expired deadline.
+            request.headers().set(DEADLINE_HEADER, Long.toString(max(1, remaining.toMillis())));
+            return timeoutExecutor != null ?
+                    delegate.request(strategy, request).idleTimeout(remaining, timeoutExecutor) :
+                    delegate.request(strategy, request).idleTimeout(remaining);
+        });
+    }
+
+    @Override
+    public StreamingHttpClientFilter create(final FilterableStreamingHttpClient client) {
+        return new StreamingHttpClientFilter(client) {
+            @Override
+            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                            final HttpExecutionStrategy strategy,
+                                                            final StreamingHttpRequest request) {
+                return DeadlineHttpRequesterFilter.this.request(delegate, strategy, request);
+            }
+        };
+    }
+
+    @Override
+    public StreamingHttpConnectionFilter create(final FilterableStreamingHttpConnection connection) {
+        return new StreamingHttpConnectionFilter(connection) {
+            @Override
+            public Single<StreamingHttpResponse> request(final HttpExecutionStrategy strategy,
+                                                         final StreamingHttpRequest request) {
+                return DeadlineHttpRequesterFilter.this.request(delegate(), strategy, request);
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+}
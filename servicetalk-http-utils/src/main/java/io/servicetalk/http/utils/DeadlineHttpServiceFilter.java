@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.HttpServiceContext;
+import io.servicetalk.http.api.RequestDeadlines;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpResponseFactory;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.http.api.StreamingHttpServiceFilter;
+import io.servicetalk.http.api.StreamingHttpServiceFilterFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.http.api.RequestDeadlines.DEADLINE_HEADER;
+import static io.servicetalk.http.api.RequestDeadlines.parseDeadlineHeader;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A filter which honours the deadline propagated by the caller of a request.
+ * <p>
+ * The time remaining until the deadline is read from the {@link RequestDeadlines#DEADLINE_HEADER} header and stored
+ * via {@link RequestDeadlines#deadline(Duration)}, so that requests made while processing this request (e.g. by a
+ * {@link DeadlineHttpRequesterFilter}) inherit the deadline. If no response has been produced by the deadline, the
+ * service is cancelled and a {@code 504 Gateway Timeout} response is returned, since the caller has already given up.
+ * Requests which arrive after their deadline has passed are not passed to the service at all.
+ *
+ * @see DeadlineHttpRequesterFilter
+ */
+public final class DeadlineHttpServiceFilter implements StreamingHttpServiceFilterFactory,
+                                                        HttpExecutionStrategyInfluencer {
+    @Nullable
+    private final Executor timeoutExecutor;
+
+    /**
+     * Creates a new instance.
+     */
+    public DeadlineHttpServiceFilter() {
+        this.timeoutExecutor = null;
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param timeoutExecutor the {@link Executor} to use for managing the timer notifications
+     */
+    public DeadlineHttpServiceFilter(final Executor timeoutExecutor) {
+        this.timeoutExecutor = requireNonNull(timeoutExecutor);
+    }
+
+    @Override
+    public StreamingHttpServiceFilter create(final StreamingHttpService service) {
+        return new StreamingHttpServiceFilter(service) {
+            @Override
+            public Single<StreamingHttpResponse> handle(final HttpServiceContext ctx,
+                                                        final StreamingHttpRequest request,
+                                                        final StreamingHttpResponseFactory responseFactory) {
+                final CharSequence value = request.headers().get(DEADLINE_HEADER);
+                final Duration timeout = value == null ? null : parseDeadlineHeader(value);
+                if (timeout == null) {
+                    return delegate().handle(ctx, request, responseFactory);
+                }
+                if (timeout.isZero()) {
+                    return succeeded(responseFactory.gatewayTimeout().version(request.version()));
+                }
+                RequestDeadlines.deadline(timeout);
+                final Single<StreamingHttpResponse> response = delegate().handle(ctx, request, responseFactory);
+                return (timeoutExecutor != null ? response.idleTimeout(timeout, timeoutExecutor) :
+                        response.idleTimeout(timeout))
+                        .recoverWith(cause -> cause instanceof TimeoutException ?
+                                succeeded(responseFactory.gatewayTimeout().version(request.version())) :
+                                failed(cause));
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.client.api.SelectionHistory;
+import io.servicetalk.concurrent.api.AsyncContext;
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.FilterableStreamingHttpClient;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.HttpRequestMetaData;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+
+import static io.servicetalk.client.api.SelectionHistory.SELECTION_HISTORY_KEY;
+import static io.servicetalk.concurrent.api.Single.defer;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A filter which sends a second copy of a request if no response arrived after a delay, and uses whichever response
+ * arrives first. The other attempt is cancelled. This trades a bounded amount of extra load for lower tail latency.
+ * <p>
+ * The delay follows a percentile of the latencies observed by this filter, so only requests which are already slower
+ * than most are hedged. The hedged copy is sent to a different host when the
+ * {@link io.servicetalk.client.api.LoadBalancer} supports {@link SelectionHistory}. The number of hedged requests is
+ * capped to a percentage of all hedgeable requests.
+ * <p>
+ * By default only requests with a <a href="https://tools.ietf.org/html/rfc7231#section-4.2.1">safe</a> method, which
+ * do not carry a payload body, are hedged. Requests selected by {@link Builder#hedgeFor(Predicate)} must have a
+ * {@link StreamingHttpRequest#payloadBody() payload body} that is replayable, i.e. multiple subscribes to the payload
+ * emit the same data, because each attempt subscribes to it. gRPC calls always use {@code POST}, to hedge idempotent
+ * gRPC methods append this filter with {@code GrpcClientBuilder#appendHttpClientFilter} and select the methods by
+ * {@link HttpRequestMetaData#path() path} with {@link Builder#hedgeFor(Predicate)}.
+ * <p>
+ * This filter only applies to clients, a hedged request on the same connection would not avoid a slow host.
+ */
+public final class HedgingHttpRequesterFilter implements StreamingHttpClientFilterFactory,
+                                                         HttpExecutionStrategyInfluencer {
+
+    private static final int TOKEN = 1000;
+    // Bounds the burst of hedges after a period of fast responses.
+    private static final int MAX_TOKENS = 10 * TOKEN;
+
+    private final Predicate<HttpRequestMetaData> hedgeFor;
+    private final double percentile;
+    private final long initialDelayNanos;
+    private final long minDelayNanos;
+    private final int tokensPerRequest;
+
+    private HedgingHttpRequesterFilter(final Builder builder) {
+        this.hedgeFor = builder.hedgeFor;
+        this.percentile = builder.percentile;
+        this.initialDelayNanos = builder.initialDelay.toNanos();
+        this.minDelayNanos = builder.minDelay.toNanos();
+        this.tokensPerRequest = builder.maxHedgePercent * TOKEN / 100;
+    }
+
+    @Override
+    public StreamingHttpClientFilter create(final FilterableStreamingHttpClient client) {
+        return new StreamingHttpClientFilter(client) {
+
+            private final Executor executor = client.executionContext().executor();
+            private final LatencyPercentile latency = new LatencyPercentile(percentile, initialDelayNanos);
+            private final AtomicLong tokens = new AtomicLong();
+
+            @Override
+            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                            final HttpExecutionStrategy strategy,
+                                                            final StreamingHttpRequest request) {
+                if (!hedgeFor.test(request)) {
+                    return delegate.request(strategy, request);
+                }
+                return defer(() -> {
+                    tokens.updateAndGet(current -> Math.min(MAX_TOKENS, current + tokensPerRequest));
+                    final SelectionHistory history = new SelectionHistory();
+                    final Single<StreamingHttpResponse> attempt = defer(() -> {
+                        AsyncContext.put(SELECTION_HISTORY_KEY, history);
+                        return delegate.request(strategy, request);
+                    });
+                    return new HedgingSingle(attempt,
+                            executor.timer(Math.max(minDelayNanos, latency.valueNanos()), NANOSECONDS),
+                            this::tryAcquireToken, latency::record);
+                });
+            }
+
+            private boolean tryAcquireToken() {
+                for (;;) {
+                    final long current = tokens.get();
+                    if (current < TOKEN) {
+                        return false;
+                    }
+                    if (tokens.compareAndSet(current, current - TOKEN)) {
+                        return true;
+                    }
+                }
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+
+    /**
+     * Tracks a percentile of the most recent latencies. The percentile is recomputed once per window of samples, so
+     * recording a latency is cheap and concurrent requests do not contend on a lock.
+     */
+    private static final class LatencyPercentile {
+        private static final int SAMPLES = 256;
+        private static final int RECOMPUTE_EVERY = 64;
+
+        private final AtomicLongArray samples = new AtomicLongArray(SAMPLES);
+        private final AtomicInteger recorded = new AtomicInteger();
+        private final double percentile;
+        private volatile long valueNanos;
+
+        LatencyPercentile(final double percentile, final long initialValueNanos) {
+            this.percentile = percentile;
+            this.valueNanos = initialValueNanos;
+        }
+
+        long valueNanos() {
+            return valueNanos;
+        }
+
+        void record(final long latencyNanos) {
+            final int index = recorded.getAndIncrement();
+            samples.set(index & (SAMPLES - 1), latencyNanos);
+            if (((index + 1) & (RECOMPUTE_EVERY - 1)) == 0) {
+                final int count = index >= 0 && index < SAMPLES ? index + 1 : SAMPLES;
+                final long[] sorted = new long[count];
+                for (int i = 0; i < count; ++i) {
+                    sorted[i] = samples.get(i);
+                }
+                Arrays.sort(sorted);
+                valueNanos = sorted[Math.min(count - 1, (int) (count * percentile / 100))];
+            }
+        }
+    }
+
+    /**
+     * A builder for {@link HedgingHttpRequesterFilter}.
+     */
+    public static final class Builder {
+
+        private Predicate<HttpRequestMetaData> hedgeFor = meta -> meta.method().properties().isSafe();
+        private double percentile = 95;
+        private Duration initialDelay = Duration.ofMillis(100);
+        private Duration minDelay = Duration.ofMillis(1);
+        private int maxHedgePercent = 10;
+
+        /**
+         * Sets the {@link Predicate} which selects the requests that may be hedged. Defaults to requests with a
+         * <a href="https://tools.ietf.org/html/rfc7231#section-4.2.1">safe</a> method ({@code GET}, {@code HEAD},
+         * {@code OPTIONS} and {@code TRACE}).
+         * <p>
+         * Each attempt subscribes to the {@link StreamingHttpRequest#payloadBody() payload body} of a hedged request,
+         * so only select requests whose payload body is replayable.
+         *
+         * @param hedgeFor selects the requests that may be hedged.
+         * @return {@code this}.
+         */
+        public Builder hedgeFor(final Predicate<HttpRequestMetaData> hedgeFor) {
+            this.hedgeFor = requireNonNull(hedgeFor);
+            return this;
+        }
+
+        /**
+         * Sets the percentile of observed latencies after which a request is hedged. Defaults to {@code 95}.
+         *
+         * @param percentile the percentile of observed latencies after which a request is hedged, in
+         * {@code (0, 100]}.
+         * @return {@code this}.
+         */
+        public Builder delayPercentile(final double percentile) {
+            if (!(percentile > 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("percentile: " + percentile + " (expected (0, 100])");
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Sets the delay after which a request is hedged until enough latencies were observed to compute the
+         * {@link #delayPercentile(double) percentile}. Defaults to {@code 100ms}.
+         *
+         * @param initialDelay the delay used until enough latencies were observed.
+         * @return {@code this}.
+         */
+        public Builder initialDelay(final Duration initialDelay) {
+            this.initialDelay = checkPositive("initialDelay", initialDelay);
+            return this;
+        }
+
+        /**
+         * Sets the minimum delay after which a request is hedged, regardless of the observed latencies. Defaults to
+         * {@code 1ms}.
+         *
+         * @param minDelay the minimum delay after which a request is hedged.
+         * @return {@code this}.
+         */
+        public Builder minDelay(final Duration minDelay) {
+            this.minDelay = checkPositive("minDelay", minDelay);
+            return this;
+        }
+
+        /**
+         * Sets the maximum percentage of hedgeable requests that are actually hedged. Defaults to {@code 10}.
+         *
+         * @param maxHedgePercent the maximum percentage of hedgeable requests that are hedged, in {@code [0, 100]}.
+         * {@code 0} disables hedging.
+         * @return {@code this}.
+         */
+        public Builder maxHedgePercent(final int maxHedgePercent) {
+            if (maxHedgePercent < 0 || maxHedgePercent > 100) {
+                throw new IllegalArgumentException("maxHedgePercent: " + maxHedgePercent + " (expected [0, 100])");
+            }
+            this.maxHedgePercent = maxHedgePercent;
+            return this;
+        }
+
+        /**
+         * Creates a new {@link HedgingHttpRequesterFilter}.
+         *
+         * @return a new {@link HedgingHttpRequesterFilter}.
+         */
+        public HedgingHttpRequesterFilter build() {
+            return new HedgingHttpRequesterFilter(this);
+        }
+
+        private static Duration checkPositive(final String name, final Duration duration) {
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException(name + ": " + duration + " (expected >0)");
+            }
+            return duration;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.CompletableSource;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.internal.SubscribableSingle;
+import io.servicetalk.concurrent.internal.DelayedCancellable;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static java.lang.System.nanoTime;
+
+/**
+ * Subscribes to a primary response, and to a hedged response if the primary one did not arrive when a timer fires.
+ * The first successful response wins and the other attempt is cancelled.
+ */
+final class HedgingSingle extends SubscribableSingle<StreamingHttpResponse> {
+
+    private final Single<StreamingHttpResponse> attempt;
+    private final Completable hedgeTimer;
+    private final BooleanSupplier mayHedge;
+    private final LongConsumer latencyNanos;
+
+    /**
+     * Create a new instance.
+     *
+     * @param attempt sends the request, subscribed once for the primary attempt and once more for the hedged attempt.
+     * @param hedgeTimer completes when the hedged attempt should be sent.
+     * @param mayHedge checked when {@code hedgeTimer} fires, returns {@code false} if the hedged attempt should not be
+     * sent.
+     * @param latencyNanos receives the latency of each attempt which produced a response, and the time elapsed until
+     * an attempt was cancelled. The latter is a lower bound of the latency of a slow attempt, ignoring it would bias
+     * the observed latencies towards fast attempts.
+     */
+    HedgingSingle(final Single<StreamingHttpResponse> attempt, final Completable hedgeTimer,
+                  final BooleanSupplier mayHedge, final LongConsumer latencyNanos) {
+        this.attempt = attempt;
+        this.hedgeTimer = hedgeTimer;
+        this.mayHedge = mayHedge;
+        this.latencyNanos = latencyNanos;
+    }
+
+    @Override
+    protected void handleSubscribe(final Subscriber<? super StreamingHttpResponse> subscriber) {
+        new Coordinator(subscriber).start();
+    }
+
+    private final class Coordinator implements Cancellable, CompletableSource.Subscriber {
+
+        private final Subscriber<? super StreamingHttpResponse> target;
+        private final DelayedCancellable primaryCancellable = new DelayedCancellable();
+        private final DelayedCancellable hedgeCancellable = new DelayedCancellable();
+        private final DelayedCancellable timerCancellable = new DelayedCancellable();
+        // Guarded by this.
+        private int pendingAttempts = 1;
+        private boolean terminated;
+
+        Coordinator(final Subscriber<? super StreamingHttpResponse> target) {
+            this.target = target;
+        }
+
+        void start() {
+            target.onSubscribe(this);
+            final AttemptSubscriber primary = new AttemptSubscriber(this, hedgeCancellable);
+            primaryCancellable.delayedCancellable(primary);
+            toSource(attempt).subscribe(primary);
+            toSource(hedgeTimer).subscribe(this);
+        }
+
+        @Override
+        public void onSubscribe(final Cancellable cancellable) {
+            timerCancellable.delayedCancellable(cancellable);
+        }
+
+        @Override
+        public void onComplete() {
+            synchronized (this) {
+                if (terminated || !mayHedge.getAsBoolean()) {
+                    return;
+                }
+                ++pendingAttempts;
+            }
+            final AttemptSubscriber hedge = new AttemptSubscriber(this, primaryCancellable);
+            hedgeCancellable.delayedCancellable(hedge);
+            toSource(attempt).subscribe(hedge);
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+            // The timer failed or was cancelled, carry on with the primary attempt only.
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                terminated = true;
+            }
+            timerCancellable.cancel();
+            primaryCancellable.cancel();
+            hedgeCancellable.cancel();
+        }
+
+        boolean onAttemptSuccess(final StreamingHttpResponse response, final Cancellable other) {
+            synchronized (this) {
+                if (terminated) {
+                    return false;
+                }
+                terminated = true;
+            }
+            timerCancellable.cancel();
+            other.cancel();
+            target.onSuccess(response);
+            return true;
+        }
+
+        void onAttemptError(final Throwable cause) {
+            synchronized (this) {
+                // Wait for the other attempt if it is still in flight. A primary attempt which fails before the hedge
+                // is sent fails the request, retrying failures is not the concern of hedging.
+                if (terminated || --pendingAttempts > 0) {
+                    return;
+                }
+                terminated = true;
+            }
+            timerCancellable.cancel();
+            target.onError(cause);
+        }
+    }
+
+    private final class AttemptSubscriber implements Subscriber<StreamingHttpResponse>, Cancellable {
+
+        private final Coordinator coordinator;
+        private final DelayedCancellable cancellable = new DelayedCancellable();
+        private final Cancellable other;
+        private final long startTime = nanoTime();
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        AttemptSubscriber(final Coordinator coordinator, final Cancellable other) {
+            this.coordinator = coordinator;
+            this.other = other;
+        }
+
+        @Override
+        public void onSubscribe(final Cancellable cancellable) {
+            this.cancellable.delayedCancellable(cancellable);
+        }
+
+        @Override
+        public void cancel() {
+            if (done.compareAndSet(false, true)) {
+                latencyNanos.accept(nanoTime() - startTime);
+            }
+            cancellable.cancel();
+        }
+
+        @Override
+        public void onSuccess(@Nullable final StreamingHttpResponse result) {
+            if (done.compareAndSet(false, true)) {
+                latencyNanos.accept(nanoTime() - startTime);
+            }
+            if (result == null) {
+                coordinator.onAttemptError(new NullPointerException("response"));
+            } else if (!coordinator.onAttemptSuccess(result, other)) {
+                // The other attempt already won, release the resources held by this response.
+                result.payloadBodyAndTrailers().ignoreElements().subscribe();
+            }
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+            done.set(true);
+            coordinator.onAttemptError(t);
+        }
+    }
+}
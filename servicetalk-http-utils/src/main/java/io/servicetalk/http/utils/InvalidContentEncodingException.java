@@ -0,0 +1,42 @@
+/*
+ * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+/**
+ * Thrown when a payload could not be decoded according to its {@code Content-Encoding}.
+ */
+public final class InvalidContentEncodingException extends RuntimeException {
+    private static final long serialVersionUID = 4208469126420542286L;
+
+    /**
+     * Create a new instance.
+     *
+     * @param message The detail message.
+     */
+    InvalidContentEncodingException(final String message) {
+        super(message);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param message The detail message.
+     * @param cause The cause of this exception.
+     */
+    InvalidContentEncodingException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -17,6 +17,7 @@ package io.servicetalk.http.utils;
 
 import io.servicetalk.client.api.AbstractRetryingFilterBuilder;
 import io.servicetalk.client.api.AbstractRetryingFilterBuilder.ReadOnlyRetryableSettings;
+import io.servicetalk.client.api.RetryBudget;
 import io.servicetalk.concurrent.api.BiIntFunction;
 import io.servicetalk.concurrent.api.Completable;
 import io.servicetalk.concurrent.api.Publisher;
@@ -37,11 +38,15 @@ import io.servicetalk.http.api.StreamingHttpResponse;
 
 import java.io.IOException;
 import java.util.function.BiPredicate;
+import javax.annotation.Nullable;
 
 import static io.servicetalk.concurrent.api.Completable.failed;
 
 /**
  * A filter to enable retries for HTTP requests.
+ * <p>
+ * If a {@link Builder#retryBudget(double) retry budget} is configured, every client or connection created by this
+ * factory has its own {@link RetryBudget} shared by all its requests.
  *
  * @see RetryStrategies
  */
@@ -58,13 +63,23 @@ public final class RetryingHttpRequesterFilter implements StreamingHttpClientFil
     private Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
                                                   final HttpExecutionStrategy strategy,
                                                   final StreamingHttpRequest request,
-                                                  final BiIntFunction<Throwable, Completable> retryStrategy) {
+                                                  final BiIntFunction<Throwable, Completable> retryStrategy,
+                                                  @Nullable final RetryBudget retryBudget) {
+        if (retryBudget == null) {
+            return delegate.request(strategy, request).retryWhen((count, t) -> {
+                if (settings.isRetryable(request, t)) {
+                    return retryStrategy.apply(count, t);
+                }
+                return failed(t);
+            });
+        }
         return delegate.request(strategy, request).retryWhen((count, t) -> {
-            if (settings.isRetryable(request, t)) {
+            // Check the budget last, so that only retries which are otherwise allowed consume it.
+            if (settings.isRetryable(request, t) && count <= settings.maxRetries() && retryBudget.tryRetry()) {
                 return retryStrategy.apply(count, t);
             }
             return failed(t);
-        });
+        }).beforeOnSubscribe(__ -> retryBudget.onRequest());
     }
 
     @Override
@@ -73,12 +88,15 @@ public final class RetryingHttpRequesterFilter implements StreamingHttpClientFil
 
             private final BiIntFunction<Throwable, Completable> retryStrategy =
                     settings.newStrategy(client.executionContext().executor());
+            @Nullable
+            private final RetryBudget retryBudget = settings.newRetryBudget();
 
             @Override
             protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
                                                             final HttpExecutionStrategy strategy,
                                                             final StreamingHttpRequest request) {
-                return RetryingHttpRequesterFilter.this.request(delegate, strategy, request, retryStrategy);
+                return RetryingHttpRequesterFilter.this.request(delegate, strategy, request, retryStrategy,
+                        retryBudget);
             }
         };
     }
@@ -89,11 +107,14 @@ public final class RetryingHttpRequesterFilter implements StreamingHttpClientFil
 
             private final BiIntFunction<Throwable, Completable> retryStrategy =
                     settings.newStrategy(connection.executionContext().executor());
+            @Nullable
+            private final RetryBudget retryBudget = settings.newRetryBudget();
 
             @Override
             public Single<StreamingHttpResponse> request(final HttpExecutionStrategy strategy,
                                                          final StreamingHttpRequest request) {
-                return RetryingHttpRequesterFilter.this.request(delegate(), strategy, request, retryStrategy);
+                return RetryingHttpRequesterFilter.this.request(delegate(), strategy, request, retryStrategy,
+                        retryBudget);
             }
        };
     }
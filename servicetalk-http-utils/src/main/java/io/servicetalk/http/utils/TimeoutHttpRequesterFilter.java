@@ -21,6 +21,7 @@ import io.servicetalk.http.api.FilterableStreamingHttpClient;
 import io.servicetalk.http.api.FilterableStreamingHttpConnection;
 import io.servicetalk.http.api.HttpExecutionStrategy;
 import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.RequestDeadlines;
 import io.servicetalk.http.api.StreamingHttpClientFilter;
 import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
 import io.servicetalk.http.api.StreamingHttpConnectionFilter;
@@ -32,10 +33,14 @@ import io.servicetalk.http.api.StreamingHttpResponse;
 import java.time.Duration;
 import javax.annotation.Nullable;
 
+import static io.servicetalk.concurrent.api.Single.defer;
 import static java.util.Objects.requireNonNull;
 
 /**
  * A filter to enable timeouts for HTTP requests.
+ * <p>
+ * If a deadline is set for the current request via {@link RequestDeadlines}, the timeout is shortened to the time
+ * remaining until that deadline.
  */
 public final class TimeoutHttpRequesterFilter implements StreamingHttpClientFilterFactory,
                                                          StreamingHttpConnectionFilterFactory,
@@ -68,8 +73,15 @@ public final class TimeoutHttpRequesterFilter implements StreamingHttpClientFilt
     private Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
                                                   final HttpExecutionStrategy strategy,
                                                   final StreamingHttpRequest request) {
-        return timeoutExecutor != null ? delegate.request(strategy, request).idleTimeout(duration, timeoutExecutor) :
-                delegate.request(strategy, request).idleTimeout(duration);
+        // Defer so the remaining time is re-evaluated if the request is subscribed late or retried.
+        return defer(() -> {
+            // Never wait longer than the deadline of the current request, if there is one.
+            final Duration remaining = RequestDeadlines.remaining();
+            final Duration timeout = remaining != null && remaining.compareTo(duration) < 0 ? remaining : duration;
+            return timeoutExecutor != null ?
+                    delegate.request(strategy, request).idleTimeout(timeout, timeoutExecutor) :
+                    delegate.request(strategy, request).idleTimeout(timeout);
+        });
     }
 
     @Override
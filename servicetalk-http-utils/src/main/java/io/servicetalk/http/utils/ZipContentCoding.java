@@ -0,0 +1,421 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.Publisher;
+
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Completable.completed;
+import static io.servicetalk.concurrent.api.Completable.failed;
+import static io.servicetalk.concurrent.api.Publisher.defer;
+import static io.servicetalk.concurrent.api.Publisher.empty;
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static io.servicetalk.http.api.HttpHeaderValues.DEFLATE;
+import static io.servicetalk.http.api.HttpHeaderValues.GZIP;
+import static java.util.zip.Deflater.DEFAULT_COMPRESSION;
+import static java.util.zip.Deflater.NO_FLUSH;
+import static java.util.zip.Deflater.SYNC_FLUSH;
+
+/**
+ * Streaming {@code gzip} and {@code deflate} content-codings.
+ * <p>
+ * Payloads are encoded and decoded chunk by chunk, without aggregating them. Every encoded chunk is flushed, so that a
+ * peer can decode it as soon as it is received, which preserves the semantics of streaming payloads at the cost of a
+ * slightly worse compression ratio for payloads written in many small chunks.
+ */
+final class ZipContentCoding {
+    /**
+     * The {@code gzip} content-coding, see <a href="https://tools.ietf.org/html/rfc1952">RFC 1952</a>.
+     */
+    static final ZipContentCoding GZIP_CODING = new ZipContentCoding(GZIP, true);
+    /**
+     * The {@code deflate} content-coding, which is the zlib format, see
+     * <a href="https://tools.ietf.org/html/rfc1950">RFC 1950</a>.
+     */
+    static final ZipContentCoding DEFLATE_CODING = new ZipContentCoding(DEFLATE, false);
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int GZIP_HEADER_LENGTH = 10;
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    private static final byte[] GZIP_HEADER = {
+            (byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+    private static final int SCRATCH_SIZE = 8192;
+
+    private final CharSequence name;
+    private final boolean gzip;
+
+    private ZipContentCoding(final CharSequence name, final boolean gzip) {
+        this.name = name;
+        this.gzip = gzip;
+    }
+
+    /**
+     * The name of this content-coding, as used in {@code Content-Encoding} and {@code Accept-Encoding} headers.
+     *
+     * @return the name of this content-coding.
+     */
+    CharSequence name() {
+        return name;
+    }
+
+    /**
+     * Encodes the passed payload.
+     *
+     * @param payload the payload to encode.
+     * @param allocator the {@link BufferAllocator} to allocate encoded chunks.
+     * @return the encoded payload, which is empty if {@code payload} is empty.
+     */
+    Publisher<Buffer> encode(final Publisher<Buffer> payload, final BufferAllocator allocator) {
+        return defer(() -> {
+            final Encoder encoder = new Encoder(gzip, allocator);
+            return payload.map(encoder::encode)
+                    .filter(buffer -> buffer.readableBytes() > 0)
+                    .concat(defer(() -> encoder.isEmpty() ? empty() : from(encoder.finish())))
+                    .beforeFinally(encoder::end);
+        });
+    }
+
+    /**
+     * Decodes the passed payload.
+     *
+     * @param payload the payload to decode.
+     * @param allocator the {@link BufferAllocator} to allocate decoded chunks.
+     * @param maxDecodedSize the maximum number of bytes the payload may decode to.
+     * @return the decoded payload, which fails with an {@link InvalidContentEncodingException} if the payload is not
+     * valid or decodes to more than {@code maxDecodedSize} bytes.
+     */
+    Publisher<Buffer> decode(final Publisher<Buffer> payload, final BufferAllocator allocator,
+                             final long maxDecodedSize) {
+        return defer(() -> {
+            final Decoder decoder = new Decoder(gzip, allocator, maxDecodedSize);
+            return payload.map(decoder::decode)
+                    .filter(buffer -> buffer.readableBytes() > 0)
+                    .concat(Completable.defer(() -> decoder.isFinished() ? completed() :
+                            failed(new InvalidContentEncodingException("Truncated " + name + " payload"))))
+                    .beforeFinally(decoder::end);
+        });
+    }
+
+    @Override
+    public String toString() {
+        return name.toString();
+    }
+
+    private static void writeIntLE(final Buffer buffer, final int value) {
+        buffer.writeByte(value);
+        buffer.writeByte(value >>> 8);
+        buffer.writeByte(value >>> 16);
+        buffer.writeByte(value >>> 24);
+    }
+
+    private static final class Encoder {
+        private final Deflater deflater;
+        private final BufferAllocator allocator;
+        @Nullable
+        private final CRC32 crc;
+        private final byte[] scratch = new byte[SCRATCH_SIZE];
+        private boolean headerWritten;
+        private boolean empty = true;
+
+        Encoder(final boolean gzip, final BufferAllocator allocator) {
+            // gzip uses raw deflate data wrapped with its own header and trailer.
+            deflater = new Deflater(DEFAULT_COMPRESSION, gzip);
+            crc = gzip ? new CRC32() : null;
+            headerWritten = !gzip;
+            this.allocator = allocator;
+        }
+
+        Buffer encode(final Buffer chunk) {
+            final int length = chunk.readableBytes();
+            if (length == 0) {
+                return chunk;
+            }
+            empty = false;
+            final Buffer out = allocator.newBuffer(length / 2 + GZIP_HEADER_LENGTH);
+            writeHeaderIfNeeded(out);
+            final byte[] input;
+            final int offset;
+            if (chunk.hasArray()) {
+                input = chunk.array();
+                offset = chunk.arrayOffset() + chunk.readerIndex();
+            } else {
+                input = new byte[length];
+                chunk.getBytes(chunk.readerIndex(), input);
+                offset = 0;
+            }
+            if (crc != null) {
+                crc.update(input, offset, length);
+            }
+            deflater.setInput(input, offset, length);
+            deflate(out, SYNC_FLUSH);
+            return out;
+        }
+
+        Buffer finish() {
+            final Buffer out = allocator.newBuffer(GZIP_HEADER_LENGTH + GZIP_TRAILER_LENGTH + 8);
+            writeHeaderIfNeeded(out);
+            deflater.finish();
+            deflate(out, NO_FLUSH);
+            if (crc != null) {
+                writeIntLE(out, (int) crc.getValue());
+                writeIntLE(out, (int) deflater.getBytesRead());
+            }
+            return out;
+        }
+
+        boolean isEmpty() {
+            // An empty payload is encoded as an empty payload, without a header or trailer.
+            return empty;
+        }
+
+        void end() {
+            deflater.end();
+        }
+
+        private void writeHeaderIfNeeded(final Buffer out) {
+            if (!headerWritten) {
+                headerWritten = true;
+                out.writeBytes(GZIP_HEADER);
+            }
+        }
+
+        private void deflate(final Buffer out, final int flush) {
+            int written;
+            do {
+                written = deflater.deflate(scratch, 0, scratch.length, flush);
+                out.writeBytes(scratch, 0, written);
+            } while (written == scratch.length || (flush == NO_FLUSH && !deflater.finished()));
+        }
+    }
+
+    private static final class Decoder {
+        private static final int HEADER = 0;
+        private static final int BODY = 1;
+        private static final int TRAILER = 2;
+        private static final int DONE = 3;
+
+        private final Inflater inflater;
+        private final BufferAllocator allocator;
+        private final long maxDecodedSize;
+        @Nullable
+        private final CRC32 crc;
+        private final byte[] scratch = new byte[SCRATCH_SIZE];
+        /**
+         * Accumulates the gzip header and trailer, which may span multiple chunks.
+         */
+        private byte[] pending = new byte[GZIP_HEADER_LENGTH];
+        private int pendingLength;
+        private int state;
+        private boolean empty = true;
+
+        Decoder(final boolean gzip, final BufferAllocator allocator, final long maxDecodedSize) {
+            inflater = new Inflater(gzip);
+            crc = gzip ? new CRC32() : null;
+            state = gzip ? HEADER : BODY;
+            this.allocator = allocator;
+            this.maxDecodedSize = maxDecodedSize;
+        }
+
+        Buffer decode(final Buffer chunk) {
+            final int length = chunk.readableBytes();
+            if (length == 0) {
+                return chunk;
+            }
+            empty = false;
+            final byte[] input;
+            final int offset;
+            if (chunk.hasArray()) {
+                input = chunk.array();
+                offset = chunk.arrayOffset() + chunk.readerIndex();
+            } else {
+                input = new byte[length];
+                chunk.getBytes(chunk.readerIndex(), input);
+                offset = 0;
+            }
+            final Buffer out = allocator.newBuffer(length * 2);
+            try {
+                decode(input, offset, offset + length, out);
+            } catch (DataFormatException e) {
+                throw new InvalidContentEncodingException("Invalid " + (crc != null ? GZIP : DEFLATE) + " payload", e);
+            }
+            return out;
+        }
+
+        private void decode(final byte[] input, int offset, final int end, final Buffer out)
+                throws DataFormatException {
+            while (offset < end) {
+                switch (state) {
+                    case HEADER:
+                        offset = readHeader(input, offset, end);
+                        break;
+                    case BODY:
+                        offset = inflate(input, offset, end, out);
+                        break;
+                    case TRAILER:
+                        offset = readTrailer(input, offset, end);
+                        break;
+                    default:
+                        // Ignore anything after the end of the encoded data, like the JDK and Netty decoders do.
+                        return;
+                }
+            }
+        }
+
+        boolean isFinished() {
+            // An empty payload is valid, e.g. the response to a HEAD request or a 304 response.
+            return state == DONE || empty;
+        }
+
+        void end() {
+            inflater.end();
+        }
+
+        private int readHeader(final byte[] input, int offset, final int end) throws DataFormatException {
+            // The header is small, accumulate it byte by byte until its variable length is known.
+            while (offset < end) {
+                append(input[offset++]);
+                final int headerLength = gzipHeaderLength(pending, pendingLength);
+                if (headerLength > 0) {
+                    pendingLength = 0;
+                    state = BODY;
+                    break;
+                }
+            }
+            return offset;
+        }
+
+        private int inflate(final byte[] input, final int offset, final int end, final Buffer out)
+                throws DataFormatException {
+            inflater.setInput(input, offset, end - offset);
+            for (;;) {
+                final int read = inflater.inflate(scratch, 0, scratch.length);
+                if (read > 0) {
+                    // A small encoded payload may expand to an arbitrary size, fail before buffering all of it.
+                    if (inflater.getBytesWritten() > maxDecodedSize) {
+                        throw new InvalidContentEncodingException("Decoded " + (crc != null ? GZIP : DEFLATE) +
+                                " payload exceeds " + maxDecodedSize + " bytes");
+                    }
+                    if (crc != null) {
+                        crc.update(scratch, 0, read);
+                    }
+                    out.writeBytes(scratch, 0, read);
+                } else if (inflater.finished()) {
+                    state = crc == null ? DONE : TRAILER;
+                    return end - inflater.getRemaining();
+                } else if (inflater.needsDictionary()) {
+                    throw new DataFormatException("Preset dictionaries are not supported");
+                } else {
+                    // All input was consumed, wait for the next chunk.
+                    return end;
+                }
+            }
+        }
+
+        private int readTrailer(final byte[] input, int offset, final int end) throws DataFormatException {
+            assert crc != null;
+            while (offset < end && pendingLength < GZIP_TRAILER_LENGTH) {
+                append(input[offset++]);
+            }
+            if (pendingLength == GZIP_TRAILER_LENGTH) {
+                if (readIntLE(pending, 0) != (int) crc.getValue()) {
+                    throw new DataFormatException("gzip CRC mismatch");
+                }
+                if (readIntLE(pending, 4) != (int) inflater.getBytesWritten()) {
+                    throw new DataFormatException("gzip size mismatch");
+                }
+                state = DONE;
+            }
+            return offset;
+        }
+
+        private void append(final byte b) {
+            if (pendingLength == pending.length) {
+                final byte[] newPending = new byte[pending.length << 1];
+                System.arraycopy(pending, 0, newPending, 0, pendingLength);
+                pending = newPending;
+            }
+            pending[pendingLength++] = b;
+        }
+
+        /**
+         * Returns the length of the gzip header in the passed bytes.
+         *
+         * @return the length of the header or {@code -1} if more bytes are needed.
+         */
+        private static int gzipHeaderLength(final byte[] bytes, final int length) throws DataFormatException {
+            if (length < GZIP_HEADER_LENGTH) {
+                if (length == 2 && ((bytes[0] & 0xff) | (bytes[1] & 0xff) << 8) != GZIP_MAGIC) {
+                    throw new DataFormatException("Not in gzip format");
+                }
+                return -1;
+            }
+            if (bytes[2] != Deflater.DEFLATED) {
+                throw new DataFormatException("Unsupported gzip compression method: " + bytes[2]);
+            }
+            final int flags = bytes[3];
+            int index = GZIP_HEADER_LENGTH;
+            if ((flags & FEXTRA) != 0) {
+                if (length < index + 2) {
+                    return -1;
+                }
+                index += 2 + ((bytes[index] & 0xff) | (bytes[index + 1] & 0xff) << 8);
+            }
+            if ((flags & FNAME) != 0) {
+                index = skipZeroTerminated(bytes, index, length);
+                if (index < 0) {
+                    return -1;
+                }
+            }
+            if ((flags & FCOMMENT) != 0) {
+                index = skipZeroTerminated(bytes, index, length);
+                if (index < 0) {
+                    return -1;
+                }
+            }
+            if ((flags & FHCRC) != 0) {
+                index += 2;
+            }
+            return index <= length ? index : -1;
+        }
+
+        private static int skipZeroTerminated(final byte[] bytes, int index, final int length) {
+            for (; index < length; ++index) {
+                if (bytes[index] == 0) {
+                    return index + 1;
+                }
+            }
+            return -1;
+        }
+
+        private static int readIntLE(final byte[] bytes, final int index) {
+            return (bytes[index] & 0xff) | (bytes[index + 1] & 0xff) << 8 | (bytes[index + 2] & 0xff) << 16 |
+                    (bytes[index + 3] & 0xff) << 24;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveConcurrencyLimitTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    @Test
+    public void acquireBeyondLimitIsRejected() {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10);
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        limit.onIgnore();
+        assertThat(limit.inFlight(), is(1));
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    public void limitGrowsWithStableLatency() {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100);
+        saturate(limit, 50, MILLISECONDS.toNanos(1));
+        assertThat(limit.limit(), is(greaterThan(10)));
+    }
+
+    @Test
+    public void limitDoesNotGrowWhenUnderused() {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100);
+        for (int i = 0; i < 50; ++i) {
+            assertTrue(limit.tryAcquire());
+            limit.onSample(MILLISECONDS.toNanos(1));
+        }
+        assertThat(limit.limit(), is(10));
+    }
+
+    @Test
+    public void limitShrinksWhenLatencyIncreases() {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 1, 100);
+        saturate(limit, 10, MILLISECONDS.toNanos(1));
+        final int stableLimit = limit.limit();
+        saturate(limit, 10, MILLISECONDS.toNanos(10));
+        assertThat(limit.limit(), is(lessThan(stableLimit)));
+    }
+
+    @Test
+    public void dropShrinksLimit() {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 8, 100);
+        assertTrue(limit.tryAcquire());
+        limit.onDrop();
+        assertThat(limit.limit(), is(9));
+        assertThat(limit.inFlight(), is(0));
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(limit.tryAcquire());
+            limit.onDrop();
+        }
+        assertThat(limit.limit(), is(8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidLimits() {
+        new AdaptiveConcurrencyLimit(1, 2, 10);
+    }
+
+    private static void saturate(final AdaptiveConcurrencyLimit limit, final int rounds, final long rttNanos) {
+        for (int i = 0; i < rounds; ++i) {
+            int acquired = 0;
+            while (limit.tryAcquire()) {
+                ++acquired;
+            }
+            for (int j = 0; j < acquired; ++j) {
+                limit.onSample(rttNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.client.api.MaxRequestLimitExceededException;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestSingle;
+import io.servicetalk.concurrent.api.TestSingleSubscriber;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.HttpExecutionContext;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.http.api.StreamingHttpServiceFilter;
+import io.servicetalk.http.api.TestHttpServiceContext;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.http.api.HttpExecutionStrategies.defaultStrategy;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.http.api.HttpResponseStatus.SERVICE_UNAVAILABLE;
+import static io.servicetalk.http.api.TestStreamingHttpClient.from;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+
+public class AdaptiveConcurrencyLimitingFilterTest {
+    private static final StreamingHttpRequestResponseFactory reqRespFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final AdaptiveConcurrencyLimitingFilter filter = new AdaptiveConcurrencyLimitingFilter(1, 1, 1);
+    private final List<TestSingle<StreamingHttpResponse>> responses = new ArrayList<>();
+
+    private Single<StreamingHttpResponse> nextResponse() {
+        final TestSingle<StreamingHttpResponse> response = new TestSingle<>();
+        responses.add(response);
+        return response;
+    }
+
+    private StreamingHttpClient newClient() {
+        final StreamingHttpClientFilterFactory limitingFilter = filter;
+        return from(reqRespFactory, mock(HttpExecutionContext.class), limitingFilter.append(client ->
+                new StreamingHttpClientFilter(client) {
+                    @Override
+                    protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                                    final HttpExecutionStrategy strategy,
+                                                                    final StreamingHttpRequest request) {
+                        return nextResponse();
+                    }
+                }));
+    }
+
+    private StreamingHttpServiceFilter newService() {
+        final StreamingHttpService service = (ctx, request, responseFactory) -> nextResponse();
+        return filter.create(service);
+    }
+
+    private static TestSingleSubscriber<StreamingHttpResponse> request(final StreamingHttpClient client) {
+        final TestSingleSubscriber<StreamingHttpResponse> subscriber = new TestSingleSubscriber<>();
+        toSource(client.request(defaultStrategy(), client.get("/"))).subscribe(subscriber);
+        return subscriber;
+    }
+
+    private static Single<StreamingHttpResponse> newResponse(final StreamingHttpService service) {
+        final TestHttpServiceContext ctx = new TestHttpServiceContext(DefaultHttpHeadersFactory.INSTANCE,
+                reqRespFactory, mock(HttpExecutionContext.class));
+        return service.handle(ctx, reqRespFactory.get("/"), reqRespFactory);
+    }
+
+    private static TestSingleSubscriber<StreamingHttpResponse> handle(final StreamingHttpService service) {
+        final TestSingleSubscriber<StreamingHttpResponse> subscriber = new TestSingleSubscriber<>();
+        toSource(newResponse(service)).subscribe(subscriber);
+        return subscriber;
+    }
+
+    @Test
+    public void clientRejectsRequestsOverLimit() {
+        final StreamingHttpClient client = newClient();
+        final TestSingleSubscriber<StreamingHttpResponse> first = request(client);
+        final TestSingleSubscriber<StreamingHttpResponse> second = request(client);
+
+        assertThat(second.takeError(), instanceOf(MaxRequestLimitExceededException.class));
+        assertThat(responses.size(), is(1));
+        assertThat(first.hasResult(), is(false));
+    }
+
+    @Test
+    public void clientReleasesLimitOnError() {
+        final StreamingHttpClient client = newClient();
+        final TestSingleSubscriber<StreamingHttpResponse> first = request(client);
+        responses.get(0).onError(DELIBERATE_EXCEPTION);
+        assertThat(first.takeError(), is(DELIBERATE_EXCEPTION));
+
+        request(client);
+        assertThat(responses.size(), is(2));
+    }
+
+    @Test
+    public void clientReleasesLimitOnCancel() {
+        final StreamingHttpClient client = newClient();
+        request(client).cancel();
+
+        request(client);
+        assertThat(responses.size(), is(2));
+    }
+
+    @Test
+    public void clientReleasesLimitWhenPayloadTerminates() throws Exception {
+        final StreamingHttpClient client = newClient();
+        final TestSingleSubscriber<StreamingHttpResponse> first = request(client);
+        responses.get(0).onSuccess(reqRespFactory.ok());
+        final StreamingHttpResponse response = first.takeResult();
+        assertThat(response.status(), is(OK));
+
+        // The request counts against the limit until its payload terminates.
+        assertThat(request(client).takeError(), instanceOf(MaxRequestLimitExceededException.class));
+
+        response.payloadBody().ignoreElements().toFuture().get();
+        request(client);
+        assertThat(responses.size(), is(2));
+    }
+
+    @Test
+    public void serverRespondsServiceUnavailableOverLimit() {
+        final StreamingHttpServiceFilter service = newService();
+        final TestSingleSubscriber<StreamingHttpResponse> first = handle(service);
+        final TestSingleSubscriber<StreamingHttpResponse> second = handle(service);
+
+        assertThat(second.takeResult().status(), is(SERVICE_UNAVAILABLE));
+        assertThat(responses.size(), is(1));
+        assertThat(first.hasResult(), is(false));
+    }
+
+    @Test
+    public void serverAcquiresLimitOnSubscribe() {
+        final StreamingHttpServiceFilter service = newService();
+        // A response which is never subscribed does not count against the limit.
+        newResponse(service);
+        final TestSingleSubscriber<StreamingHttpResponse> subscriber = handle(service);
+
+        assertThat(subscriber.hasResult(), is(false));
+        assertThat(responses.size(), is(1));
+    }
+
+    @Test
+    public void serverReleasesLimitOnError() {
+        final StreamingHttpServiceFilter service = newService();
+        final TestSingleSubscriber<StreamingHttpResponse> first = handle(service);
+        responses.get(0).onError(DELIBERATE_EXCEPTION);
+        assertThat(first.takeError(), is(DELIBERATE_EXCEPTION));
+
+        handle(service);
+        assertThat(responses.size(), is(2));
+    }
+
+    @Test
+    public void serverReleasesLimitOnCancel() {
+        final StreamingHttpServiceFilter service = newService();
+        handle(service).cancel();
+
+        handle(service);
+        assertThat(responses.size(), is(2));
+    }
+}
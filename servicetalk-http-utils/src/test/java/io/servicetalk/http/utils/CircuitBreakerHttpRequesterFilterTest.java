@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.client.api.CircuitBreaker;
+import io.servicetalk.client.api.CircuitBreakerOpenException;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestSingle;
+import io.servicetalk.concurrent.api.TestSingleSubscriber;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.HttpExecutionContext;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.function.Supplier;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.http.api.HttpExecutionStrategies.defaultStrategy;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.http.api.HttpResponseStatus.SERVICE_UNAVAILABLE;
+import static io.servicetalk.http.api.HttpResponseStatus.TOO_MANY_REQUESTS;
+import static io.servicetalk.http.api.TestStreamingHttpClient.from;
+import static java.time.Duration.ofMillis;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+
+public class CircuitBreakerHttpRequesterFilterTest {
+    private static final StreamingHttpRequestResponseFactory reqRespFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+    private static final long OPEN_MILLIS = 10;
+    private static final long LONG_OPEN_MILLIS = 60_000;
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private Supplier<Single<StreamingHttpResponse>> response = () -> succeeded(reqRespFactory.ok());
+    private int requests;
+
+    private static CircuitBreaker.Builder circuitBreaker(final long openMillis) {
+        return new CircuitBreaker.Builder()
+                .failureRateThreshold(50)
+                .minimumCalls(1)
+                .openDuration(ofMillis(openMillis))
+                .halfOpenProbes(1);
+    }
+
+    private StreamingHttpClient newClient(final CircuitBreakerHttpRequesterFilter filter) {
+        final StreamingHttpClientFilterFactory circuitBreakerFilter = filter;
+        return from(reqRespFactory, mock(HttpExecutionContext.class), circuitBreakerFilter.append(client ->
+                new StreamingHttpClientFilter(client) {
+                    @Override
+                    protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                                    final HttpExecutionStrategy strategy,
+                                                                    final StreamingHttpRequest request) {
+                        ++requests;
+                        return response.get();
+                    }
+                }));
+    }
+
+    private static TestSingleSubscriber<StreamingHttpResponse> request(final StreamingHttpClient client) {
+        final TestSingleSubscriber<StreamingHttpResponse> subscriber = new TestSingleSubscriber<>();
+        toSource(client.request(defaultStrategy(), client.get("/"))).subscribe(subscriber);
+        return subscriber;
+    }
+
+    @Test
+    public void successesKeepCircuitClosed() {
+        final StreamingHttpClient client = newClient(
+                new CircuitBreakerHttpRequesterFilter(circuitBreaker(LONG_OPEN_MILLIS)));
+        for (int i = 0; i < 3; i++) {
+            assertThat(request(client).takeResult().status(), is(OK));
+        }
+        assertThat(requests, is(3));
+    }
+
+    @Test
+    public void serverErrorOpensCircuit() {
+        final StreamingHttpClient client = newClient(
+                new CircuitBreakerHttpRequesterFilter(circuitBreaker(LONG_OPEN_MILLIS)));
+        response = () -> succeeded(reqRespFactory.serviceUnavailable());
+        assertThat(request(client).takeResult().status(), is(SERVICE_UNAVAILABLE));
+
+        assertThat(request(client).takeError(), instanceOf(CircuitBreakerOpenException.class));
+        assertThat(requests, is(1));
+    }
+
+    @Test
+    public void errorOpensCircuit() {
+        final StreamingHttpClient client = newClient(
+                new CircuitBreakerHttpRequesterFilter(circuitBreaker(LONG_OPEN_MILLIS)));
+        response = () -> failed(DELIBERATE_EXCEPTION);
+        assertThat(request(client).takeError(), is(DELIBERATE_EXCEPTION));
+
+        assertThat(request(client).takeError(), instanceOf(CircuitBreakerOpenException.class));
+        assertThat(requests, is(1));
+    }
+
+    @Test
+    public void customFailurePredicate() {
+        final StreamingHttpClient client = newClient(new CircuitBreakerHttpRequesterFilter(
+                circuitBreaker(LONG_OPEN_MILLIS), meta -> meta.status().code() == TOO_MANY_REQUESTS.code()));
+        response = () -> succeeded(reqRespFactory.serviceUnavailable());
+        assertThat(request(client).takeResult().status(), is(SERVICE_UNAVAILABLE));
+        response = () -> succeeded(reqRespFactory.tooManyRequests());
+        assertThat(request(client).takeResult().status(), is(TOO_MANY_REQUESTS));
+
+        assertThat(request(client).takeError(), instanceOf(CircuitBreakerOpenException.class));
+        assertThat(requests, is(2));
+    }
+
+    @Test
+    public void successfulProbeClosesCircuit() throws Exception {
+        final StreamingHttpClient client = newClient(
+                new CircuitBreakerHttpRequesterFilter(circuitBreaker(OPEN_MILLIS)));
+        response = () -> failed(DELIBERATE_EXCEPTION);
+        request(client).takeError();
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        response = () -> succeeded(reqRespFactory.ok());
+        assertThat(request(client).takeResult().status(), is(OK));
+        assertThat(request(client).takeResult().status(), is(OK));
+        assertThat(requests, is(3));
+    }
+
+    @Test
+    public void cancelledProbeFreesItsSlot() throws Exception {
+        final StreamingHttpClient client = newClient(
+                new CircuitBreakerHttpRequesterFilter(circuitBreaker(OPEN_MILLIS)));
+        response = () -> failed(DELIBERATE_EXCEPTION);
+        request(client).takeError();
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        response = TestSingle::new;
+        final TestSingleSubscriber<StreamingHttpResponse> probe = request(client);
+        assertThat("Only one probe is permitted.", request(client).takeError(),
+                instanceOf(CircuitBreakerOpenException.class));
+        probe.cancel();
+
+        response = () -> succeeded(reqRespFactory.ok());
+        assertThat(request(client).takeResult().status(), is(OK));
+        assertThat(requests, is(3));
+    }
+}
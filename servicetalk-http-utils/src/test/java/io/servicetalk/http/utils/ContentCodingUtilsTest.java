@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.HttpRequestMetaData;
+import io.servicetalk.http.api.HttpRequestMethod;
+
+import org.junit.Test;
+
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
+import static io.servicetalk.http.api.HttpHeaderNames.TRANSFER_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderValues.CHUNKED;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.HttpRequestMetaDataFactory.newRequestMetaData;
+import static io.servicetalk.http.api.HttpRequestMethod.DELETE;
+import static io.servicetalk.http.api.HttpRequestMethod.GET;
+import static io.servicetalk.http.api.HttpRequestMethod.HEAD;
+import static io.servicetalk.http.api.HttpRequestMethod.POST;
+import static io.servicetalk.http.api.HttpRequestMethod.PUT;
+import static io.servicetalk.http.utils.ContentCodingUtils.contentCoding;
+import static io.servicetalk.http.utils.ContentCodingUtils.hasPayloadBody;
+import static io.servicetalk.http.utils.ContentCodingUtils.isCompressible;
+import static io.servicetalk.http.utils.ContentCodingUtils.negotiate;
+import static io.servicetalk.http.utils.ZipContentCoding.DEFLATE_CODING;
+import static io.servicetalk.http.utils.ZipContentCoding.GZIP_CODING;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ContentCodingUtilsTest {
+
+    @Test
+    public void negotiatePrefersGzip() {
+        assertThat(negotiate(acceptEncoding("deflate, gzip")), is(sameInstance(GZIP_CODING)));
+        assertThat(negotiate(acceptEncoding("br, deflate")), is(sameInstance(DEFLATE_CODING)));
+        assertThat(negotiate(acceptEncoding("br")), is(nullValue()));
+        assertThat(negotiate(newHeaders()), is(nullValue()));
+    }
+
+    @Test
+    public void negotiateHonorsQValues() {
+        assertThat(negotiate(acceptEncoding("gzip;q=0.5, deflate")), is(sameInstance(DEFLATE_CODING)));
+        assertThat(negotiate(acceptEncoding("gzip;q=0, deflate;q=0")), is(nullValue()));
+        assertThat(negotiate(acceptEncoding("identity, gzip ; Q=0.1")), is(sameInstance(GZIP_CODING)));
+    }
+
+    @Test
+    public void negotiateWildcard() {
+        assertThat(negotiate(acceptEncoding("*")), is(sameInstance(GZIP_CODING)));
+        assertThat(negotiate(acceptEncoding("gzip;q=0, *")), is(sameInstance(DEFLATE_CODING)));
+        assertThat(negotiate(acceptEncoding("*;q=0")), is(nullValue()));
+    }
+
+    @Test
+    public void contentCodingIsCaseInsensitive() {
+        assertThat(contentCoding(newHeaders().set(CONTENT_ENCODING, "GZIP")), is(sameInstance(GZIP_CODING)));
+        assertThat(contentCoding(newHeaders().set(CONTENT_ENCODING, "deflate")), is(sameInstance(DEFLATE_CODING)));
+        assertThat(contentCoding(newHeaders().set(CONTENT_ENCODING, "br")), is(nullValue()));
+    }
+
+    @Test
+    public void smallPayloadsAreNotCompressed() {
+        assertFalse(isCompressible(newHeaders().set(CONTENT_LENGTH, "100"), 1024));
+        assertTrue(isCompressible(newHeaders().set(CONTENT_LENGTH, "2048"), 1024));
+        assertTrue(isCompressible(newHeaders(), 1024));
+    }
+
+    @Test
+    public void compressedPayloadsAreNotCompressed() {
+        assertFalse(isCompressible(newHeaders().set(CONTENT_ENCODING, "gzip"), 0));
+        assertFalse(isCompressible(newHeaders().set(CONTENT_TYPE, "image/png"), 0));
+        assertFalse(isCompressible(newHeaders().set(CONTENT_TYPE, "application/zip"), 0));
+        assertTrue(isCompressible(newHeaders().set(CONTENT_TYPE, "image/svg+xml"), 0));
+        assertTrue(isCompressible(newHeaders().set(CONTENT_TYPE, "application/json; charset=utf-8"), 0));
+    }
+
+    @Test
+    public void requestsWithoutContentHeadersHavePayloadBodyByMethod() {
+        assertFalse(hasPayloadBody(request(GET, newHeaders())));
+        assertFalse(hasPayloadBody(request(HEAD, newHeaders())));
+        assertFalse(hasPayloadBody(request(DELETE, newHeaders())));
+        assertTrue(hasPayloadBody(request(POST, newHeaders())));
+        assertTrue(hasPayloadBody(request(PUT, newHeaders())));
+    }
+
+    @Test
+    public void requestsWithContentHeadersHavePayloadBody() {
+        assertTrue(hasPayloadBody(request(GET, newHeaders().set(CONTENT_LENGTH, "2048"))));
+        assertTrue(hasPayloadBody(request(GET, newHeaders().set(TRANSFER_ENCODING, CHUNKED))));
+    }
+
+    private static HttpRequestMetaData request(final HttpRequestMethod method, final HttpHeaders headers) {
+        return newRequestMetaData(HTTP_1_1, method, "/", headers);
+    }
+
+    private static HttpHeaders acceptEncoding(final String value) {
+        return newHeaders().set(ACCEPT_ENCODING, value);
+    }
+
+    private static HttpHeaders newHeaders() {
+        return DefaultHttpHeadersFactory.INSTANCE.newHeaders();
+    }
+}
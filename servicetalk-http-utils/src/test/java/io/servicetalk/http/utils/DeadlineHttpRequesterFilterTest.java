@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.AsyncContext;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestExecutor;
+import io.servicetalk.concurrent.api.TestSingleSubscriber;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.HttpExecutionContext;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Single.never;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.http.api.HttpExecutionStrategies.defaultStrategy;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.http.api.RequestDeadlines.DEADLINE_HEADER;
+import static io.servicetalk.http.api.RequestDeadlines.deadline;
+import static io.servicetalk.http.api.RequestDeadlines.parseDeadlineHeader;
+import static io.servicetalk.http.api.TestStreamingHttpClient.from;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+
+public class DeadlineHttpRequesterFilterTest {
+    private static final StreamingHttpRequestResponseFactory reqRespFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final TestExecutor executor = new TestExecutor();
+    private final List<StreamingHttpRequest> requests = new ArrayList<>();
+    private Single<StreamingHttpResponse> response = succeeded(reqRespFactory.ok());
+
+    @Before
+    public void setUp() {
+        AsyncContext.clear();
+    }
+
+    private StreamingHttpClient newClient() {
+        final StreamingHttpClientFilterFactory deadlineFilter = new DeadlineHttpRequesterFilter(executor);
+        return from(reqRespFactory, mock(HttpExecutionContext.class), deadlineFilter.append(client ->
+                new StreamingHttpClientFilter(client) {
+                    @Override
+                    protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                                    final HttpExecutionStrategy strategy,
+                                                                    final StreamingHttpRequest request) {
+                        requests.add(request);
+                        return response;
+                    }
+                }));
+    }
+
+    private static TestSingleSubscriber<StreamingHttpResponse> subscribe(final Single<StreamingHttpResponse> single) {
+        final TestSingleSubscriber<StreamingHttpResponse> subscriber = new TestSingleSubscriber<>();
+        toSource(single).subscribe(subscriber);
+        return subscriber;
+    }
+
+    @Test
+    public void requestWithoutDeadlineIsUnchanged() {
+        final StreamingHttpClient client = newClient();
+        assertThat(subscribe(client.request(defaultStrategy(), client.get("/"))).takeResult().status(), is(OK));
+        assertThat(requests.size(), is(1));
+        assertThat(requests.get(0).headers().get(DEADLINE_HEADER), is(nullValue()));
+        assertThat(executor.scheduledTasksPending(), is(0));
+    }
+
+    @Test
+    public void deadlineIsSentInHeader() {
+        deadline(ofSeconds(10));
+        final StreamingHttpClient client = newClient();
+        assertThat(subscribe(client.request(defaultStrategy(), client.get("/"))).takeResult().status(), is(OK));
+        assertThat(requests.size(), is(1));
+        final CharSequence value = requests.get(0).headers().get(DEADLINE_HEADER);
+        assertThat(value, is(notNullValue()));
+        final Duration sent = parseDeadlineHeader(value);
+        assertThat(sent, is(lessThanOrEqualTo(ofSeconds(10))));
+        assertThat(sent, is(greaterThan(Duration.ZERO)));
+    }
+
+    @Test
+    public void expiredDeadlineFailsWithoutSending() {
+        deadline(Duration.ZERO);
+        final StreamingHttpClient client = newClient();
+        assertThat(subscribe(client.request(defaultStrategy(), client.get("/"))).takeError(),
+                instanceOf(TimeoutException.class));
+        assertThat(requests.size(), is(0));
+    }
+
+    @Test
+    public void responseTimesOutAtDeadline() {
+        response = never();
+        deadline(ofMillis(100));
+        final StreamingHttpClient client = newClient();
+        final TestSingleSubscriber<StreamingHttpResponse> subscriber =
+                subscribe(client.request(defaultStrategy(), client.get("/")));
+        assertThat(requests.size(), is(1));
+        assertThat(subscriber.hasResult(), is(false));
+
+        executor.advanceTimeBy(100, MILLISECONDS);
+        assertThat(subscriber.takeError(), instanceOf(TimeoutException.class));
+    }
+
+    @Test
+    public void deadlineIsReadOnSubscribe() {
+        final StreamingHttpClient client = newClient();
+        final Single<StreamingHttpResponse> single = client.request(defaultStrategy(), client.get("/"));
+        deadline(ofSeconds(10));
+        assertThat(subscribe(single).takeResult().status(), is(OK));
+        assertThat(requests.size(), is(1));
+        assertThat(requests.get(0).headers().get(DEADLINE_HEADER), is(notNullValue()));
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.AsyncContext;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestExecutor;
+import io.servicetalk.concurrent.api.TestSingleSubscriber;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.HttpExecutionContext;
+import io.servicetalk.http.api.RequestDeadlines;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpServiceFilter;
+import io.servicetalk.http.api.TestHttpServiceContext;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.HttpResponseStatus.GATEWAY_TIMEOUT;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.http.api.RequestDeadlines.DEADLINE_HEADER;
+import static java.time.Duration.ofSeconds;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+
+public class DeadlineHttpServiceFilterTest {
+    private static final StreamingHttpRequestResponseFactory reqRespFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final TestExecutor executor = new TestExecutor();
+    private final AtomicInteger invocations = new AtomicInteger();
+    private final AtomicReference<Duration> remaining = new AtomicReference<>();
+    private Single<StreamingHttpResponse> response = succeeded(reqRespFactory.ok());
+
+    @Before
+    public void setUp() {
+        AsyncContext.clear();
+    }
+
+    private TestSingleSubscriber<StreamingHttpResponse> handle(@Nullable final CharSequence deadline) {
+        final StreamingHttpServiceFilter service = new DeadlineHttpServiceFilter(executor).create(
+                (ctx, request, responseFactory) -> {
+                    invocations.incrementAndGet();
+                    remaining.set(RequestDeadlines.remaining());
+                    return response;
+                });
+        final StreamingHttpRequest request = reqRespFactory.get("/");
+        if (deadline != null) {
+            request.headers().set(DEADLINE_HEADER, deadline);
+        }
+        final TestHttpServiceContext ctx = new TestHttpServiceContext(DefaultHttpHeadersFactory.INSTANCE,
+                reqRespFactory, mock(HttpExecutionContext.class));
+        final TestSingleSubscriber<StreamingHttpResponse> subscriber = new TestSingleSubscriber<>();
+        toSource(service.handle(ctx, request, reqRespFactory)).subscribe(subscriber);
+        return subscriber;
+    }
+
+    @Test
+    public void requestWithoutDeadlineIsUnchanged() {
+        assertThat(handle(null).takeResult().status(), is(OK));
+        assertThat(invocations.get(), is(1));
+        assertThat(remaining.get(), is(nullValue()));
+        assertThat(executor.scheduledTasksPending(), is(0));
+    }
+
+    @Test
+    public void invalidDeadlineIsIgnored() {
+        assertThat(handle("soon").takeResult().status(), is(OK));
+        assertThat(invocations.get(), is(1));
+        assertThat(remaining.get(), is(nullValue()));
+    }
+
+    @Test
+    public void deadlineIsVisibleToService() {
+        assertThat(handle("10000").takeResult().status(), is(OK));
+        assertThat(invocations.get(), is(1));
+        assertThat(remaining.get(), is(notNullValue()));
+        assertThat(remaining.get(), is(lessThanOrEqualTo(ofSeconds(10))));
+        assertThat(remaining.get(), is(greaterThan(Duration.ZERO)));
+    }
+
+    @Test
+    public void expiredDeadlineIsNotPassedToService() {
+        assertThat(handle("0").takeResult().status(), is(GATEWAY_TIMEOUT));
+        assertThat(invocations.get(), is(0));
+    }
+
+    @Test
+    public void serviceIsCancelledAtDeadline() {
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        response = Single.<StreamingHttpResponse>never().whenCancel(() -> cancelled.set(true));
+        final TestSingleSubscriber<StreamingHttpResponse> subscriber = handle("100");
+        assertThat(subscriber.hasResult(), is(false));
+
+        executor.advanceTimeBy(100, MILLISECONDS);
+        assertThat(subscriber.takeResult().status(), is(GATEWAY_TIMEOUT));
+        assertThat(cancelled.get(), is(true));
+    }
+
+    @Test
+    public void otherFailuresAreNotMapped() {
+        response = failed(DELIBERATE_EXCEPTION);
+        assertThat(handle("10000").takeError(), is(DELIBERATE_EXCEPTION));
+    }
+}
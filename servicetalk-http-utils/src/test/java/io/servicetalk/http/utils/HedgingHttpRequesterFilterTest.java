@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestExecutor;
+import io.servicetalk.concurrent.api.TestSingle;
+import io.servicetalk.concurrent.api.TestSingleSubscriber;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.HttpExecutionContext;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.TestStreamingHttpClient;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.http.api.HttpExecutionStrategies.defaultStrategy;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.HttpRequestMethod.GET;
+import static io.servicetalk.http.api.HttpRequestMethod.PUT;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HedgingHttpRequesterFilterTest {
+    private static final StreamingHttpRequestResponseFactory reqRespFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+    private static final long DELAY_MILLIS = 100;
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final TestExecutor executor = new TestExecutor();
+    private final List<StreamingHttpRequest> requests = new ArrayList<>();
+    private final List<TestSingle<StreamingHttpResponse>> responses = new ArrayList<>();
+
+    private StreamingHttpClient newClient(final HedgingHttpRequesterFilter.Builder builder) {
+        final HttpExecutionContext executionContext = mock(HttpExecutionContext.class);
+        when(executionContext.executor()).thenReturn(executor);
+        return TestStreamingHttpClient.from(reqRespFactory, executionContext,
+                builder.initialDelay(Duration.ofMillis(DELAY_MILLIS)).maxHedgePercent(100).build()
+                        .append(client -> new StreamingHttpClientFilter(client) {
+                            @Override
+                            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                                            final HttpExecutionStrategy strategy,
+                                                                            final StreamingHttpRequest request) {
+                                return Single.defer(() -> {
+                                    final TestSingle<StreamingHttpResponse> response = new TestSingle<>();
+                                    requests.add(request);
+                                    responses.add(response);
+                                    return response;
+                                });
+                            }
+                        }));
+    }
+
+    private TestSingleSubscriber<StreamingHttpResponse> request(final StreamingHttpClient client,
+                                                                final StreamingHttpRequest request) {
+        final TestSingleSubscriber<StreamingHttpResponse> subscriber = new TestSingleSubscriber<>();
+        toSource(client.request(defaultStrategy(), request)).subscribe(subscriber);
+        executor.advanceTimeBy(DELAY_MILLIS, MILLISECONDS);
+        return subscriber;
+    }
+
+    private static String payload(final StreamingHttpRequest request) throws Exception {
+        return request.payloadBody().collect(StringBuilder::new, (sb, buffer) -> sb.append(buffer.toString(US_ASCII)))
+                .toFuture().get().toString();
+    }
+
+    private static StreamingHttpRequest withBody(final StreamingHttpRequest request) {
+        final Buffer body = DEFAULT_ALLOCATOR.fromAscii("hello");
+        return request.payloadBody(from(body));
+    }
+
+    @Test
+    public void safeRequestIsHedgedByDefault() {
+        final StreamingHttpClient client = newClient(new HedgingHttpRequesterFilter.Builder());
+        request(client, client.newRequest(GET, "/"));
+
+        assertThat(responses.size(), is(2));
+    }
+
+    @Test
+    public void idempotentRequestWithBodyIsNotHedgedByDefault() {
+        final StreamingHttpClient client = newClient(new HedgingHttpRequesterFilter.Builder());
+        request(client, withBody(client.newRequest(PUT, "/")));
+
+        assertThat(responses.size(), is(1));
+    }
+
+    @Test
+    public void selectedRequestWithReplayableBodyIsHedged() throws Exception {
+        final StreamingHttpClient client = newClient(new HedgingHttpRequesterFilter.Builder().hedgeFor(meta -> true));
+        final TestSingleSubscriber<StreamingHttpResponse> subscriber =
+                request(client, withBody(client.newRequest(PUT, "/")));
+
+        assertThat(responses.size(), is(2));
+        assertThat(payload(requests.get(0)), is("hello"));
+        assertThat(payload(requests.get(1)), is("hello"));
+
+        final StreamingHttpResponse response = reqRespFactory.ok();
+        responses.get(1).onSuccess(response);
+        assertThat(subscriber.takeResult(), is(sameInstance(response)));
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestCompletable;
+import io.servicetalk.concurrent.api.TestPublisher;
+import io.servicetalk.concurrent.api.TestSingle;
+import io.servicetalk.concurrent.api.TestSingleSubscriber;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class HedgingSingleTest {
+    private static final StreamingHttpRequestResponseFactory reqRespFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final List<TestSingle<StreamingHttpResponse>> attempts = new ArrayList<>();
+    private final List<AtomicBoolean> cancelled = new ArrayList<>();
+    private final TestCompletable timer = new TestCompletable();
+    private final AtomicBoolean mayHedge = new AtomicBoolean(true);
+    private final AtomicInteger latencies = new AtomicInteger();
+    private final TestSingleSubscriber<StreamingHttpResponse> subscriber = new TestSingleSubscriber<>();
+
+    private void subscribe() {
+        final Single<StreamingHttpResponse> attempt = Single.defer(() -> {
+            final TestSingle<StreamingHttpResponse> single = new TestSingle<>();
+            final AtomicBoolean cancel = new AtomicBoolean();
+            attempts.add(single);
+            cancelled.add(cancel);
+            return single.beforeCancel(() -> cancel.set(true));
+        });
+        toSource(new HedgingSingle(attempt, timer, mayHedge::get, __ -> latencies.incrementAndGet()))
+                .subscribe(subscriber);
+    }
+
+    @Test
+    public void primaryWinsBeforeTimer() {
+        subscribe();
+        final StreamingHttpResponse response = reqRespFactory.ok();
+        attempts.get(0).onSuccess(response);
+        assertThat(subscriber.takeResult(), is(sameInstance(response)));
+        timer.onComplete();
+        assertThat(attempts.size(), is(1));
+        assertThat(latencies.get(), is(1));
+    }
+
+    @Test
+    public void hedgeWinsAndCancelsPrimary() {
+        subscribe();
+        timer.onComplete();
+        assertThat(attempts.size(), is(2));
+        final StreamingHttpResponse response = reqRespFactory.ok();
+        attempts.get(1).onSuccess(response);
+        assertThat(subscriber.takeResult(), is(sameInstance(response)));
+        assertThat(cancelled.get(0).get(), is(true));
+        assertThat(cancelled.get(1).get(), is(false));
+        assertThat("The cancelled primary attempt is recorded.", latencies.get(), is(2));
+    }
+
+    @Test
+    public void noHedgeWithoutBudget() {
+        mayHedge.set(false);
+        subscribe();
+        timer.onComplete();
+        assertThat(attempts.size(), is(1));
+    }
+
+    @Test
+    public void primaryFailureBeforeTimerFails() {
+        subscribe();
+        attempts.get(0).onError(DELIBERATE_EXCEPTION);
+        assertThat(subscriber.takeError(), is(sameInstance(DELIBERATE_EXCEPTION)));
+        timer.onComplete();
+        assertThat(attempts.size(), is(1));
+    }
+
+    @Test
+    public void failedAttemptWaitsForTheOther() {
+        subscribe();
+        timer.onComplete();
+        attempts.get(0).onError(DELIBERATE_EXCEPTION);
+        assertThat(subscriber.isErrored(), is(false));
+        final StreamingHttpResponse response = reqRespFactory.ok();
+        attempts.get(1).onSuccess(response);
+        assertThat(subscriber.takeResult(), is(sameInstance(response)));
+    }
+
+    @Test
+    public void failedAttemptIsNotRecorded() {
+        subscribe();
+        timer.onComplete();
+        attempts.get(0).onError(DELIBERATE_EXCEPTION);
+        attempts.get(1).onSuccess(reqRespFactory.ok());
+        assertThat(latencies.get(), is(1));
+    }
+
+    @Test
+    public void bothAttemptsFail() {
+        subscribe();
+        timer.onComplete();
+        attempts.get(0).onError(new IllegalStateException());
+        attempts.get(1).onError(DELIBERATE_EXCEPTION);
+        assertThat(subscriber.takeError(), is(sameInstance(DELIBERATE_EXCEPTION)));
+    }
+
+    @Test
+    public void lateResponseIsDrained() {
+        subscribe();
+        timer.onComplete();
+        attempts.get(0).onSuccess(reqRespFactory.ok());
+        final TestPublisher<Object> payload = new TestPublisher<>();
+        attempts.get(1).onSuccess(reqRespFactory.ok().transformRawPayloadBody(__ -> payload));
+        assertThat(payload.isSubscribed(), is(true));
+    }
+
+    @Test
+    public void cancelCancelsAttemptsAndTimer() {
+        subscribe();
+        timer.onComplete();
+        subscriber.cancel();
+        assertThat(cancelled.get(0).get(), is(true));
+        assertThat(cancelled.get(1).get(), is(true));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestSingleSubscriber;
+import io.servicetalk.concurrent.internal.DeliberateException;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.HttpExecutionContext;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.http.api.HttpExecutionStrategies.defaultStrategy;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.TestStreamingHttpClient.from;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+
+public class RetryingHttpRequesterFilterTest {
+    private static final StreamingHttpRequestResponseFactory reqRespFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final List<DeliberateException> failures = new ArrayList<>();
+
+    private StreamingHttpClient newClient(final RetryingHttpRequesterFilter.Builder builder) {
+        final StreamingHttpClientFilterFactory retryingFilter = builder.buildWithImmediateRetries();
+        return from(reqRespFactory, mock(HttpExecutionContext.class), retryingFilter.append(client ->
+                new StreamingHttpClientFilter(client) {
+                    @Override
+                    protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                                    final HttpExecutionStrategy strategy,
+                                                                    final StreamingHttpRequest request) {
+                        return Single.defer(() -> {
+                            final DeliberateException failure = new DeliberateException();
+                            failures.add(failure);
+                            return failed(failure);
+                        });
+                    }
+                }));
+    }
+
+    private static Throwable requestError(final StreamingHttpClient client) {
+        final TestSingleSubscriber<StreamingHttpResponse> subscriber = new TestSingleSubscriber<>();
+        toSource(client.request(defaultStrategy(), client.get("/"))).subscribe(subscriber);
+        return subscriber.takeError();
+    }
+
+    @Test
+    public void retriesUpToMaxRetriesWithoutBudget() {
+        final StreamingHttpClient client = newClient(new RetryingHttpRequesterFilter.Builder()
+                .maxRetries(3)
+                .retryFor((meta, cause) -> true));
+        assertThat(requestError(client), is(sameInstance(failures.get(3))));
+        assertThat(failures.size(), is(4));
+    }
+
+    @Test
+    public void exhaustedBudgetStopsRetries() {
+        // A reserve of 2 retries which is not replenished by the few requests of this test.
+        final StreamingHttpClient client = newClient(new RetryingHttpRequesterFilter.Builder()
+                .maxRetries(5)
+                .retryFor((meta, cause) -> true)
+                .retryBudget(0.001, 2));
+        // The reserve allows 2 retries, the third failure is returned.
+        assertThat(requestError(client), is(sameInstance(failures.get(2))));
+        assertThat(failures.size(), is(3));
+
+        // The budget is exhausted, the first failure is returned without retrying.
+        assertThat(requestError(client), is(sameInstance(failures.get(3))));
+        assertThat(failures.size(), is(4));
+    }
+}
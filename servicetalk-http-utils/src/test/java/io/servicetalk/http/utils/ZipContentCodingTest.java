@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Publisher.empty;
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static io.servicetalk.concurrent.api.Publisher.fromIterable;
+import static io.servicetalk.http.utils.ZipContentCoding.DEFLATE_CODING;
+import static io.servicetalk.http.utils.ZipContentCoding.GZIP_CODING;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ZipContentCodingTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private static final byte[] PAYLOAD = newPayload();
+
+    @Test
+    public void gzipRoundTrip() throws Exception {
+        roundTrip(GZIP_CODING);
+    }
+
+    @Test
+    public void deflateRoundTrip() throws Exception {
+        roundTrip(DEFLATE_CODING);
+    }
+
+    @Test
+    public void gzipIsReadableByJdk() throws Exception {
+        final byte[] encoded = encode(GZIP_CODING, PAYLOAD, 1000);
+        assertThat(Arrays.equals(readFully(new GZIPInputStream(new ByteArrayInputStream(encoded))), PAYLOAD), is(true));
+    }
+
+    @Test
+    public void deflateIsReadableByJdk() throws Exception {
+        final byte[] encoded = encode(DEFLATE_CODING, PAYLOAD, 1000);
+        assertThat(Arrays.equals(readFully(new InflaterInputStream(new ByteArrayInputStream(encoded))), PAYLOAD),
+                is(true));
+    }
+
+    @Test
+    public void decodeJdkGzipInSmallChunks() throws Exception {
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(encoded)) {
+            out.write(PAYLOAD);
+        }
+        // Chunks of a single byte split the header and trailer.
+        assertThat(Arrays.equals(decode(GZIP_CODING, encoded.toByteArray(), 1), PAYLOAD), is(true));
+    }
+
+    @Test
+    public void decodeJdkDeflateInSmallChunks() throws Exception {
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(encoded)) {
+            out.write(PAYLOAD);
+        }
+        assertThat(Arrays.equals(decode(DEFLATE_CODING, encoded.toByteArray(), 7), PAYLOAD), is(true));
+    }
+
+    @Test
+    public void emptyPayloadDecodesToEmpty() throws Exception {
+        assertThat(GZIP_CODING.decode(empty(), DEFAULT_ALLOCATOR, Long.MAX_VALUE).toFuture().get().isEmpty(), is(true));
+    }
+
+    @Test
+    public void emptyPayloadEncodesToEmpty() throws Exception {
+        for (ZipContentCoding coding : Arrays.asList(GZIP_CODING, DEFLATE_CODING)) {
+            assertThat(coding.encode(empty(), DEFAULT_ALLOCATOR).toFuture().get().isEmpty(), is(true));
+            assertThat(coding.encode(from(DEFAULT_ALLOCATOR.newBuffer(0)), DEFAULT_ALLOCATOR).toFuture().get()
+                    .isEmpty(), is(true));
+        }
+    }
+
+    @Test
+    public void truncatedPayloadFails() throws Exception {
+        final byte[] encoded = encode(GZIP_CODING, PAYLOAD, 1000);
+        assertDecodeFails(Arrays.copyOf(encoded, encoded.length - 4));
+    }
+
+    @Test
+    public void corruptedPayloadFails() throws Exception {
+        final byte[] encoded = encode(GZIP_CODING, PAYLOAD, 1000);
+        // Corrupt the CRC in the trailer.
+        encoded[encoded.length - 8] ^= 1;
+        assertDecodeFails(encoded);
+    }
+
+    @Test
+    public void gzipDecodedSizeIsBounded() throws Exception {
+        testDecodedSizeIsBounded(GZIP_CODING);
+    }
+
+    @Test
+    public void deflateDecodedSizeIsBounded() throws Exception {
+        testDecodedSizeIsBounded(DEFLATE_CODING);
+    }
+
+    private static void testDecodedSizeIsBounded(final ZipContentCoding coding) throws Exception {
+        final byte[] encoded = encode(coding, PAYLOAD, 1000);
+        assertThat(Arrays.equals(decode(coding, encoded, 100, PAYLOAD.length), PAYLOAD), is(true));
+        try {
+            decode(coding, encoded, 100, PAYLOAD.length - 1);
+            fail();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(InvalidContentEncodingException.class));
+        }
+    }
+
+    private static void roundTrip(final ZipContentCoding coding) throws Exception {
+        final byte[] encoded = encode(coding, PAYLOAD, 1000);
+        assertThat(encoded.length, is(lessThan(PAYLOAD.length / 2)));
+        assertThat(Arrays.equals(decode(coding, encoded, 100), PAYLOAD), is(true));
+    }
+
+    private static void assertDecodeFails(final byte[] encoded) throws InterruptedException {
+        try {
+            decode(GZIP_CODING, encoded, 100);
+            fail();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(InvalidContentEncodingException.class));
+        }
+    }
+
+    private static byte[] encode(final ZipContentCoding coding, final byte[] payload, final int chunkSize)
+            throws ExecutionException, InterruptedException {
+        return toBytes(coding.encode(fromIterable(chunks(payload, chunkSize)), DEFAULT_ALLOCATOR).toFuture().get());
+    }
+
+    private static byte[] decode(final ZipContentCoding coding, final byte[] payload, final int chunkSize)
+            throws ExecutionException, InterruptedException {
+        return decode(coding, payload, chunkSize, Long.MAX_VALUE);
+    }
+
+    private static byte[] decode(final ZipContentCoding coding, final byte[] payload, final int chunkSize,
+                                 final long maxDecodedSize) throws ExecutionException, InterruptedException {
+        return toBytes(coding.decode(fromIterable(chunks(payload, chunkSize)), DEFAULT_ALLOCATOR, maxDecodedSize)
+                .toFuture().get());
+    }
+
+    private static List<Buffer> chunks(final byte[] payload, final int chunkSize) {
+        final List<Buffer> chunks = new ArrayList<>();
+        for (int i = 0; i < payload.length; i += chunkSize) {
+            chunks.add(DEFAULT_ALLOCATOR.wrap(Arrays.copyOfRange(payload, i, Math.min(payload.length, i + chunkSize))));
+        }
+        return chunks;
+    }
+
+    private static byte[] toBytes(final Iterable<Buffer> buffers) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Buffer buffer : buffers) {
+            final byte[] bytes = new byte[buffer.readableBytes()];
+            buffer.readBytes(bytes);
+            out.write(bytes, 0, bytes.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] readFully(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] newPayload() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; ++i) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"item-").append(i % 17).append("\"},");
+        }
+        return sb.toString().getBytes(US_ASCII);
+    }
+}
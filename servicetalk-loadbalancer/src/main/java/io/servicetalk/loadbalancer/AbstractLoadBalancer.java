@@ -0,0 +1,553 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.ConnectionRejectedException;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.NoAvailableHostException;
+import io.servicetalk.client.api.SelectionHistory;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.PublisherSource.Subscriber;
+import io.servicetalk.concurrent.PublisherSource.Subscription;
+import io.servicetalk.concurrent.api.AsyncContext;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.CompositeCloseable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.internal.SpScPublisherProcessor;
+import io.servicetalk.concurrent.internal.SequentialCancellable;
+import io.servicetalk.loadbalancer.Host.ConnectionEntry;
+import io.servicetalk.loadbalancer.Host.MutableAddressHost;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.client.api.SelectionHistory.SELECTION_HISTORY_KEY;
+import static io.servicetalk.client.api.internal.LoadBalancerReadyEvent.LOAD_BALANCER_NOT_READY_EVENT;
+import static io.servicetalk.client.api.internal.LoadBalancerReadyEvent.LOAD_BALANCER_READY_EVENT;
+import static io.servicetalk.concurrent.api.AsyncCloseables.newCompositeCloseable;
+import static io.servicetalk.concurrent.api.AsyncCloseables.toAsyncCloseable;
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.concurrent.internal.ThrowableUtil.unknownStackTrace;
+import static java.util.Collections.binarySearch;
+import static java.util.Collections.emptyList;
+import static java.util.Comparator.comparing;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Base class for {@link LoadBalancer}s that maintain a list of active {@link Host}s from a stream of
+ * {@link ServiceDiscovererEvent}s and differ only in how a {@link Host} is picked for each selection attempt.
+ * <ul>
+ * <li>Connections are created lazily unless a minimum number of connections per host is configured, in which case
+ * they are opened in the background as soon as a host becomes available. The number of concurrent connection attempts
+ * per host can be limited, selections that need a new connection then wait for a pending attempt to finish instead of
+ * over-provisioning connections when dealing with a requests surge.</li>
+ * <li>Existing connections are reused unless a selector passed to {@link #selectConnection(Predicate)} suggests
+ * otherwise. Connections which reported the end of a request are tried first, in constant time.
+ * This can lead to situations where connections will be used to their maximum capacity (for example in the context of
+ * pipelining) before new connections are created.</li>
+ * <li>Closed connections are automatically pruned.</li>
+ * <li>Hosts are selected proportionally to their {@link ServiceDiscovererEvent#weight() weight}.</li>
+ * <li>If enabled by the {@link HealthCheckConfig}, hosts which repeatedly fail to connect or to process requests are
+ * temporarily ejected, see {@link Host}.</li>
+ * <li>If a locality is configured, hosts with the same {@link ServiceDiscovererEvent#locality()} are preferred. Other
+ * hosts are only selected when all local hosts are ejected, or when the selected local host has no connection that
+ * accepts the request and already has the maximum number of connection attempts in flight.</li>
+ * <li>Hosts recorded in the {@link SelectionHistory} of the current request are avoided if other hosts are
+ * available.</li>
+ * </ul>
+ *
+ * @param <ResolvedAddress> The resolved address type.
+ * @param <C> The type of connection.
+ */
+abstract class AbstractLoadBalancer<ResolvedAddress, C extends LoadBalancedConnection> implements LoadBalancer<C> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractLoadBalancer.class);
+    private static final IllegalStateException LB_CLOSED_SELECT_CNX_EXCEPTION =
+            unknownStackTrace(new IllegalStateException("LoadBalancer has closed"), AbstractLoadBalancer.class,
+                    "selectConnection0(...)");
+    private static final NoAvailableHostException NO_ACTIVE_HOSTS_SELECT_CNX_EXCEPTION =
+            unknownStackTrace(new NoAvailableHostException("No hosts are available to connect."),
+                    AbstractLoadBalancer.class, "selectConnection0(...)");
+
+    private static final AtomicReferenceFieldUpdater<AbstractLoadBalancer, List> activeHostsUpdater =
+            newUpdater(AbstractLoadBalancer.class, List.class, "activeHosts");
+
+    /**
+     * With a relatively small number of connections we can minimize connection creation under moderate concurrency by
+     * exhausting the full search space without sacrificing too much latency caused by the cost of a CAS operation per
+     * selection attempt.
+     */
+    private static final int MIN_SEARCH_SPACE = 64;
+
+    /**
+     * For larger search spaces, due to the cost of a CAS operation per selection attempt we see diminishing returns for
+     * trying to locate an available connection when most connections are in use. This increases tail latencies, thus
+     * after some number of failed attempts it appears to be more beneficial to open a new connection instead.
+     * <p>
+     * The current heuristics were chosen based on a set of benchmarks under various circumstances, low connection
+     * counts, larger connection counts, low connection churn, high connection churn.
+     */
+    private static final float SEARCH_FACTOR = 0.75f;
+
+    private volatile boolean closed;
+    private volatile List<Host<ResolvedAddress, C>> activeHosts = emptyList();
+    /**
+     * Selection index over {@link #activeHosts}, updated after every change of {@link #activeHosts}.
+     */
+    private volatile HostList<ResolvedAddress, C> selectableHosts = HostList.empty();
+
+    private final SpScPublisherProcessor<Object> eventStream = new SpScPublisherProcessor<>(32);
+    private final SequentialCancellable discoveryCancellable = new SequentialCancellable();
+    private final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory;
+    private final HealthCheckConfig healthCheckConfig;
+    private final ConnectionPoolConfig poolConfig;
+    @Nullable
+    private final String locality;
+    /**
+     * Active hosts split by locality, {@code null} when locality is not taken into account.
+     */
+    @Nullable
+    private volatile HostsByLocality<ResolvedAddress, C> hostsByLocality;
+    private final ListenableAsyncCloseable asyncCloseable;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param eventPublisher    provides a stream of addresses to connect to.
+     * @param connectionFactory a function which creates new connections.
+     * @param comparator        used to compare addresses for lookup/iteration during the connection attempt phase.
+     * @param healthCheckConfig configuration of the passive health checking of hosts.
+     * @param poolConfig        configuration of the connections maintained for each host.
+     * @param locality          locality of the client, hosts with the same {@link ServiceDiscovererEvent#locality()}
+     * are preferred. {@code null} to ignore localities.
+     */
+    AbstractLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                         final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                         final Comparator<ResolvedAddress> comparator,
+                         final HealthCheckConfig healthCheckConfig,
+                         final ConnectionPoolConfig poolConfig,
+                         @Nullable final String locality) {
+
+        this.connectionFactory = requireNonNull(connectionFactory);
+        this.healthCheckConfig = requireNonNull(healthCheckConfig);
+        this.poolConfig = requireNonNull(poolConfig);
+        this.locality = locality;
+
+        final Comparator<Host<ResolvedAddress, C>> activeAddressComparator =
+                comparing(host -> host instanceof MutableAddressHost ?
+                        ((MutableAddressHost<ResolvedAddress, C>) host).mutableAddress : host.address, comparator);
+
+        toSource(eventPublisher).subscribe(new Subscriber<ServiceDiscovererEvent<ResolvedAddress>>() {
+
+            @Override
+            public void onSubscribe(final Subscription s) {
+                // We request max value here to make sure we do not access Subscription concurrently
+                // (requestN here and cancel from discoveryCancellable). If we request-1 in onNext we would have to wrap
+                // the Subscription in a ConcurrentSubscription which is costly.
+                // Since, we synchronously process onNexts we do not really care about flow control.
+                s.request(Long.MAX_VALUE);
+                discoveryCancellable.nextCancellable(s);
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public void onNext(final ServiceDiscovererEvent<ResolvedAddress> event) {
+                LOGGER.debug("Load balancer {}, received new ServiceDiscoverer event {}.", AbstractLoadBalancer.this,
+                        event);
+                // A non-positive weight would break the weighted selection of HostList, custom ServiceDiscoverers may
+                // not validate it.
+                final int weight;
+                if (event.isAvailable() && event.weight() <= 0) {
+                    LOGGER.warn("Load balancer {}, invalid weight {} for address {}, using 1 instead.",
+                            AbstractLoadBalancer.this, event.weight(), event.address());
+                    weight = 1;
+                } else {
+                    weight = event.weight();
+                }
+                final List<Host<ResolvedAddress, C>> activeAddresses =
+                        activeHostsUpdater.updateAndGet(AbstractLoadBalancer.this, currentAddresses -> {
+                            final List<Host<ResolvedAddress, C>> refreshedAddresses = new ArrayList<>(currentAddresses);
+                            final MutableAddressHost<ResolvedAddress, C> searchHost = new MutableAddressHost();
+
+                            searchHost.mutableAddress = event.address();
+                            // Binary search because any insertion is performed at the index returned by the search,
+                            // which is consistent with the ordering defined by the comparator
+                            final int i = binarySearch(refreshedAddresses, searchHost, activeAddressComparator);
+
+                            if (event.isAvailable()) {
+                                if (i < 0) {
+                                    final Host<ResolvedAddress, C> host = new Host(event.address(), event.locality(),
+                                            healthCheckConfig);
+                                    host.weight(weight);
+                                    refreshedAddresses.add(-i - 1, host);
+                                } else {
+                                    // The address is already known, only its weight may have changed.
+                                    refreshedAddresses.get(i).weight(weight);
+                                }
+                            } else if (i >= 0) {
+                                Host<ResolvedAddress, C> removed = refreshedAddresses.remove(i);
+                                if (removed != null) {
+                                    removed.markInactive();
+                                }
+                            }
+
+                            return refreshedAddresses;
+                        });
+
+                LOGGER.debug("Load balancer {} now using {} addresses: {}", AbstractLoadBalancer.this,
+                        activeAddresses.size(), activeAddresses);
+
+                selectableHosts = new HostList<>(activeAddresses);
+                if (locality != null) {
+                    hostsByLocality = HostsByLocality.partition(activeAddresses, locality);
+                }
+
+                if (event.isAvailable()) {
+                    if (poolConfig.minConnectionsPerHost > 0) {
+                        final MutableAddressHost<ResolvedAddress, C> searchHost = new MutableAddressHost();
+                        searchHost.mutableAddress = event.address();
+                        final int i = binarySearch(activeAddresses, searchHost, activeAddressComparator);
+                        if (i >= 0) {
+                            ensureMinConnections(activeAddresses.get(i));
+                        }
+                    }
+                    if (activeAddresses.size() == 1) {
+                        eventStream.sendOnNext(LOAD_BALANCER_READY_EVENT);
+                    }
+                } else if (activeAddresses.isEmpty()) {
+                    eventStream.sendOnNext(LOAD_BALANCER_NOT_READY_EVENT);
+                }
+            }
+
+            @Override
+            public void onError(final Throwable t) {
+                List<Host<ResolvedAddress, C>> hosts = activeHosts;
+                eventStream.sendOnError(t);
+                LOGGER.error(
+                        "Load balancer {}. Service discoverer {} emitted an error. Last seen addresses (size {}) {}",
+                        AbstractLoadBalancer.this, eventPublisher, hosts.size(), hosts, t);
+            }
+
+            @Override
+            public void onComplete() {
+                List<Host<ResolvedAddress, C>> hosts = activeHosts;
+                eventStream.sendOnComplete();
+                LOGGER.error("Load balancer {}. Service discoverer {} completed. Last seen addresses (size {}) {}",
+                        AbstractLoadBalancer.this, eventPublisher, hosts.size(), hosts);
+            }
+        });
+        asyncCloseable = toAsyncCloseable(graceful -> {
+            closed = true;
+            discoveryCancellable.cancel();
+            eventStream.sendOnComplete();
+            @SuppressWarnings("unchecked")
+            List<Host<ResolvedAddress, C>> currentList = activeHostsUpdater
+                    .getAndSet(AbstractLoadBalancer.this, Collections.<Host<ResolvedAddress, C>>emptyList());
+            // Selections waiting for a connection attempt will fail when they retry after the LB has closed.
+            selectableHosts = HostList.empty();
+            currentList.forEach(Host::wakeUpConnectWaiters);
+            CompositeCloseable cc = newCompositeCloseable().appendAll(currentList).appendAll(connectionFactory);
+            return graceful ? cc.closeAsyncGracefully() : cc.closeAsync();
+        });
+    }
+
+    @Override
+    public Single<C> selectConnection(Predicate<C> selector) {
+        return defer(() -> selectConnection0(selector).subscribeShareContext());
+    }
+
+    @Override
+    public Publisher<Object> eventStream() {
+        return eventStream;
+    }
+
+    /**
+     * Picks the {@link Host} that will be used for a selection attempt.
+     *
+     * @param hosts the {@link Host}s to pick from, never empty. Implementations are expected to pick {@link Host}s
+     * proportionally to their {@link Host#weight() weight}.
+     * @return the {@link Host} to select or create a connection from.
+     */
+    abstract Host<ResolvedAddress, C> selectHost(HostList<ResolvedAddress, C> hosts);
+
+    private Single<C> selectConnection0(Predicate<C> selector) {
+        if (closed) {
+            return failed(LB_CLOSED_SELECT_CNX_EXCEPTION);
+        }
+
+        final HostList<ResolvedAddress, C> activeHosts = this.selectableHosts;
+        if (activeHosts.isEmpty()) {
+            // This is the case when SD has emitted some items but none of the hosts are active.
+            return failed(NO_ACTIVE_HOSTS_SELECT_CNX_EXCEPTION);
+        }
+
+        final HostsByLocality<ResolvedAddress, C> hostsByLocality = this.hostsByLocality;
+        if (hostsByLocality != null) {
+            final Host<ResolvedAddress, C> localHost = selectHealthyHost(hostsByLocality.local);
+            if (localHost != null) {
+                final C connection = selectExistingConnection(localHost, selector);
+                if (connection != null) {
+                    return succeeded(connection);
+                }
+                if (localHost.tryStartConnect(poolConfig.maxConcurrentConnectsPerHost)) {
+                    return connect(localHost, selector);
+                }
+            }
+            // Local hosts are all ejected, or the selected one can't accept more requests nor open a new connection:
+            // spill over to the other localities.
+            return selectConnection0(hostsByLocality.remote, selector);
+        }
+        return selectConnection0(activeHosts, selector);
+    }
+
+    private Single<C> selectConnection0(final HostList<ResolvedAddress, C> hosts, final Predicate<C> selector) {
+        Host<ResolvedAddress, C> host = selectHealthyHost(hosts);
+        if (host == null) {
+            // Every attempt hit an ejected host, degraded service is preferable to failing all selections.
+            host = selectHost(hosts);
+        }
+        final C connection = selectExistingConnection(host, selector);
+        if (connection != null) {
+            return succeeded(connection);
+        }
+
+        // No connection was selected: create a new one, unless too many connection attempts are already in flight for
+        // this host. In that case wait for one of them to finish, the new connection may be usable by this selection.
+        final Completable connectFinished = host.onConnectFinished();
+        if (!host.tryStartConnect(poolConfig.maxConcurrentConnectsPerHost)) {
+            return connectFinished.concat(defer(() -> selectConnection0(selector)));
+        }
+        return connect(host, selector);
+    }
+
+    /**
+     * Retries {@link #selectHost(HostList)} until it returns a {@link Host} which is not ejected. The number of
+     * attempts is bounded by the number of hosts, so selection does not spin when most hosts are ejected. If the
+     * current request carries a {@link SelectionHistory}, hosts it already selected are avoided when possible.
+     *
+     * @return a selectable {@link Host} or {@code null} if every attempt returned an ejected {@link Host}.
+     */
+    @Nullable
+    private Host<ResolvedAddress, C> selectHealthyHost(final HostList<ResolvedAddress, C> hosts) {
+        final SelectionHistory history = AsyncContext.get(SELECTION_HISTORY_KEY);
+        if (history != null) {
+            // Prefer hosts which were not selected yet for this request, but do not fail if there are none.
+            for (int i = 0; i < hosts.size(); i++) {
+                final Host<ResolvedAddress, C> host = selectHost(hosts);
+                if (host.isSelectable() && !history.wasSelected(host.address)) {
+                    history.selected(host.address);
+                    return host;
+                }
+            }
+            // The selection policy may keep picking the same host (e.g. the best scored one), scan for another one.
+            for (int i = 0; i < hosts.size(); i++) {
+                final Host<ResolvedAddress, C> host = hosts.get(i);
+                if (host.isSelectable() && !history.wasSelected(host.address)) {
+                    history.selected(host.address);
+                    return host;
+                }
+            }
+        }
+        for (int i = 0; i < hosts.size(); i++) {
+            final Host<ResolvedAddress, C> host = selectHost(hosts);
+            if (host.isSelectable()) {
+                return host;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private C selectExistingConnection(final Host<ResolvedAddress, C> host, final Predicate<C> selector) {
+        // Try first the connections that are likely to accept another request
+        final C availableCnx = host.pollAvailable(selector);
+        if (availableCnx != null) {
+            return availableCnx;
+        }
+
+        // Then search the other connections, in case they don't report request outcomes
+        final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        final List<C> connections = host.connections;
+        final int size = connections.size();
+        // With small enough search space, attempt all connections.
+        // Back off after exploring most of the search space, it gives diminishing returns.
+        final int attempts = size < MIN_SEARCH_SPACE ? size : (int) (size * SEARCH_FACTOR);
+        for (int i = 0; i < attempts; i++) {
+            final C connection = connections.get(rnd.nextInt(size));
+            if (selector.test(connection)) {
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Opens a new connection for a selection, the caller must have started a connection attempt for the {@link Host}
+     * with {@link Host#tryStartConnect(int)}.
+     */
+    private Single<C> connect(final Host<ResolvedAddress, C> host, final Predicate<C> selector) {
+        return newConnection(host)
+                .flatMap(entry -> {
+                    final C newCnx = entry.connection;
+                    // Invoke the selector before adding the connection to the pool, otherwise, connection can be used
+                    // concurrently and hence a new connection can be rejected by the selector.
+                    if (!selector.test(newCnx)) {
+                        newCnx.closeAsync().subscribe();
+                        // Failure in selection could be temporary, hence add it to the queue and be consistent with the
+                        // fact that select failure does not close a connection.
+                        return failed(new ConnectionRejectedException("Newly created connection " + newCnx +
+                                " rejected by the selection filter."));
+                    }
+                    if (addConnection(host, entry)) {
+                        return succeeded(newCnx);
+                    }
+                    return failed(closed ? LB_CLOSED_SELECT_CNX_EXCEPTION :
+                            new ConnectionRejectedException("Failed to add newly created connection for host: " +
+                                    host.address + ", host inactive? " + host.isInactive()));
+                })
+                // Finish the attempt after the connection has been added, so that waiting selections can see it.
+                .beforeFinally(host::connectFinished);
+    }
+
+    private Single<ConnectionEntry<C>> newConnection(final Host<ResolvedAddress, C> host) {
+        assert host.address != null : "Host address can't be null.";
+        return connectionFactory.newConnection(host.address)
+                .beforeOnError(__ -> host.onConnectFailure())
+                .map(newCnx -> {
+                    host.onConnectSuccess();
+                    final ConnectionEntry<C> entry = host.newEntry(newCnx);
+                    newCnx.requestOutcomeListener(entry);
+                    return entry;
+                });
+    }
+
+    /**
+     * Adds a new connection to a {@link Host}, closing it if that is not possible.
+     *
+     * @return {@code true} if the connection was added and can be used.
+     */
+    private boolean addConnection(final Host<ResolvedAddress, C> host, final ConnectionEntry<C> entry) {
+        final C newCnx = entry.connection;
+        if (!host.addConnection(entry)) {
+            return false;
+        }
+        // If the LB has closed, we attempt to remove the connection, if the removal succeeds, close it.
+        // If we can't remove it, it means it's been removed concurrently and we assume that whoever
+        // removed it also closed it or that it has been removed as a consequence of closing.
+        if (closed) {
+            if (host.removeConnection(newCnx)) {
+                newCnx.closeAsync().subscribe();
+            }
+            return false;
+        }
+        if (poolConfig.minConnectionsPerHost > 0) {
+            newCnx.onClose().afterFinally(() -> {
+                // Host prunes closed connections too, but we can't rely on the order of the two callbacks.
+                host.removeConnection(newCnx);
+                ensureMinConnections(host);
+            }).subscribe();
+        }
+        return true;
+    }
+
+    /**
+     * Opens connections in the background until the {@link Host} has at least
+     * {@link ConnectionPoolConfig#minConnectionsPerHost} connections, within the limit of concurrent connects. This is
+     * best effort: a failed attempt is not retried until another connection of the host closes or the host is
+     * discovered again, the regular selection path still creates connections on demand.
+     */
+    private void ensureMinConnections(final Host<ResolvedAddress, C> host) {
+        while (!closed && !host.isInactive() &&
+                host.connections.size() + host.pendingConnects < poolConfig.minConnectionsPerHost &&
+                host.tryStartConnect(poolConfig.maxConcurrentConnectsPerHost)) {
+            newConnection(host)
+                    .whenOnError(t -> {
+                        host.connectFinished();
+                        LOGGER.debug("Load balancer {}, failed to pre-warm a connection to {}.", this, host, t);
+                    })
+                    .subscribe(entry -> {
+                        final boolean added = addConnection(host, entry);
+                        host.connectFinished();
+                        if (added) {
+                            // The concurrent connects limit may have stopped the loop before reaching the minimum.
+                            ensureMinConnections(host);
+                        }
+                    });
+        }
+    }
+
+    @Override
+    public Completable onClose() {
+        return asyncCloseable.onClose();
+    }
+
+    @Override
+    public Completable closeAsync() {
+        return asyncCloseable.closeAsync();
+    }
+
+    @Override
+    public Completable closeAsyncGracefully() {
+        return asyncCloseable.closeAsyncGracefully();
+    }
+
+    private static final class HostsByLocality<ResolvedAddress, C extends LoadBalancedConnection> {
+        final HostList<ResolvedAddress, C> local;
+        final HostList<ResolvedAddress, C> remote;
+
+        private HostsByLocality(final HostList<ResolvedAddress, C> local, final HostList<ResolvedAddress, C> remote) {
+            this.local = local;
+            this.remote = remote;
+        }
+
+        @Nullable
+        static <ResolvedAddress, C extends LoadBalancedConnection> HostsByLocality<ResolvedAddress, C> partition(
+                final List<Host<ResolvedAddress, C>> hosts, final String locality) {
+            final List<Host<ResolvedAddress, C>> local = new ArrayList<>(hosts.size());
+            final List<Host<ResolvedAddress, C>> remote = new ArrayList<>(hosts.size());
+            for (Host<ResolvedAddress, C> host : hosts) {
+                (locality.equals(host.locality) ? local : remote).add(host);
+            }
+            // With a single locality there is nothing to prefer or to spill over to.
+            return local.isEmpty() || remote.isEmpty() ? null :
+                    new HostsByLocality<>(new HostList<>(local), new HostList<>(remote));
+        }
+    }
+
+    // Visible for testing
+    List<Entry<ResolvedAddress, List<C>>> activeAddresses() {
+        return activeHosts.stream().map(Host::asEntry).collect(toList());
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+/**
+ * Configuration of the connections {@link AbstractLoadBalancer} maintains for each {@link Host}.
+ */
+final class ConnectionPoolConfig {
+    static final ConnectionPoolConfig DEFAULT_CONNECTION_POOL_CONFIG =
+            new ConnectionPoolConfig(0, Integer.MAX_VALUE);
+
+    final int minConnectionsPerHost;
+    final int maxConcurrentConnectsPerHost;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param minConnectionsPerHost number of connections opened in the background as soon as a host becomes available,
+     * and re-opened when they close.
+     * @param maxConcurrentConnectsPerHost maximum number of connection attempts in flight for a single host. Selections
+     * which need a new connection while this limit is reached wait for one of the pending attempts to finish.
+     */
+    ConnectionPoolConfig(final int minConnectionsPerHost, final int maxConcurrentConnectsPerHost) {
+        if (minConnectionsPerHost < 0) {
+            throw new IllegalArgumentException("minConnectionsPerHost: " + minConnectionsPerHost + " (expected >=0)");
+        }
+        if (maxConcurrentConnectsPerHost <= 0) {
+            throw new IllegalArgumentException("maxConcurrentConnectsPerHost: " + maxConcurrentConnectsPerHost +
+                    " (expected >0)");
+        }
+        this.minConnectionsPerHost = minConnectionsPerHost;
+        this.maxConcurrentConnectsPerHost = maxConcurrentConnectsPerHost;
+    }
+}
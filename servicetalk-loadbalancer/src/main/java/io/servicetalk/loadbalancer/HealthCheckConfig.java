@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Configuration of the passive health checking done by {@link AbstractLoadBalancer} for each {@link Host}.
+ */
+final class HealthCheckConfig {
+    static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    static final long DEFAULT_BASE_EJECTION_NANOS = SECONDS.toNanos(5);
+    static final long DEFAULT_MAX_EJECTION_NANOS = MINUTES.toNanos(5);
+    static final HealthCheckConfig DEFAULT_HEALTH_CHECK_CONFIG = new HealthCheckConfig(DEFAULT_FAILURE_THRESHOLD,
+            DEFAULT_BASE_EJECTION_NANOS, DEFAULT_MAX_EJECTION_NANOS);
+    /**
+     * Never ejects hosts.
+     */
+    static final HealthCheckConfig DISABLED_HEALTH_CHECK_CONFIG = new HealthCheckConfig();
+
+    final boolean enabled;
+    final int failureThreshold;
+    final long baseEjectionNanos;
+    final long maxEjectionNanos;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param failureThreshold number of consecutive connect or request failures after which a host is ejected.
+     * @param baseEjectionNanos duration of the first ejection, doubled for every consecutive ejection.
+     * @param maxEjectionNanos upper bound of the ejection duration.
+     */
+    HealthCheckConfig(final int failureThreshold, final long baseEjectionNanos, final long maxEjectionNanos) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("failureThreshold: " + failureThreshold + " (expected >0)");
+        }
+        if (baseEjectionNanos <= 0 || maxEjectionNanos < baseEjectionNanos) {
+            throw new IllegalArgumentException("baseEjectionNanos: " + baseEjectionNanos + ", maxEjectionNanos: " +
+                    maxEjectionNanos + " (expected 0 < baseEjectionNanos <= maxEjectionNanos)");
+        }
+        enabled = true;
+        this.failureThreshold = failureThreshold;
+        this.baseEjectionNanos = baseEjectionNanos;
+        this.maxEjectionNanos = maxEjectionNanos;
+    }
+
+    private HealthCheckConfig() {
+        enabled = false;
+        failureThreshold = Integer.MAX_VALUE;
+        baseEjectionNanos = DEFAULT_BASE_EJECTION_NANOS;
+        maxEjectionNanos = DEFAULT_MAX_EJECTION_NANOS;
+    }
+
+    /**
+     * Duration of an ejection.
+     *
+     * @param ejections number of consecutive ejections so far, including the one to compute.
+     * @return duration of the ejection in nanoseconds.
+     */
+    long ejectionNanos(final int ejections) {
+        // Cap the shift to avoid overflowing, the max value bounds the result anyway.
+        final long ejection = baseEjectionNanos << Math.min(ejections - 1, 30);
+        return ejection <= 0 || ejection > maxEjectionNanos ? maxEjectionNanos : ejection;
+    }
+}
@@ -0,0 +1,447 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.RequestOutcomeListener;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.CompletableSource.Processor;
+import io.servicetalk.concurrent.api.AsyncCloseable;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Completable.mergeAllDelayError;
+import static io.servicetalk.concurrent.api.Processors.newCompletableProcessor;
+import static io.servicetalk.concurrent.api.SourceAdapters.fromSource;
+import static io.servicetalk.loadbalancer.HealthCheckConfig.DISABLED_HEALTH_CHECK_CONFIG;
+import static java.lang.System.nanoTime;
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A resolved address and the connections a {@link AbstractLoadBalancer} has established to it.
+ * <p>
+ * A {@link Host} also does passive health checking: it counts consecutive connect failures and consecutive request
+ * failures reported by its connections. When either count reaches {@link HealthCheckConfig#failureThreshold} the host
+ * is ejected and {@link #isSelectable()} returns {@code false} until the ejection expires. After that a single
+ * selection is let through as a probe. If the probe fails the host is ejected again for twice as long, if it succeeds
+ * or does not report a failure before the next deadline the host is considered healthy again.
+ * <p>
+ * Connections which are likely to accept another request are tracked in a lock-free queue, see
+ * {@link #pollAvailable(Predicate)}. A connection is queued when it is added, when it is selected (it may support more
+ * concurrent requests) and when it reports the end of a request. It is dropped from the queue when the selector rejects
+ * it. This makes selection {@code O(1)} on average regardless of the number of connections, as long as the connections
+ * report request outcomes.
+ *
+ * @param <Addr> The resolved address type.
+ * @param <C> The type of connection.
+ */
+class Host<Addr, C extends ListenableAsyncCloseable> implements AsyncCloseable, RequestOutcomeListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Host.class);
+
+    static final AtomicReferenceFieldUpdater<Host, List> connectionsUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(Host.class, List.class, "connections");
+    private static final AtomicReferenceFieldUpdater<Host, Ejection> ejectionUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(Host.class, Ejection.class, "ejection");
+    private static final AtomicIntegerFieldUpdater<Host> connectFailuresUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(Host.class, "connectFailures");
+    private static final AtomicIntegerFieldUpdater<Host> requestFailuresUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(Host.class, "requestFailures");
+    private static final AtomicIntegerFieldUpdater<Host> pendingConnectsUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(Host.class, "pendingConnects");
+    private static final AtomicReferenceFieldUpdater<Host, Processor> connectFinishedUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(Host.class, Processor.class, "connectFinished");
+
+    static final List INACTIVE = emptyList();
+    private static final List NO_CONNECTIONS = new ArrayList(0);
+
+    @Nullable
+    final Addr address;
+    @Nullable
+    final String locality;
+    @SuppressWarnings("unchecked")
+    volatile List<C> connections = NO_CONNECTIONS;
+
+    private final HealthCheckConfig healthCheckConfig;
+    /**
+     * {@code null} while the host is healthy, which keeps the check on the selection path to a single volatile read.
+     */
+    @Nullable
+    private volatile Ejection ejection;
+    private volatile int weight = 1;
+    private volatile int connectFailures;
+    private volatile int requestFailures;
+    volatile int pendingConnects;
+    /**
+     * Completed and replaced every time a connection attempt finishes, to wake up selections waiting for the
+     * concurrent connects limit.
+     */
+    private volatile Processor connectFinished = newCompletableProcessor();
+    private final Queue<ConnectionEntry<C>> available = new ConcurrentLinkedQueue<>();
+
+    Host() {
+        address = null;
+        locality = null;
+        healthCheckConfig = DISABLED_HEALTH_CHECK_CONFIG;
+    }
+
+    Host(Addr address, @Nullable String locality, HealthCheckConfig healthCheckConfig) {
+        this.address = address;
+        this.locality = locality;
+        this.healthCheckConfig = healthCheckConfig;
+    }
+
+    /**
+     * Relative weight of this host, see {@link ServiceDiscovererEvent#weight()}.
+     *
+     * @return the relative weight of this host.
+     */
+    int weight() {
+        return weight;
+    }
+
+    void weight(final int weight) {
+        this.weight = weight;
+    }
+
+    void markInactive() {
+        @SuppressWarnings("unchecked")
+        List<C> toRemove = connectionsUpdater.getAndSet(this, INACTIVE);
+        for (C conn : toRemove) {
+            conn.closeAsync().subscribe();
+        }
+        available.clear();
+        wakeUpConnectWaiters();
+    }
+
+    /**
+     * Returns a {@link Completable} that completes when the next connection attempt to this host finishes. Must be
+     * obtained before calling {@link #tryStartConnect(int)} so a completion in between is not missed.
+     *
+     * @return a {@link Completable} that completes when the next connection attempt to this host finishes.
+     */
+    Completable onConnectFinished() {
+        return fromSource(connectFinished);
+    }
+
+    /**
+     * Accounts for a new connection attempt if less than {@code maxConcurrentConnects} are in flight.
+     *
+     * @param maxConcurrentConnects the maximum number of concurrent connection attempts.
+     * @return {@code true} if the attempt can proceed, in which case {@link #connectFinished()} must be invoked once it
+     * finishes.
+     */
+    boolean tryStartConnect(final int maxConcurrentConnects) {
+        for (;;) {
+            final int current = pendingConnects;
+            if (current >= maxConcurrentConnects) {
+                return false;
+            }
+            if (pendingConnectsUpdater.compareAndSet(this, current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void connectFinished() {
+        pendingConnectsUpdater.decrementAndGet(this);
+        wakeUpConnectWaiters();
+    }
+
+    void wakeUpConnectWaiters() {
+        connectFinishedUpdater.getAndSet(this, newCompletableProcessor()).onComplete();
+    }
+
+    /**
+     * Creates a {@link ConnectionEntry} for a new connection to this host. The entry has to be set as the
+     * {@link LoadBalancedConnection#requestOutcomeListener(RequestOutcomeListener) RequestOutcomeListener} of the
+     * connection.
+     *
+     * @param connection the new connection.
+     * @return a {@link ConnectionEntry} for {@code connection}.
+     */
+    ConnectionEntry<C> newEntry(C connection) {
+        return new ConnectionEntry<>(this, connection);
+    }
+
+    boolean addConnection(ConnectionEntry<C> entry) {
+        final C connection = entry.connection;
+        for (;;) {
+            List<C> existing = this.connections;
+            if (existing == INACTIVE) {
+                connection.closeAsync().subscribe();
+                return false;
+            }
+            ArrayList<C> connectionAdded = new ArrayList<>(existing);
+            connectionAdded.add(connection);
+            if (connectionsUpdater.compareAndSet(this, existing, connectionAdded)) {
+                break;
+            }
+        }
+
+        // Instrument the new connection so we prune it on close
+        connection.onClose().beforeFinally(() -> {
+            entry.closed = true;
+            removeConnection(connection);
+        }).subscribe();
+        markAvailable(entry);
+        return true;
+    }
+
+    /**
+     * Polls the queue of connections which are likely to accept another request until {@code selector} accepts one.
+     * Rejected connections are dropped from the queue, they are queued again when they report the end of a request.
+     *
+     * @param selector the selector of the current selection attempt.
+     * @return the selected connection or {@code null} if no queued connection was accepted.
+     */
+    @Nullable
+    C pollAvailable(final Predicate<C> selector) {
+        ConnectionEntry<C> entry;
+        while ((entry = available.poll()) != null) {
+            // Reset before testing, a request ending concurrently must be able to queue the connection again.
+            entry.queued = 0;
+            if (!entry.closed && selector.test(entry.connection)) {
+                // The connection may accept more concurrent requests (pipelining, multiplexing), keep it queued.
+                markAvailable(entry);
+                return entry.connection;
+            }
+        }
+        return null;
+    }
+
+    private void markAvailable(final ConnectionEntry<C> entry) {
+        if (!entry.closed && ConnectionEntry.queuedUpdater.compareAndSet(entry, 0, 1)) {
+            available.offer(entry);
+            if (entry.closed || connections == INACTIVE) {
+                // Closed concurrently, don't retain the connection. Polling skips it if it's still there.
+                available.remove(entry);
+            }
+        }
+    }
+
+    /**
+     * Removes a connection from this {@link Host}.
+     *
+     * @param connection the connection to remove.
+     * @return {@code true} if the connection was removed by this call.
+     */
+    boolean removeConnection(C connection) {
+        List<C> existing = connections;
+        for (;;) {
+            if (existing == INACTIVE) {
+                return false;
+            }
+            ArrayList<C> connectionRemoved = new ArrayList<>(existing);
+            if (!connectionRemoved.remove(connection)) {
+                return false;
+            }
+            if (connectionsUpdater.compareAndSet(this, existing, connectionRemoved)) {
+                return true;
+            }
+            existing = connections;
+        }
+    }
+
+    boolean isInactive() {
+        return connections == INACTIVE;
+    }
+
+    /**
+     * Determines if this host can be used for a selection attempt. Returns {@code true} for at most one caller (the
+     * probe) per deadline while the host is ejected.
+     *
+     * @return {@code true} if this host can be used for a selection attempt.
+     */
+    boolean isSelectable() {
+        final Ejection ejection = this.ejection;
+        return ejection == null || tryProbe(ejection);
+    }
+
+    private boolean tryProbe(final Ejection current) {
+        final long now = nanoTime();
+        if (now - current.deadlineNanos < 0) {
+            return false;
+        }
+        if (current.probing) {
+            // The probe did not report a failure before its deadline, no news is good news.
+            if (ejectionUpdater.compareAndSet(this, current, null)) {
+                resetFailures();
+                LOGGER.debug("Host {} is healthy again after {} ejection(s).", this, current.ejections);
+            }
+            return ejection == null;
+        }
+        // Only the winner of the CAS probes, concurrent selections keep skipping this host until the probe reports.
+        return ejectionUpdater.compareAndSet(this, current, new Ejection(current.ejections, true,
+                now + healthCheckConfig.ejectionNanos(current.ejections)));
+    }
+
+    void onConnectSuccess() {
+        if (connectFailures != 0) {
+            connectFailures = 0;
+        }
+    }
+
+    void onConnectFailure() {
+        onFailure(connectFailuresUpdater.incrementAndGet(this));
+    }
+
+    @Override
+    public void onRequestSuccess() {
+        // Avoid writing to the shared field for the common case of a healthy host.
+        if (requestFailures != 0) {
+            requestFailures = 0;
+        }
+        final Ejection current = ejection;
+        if (current != null && current.probing && ejectionUpdater.compareAndSet(this, current, null)) {
+            resetFailures();
+            LOGGER.debug("Host {} is healthy again after {} ejection(s).", this, current.ejections);
+        }
+    }
+
+    @Override
+    public void onRequestFailure() {
+        onFailure(requestFailuresUpdater.incrementAndGet(this));
+    }
+
+    private void onFailure(final int consecutiveFailures) {
+        if (!healthCheckConfig.enabled) {
+            return;
+        }
+        final Ejection current = ejection;
+        if (current == null) {
+            if (consecutiveFailures >= healthCheckConfig.failureThreshold &&
+                    ejectionUpdater.compareAndSet(this, null, newEjection(1))) {
+                LOGGER.info("Host {} ejected after {} consecutive failures.", this, consecutiveFailures);
+            }
+        } else if (current.probing && ejectionUpdater.compareAndSet(this, current,
+                newEjection(current.ejections + 1))) {
+            LOGGER.info("Host {} failed a probe and is ejected again ({} consecutive ejections).", this,
+                    current.ejections + 1);
+        }
+        // Failures while ejected and not probing are results of requests issued before the ejection, ignore them.
+    }
+
+    private Ejection newEjection(final int ejections) {
+        final long duration = healthCheckConfig.ejectionNanos(ejections);
+        LOGGER.debug("Host {} ejection {} lasts {}ms.", this, ejections, NANOSECONDS.toMillis(duration));
+        return new Ejection(ejections, false, nanoTime() + duration);
+    }
+
+    private void resetFailures() {
+        connectFailures = 0;
+        requestFailures = 0;
+    }
+
+    // Used for testing only
+    Entry<Addr, List<C>> asEntry() {
+        assert address != null;
+        return new SimpleImmutableEntry<>(address, new ArrayList<>(connections));
+    }
+
+    @Override
+    public Completable closeAsync() {
+        return mergeAllDelayError(connections.stream()
+                .map(AsyncCloseable::closeAsync)::iterator);
+    }
+
+    @Override
+    public Completable closeAsyncGracefully() {
+        return mergeAllDelayError(connections.stream()
+                .map(AsyncCloseable::closeAsyncGracefully)::iterator);
+    }
+
+    @Override
+    public String toString() {
+        return "Host{" +
+                "address=" + address +
+                (locality == null ? "" : ", locality=" + locality) +
+                ", weight=" + weight +
+                ", removed=" + (connections == INACTIVE) +
+                ", ejected=" + (ejection != null) +
+                ", pendingConnects=" + pendingConnects +
+                '}';
+    }
+
+    /**
+     * A connection of a {@link Host}, which notifies the {@link Host} about request outcomes and tracks whether it is
+     * queued as available.
+     *
+     * @param <C> The type of connection.
+     */
+    static final class ConnectionEntry<C extends ListenableAsyncCloseable> implements RequestOutcomeListener {
+        static final AtomicIntegerFieldUpdater<ConnectionEntry> queuedUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(ConnectionEntry.class, "queued");
+
+        private final Host<?, C> host;
+        final C connection;
+        volatile int queued;
+        volatile boolean closed;
+
+        ConnectionEntry(final Host<?, C> host, final C connection) {
+            this.host = host;
+            this.connection = connection;
+        }
+
+        @Override
+        public void onRequestSuccess() {
+            host.onRequestSuccess();
+            host.markAvailable(this);
+        }
+
+        @Override
+        public void onRequestFailure() {
+            host.onRequestFailure();
+            host.markAvailable(this);
+        }
+
+        @Override
+        public void onRequestCancel() {
+            host.markAvailable(this);
+        }
+    }
+
+    private static final class Ejection {
+        final int ejections;
+        final boolean probing;
+        final long deadlineNanos;
+
+        Ejection(final int ejections, final boolean probing, final long deadlineNanos) {
+            this.ejections = ejections;
+            this.probing = probing;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    static final class MutableAddressHost<Addr, C extends ListenableAsyncCloseable> extends Host<Addr, C> {
+        @Nullable
+        Addr mutableAddress;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Nullable;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * An immutable snapshot of {@link Host}s to select from, with the data needed to select them proportionally to their
+ * {@link Host#weight() weights}.
+ * <p>
+ * Weighted selections map a position in {@code [0, totalWeight)} to a {@link Host} with a binary search over the
+ * cumulative weights, so they are lock-free and cost {@code O(log(n))}. When all weights are equal selections are plain
+ * index lookups.
+ *
+ * @param <Addr> The resolved address type.
+ * @param <C> The type of connection.
+ */
+final class HostList<Addr, C extends ListenableAsyncCloseable> {
+    private static final HostList<?, ?> EMPTY = new HostList<>(emptyList());
+    /**
+     * Approximation of the golden ratio conjugate, used to spread the positions of round robin selections.
+     */
+    private static final double GOLDEN_RATIO_CONJUGATE = 0.6180339887498949;
+
+    private final List<Host<Addr, C>> hosts;
+    /**
+     * {@code cumulativeWeights[i]} is the sum of the weights of hosts {@code 0..i}, {@code null} if all weights are
+     * equal.
+     */
+    @Nullable
+    private final long[] cumulativeWeights;
+    private final long totalWeight;
+    private final long stride;
+
+    HostList(final List<Host<Addr, C>> hosts) {
+        this.hosts = hosts;
+        final int size = hosts.size();
+        boolean weighted = false;
+        final long[] cumulativeWeights = new long[size];
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            final int weight = hosts.get(i).weight();
+            weighted |= weight != hosts.get(0).weight();
+            total += weight;
+            cumulativeWeights[i] = total;
+        }
+        this.cumulativeWeights = weighted ? cumulativeWeights : null;
+        totalWeight = total;
+        stride = weighted ? stride(total) : 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <Addr, C extends ListenableAsyncCloseable> HostList<Addr, C> empty() {
+        return (HostList<Addr, C>) EMPTY;
+    }
+
+    List<Host<Addr, C>> hosts() {
+        return hosts;
+    }
+
+    int size() {
+        return hosts.size();
+    }
+
+    boolean isEmpty() {
+        return hosts.isEmpty();
+    }
+
+    Host<Addr, C> get(final int index) {
+        return hosts.get(index);
+    }
+
+    boolean isWeighted() {
+        return cumulativeWeights != null;
+    }
+
+    /**
+     * Selects the {@link Host} for the {@code cursor}-th round robin selection. Over {@code totalWeight} consecutive
+     * cursors every {@link Host} is selected as many times as its weight. The positions of consecutive cursors are
+     * spread over the whole weight range, so a heavy {@link Host} does not receive all its selections in a row.
+     *
+     * @param cursor a non-negative, incrementing cursor.
+     * @return the selected {@link Host}.
+     */
+    Host<Addr, C> roundRobin(final int cursor) {
+        if (cumulativeWeights == null) {
+            return hosts.get(cursor % hosts.size());
+        }
+        return byPosition(((cursor % totalWeight) * stride) % totalWeight);
+    }
+
+    /**
+     * Selects a random {@link Host} with a probability proportional to its weight.
+     *
+     * @param rnd the source of randomness.
+     * @return the selected {@link Host}.
+     */
+    Host<Addr, C> random(final ThreadLocalRandom rnd) {
+        if (cumulativeWeights == null) {
+            return hosts.get(rnd.nextInt(hosts.size()));
+        }
+        return byPosition(rnd.nextLong(totalWeight));
+    }
+
+    private Host<Addr, C> byPosition(final long position) {
+        assert cumulativeWeights != null;
+        final int i = Arrays.binarySearch(cumulativeWeights, position);
+        // cumulativeWeights[i] is the exclusive upper bound of the range of host i.
+        return hosts.get(i < 0 ? -i - 1 : i + 1);
+    }
+
+    /**
+     * Computes a multiplier coprime with {@code totalWeight}, which makes {@code (cursor * stride) % totalWeight} a
+     * permutation of {@code [0, totalWeight)}.
+     */
+    private static long stride(final long totalWeight) {
+        if (totalWeight > Integer.MAX_VALUE) {
+            // Avoid overflowing the multiplication, fall back to visiting positions in order.
+            return 1;
+        }
+        long stride = Math.max(1, (long) (totalWeight * GOLDEN_RATIO_CONJUGATE));
+        while (gcd(stride, totalWeight) != 1) {
+            ++stride;
+        }
+        return stride;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            final long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
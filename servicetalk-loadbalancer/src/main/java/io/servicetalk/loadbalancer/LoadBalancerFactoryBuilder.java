@@ -0,0 +1,170 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.LoadBalancerFactory;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+
+import java.time.Duration;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.loadbalancer.HealthCheckConfig.DEFAULT_HEALTH_CHECK_CONFIG;
+import static io.servicetalk.loadbalancer.HealthCheckConfig.DISABLED_HEALTH_CHECK_CONFIG;
+import static java.util.Comparator.comparingInt;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A builder of {@link LoadBalancerFactory}s for the {@link LoadBalancer}s of this module, for when the defaults of
+ * {@link RoundRobinLoadBalancer#newRoundRobinFactory()} and {@link P2CLoadBalancer#newP2CFactory()} are not
+ * appropriate.
+ *
+ * @param <ResolvedAddress> The resolved address type.
+ * @param <C> The type of connection.
+ */
+public final class LoadBalancerFactoryBuilder<ResolvedAddress, C extends LoadBalancedConnection> {
+    private boolean powerOfTwoChoices;
+    private int minConnectionsPerHost;
+    private int maxConcurrentConnectsPerHost = Integer.MAX_VALUE;
+    @Nullable
+    private String locality;
+    private HealthCheckConfig healthCheckConfig = DISABLED_HEALTH_CHECK_CONFIG;
+
+    /**
+     * Selects hosts in round robin order, see {@link RoundRobinLoadBalancer}. This is the default.
+     *
+     * @return {@code this}.
+     */
+    public LoadBalancerFactoryBuilder<ResolvedAddress, C> roundRobin() {
+        powerOfTwoChoices = false;
+        return this;
+    }
+
+    /**
+     * Selects the best of two random hosts, see {@link P2CLoadBalancer}.
+     *
+     * @return {@code this}.
+     */
+    public LoadBalancerFactoryBuilder<ResolvedAddress, C> powerOfTwoChoices() {
+        powerOfTwoChoices = true;
+        return this;
+    }
+
+    /**
+     * Sets the number of connections opened in the background as soon as a host becomes available, and re-opened when
+     * they close. Defaults to {@code 0}, connections are created lazily.
+     *
+     * @param minConnectionsPerHost the minimum number of connections per host.
+     * @return {@code this}.
+     */
+    public LoadBalancerFactoryBuilder<ResolvedAddress, C> minConnectionsPerHost(final int minConnectionsPerHost) {
+        this.minConnectionsPerHost = minConnectionsPerHost;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of connection attempts in flight for a single host. Selections which need a new
+     * connection while this limit is reached wait for one of the pending attempts to finish. Not limited by default.
+     *
+     * @param maxConcurrentConnectsPerHost the maximum number of connection attempts in flight for a single host.
+     * @return {@code this}.
+     */
+    public LoadBalancerFactoryBuilder<ResolvedAddress, C> maxConcurrentConnectsPerHost(
+            final int maxConcurrentConnectsPerHost) {
+        this.maxConcurrentConnectsPerHost = maxConcurrentConnectsPerHost;
+        return this;
+    }
+
+    /**
+     * Sets the locality of the client, for example the availability zone it runs in. Hosts whose
+     * {@link ServiceDiscovererEvent#locality()} is equal are preferred. Hosts from other localities are only selected
+     * when all local hosts are ejected because of failures, or when the selected local host has no connection that can
+     * accept the request and already has {@link #maxConcurrentConnectsPerHost(int) the maximum number} of connection
+     * attempts in flight. Defaults to {@code null}, localities are ignored.
+     *
+     * @param locality the locality of the client or {@code null} to ignore localities.
+     * @return {@code this}.
+     */
+    public LoadBalancerFactoryBuilder<ResolvedAddress, C> locality(@Nullable final String locality) {
+        this.locality = locality;
+        return this;
+    }
+
+    /**
+     * Enables the ejection of hosts which repeatedly fail, with a {@code failureThreshold} of {@code 5}, a
+     * {@code baseEjection} of 5 seconds and a {@code maxEjection} of 5 minutes.
+     *
+     * @return {@code this}.
+     * @see #hostEjection(int, Duration, Duration)
+     */
+    public LoadBalancerFactoryBuilder<ResolvedAddress, C> hostEjection() {
+        healthCheckConfig = DEFAULT_HEALTH_CHECK_CONFIG;
+        return this;
+    }
+
+    /**
+     * Enables the ejection of hosts which repeatedly fail. A host is ejected after {@code failureThreshold}
+     * consecutive connect failures or consecutive request failures, and is not selected until the ejection expires.
+     * The first ejection lasts {@code baseEjection}, every consecutive ejection lasts twice as long as the previous
+     * one, up to {@code maxEjection}.
+     * <p>
+     * Disabled by default. Depending on the connection, failed requests may include responses with a {@code 5xx}
+     * status.
+     *
+     * @param failureThreshold number of consecutive failures after which a host is ejected.
+     * @param baseEjection duration of the first ejection.
+     * @param maxEjection upper bound of the ejection duration.
+     * @return {@code this}.
+     * @see #disableHostEjection()
+     */
+    public LoadBalancerFactoryBuilder<ResolvedAddress, C> hostEjection(final int failureThreshold,
+                                                                       final Duration baseEjection,
+                                                                       final Duration maxEjection) {
+        healthCheckConfig = new HealthCheckConfig(failureThreshold, requireNonNull(baseEjection).toNanos(),
+                requireNonNull(maxEjection).toNanos());
+        return this;
+    }
+
+    /**
+     * Disables the ejection of hosts which repeatedly fail, all hosts are always selectable. This is the default.
+     *
+     * @return {@code this}.
+     * @see #hostEjection(int, Duration, Duration)
+     */
+    public LoadBalancerFactoryBuilder<ResolvedAddress, C> disableHostEjection() {
+        healthCheckConfig = DISABLED_HEALTH_CHECK_CONFIG;
+        return this;
+    }
+
+    /**
+     * Builds a {@link LoadBalancerFactory} with the current configuration of this builder.
+     *
+     * @return a new {@link LoadBalancerFactory}.
+     */
+    public LoadBalancerFactory<ResolvedAddress, C> build() {
+        final ConnectionPoolConfig poolConfig = new ConnectionPoolConfig(minConnectionsPerHost,
+                maxConcurrentConnectsPerHost);
+        final String locality = this.locality;
+        final HealthCheckConfig healthCheckConfig = this.healthCheckConfig;
+        if (powerOfTwoChoices) {
+            return (eventPublisher, connectionFactory) -> new P2CLoadBalancer<>(eventPublisher, connectionFactory,
+                    comparingInt(Object::hashCode), healthCheckConfig, poolConfig, locality);
+        }
+        return (eventPublisher, connectionFactory) -> new RoundRobinLoadBalancer<>(eventPublisher, connectionFactory,
+                comparingInt(Object::hashCode), healthCheckConfig, poolConfig, locality);
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.LoadBalancerFactory;
+import io.servicetalk.client.api.ScoreSupplier;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Publisher;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.loadbalancer.ConnectionPoolConfig.DEFAULT_CONNECTION_POOL_CONFIG;
+import static io.servicetalk.loadbalancer.HealthCheckConfig.DISABLED_HEALTH_CHECK_CONFIG;
+import static java.lang.Math.min;
+import static java.util.Comparator.comparingInt;
+
+/**
+ * A {@link LoadBalancer} that uses the "power of two choices" strategy for selecting addresses. It has the following
+ * behaviour:
+ * <ul>
+ * <li>For every selection two distinct addresses are picked at random and the one whose connections have the higher
+ * average {@link ScoreSupplier#score() score} is used. Connections are expected to lower their score as the number of
+ * outstanding requests and the observed latency grow, which steers traffic away from slow or overloaded hosts while
+ * avoiding the herd behaviour of always picking the globally best host.</li>
+ * <li>Addresses without any connection have the highest possible score.</li>
+ * <li>If addresses have different {@link ServiceDiscovererEvent#weight() weights}, the two candidates are sampled
+ * proportionally to their weight.</li>
+ * <li>By default, connections are created lazily, without any concurrency control on their creation.
+ * This can lead to over-provisioning connections when dealing with a requests surge. A minimum number of connections
+ * per host can be opened in the background and the number of concurrent connection attempts per host can be limited,
+ * see {@link LoadBalancerFactoryBuilder#minConnectionsPerHost(int)} and
+ * {@link LoadBalancerFactoryBuilder#maxConcurrentConnectsPerHost(int)}.</li>
+ * <li>Existing connections are reused unless a selector passed to {@link #selectConnection(Predicate)} suggests
+ * otherwise.</li>
+ * <li>Closed connections are automatically pruned.</li>
+ * <li>If host ejection is enabled, hosts which repeatedly fail to connect or to process requests are temporarily
+ * ejected. It is disabled by default, see {@link LoadBalancerFactoryBuilder#hostEjection()} and
+ * {@link LoadBalancerFactoryBuilder#hostEjection(int, java.time.Duration, java.time.Duration)}.</li>
+ * </ul>
+ *
+ * @param <ResolvedAddress> The resolved address type.
+ * @param <C> The type of connection.
+ */
+public final class P2CLoadBalancer<ResolvedAddress, C extends LoadBalancedConnection>
+        extends AbstractLoadBalancer<ResolvedAddress, C> {
+
+    /**
+     * Upper bound on the number of connections sampled when computing the score of a host, so the cost of a selection
+     * does not grow with the number of connections.
+     */
+    private static final int MAX_SCORE_SAMPLES = 16;
+
+    /**
+     * Number of attempts to sample a second candidate distinct from the first one when hosts are weighted.
+     */
+    private static final int MAX_DISTINCT_SAMPLE_ATTEMPTS = 4;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param eventPublisher    provides a stream of addresses to connect to.
+     * @param connectionFactory a function which creates new connections.
+     * @param comparator        used to compare addresses for lookup/iteration during the connection attempt phase.
+     */
+    public P2CLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                           final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                           final Comparator<ResolvedAddress> comparator) {
+        this(eventPublisher, connectionFactory, comparator, DISABLED_HEALTH_CHECK_CONFIG,
+                DEFAULT_CONNECTION_POOL_CONFIG, null);
+    }
+
+    /**
+     * Creates a new instance which keeps a minimum number of connections open to each host and limits the number of
+     * concurrent connection attempts to each host.
+     *
+     * @param eventPublisher    provides a stream of addresses to connect to.
+     * @param connectionFactory a function which creates new connections.
+     * @param comparator        used to compare addresses for lookup/iteration during the connection attempt phase.
+     * @param minConnectionsPerHost number of connections opened in the background as soon as a host becomes available,
+     * and re-opened when they close. {@code 0} keeps creating connections lazily.
+     * @param maxConcurrentConnectsPerHost maximum number of connection attempts in flight for a single host. Selections
+     * which need a new connection while this limit is reached wait for one of the pending attempts to finish.
+     */
+    public P2CLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                           final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                           final Comparator<ResolvedAddress> comparator,
+                           final int minConnectionsPerHost, final int maxConcurrentConnectsPerHost) {
+        this(eventPublisher, connectionFactory, comparator, DISABLED_HEALTH_CHECK_CONFIG,
+                new ConnectionPoolConfig(minConnectionsPerHost, maxConcurrentConnectsPerHost), null);
+    }
+
+    P2CLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                    final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                    final Comparator<ResolvedAddress> comparator,
+                    final HealthCheckConfig healthCheckConfig,
+                    final ConnectionPoolConfig poolConfig,
+                    @Nullable final String locality) {
+        super(eventPublisher, connectionFactory, comparator, healthCheckConfig, poolConfig, locality);
+    }
+
+    /**
+     * Create a {@link LoadBalancerFactory} that creates instances of {@link P2CLoadBalancer}.
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     * @return a {@link LoadBalancerFactory} that creates instances of {@link P2CLoadBalancer}.
+     */
+    public static <ResolvedAddress, C extends LoadBalancedConnection>
+    LoadBalancerFactory<ResolvedAddress, C> newP2CFactory() {
+        return (eventPublisher, connectionFactory) -> new P2CLoadBalancer<>(eventPublisher,
+                connectionFactory,
+                comparingInt(Object::hashCode));
+    }
+
+    /**
+     * Create a {@link LoadBalancerFactory} that creates instances of {@link P2CLoadBalancer} which keep a
+     * minimum number of connections open to each host and limit the number of concurrent connection attempts to
+     * each host.
+     * @param minConnectionsPerHost number of connections opened in the background as soon as a host becomes available,
+     * and re-opened when they close. {@code 0} keeps creating connections lazily.
+     * @param maxConcurrentConnectsPerHost maximum number of connection attempts in flight for a single host.
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     * @return a {@link LoadBalancerFactory} that creates instances of {@link P2CLoadBalancer}.
+     */
+    public static <ResolvedAddress, C extends LoadBalancedConnection>
+    LoadBalancerFactory<ResolvedAddress, C> newP2CFactory(final int minConnectionsPerHost,
+                                                          final int maxConcurrentConnectsPerHost) {
+        // Validate eagerly rather than when the first client is built.
+        final ConnectionPoolConfig poolConfig = new ConnectionPoolConfig(minConnectionsPerHost,
+                maxConcurrentConnectsPerHost);
+        return (eventPublisher, connectionFactory) -> new P2CLoadBalancer<>(eventPublisher,
+                connectionFactory,
+                comparingInt(Object::hashCode), DISABLED_HEALTH_CHECK_CONFIG, poolConfig, null);
+    }
+
+    @Override
+    Host<ResolvedAddress, C> selectHost(final HostList<ResolvedAddress, C> hosts) {
+        final int size = hosts.size();
+        if (size == 1) {
+            return hosts.get(0);
+        }
+        final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        final Host<ResolvedAddress, C> h1;
+        Host<ResolvedAddress, C> h2;
+        if (hosts.isWeighted()) {
+            // Candidates are sampled proportionally to their weight. A heavy host may be sampled twice, retry a few
+            // times to get a second candidate, otherwise just use it.
+            h1 = hosts.random(rnd);
+            int attempts = MAX_DISTINCT_SAMPLE_ATTEMPTS;
+            do {
+                h2 = hosts.random(rnd);
+            } while (h2 == h1 && --attempts > 0);
+        } else {
+            final int i1 = rnd.nextInt(size);
+            int i2 = rnd.nextInt(size - 1);
+            if (i2 >= i1) {
+                ++i2;
+            }
+            h1 = hosts.get(i1);
+            h2 = hosts.get(i2);
+        }
+        return h1 == h2 || score(h2.connections, rnd) <= score(h1.connections, rnd) ? h1 : h2;
+    }
+
+    private static <C extends LoadBalancedConnection> float score(final List<C> connections,
+                                                                  final ThreadLocalRandom rnd) {
+        final int size = connections.size();
+        if (size == 0) {
+            return 1f;
+        }
+        final int samples = min(size, MAX_SCORE_SAMPLES);
+        final int offset = size == samples ? 0 : rnd.nextInt(size);
+        float sum = 0;
+        for (int i = 0; i < samples; i++) {
+            sum += connections.get((offset + i) % size).score();
+        }
+        return sum / samples;
+    }
+}
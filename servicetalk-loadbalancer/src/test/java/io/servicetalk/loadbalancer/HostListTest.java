@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.servicetalk.loadbalancer.HealthCheckConfig.DISABLED_HEALTH_CHECK_CONFIG;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class HostListTest {
+
+    @Test
+    public void equalWeightsRoundRobinInOrder() {
+        final HostList<String, ListenableAsyncCloseable> hosts = newHostList(2, 2, 2);
+        assertFalse(hosts.isWeighted());
+        for (int i = 0; i < 6; i++) {
+            assertThat(hosts.roundRobin(i), is(hosts.get(i % 3)));
+        }
+    }
+
+    @Test
+    public void roundRobinFollowsWeightsOverACycle() {
+        final HostList<String, ListenableAsyncCloseable> hosts = newHostList(5, 2, 1);
+        assertTrue(hosts.isWeighted());
+        final Map<Host<String, ListenableAsyncCloseable>, Integer> selections = new HashMap<>();
+        Host<String, ListenableAsyncCloseable> previous = null;
+        int repeats = 0;
+        for (int i = 0; i < 8; i++) {
+            final Host<String, ListenableAsyncCloseable> host = hosts.roundRobin(i);
+            selections.merge(host, 1, Integer::sum);
+            if (host == previous) {
+                ++repeats;
+            }
+            previous = host;
+        }
+        assertThat(selections.get(hosts.get(0)), is(5));
+        assertThat(selections.get(hosts.get(1)), is(2));
+        assertThat(selections.get(hosts.get(2)), is(1));
+        // Selections of the heavy host are interleaved with the other hosts rather than all in a row.
+        assertThat(repeats, lessThan(4));
+    }
+
+    @Test
+    public void randomFollowsWeights() {
+        final HostList<String, ListenableAsyncCloseable> hosts = newHostList(9, 1);
+        final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        int heavy = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (hosts.random(rnd) == hosts.get(0)) {
+                ++heavy;
+            }
+        }
+        assertThat(heavy, is(allOf(greaterThan(8500), lessThan(9500))));
+    }
+
+    private static HostList<String, ListenableAsyncCloseable> newHostList(final int... weights) {
+        final List<Host<String, ListenableAsyncCloseable>> hosts = new ArrayList<>(weights.length);
+        for (int i = 0; i < weights.length; i++) {
+            final Host<String, ListenableAsyncCloseable> host = new Host<>("address-" + i, null,
+                    DISABLED_HEALTH_CHECK_CONFIG);
+            host.weight(weights[i]);
+            hosts.add(host);
+        }
+        return new HostList<>(hosts);
+    }
+}
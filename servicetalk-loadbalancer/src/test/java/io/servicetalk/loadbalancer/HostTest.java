@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.loadbalancer.Host.ConnectionEntry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HostTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private static final long BASE_EJECTION_MILLIS = 100;
+
+    private final Host<String, ListenableAsyncCloseable> host = new Host<>("address", null,
+            new HealthCheckConfig(2, MILLISECONDS.toNanos(BASE_EJECTION_MILLIS), SECONDS.toNanos(10)));
+
+    @Test
+    public void failuresBelowThresholdDoNotEject() {
+        host.onRequestFailure();
+        assertTrue(host.isSelectable());
+        host.onRequestSuccess();
+        host.onRequestFailure();
+        assertTrue(host.isSelectable());
+    }
+
+    @Test
+    public void consecutiveRequestFailuresEject() {
+        host.onRequestFailure();
+        host.onRequestFailure();
+        assertFalse(host.isSelectable());
+    }
+
+    @Test
+    public void consecutiveConnectFailuresEject() {
+        host.onConnectFailure();
+        host.onConnectSuccess();
+        host.onConnectFailure();
+        assertTrue(host.isSelectable());
+        host.onConnectFailure();
+        assertFalse(host.isSelectable());
+    }
+
+    @Test
+    public void disabledHealthCheckNeverEjects() {
+        final Host<String, ListenableAsyncCloseable> host = new Host<>("address", null,
+                HealthCheckConfig.DISABLED_HEALTH_CHECK_CONFIG);
+        for (int i = 0; i < 100; i++) {
+            host.onRequestFailure();
+            host.onConnectFailure();
+        }
+        assertTrue(host.isSelectable());
+    }
+
+    @Test
+    public void singleProbeAfterEjection() throws Exception {
+        ejectAndWait();
+        assertTrue(host.isSelectable());
+        // Only one selection probes the host until the probe reports its outcome.
+        assertFalse(host.isSelectable());
+    }
+
+    @Test
+    public void successfulProbeRestoresHost() throws Exception {
+        ejectAndWait();
+        assertTrue(host.isSelectable());
+        host.onRequestSuccess();
+        assertTrue(host.isSelectable());
+        assertTrue(host.isSelectable());
+    }
+
+    @Test
+    public void failedProbeEjectsForLonger() throws Exception {
+        ejectAndWait();
+        assertTrue(host.isSelectable());
+        host.onRequestFailure();
+        assertFalse(host.isSelectable());
+        // The second ejection lasts twice as long as the first one.
+        Thread.sleep(BASE_EJECTION_MILLIS + 10);
+        assertFalse(host.isSelectable());
+        Thread.sleep(BASE_EJECTION_MILLIS + 10);
+        assertTrue(host.isSelectable());
+    }
+
+    @Test
+    public void addedConnectionIsAvailable() {
+        final ListenableAsyncCloseable connection = newConnection();
+        assertTrue(host.addConnection(host.newEntry(connection)));
+        assertThat(host.pollAvailable(__ -> true), is(connection));
+        // Accepted connections stay available, they may support concurrent requests.
+        assertThat(host.pollAvailable(__ -> true), is(connection));
+    }
+
+    @Test
+    public void rejectedConnectionIsAvailableAgainAfterRequestEnds() {
+        final ListenableAsyncCloseable connection = newConnection();
+        final ConnectionEntry<ListenableAsyncCloseable> entry = host.newEntry(connection);
+        final AtomicBoolean busy = new AtomicBoolean();
+        final Predicate<ListenableAsyncCloseable> selector = __ -> busy.compareAndSet(false, true);
+        assertTrue(host.addConnection(entry));
+
+        assertThat(host.pollAvailable(selector), is(connection));
+        assertThat(host.pollAvailable(selector), is(nullValue()));
+        // The rejected connection is not polled again until a request ends.
+        busy.set(false);
+        assertThat(host.pollAvailable(selector), is(nullValue()));
+
+        entry.onRequestSuccess();
+        assertThat(host.pollAvailable(selector), is(connection));
+    }
+
+    @Test
+    public void inactiveHostHasNoAvailableConnections() {
+        assertTrue(host.addConnection(host.newEntry(newConnection())));
+        host.markInactive();
+        assertThat(host.pollAvailable(__ -> true), is(nullValue()));
+    }
+
+    private static ListenableAsyncCloseable newConnection() {
+        final ListenableAsyncCloseable connection = mock(ListenableAsyncCloseable.class);
+        when(connection.onClose()).thenReturn(Completable.never());
+        when(connection.closeAsync()).thenReturn(Completable.completed());
+        return connection;
+    }
+
+    private void ejectAndWait() throws InterruptedException {
+        host.onRequestFailure();
+        host.onRequestFailure();
+        assertFalse(host.isSelectable());
+        Thread.sleep(BASE_EJECTION_MILLIS + 10);
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.NoAvailableHostException;
+import io.servicetalk.client.api.SelectionHistory;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.CompletableSource.Processor;
+import io.servicetalk.concurrent.api.AsyncContext;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestPublisher;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import static io.servicetalk.client.api.SelectionHistory.SELECTION_HISTORY_KEY;
+import static io.servicetalk.concurrent.api.BlockingTestUtils.awaitIndefinitely;
+import static io.servicetalk.concurrent.api.Processors.newCompletableProcessor;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.concurrent.api.SourceAdapters.fromSource;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class P2CLoadBalancerTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final TestPublisher<ServiceDiscovererEvent<String>> serviceDiscoveryPublisher = new TestPublisher<>();
+    private final List<TestLoadBalancedConnection> connectionsCreated = new CopyOnWriteArrayList<>();
+
+    private P2CLoadBalancer<String, TestLoadBalancedConnection> lb;
+    private DelegatingConnectionFactory connectionFactory;
+
+    private static <T> Predicate<T> any() {
+        return __ -> true;
+    }
+
+    @Before
+    public void initialize() {
+        connectionFactory = new DelegatingConnectionFactory();
+        lb = new P2CLoadBalancer<>(serviceDiscoveryPublisher, connectionFactory, String::compareTo);
+    }
+
+    @After
+    public void closeLoadBalancer() throws Exception {
+        awaitIndefinitely(lb.closeAsync());
+        awaitIndefinitely(lb.onClose());
+    }
+
+    @Test
+    public void noServiceDiscoveryEvent() throws Exception {
+        try {
+            awaitIndefinitely(lb.selectConnection(any()));
+            fail();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(NoAvailableHostException.class));
+        }
+        assertThat(connectionsCreated, is(empty()));
+    }
+
+    @Test
+    public void singleHostIsAlwaysSelected() throws Exception {
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        for (int i = 0; i < 10; i++) {
+            TestLoadBalancedConnection connection = awaitIndefinitely(lb.selectConnection(any()));
+            assert connection != null;
+            assertThat(connection.address(), is("address-1"));
+        }
+        assertThat(connectionsCreated, hasSize(1));
+    }
+
+    @Test
+    public void hostsWithoutConnectionsArePreferred() throws Exception {
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        sendServiceDiscoveryEvents(upEvent("address-2"));
+        // Connections score lower than a host without connections, so both hosts get a connection before any reuse.
+        connectionFactory.score = 0.5f;
+        awaitIndefinitely(lb.selectConnection(any()));
+        awaitIndefinitely(lb.selectConnection(any()));
+
+        @SuppressWarnings("unchecked")
+        List<Map.Entry<String, List<TestLoadBalancedConnection>>> activeAddresses = lb.activeAddresses();
+        assertThat(activeAddresses, contains(
+                both(hasProperty("key", is("address-1"))).and(hasProperty("value", hasSize(1))),
+                both(hasProperty("key", is("address-2"))).and(hasProperty("value", hasSize(1)))));
+    }
+
+    @Test
+    public void higherScoreHostIsSelected() throws Exception {
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        sendServiceDiscoveryEvents(upEvent("address-2"));
+        connectionFactory.score = 0.1f;
+        TestLoadBalancedConnection first = awaitIndefinitely(lb.selectConnection(any()));
+        connectionFactory.score = 0.9f;
+        TestLoadBalancedConnection second = awaitIndefinitely(lb.selectConnection(any()));
+        assert first != null && second != null;
+        assertThat(second.address(), is(first.address().equals("address-1") ? "address-2" : "address-1"));
+
+        // With two hosts both are always compared, so the higher score host must always win.
+        for (int i = 0; i < 10; i++) {
+            TestLoadBalancedConnection connection = awaitIndefinitely(lb.selectConnection(any()));
+            assertThat(connection, is(second));
+        }
+        assertThat(connectionsCreated, hasSize(2));
+    }
+
+    @Test
+    public void unavailableHostIsNotSelected() throws Exception {
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        sendServiceDiscoveryEvents(upEvent("address-2"));
+        sendServiceDiscoveryEvents(downEvent("address-1"));
+        for (int i = 0; i < 10; i++) {
+            TestLoadBalancedConnection connection = awaitIndefinitely(lb.selectConnection(any()));
+            assert connection != null;
+            assertThat(connection.address(), is("address-2"));
+        }
+    }
+
+    @Test
+    public void selectionHistoryAvoidsSelectedHost() throws Exception {
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        sendServiceDiscoveryEvents(upEvent("address-2"));
+        connectionFactory.score = 0.1f;
+        TestLoadBalancedConnection first = awaitIndefinitely(lb.selectConnection(any()));
+        connectionFactory.score = 0.9f;
+        TestLoadBalancedConnection second = awaitIndefinitely(lb.selectConnection(any()));
+        assert first != null && second != null;
+
+        // Without history the higher score host always wins, with history the other host is selected next.
+        final SelectionHistory history = new SelectionHistory();
+        AsyncContext.put(SELECTION_HISTORY_KEY, history);
+        try {
+            TestLoadBalancedConnection connection = awaitIndefinitely(lb.selectConnection(any()));
+            assertThat(connection, is(second));
+            connection = awaitIndefinitely(lb.selectConnection(any()));
+            assertThat(connection, is(first));
+            assertTrue(history.wasSelected("address-1"));
+            assertTrue(history.wasSelected("address-2"));
+        } finally {
+            AsyncContext.remove(SELECTION_HISTORY_KEY);
+        }
+    }
+
+    @Test
+    public void closeClosesConnectionFactory() throws Exception {
+        awaitIndefinitely(lb.closeAsync());
+        assertTrue("ConnectionFactory not closed.", connectionFactory.isClosed());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sendServiceDiscoveryEvents(final ServiceDiscovererEvent... events) {
+        serviceDiscoveryPublisher.onNext((ServiceDiscovererEvent<String>[]) events);
+    }
+
+    private static ServiceDiscovererEvent upEvent(final String address) {
+        return new DefaultServiceDiscovererEvent<>(address, true);
+    }
+
+    private static ServiceDiscovererEvent downEvent(final String address) {
+        return new DefaultServiceDiscovererEvent<>(address, false);
+    }
+
+    private interface TestLoadBalancedConnection extends ListenableAsyncCloseable, LoadBalancedConnection {
+        String address();
+    }
+
+    private final class DelegatingConnectionFactory implements ConnectionFactory<String, TestLoadBalancedConnection> {
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+        volatile float score = 1f;
+
+        @Override
+        public Single<TestLoadBalancedConnection> newConnection(String address) {
+            final TestLoadBalancedConnection cnx = mock(TestLoadBalancedConnection.class);
+            final Processor closeCompletable = newCompletableProcessor();
+            when(cnx.closeAsync()).thenAnswer(__ -> {
+                closeCompletable.onComplete();
+                return closeCompletable;
+            });
+            when(cnx.onClose()).thenReturn(fromSource(closeCompletable));
+            when(cnx.address()).thenReturn(address);
+            when(cnx.score()).thenReturn(score);
+            when(cnx.toString()).thenReturn(address + '@' + cnx.hashCode());
+            connectionsCreated.add(cnx);
+            return succeeded(cnx);
+        }
+
+        @Override
+        public Completable onClose() {
+            return Completable.completed();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return Completable.completed().beforeOnSubscribe(cancellable -> closed.set(true));
+        }
+
+        boolean isClosed() {
+            return closed.get();
+        }
+    }
+}
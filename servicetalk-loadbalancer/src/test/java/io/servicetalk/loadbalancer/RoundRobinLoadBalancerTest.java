@@ -42,6 +42,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.Timeout;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -55,6 +56,7 @@ import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -69,11 +71,13 @@ import static io.servicetalk.concurrent.api.SourceAdapters.fromSource;
 import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
 import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
 import static io.servicetalk.concurrent.internal.ServiceTalkTestTimeout.DEFAULT_TIMEOUT_SECONDS;
+import static io.servicetalk.loadbalancer.HealthCheckConfig.DISABLED_HEALTH_CHECK_CONFIG;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.toSet;
 import static org.hamcrest.Matchers.both;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasProperty;
@@ -81,6 +85,8 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -353,6 +359,109 @@ public class RoundRobinLoadBalancerTest {
         assertThat(connectionsCreated, hasSize(1));
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void minConnectionsArePreWarmed() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+
+        lb = new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher, connectionFactory, String::compareTo, 3,
+                Integer.MAX_VALUE);
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+
+        assertThat(connectionsCreated, hasSize(3));
+        assertThat(lb.activeAddresses(),
+                contains(both(hasProperty("key", is("address-1"))).and(hasProperty("value", hasSize(3)))));
+
+        // A closed connection is replaced to keep the minimum.
+        awaitIndefinitely(connectionsCreated.get(0).closeAsync());
+        assertThat(connectionsCreated, hasSize(4));
+        assertThat(lb.activeAddresses(),
+                contains(both(hasProperty("key", is("address-1"))).and(hasProperty("value", hasSize(3)))));
+    }
+
+    @Test
+    public void concurrentConnectsAreLimited() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+
+        connectionFactory = new DelegatingConnectionFactory(this::newUnrealizedConnectionSingle);
+        lb = new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher, connectionFactory, String::compareTo, 0, 1);
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+
+        final Future<TestLoadBalancedConnection> first = lb.selectConnection(any()).toFuture();
+        final Future<TestLoadBalancedConnection> second = lb.selectConnection(any()).toFuture();
+        // The second selection waits for the pending connect instead of opening another connection.
+        assertThat(connectionRealizers, hasSize(1));
+        assertFalse(second.isDone());
+
+        connectionRealizers.poll().run();
+        assertThat(second.get(), is(first.get()));
+        assertThat(connectionsCreated, hasSize(1));
+    }
+
+    @Test
+    public void localHostsArePreferred() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+
+        lb = newLocalityAwareLoadBalancer(Integer.MAX_VALUE);
+        sendServiceDiscoveryEvents(upEvent("address-1", "zone-b"), upEvent("address-2", "zone-a"),
+                upEvent("address-3", "zone-b"));
+        for (int i = 0; i < 5; i++) {
+            final TestLoadBalancedConnection connection = awaitIndefinitely(lb.selectConnection(any()));
+            assert connection != null;
+            assertThat(connection.address(), is("address-2"));
+        }
+
+        sendServiceDiscoveryEvents(downEvent("address-2"));
+        final TestLoadBalancedConnection connection = awaitIndefinitely(lb.selectConnection(any()));
+        assert connection != null;
+        assertThat(connection.address(), is(not("address-2")));
+    }
+
+    @Test
+    public void saturatedLocalHostSpillsOver() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+
+        connectionFactory = new DelegatingConnectionFactory(this::newUnrealizedConnectionSingle);
+        lb = newLocalityAwareLoadBalancer(1);
+        sendServiceDiscoveryEvents(upEvent("address-1", "zone-a"), upEvent("address-2", "zone-b"));
+
+        final Future<TestLoadBalancedConnection> local = lb.selectConnection(any()).toFuture();
+        // The local host can't open another connection while the first one is pending.
+        final Future<TestLoadBalancedConnection> remote = lb.selectConnection(any()).toFuture();
+        assertThat(connectionRealizers, hasSize(2));
+        connectionRealizers.forEach(Runnable::run);
+        assertThat(local.get().address(), is("address-1"));
+        assertThat(remote.get().address(), is("address-2"));
+    }
+
+    @Test
+    public void weightedHosts() throws Exception {
+        sendServiceDiscoveryEvents(new DefaultServiceDiscovererEvent<>("address-1", true, null, 3),
+                upEvent("address-2"));
+        int heavy = 0;
+        for (int i = 0; i < 8; i++) {
+            final TestLoadBalancedConnection connection = awaitIndefinitely(lb.selectConnection(any()));
+            assert connection != null;
+            if (connection.address().equals("address-1")) {
+                ++heavy;
+            }
+        }
+        assertThat(heavy, is(6));
+    }
+
+    @Test
+    public void invalidWeightsAreReplacedByDefault() throws Exception {
+        sendServiceDiscoveryEvents(weightedUpEvent("address-1", 0), weightedUpEvent("address-2", -3),
+                upEvent("address-3"));
+        final Set<String> selected = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            final TestLoadBalancedConnection connection = awaitIndefinitely(lb.selectConnection(any()));
+            assert connection != null;
+            selected.add(connection.address());
+        }
+        assertThat(selected, containsInAnyOrder("address-1", "address-2", "address-3"));
+    }
+
     @Test
     public void connectionFactoryErrorPropagation() throws Exception {
         serviceDiscoveryPublisher.onComplete();
@@ -395,6 +504,30 @@ public class RoundRobinLoadBalancerTest {
         return new DefaultServiceDiscovererEvent<>(address, true);
     }
 
+    private static ServiceDiscovererEvent weightedUpEvent(final String address, final int weight) {
+        // DefaultServiceDiscovererEvent rejects invalid weights, unlike custom ServiceDiscoverers.
+        return new ServiceDiscovererEvent<String>() {
+            @Override
+            public String address() {
+                return address;
+            }
+
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+
+            @Override
+            public int weight() {
+                return weight;
+            }
+        };
+    }
+
+    private static ServiceDiscovererEvent upEvent(final String address, final String locality) {
+        return new DefaultServiceDiscovererEvent<>(address, true, locality);
+    }
+
     private static ServiceDiscovererEvent downEvent(final String address) {
         return new DefaultServiceDiscovererEvent<>(address, false);
     }
@@ -404,6 +537,12 @@ public class RoundRobinLoadBalancerTest {
         return new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher, connectionFactory, String::compareTo);
     }
 
+    private RoundRobinLoadBalancer<String, TestLoadBalancedConnection> newLocalityAwareLoadBalancer(
+            final int maxConcurrentConnectsPerHost) {
+        return new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher, connectionFactory, String::compareTo,
+                DISABLED_HEALTH_CHECK_CONFIG, new ConnectionPoolConfig(0, maxConcurrentConnectsPerHost), "zone-a");
+    }
+
     private LegacyTestSingle<TestLoadBalancedConnection> newUnrealizedConnectionSingle(final String address) {
         final LegacyTestSingle<TestLoadBalancedConnection> unrealizedCnx = new LegacyTestSingle<>();
         connectionRealizers.offer(() -> unrealizedCnx.onSuccess(newConnection(address)));
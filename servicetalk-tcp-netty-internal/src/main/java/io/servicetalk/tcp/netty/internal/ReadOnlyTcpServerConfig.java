@@ -38,6 +38,9 @@ public final class ReadOnlyTcpServerConfig
     @Nullable
     private final DomainNameMapping<SslContext> mappings;
     private final int backlog;
+    private final int maxConnections;
+    private final int maxAcceptsPerAddress;
+    private final long acceptRatePeriodNanos;
 
     /**
      * Copy constructor.
@@ -66,6 +69,9 @@ public final class ReadOnlyTcpServerConfig
             mappings = null;
         }
         backlog = from.backlog();
+        maxConnections = from.maxConnections();
+        maxAcceptsPerAddress = from.maxAcceptsPerAddress();
+        acceptRatePeriodNanos = from.acceptRatePeriodNanos();
     }
 
     @Nullable
@@ -92,4 +98,33 @@ public final class ReadOnlyTcpServerConfig
     public int backlog() {
         return backlog;
     }
+
+    /**
+     * Returns the maximum number of concurrently open connections.
+     *
+     * @return maximum number of concurrently open connections, {@link Integer#MAX_VALUE} if there is no limit
+     */
+    public int maxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Returns the maximum number of connections accepted from the same remote IP address per
+     * {@link #acceptRatePeriodNanos()}.
+     *
+     * @return maximum number of connections accepted from the same remote IP address per
+     * {@link #acceptRatePeriodNanos()}, {@link Integer#MAX_VALUE} if there is no limit
+     */
+    public int maxAcceptsPerAddress() {
+        return maxAcceptsPerAddress;
+    }
+
+    /**
+     * Returns the period over which {@link #maxAcceptsPerAddress()} applies.
+     *
+     * @return period in nanoseconds over which {@link #maxAcceptsPerAddress()} applies
+     */
+    public long acceptRatePeriodNanos() {
+        return acceptRatePeriodNanos;
+    }
 }
@@ -23,6 +23,7 @@ import io.servicetalk.transport.api.ConnectionAcceptor;
 import io.servicetalk.transport.api.ConnectionContext;
 import io.servicetalk.transport.api.ExecutionContext;
 import io.servicetalk.transport.api.ServerContext;
+import io.servicetalk.transport.netty.internal.AcceptLimiter;
 import io.servicetalk.transport.netty.internal.BuilderUtils;
 import io.servicetalk.transport.netty.internal.ChannelSet;
 import io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutor;
@@ -48,6 +49,7 @@ import javax.annotation.Nullable;
 
 import static io.servicetalk.concurrent.api.Single.defer;
 import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.transport.netty.internal.AcceptLimiter.newAcceptLimiter;
 import static io.servicetalk.transport.netty.internal.BuilderUtils.toNettyAddress;
 import static io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutors.toEventLoopAwareNettyIoExecutor;
 import static java.util.Objects.requireNonNull;
@@ -93,11 +95,23 @@ public final class TcpServerBinder {
                 listenAddress.getClass());
 
         ChannelSet channelSet = new ChannelSet(executionContext.executor());
+        AcceptLimiter acceptLimiter = newAcceptLimiter(channelSet, config.maxConnections(),
+                config.maxAcceptsPerAddress(), config.acceptRatePeriodNanos());
         bs.handler(new ChannelInboundHandlerAdapter() {
             @Override
             public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
-                if (msg instanceof Channel && !channelSet.addIfAbsent((Channel) msg)) {
-                    LOGGER.warn("Channel ({}) not added to ChannelSet", msg);
+                if (msg instanceof Channel) {
+                    final Channel channel = (Channel) msg;
+                    if (acceptLimiter != null && !acceptLimiter.tryAccept(channel)) {
+                        // The channel is not registered yet and has no handlers (e.g. TLS), so closing it here is
+                        // as cheap as rejecting a connection gets.
+                        LOGGER.debug("Channel ({}) rejected, connection limit exceeded", channel);
+                        channel.unsafe().closeForcibly();
+                        return;
+                    }
+                    if (!channelSet.addIfAbsent(channel)) {
+                        LOGGER.warn("Channel ({}) not added to ChannelSet", msg);
+                    }
                 }
                 ctx.fireChannelRead(msg);
             }
@@ -19,6 +19,7 @@ import io.servicetalk.transport.netty.internal.ReadOnlyServerSecurityConfig;
 
 import io.netty.util.NetUtil;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +35,9 @@ public final class TcpServerConfig extends AbstractTcpConfig<ReadOnlyServerSecur
     @Nullable
     private Map<String, ReadOnlyServerSecurityConfig> sniConfigs;
     private int backlog = NetUtil.SOMAXCONN;
+    private int maxConnections = Integer.MAX_VALUE;
+    private int maxAcceptsPerAddress = Integer.MAX_VALUE;
+    private long acceptRatePeriodNanos;
 
     @Nullable
     Map<String, ReadOnlyServerSecurityConfig> sniConfigs() {
@@ -44,6 +48,18 @@ public final class TcpServerConfig extends AbstractTcpConfig<ReadOnlyServerSecur
         return backlog;
     }
 
+    int maxConnections() {
+        return maxConnections;
+    }
+
+    int maxAcceptsPerAddress() {
+        return maxAcceptsPerAddress;
+    }
+
+    long acceptRatePeriodNanos() {
+        return acceptRatePeriodNanos;
+    }
+
     /**
      * Add security related config.
      *
@@ -78,6 +94,41 @@ public final class TcpServerConfig extends AbstractTcpConfig<ReadOnlyServerSecur
         return this;
     }
 
+    /**
+     * Sets the maximum number of concurrently open connections. Connections accepted beyond this limit are closed
+     * immediately, before any protocol (e.g. TLS) processing is done.
+     *
+     * @param maxConnections the maximum number of concurrently open connections
+     * @return {@code this}
+     */
+    public TcpServerConfig maxConnections(final int maxConnections) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("maxConnections must be > 0");
+        }
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of connections accepted from the same remote IP address within {@code period}.
+     * Connections accepted beyond this rate are closed immediately, before any protocol (e.g. TLS) processing is done.
+     *
+     * @param maxAccepts the maximum number of connections accepted from the same remote IP address per {@code period}
+     * @param period the period over which {@code maxAccepts} applies
+     * @return {@code this}
+     */
+    public TcpServerConfig maxAcceptRatePerAddress(final int maxAccepts, final Duration period) {
+        if (maxAccepts <= 0) {
+            throw new IllegalArgumentException("maxAccepts must be > 0");
+        }
+        if (period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("period must be > 0");
+        }
+        this.maxAcceptsPerAddress = maxAccepts;
+        this.acceptRatePeriodNanos = period.toNanos();
+        return this;
+    }
+
     @Override
     public ReadOnlyTcpServerConfig asReadOnly(final List<String> supportedAlpnProtocols) {
         return new ReadOnlyTcpServerConfig(this, supportedAlpnProtocols);
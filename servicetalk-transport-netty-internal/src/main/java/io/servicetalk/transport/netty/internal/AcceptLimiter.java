@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty.internal;
+
+import io.netty.channel.Channel;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+import static java.lang.Math.max;
+
+/**
+ * Limits the connections accepted by a server, both by the total number of open connections and by the rate at which
+ * connections are accepted from each remote {@link InetAddress}.
+ * <p>
+ * This is consulted for each accepted {@link Channel} before it is registered and before any handlers (e.g. TLS) are
+ * added to its pipeline, so rejected connections can be closed without doing any protocol work. Instances are not
+ * thread safe and are expected to be used from the event loop of the server {@link Channel}.
+ */
+public final class AcceptLimiter {
+    private static final int MIN_SWEEP_THRESHOLD = 1024;
+
+    private final ChannelSet channelSet;
+    private final int maxConnections;
+    private final int maxAcceptsPerAddress;
+    private final long periodNanos;
+    private final Map<InetAddress, AcceptWindow> windows = new HashMap<>();
+    private int sweepThreshold = MIN_SWEEP_THRESHOLD;
+
+    private AcceptLimiter(final ChannelSet channelSet, final int maxConnections, final int maxAcceptsPerAddress,
+                          final long periodNanos) {
+        this.channelSet = channelSet;
+        this.maxConnections = maxConnections;
+        this.maxAcceptsPerAddress = maxAcceptsPerAddress;
+        this.periodNanos = periodNanos;
+    }
+
+    /**
+     * Creates a new {@link AcceptLimiter}, if any limit is configured.
+     *
+     * @param channelSet {@link ChannelSet} which tracks the open connections of the server.
+     * @param maxConnections Maximum number of concurrently open connections, {@link Integer#MAX_VALUE} for no limit.
+     * @param maxAcceptsPerAddress Maximum number of connections accepted from the same remote {@link InetAddress}
+     * within {@code periodNanos}, {@link Integer#MAX_VALUE} for no limit.
+     * @param periodNanos The period in nanoseconds over which {@code maxAcceptsPerAddress} applies.
+     * @return a new {@link AcceptLimiter}, or {@code null} if no limit is configured.
+     */
+    @Nullable
+    public static AcceptLimiter newAcceptLimiter(final ChannelSet channelSet, final int maxConnections,
+                                                 final int maxAcceptsPerAddress, final long periodNanos) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("maxConnections: " + maxConnections + " (expected >0)");
+        }
+        if (maxAcceptsPerAddress <= 0) {
+            throw new IllegalArgumentException("maxAcceptsPerAddress: " + maxAcceptsPerAddress + " (expected >0)");
+        }
+        if (maxConnections == Integer.MAX_VALUE && maxAcceptsPerAddress == Integer.MAX_VALUE) {
+            return null;
+        }
+        if (maxAcceptsPerAddress != Integer.MAX_VALUE && periodNanos <= 0) {
+            throw new IllegalArgumentException("periodNanos: " + periodNanos + " (expected >0)");
+        }
+        return new AcceptLimiter(channelSet, maxConnections, maxAcceptsPerAddress, periodNanos);
+    }
+
+    /**
+     * Determines if a newly accepted {@link Channel} is within the configured limits.
+     *
+     * @param channel The newly accepted {@link Channel}, not yet registered or added to the {@link ChannelSet}.
+     * @return {@code true} if the {@link Channel} should be accepted, {@code false} if it should be closed.
+     */
+    public boolean tryAccept(final Channel channel) {
+        return tryAccept(channelSet.size(), channel.remoteAddress(), System.nanoTime());
+    }
+
+    boolean tryAccept(final int openConnections, @Nullable final SocketAddress remoteAddress, final long nowNanos) {
+        if (openConnections >= maxConnections) {
+            return false;
+        }
+        if (maxAcceptsPerAddress == Integer.MAX_VALUE || !(remoteAddress instanceof InetSocketAddress)) {
+            return true;
+        }
+        final InetAddress address = ((InetSocketAddress) remoteAddress).getAddress();
+        if (address == null) {
+            return true;
+        }
+        final AcceptWindow window = windows.get(address);
+        if (window == null) {
+            if (windows.size() >= sweepThreshold) {
+                sweep(nowNanos);
+            }
+            windows.put(address, new AcceptWindow(nowNanos));
+            return true;
+        }
+        if (nowNanos - window.startNanos >= periodNanos) {
+            window.startNanos = nowNanos;
+            window.accepted = 1;
+            return true;
+        }
+        if (window.accepted < maxAcceptsPerAddress) {
+            ++window.accepted;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes windows which have expired so the tracked addresses don't grow without bound.
+     *
+     * @param nowNanos The current time in nanoseconds.
+     */
+    private void sweep(final long nowNanos) {
+        final Iterator<AcceptWindow> itr = windows.values().iterator();
+        while (itr.hasNext()) {
+            if (nowNanos - itr.next().startNanos >= periodNanos) {
+                itr.remove();
+            }
+        }
+        // If most addresses are still active, back off so that we don't sweep on every new address.
+        sweepThreshold = max(MIN_SWEEP_THRESHOLD, windows.size() << 1);
+    }
+
+    private static final class AcceptWindow {
+        long startNanos;
+        int accepted;
+
+        AcceptWindow(final long startNanos) {
+            this.startNanos = startNanos;
+            accepted = 1;
+        }
+    }
+}
@@ -100,6 +100,15 @@ public final class ChannelSet implements ListenableAsyncCloseable {
         return added;
     }
 
+    /**
+     * Returns the number of {@link Channel}s currently in this {@link ChannelSet}.
+     *
+     * @return the number of {@link Channel}s currently in this {@link ChannelSet}.
+     */
+    public int size() {
+        return channelMap.size();
+    }
+
     @Override
     public Completable closeAsync() {
         return new SubscribableCompletable() {
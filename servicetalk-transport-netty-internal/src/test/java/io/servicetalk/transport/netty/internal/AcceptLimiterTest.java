@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty.internal;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.net.InetSocketAddress;
+
+import static io.servicetalk.concurrent.api.Executors.immediate;
+import static io.servicetalk.transport.netty.internal.AcceptLimiter.newAcceptLimiter;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class AcceptLimiterTest {
+
+    private static final long PERIOD_NANOS = SECONDS.toNanos(1);
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final ChannelSet channelSet = new ChannelSet(immediate());
+    private final InetSocketAddress address1 = new InetSocketAddress("127.0.0.1", 1234);
+    private final InetSocketAddress address2 = new InetSocketAddress("127.0.0.2", 1234);
+
+    @Test
+    public void noLimitsConfigured() {
+        assertThat(newAcceptLimiter(channelSet, Integer.MAX_VALUE, Integer.MAX_VALUE, 0), is(nullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPeriod() {
+        newAcceptLimiter(channelSet, Integer.MAX_VALUE, 1, 0);
+    }
+
+    @Test
+    public void maxConnections() {
+        AcceptLimiter limiter = newLimiter(2, Integer.MAX_VALUE);
+        assertThat(limiter.tryAccept(0, address1, 0), is(true));
+        assertThat(limiter.tryAccept(1, address1, 0), is(true));
+        assertThat(limiter.tryAccept(2, address2, 0), is(false));
+        assertThat(limiter.tryAccept(1, address2, 0), is(true));
+    }
+
+    @Test
+    public void acceptRatePerAddress() {
+        AcceptLimiter limiter = newLimiter(Integer.MAX_VALUE, 2);
+        assertThat(limiter.tryAccept(0, address1, 0), is(true));
+        assertThat(limiter.tryAccept(0, address1, 1), is(true));
+        assertThat(limiter.tryAccept(0, address1, 2), is(false));
+        // Other addresses are tracked independently.
+        assertThat(limiter.tryAccept(0, address2, 2), is(true));
+        // A new window starts once the period has elapsed.
+        assertThat(limiter.tryAccept(0, address1, PERIOD_NANOS), is(true));
+        assertThat(limiter.tryAccept(0, address1, PERIOD_NANOS + 1), is(true));
+        assertThat(limiter.tryAccept(0, address1, PERIOD_NANOS + 2), is(false));
+    }
+
+    @Test
+    public void nonInetAddressNotRateLimited() {
+        AcceptLimiter limiter = newLimiter(Integer.MAX_VALUE, 1);
+        assertThat(limiter.tryAccept(0, null, 0), is(true));
+        assertThat(limiter.tryAccept(0, null, 0), is(true));
+    }
+
+    @Test
+    public void expiredAddressesAreSwept() {
+        AcceptLimiter limiter = newLimiter(Integer.MAX_VALUE, 1);
+        for (int i = 0; i < 2048; ++i) {
+            assertThat(limiter.tryAccept(0, new InetSocketAddress("10.0." + (i >> 8) + '.' + (i & 0xFF), 1), 0),
+                    is(true));
+        }
+        // Sweeping expired addresses must not reset the window of active ones.
+        InetSocketAddress active = new InetSocketAddress("10.1.0.0", 1);
+        assertThat(limiter.tryAccept(0, active, PERIOD_NANOS), is(true));
+        for (int i = 0; i < 2048; ++i) {
+            assertThat(limiter.tryAccept(0, new InetSocketAddress("10.2." + (i >> 8) + '.' + (i & 0xFF), 1),
+                    PERIOD_NANOS), is(true));
+        }
+        assertThat(limiter.tryAccept(0, active, PERIOD_NANOS), is(false));
+    }
+
+    private AcceptLimiter newLimiter(int maxConnections, int maxAcceptsPerAddress) {
+        AcceptLimiter limiter = newAcceptLimiter(channelSet, maxConnections, maxAcceptsPerAddress, PERIOD_NANOS);
+        assertThat(limiter, is(notNullValue()));
+        return limiter;
+    }
+}